@@ -0,0 +1,98 @@
+package com.tgcannabis.edge_alerts.benchmark;
+
+import com.tgcannabis.edge_alerts.alerts.AlertProcessor;
+import com.tgcannabis.edge_alerts.alerts.AlertState;
+import com.tgcannabis.edge_alerts.alerts.AlertStateStore;
+import com.tgcannabis.edge_alerts.alerts.SensorKey;
+import com.tgcannabis.edge_alerts.model.SensorData;
+import com.tgcannabis.edge_alerts.model.SensorThreshold;
+import org.openjdk.jmh.annotations.*;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+import static com.tgcannabis.edge_alerts.benchmark.BenchmarkFixtures.*;
+
+/**
+ * Measures {@link AlertProcessor#accept(String, byte[])} in steady state: decoding, the state
+ * lookup, the window update and the threshold check, for different window sizes and numbers of
+ * tracked sensors.
+ * <p>
+ * Every sensor sends one reading per simulated second and the time threshold is {@code windowSize}
+ * seconds, so each window holds about {@code windowSize} readings and every reading evicts one.
+ * The clock advances once all sensors have reported. Readings stay in range, so no alerts are
+ * published; see {@link AlertSerializationBenchmark} for the publishing cost.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Dorg.slf4j.simpleLogger.defaultLogLevel=error")
+public class AlertProcessorBenchmark {
+    private static final long START = 1_700_000_000L;
+    private static final int TIMESTAMP_DIGITS = 10;
+
+    @Param({"10", "300", "3000"})
+    public int windowSize;
+
+    @Param({"1", "1000", "10000"})
+    public int sensors;
+
+    private AlertProcessor processor;
+    private ManualClock clock;
+    private String[] topics;
+    private byte[][] payloads;
+    private int[] timestampOffsets;
+    private int sensor;
+    private long now;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        SensorThreshold threshold = new SensorThreshold(10.0, 30.0, windowSize, 50);
+        AlertStateStore stateStore = new AlertStateStore(sensors * 4, Long.MAX_VALUE / 2); // Headroom so no stripe evicts
+        processor = new AlertProcessor(configLoader(threshold), stateStore, new StubMqttClient(0));
+        clock = new ManualClock(START);
+        processor.setClock(clock);
+        now = START;
+
+        topics = new String[sensors];
+        payloads = new byte[sensors][];
+        timestampOffsets = new int[sensors];
+        for (int s = 0; s < sensors; s++) {
+            SensorData reading = reading(s, 20.0, START);
+            topics[s] = topic(s);
+            payloads[s] = json(reading);
+            timestampOffsets[s] = new String(payloads[s], StandardCharsets.UTF_8).indexOf(Long.toString(START));
+
+            // Start from full windows whose wait period has already passed
+            AlertState state = stateStore.getOrCreate(SensorKey.of(reading), START);
+            for (int i = windowSize; i > 0; i--) {
+                state.getWindow().add(START - i, 20.0, false);
+            }
+            state.setFirstEvaluationTime(START - windowSize);
+        }
+    }
+
+    @Benchmark
+    public void accept() {
+        byte[] payload = payloads[sensor];
+        writeTimestamp(payload, timestampOffsets[sensor], now);
+        processor.accept(topics[sensor], payload);
+
+        if (++sensor == sensors) {
+            sensor = 0;
+            clock.set(++now);
+        }
+    }
+
+    /**
+     * Overwrites the fixed-width epoch seconds in a payload in place.
+     */
+    private static void writeTimestamp(byte[] payload, int offset, long timestamp) {
+        for (int i = offset + TIMESTAMP_DIGITS - 1; i >= offset; i--) {
+            payload[i] = (byte) ('0' + timestamp % 10);
+            timestamp /= 10;
+        }
+    }
+}
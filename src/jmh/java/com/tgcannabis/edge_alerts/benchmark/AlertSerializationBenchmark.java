@@ -0,0 +1,43 @@
+package com.tgcannabis.edge_alerts.benchmark;
+
+import com.google.gson.Gson;
+import com.tgcannabis.edge_alerts.model.AlertMessage;
+import com.tgcannabis.edge_alerts.publisher.MqttAlertPublisher;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+import static com.tgcannabis.edge_alerts.benchmark.BenchmarkFixtures.StubMqttClient;
+
+/**
+ * Measures turning an alert into an MQTT message: JSON serialization alone, and a full synchronous
+ * publish through {@link MqttAlertPublisher} to a stub client that acknowledges immediately.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Dorg.slf4j.simpleLogger.defaultLogLevel=error")
+public class AlertSerializationBenchmark {
+    private final Gson gson = new Gson();
+    private final AlertMessage alert = new AlertMessage("temperature", "room-1", "sensor-1", 35.5,
+            "TOO_HIGH", 300, "temperature has been TOO_HIGH for the last 300 seconds");
+
+    private MqttAlertPublisher publisher;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        publisher = new MqttAlertPublisher(new StubMqttClient(0));
+    }
+
+    @Benchmark
+    public String toJson() {
+        return gson.toJson(alert);
+    }
+
+    @Benchmark
+    public void publish() {
+        publisher.publish(alert);
+    }
+}
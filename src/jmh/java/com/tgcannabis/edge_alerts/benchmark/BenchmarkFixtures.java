@@ -0,0 +1,120 @@
+package com.tgcannabis.edge_alerts.benchmark;
+
+import com.google.gson.Gson;
+import com.tgcannabis.edge_alerts.config.AlertConfigLoader;
+import com.tgcannabis.edge_alerts.config.ThresholdTable;
+import com.tgcannabis.edge_alerts.model.SensorData;
+import com.tgcannabis.edge_alerts.model.SensorThreshold;
+import org.eclipse.paho.client.mqttv3.MqttClient;
+import org.eclipse.paho.client.mqttv3.MqttException;
+import org.eclipse.paho.client.mqttv3.MqttMessage;
+import org.eclipse.paho.client.mqttv3.persist.MemoryPersistence;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Shared stubs and test data for the benchmarks.
+ */
+final class BenchmarkFixtures {
+    static final String[] SENSOR_TYPES = {"temperature", "humidity", "co2", "pressure"};
+
+    private static final Gson GSON = new Gson();
+
+    private BenchmarkFixtures() {
+    }
+
+    /**
+     * An MQTT client that never connects; publishes are counted and optionally delayed
+     * to simulate waiting for the broker's acknowledgement.
+     */
+    static final class StubMqttClient extends MqttClient {
+        private final LongAdder published = new LongAdder();
+        private final long publishLatencyNanos;
+
+        StubMqttClient(long publishLatencyNanos) throws MqttException {
+            super("tcp://localhost:1883", "edge-alerts-benchmark", new MemoryPersistence());
+            this.publishLatencyNanos = publishLatencyNanos;
+        }
+
+        @Override
+        public void publish(String topic, MqttMessage message) {
+            if (publishLatencyNanos > 0) {
+                LockSupport.parkNanos(publishLatencyNanos);
+            }
+            published.increment();
+        }
+
+        long getPublishedCount() {
+            return published.sum();
+        }
+    }
+
+    /**
+     * A clock that only moves when told to, so benchmarks control how readings age out of the windows.
+     */
+    static final class ManualClock extends Clock {
+        private volatile long epochSecond;
+
+        ManualClock(long epochSecond) {
+            this.epochSecond = epochSecond;
+        }
+
+        void set(long epochSecond) {
+            this.epochSecond = epochSecond;
+        }
+
+        @Override
+        public Instant instant() {
+            return Instant.ofEpochSecond(epochSecond);
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+    }
+
+    /**
+     * Creates a config loader that returns the same threshold for every benchmark sensor type.
+     * The bundled test configuration is still loaded, but never consulted.
+     */
+    static AlertConfigLoader configLoader(SensorThreshold threshold) {
+        Map<String, SensorThreshold> thresholds = new HashMap<>();
+        for (String sensorType : SENSOR_TYPES) {
+            thresholds.put(sensorType, threshold);
+        }
+        ThresholdTable table = ThresholdTable.compile(thresholds, null);
+        return new AlertConfigLoader(GSON) {
+            @Override
+            public ThresholdTable getThresholdTable() {
+                return table;
+            }
+        };
+    }
+
+    static String topic(int sensor) {
+        return "sensors/room-" + (sensor % 10) + "/" + SENSOR_TYPES[sensor % SENSOR_TYPES.length] + "/sensor-" + sensor;
+    }
+
+    static SensorData reading(int sensor, double value, long timestamp) {
+        return new SensorData(SENSOR_TYPES[sensor % SENSOR_TYPES.length], "room-" + (sensor % 10),
+                "sensor-" + sensor, value, timestamp);
+    }
+
+    static byte[] json(SensorData data) {
+        return GSON.toJson(data).getBytes(StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,194 @@
+package com.tgcannabis.edge_alerts.benchmark;
+
+import com.tgcannabis.edge_alerts.alerts.AlertProcessor;
+import com.tgcannabis.edge_alerts.alerts.AlertStateStore;
+import com.tgcannabis.edge_alerts.metrics.LatencyHistogram;
+import com.tgcannabis.edge_alerts.model.SensorThreshold;
+import com.tgcannabis.edge_alerts.mqtt.RawMessageHandler;
+import com.tgcannabis.edge_alerts.pipeline.ExecutionMode;
+import com.tgcannabis.edge_alerts.pipeline.IngestionPipeline;
+import com.tgcannabis.edge_alerts.pipeline.OverflowPolicy;
+import com.tgcannabis.edge_alerts.pipeline.VirtualThreadDispatcher;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.IterationParams;
+import org.openjdk.jmh.runner.IterationType;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.BiConsumer;
+import java.util.function.LongSupplier;
+
+import static com.tgcannabis.edge_alerts.benchmark.BenchmarkFixtures.*;
+
+/**
+ * Compares the execution modes at fixed offered loads.
+ * <p>
+ * One operation offers one second of traffic from a single thread, the way the MQTT client's callback
+ * thread would: message {@code i} is due {@code i / messagesPerSecond} seconds after the start and is sent
+ * once it is due, or right away if the sender has fallen behind. Each message's latency is measured from
+ * when it was due until it has been evaluated, so time spent waiting to be sent counts too, and it is
+ * reported per measurement iteration as percentiles together with the messages the mode dropped. A mode
+ * sustains a rate when the operation completes in about 1000 ms with low tail latency and no drops.
+ * The queued modes shed load with {@code overflowPolicy}; with {@code BLOCK} an overloaded mode shows up
+ * as latency instead.
+ * <p>
+ * Every hundredth sensor is always out of range, so alerts are published through a stub client
+ * that blocks for {@code publishLatencyMicros} to simulate the broker round trip.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = "-Dorg.slf4j.simpleLogger.defaultLogLevel=error")
+public class ExecutionModeBenchmark {
+    private static final int SENSORS = 1_000;
+    private static final int FAULTY_EVERY = 100;
+
+    @Param({"CALLBACK", "PIPELINE", "VIRTUAL"})
+    public ExecutionMode mode;
+
+    @Param({"10000", "50000", "100000"})
+    public int messagesPerSecond;
+
+    @Param({"1000"})
+    public int publishLatencyMicros;
+
+    @Param({"DROP_NEWEST"})
+    public OverflowPolicy overflowPolicy;
+
+    private RawMessageHandler handler;
+    private LongSupplier processedMessages;
+    private LongSupplier droppedMessages;
+    private volatile LatencyHistogram latencies;
+    private long droppedBefore;
+    private long sentMessages;
+    private AutoCloseable dispatcher;
+
+    private final String[] topics = new String[SENSORS];
+    private final byte[][] payloads = new byte[SENSORS][];
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        SensorThreshold threshold = new SensorThreshold(10.0, 30.0, 1, 50);
+        AlertProcessor processor = new AlertProcessor(configLoader(threshold), new AlertStateStore(),
+                new StubMqttClient(TimeUnit.MICROSECONDS.toNanos(publishLatencyMicros)));
+
+        TimedEvaluation evaluation = new TimedEvaluation(processor);
+        switch (mode) {
+            case CALLBACK -> {
+                handler = evaluation;
+                processedMessages = evaluation.evaluated::sum;
+                droppedMessages = () -> 0;
+            }
+            case PIPELINE -> {
+                IngestionPipeline pipeline = new IngestionPipeline(Runtime.getRuntime().availableProcessors(),
+                        10_000, overflowPolicy, evaluation);
+                handler = pipeline;
+                processedMessages = pipeline::getProcessedMessages;
+                droppedMessages = pipeline::getDroppedMessages;
+                dispatcher = pipeline;
+            }
+            case VIRTUAL -> {
+                VirtualThreadDispatcher virtual = new VirtualThreadDispatcher(10_000, overflowPolicy, evaluation);
+                handler = virtual;
+                processedMessages = virtual::getProcessedMessages;
+                droppedMessages = virtual::getDroppedMessages;
+                dispatcher = virtual;
+            }
+        }
+
+        for (int s = 0; s < SENSORS; s++) {
+            topics[s] = topic(s);
+        }
+    }
+
+    @Setup(Level.Iteration)
+    public void resetLatencies() {
+        latencies = new LatencyHistogram();
+        droppedBefore = droppedMessages.getAsLong();
+        sentMessages = 0;
+    }
+
+    @Setup(Level.Invocation)
+    public void refreshPayloads() {
+        // Readings must be current, otherwise the one-second window evicts them immediately
+        long now = Instant.now().getEpochSecond();
+        for (int s = 0; s < SENSORS; s++) {
+            double value = s % FAULTY_EVERY == 0 ? 50.0 : 20.0;
+            payloads[s] = json(reading(s, value, now));
+        }
+    }
+
+    @TearDown(Level.Iteration)
+    public void reportLatencies(IterationParams iteration) {
+        if (iteration.getType() != IterationType.MEASUREMENT) {
+            return;
+        }
+        LatencyHistogram measured = latencies;
+        System.out.printf("%n%s at %d msg/s: latency p50 %d us, p99 %d us, p99.9 %d us, max %d us; dropped %d of %d messages%n",
+                mode, messagesPerSecond, micros(measured.valueAtPercentile(50)), micros(measured.valueAtPercentile(99)),
+                micros(measured.valueAtPercentile(99.9)), micros(measured.getMaxNanos()),
+                droppedMessages.getAsLong() - droppedBefore, sentMessages);
+    }
+
+    private static long micros(long nanos) {
+        return TimeUnit.NANOSECONDS.toMicros(nanos);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        if (dispatcher != null) dispatcher.close();
+    }
+
+    @Benchmark
+    public long oneSecondOfTraffic() {
+        long target = processedMessages.getAsLong() + droppedMessages.getAsLong() + messagesPerSecond;
+        long start = System.nanoTime();
+        for (int i = 0; i < messagesPerSecond; i++) {
+            long due = start + i * TimeUnit.SECONDS.toNanos(1) / messagesPerSecond;
+            while (System.nanoTime() - due < 0) {
+                Thread.onSpinWait(); // Parking is too coarse for gaps of 10 us
+            }
+            int sensor = i % SENSORS;
+            handler.accept(topics[sensor], payloads[sensor], due);
+        }
+        sentMessages += messagesPerSecond;
+        while (processedMessages.getAsLong() + droppedMessages.getAsLong() < target) {
+            LockSupport.parkNanos(10_000);
+        }
+        return target;
+    }
+
+    /**
+     * Evaluates a message with the alert processor and records how long ago it was due to be sent.
+     */
+    private final class TimedEvaluation implements RawMessageHandler, BiConsumer<String, String> {
+        private final AlertProcessor processor;
+        private final LongAdder evaluated = new LongAdder();
+
+        private TimedEvaluation(AlertProcessor processor) {
+            this.processor = processor;
+        }
+
+        @Override
+        public void accept(String topic, String payload) {
+            accept(topic, payload.getBytes(StandardCharsets.UTF_8));
+        }
+
+        @Override
+        public void accept(String topic, byte[] payload) {
+            accept(topic, payload, System.nanoTime());
+        }
+
+        @Override
+        public void accept(String topic, byte[] payload, long receivedNanos) {
+            processor.accept(topic, payload, receivedNanos);
+            latencies.recordSince(receivedNanos);
+            evaluated.increment();
+        }
+    }
+}
@@ -0,0 +1,74 @@
+package com.tgcannabis.edge_alerts.benchmark;
+
+import com.google.gson.Gson;
+import com.tgcannabis.edge_alerts.codec.BinaryPayloadCodec;
+import com.tgcannabis.edge_alerts.codec.SensorDataDecoder;
+import com.tgcannabis.edge_alerts.model.SensorData;
+import org.openjdk.jmh.annotations.*;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+import static com.tgcannabis.edge_alerts.benchmark.BenchmarkFixtures.json;
+import static com.tgcannabis.edge_alerts.benchmark.BenchmarkFixtures.reading;
+
+/**
+ * Compares decoding a {@code SensorData} payload the way the alert processor used to
+ * (UTF-8 {@code String} plus reflective Gson binding) with the byte-level {@link SensorDataDecoder},
+ * both allocating a new reading and reusing one, and with the fixed-layout {@link BinaryPayloadCodec}.
+ * Run with {@code -prof gc} to compare allocation rates.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SensorDataDecodeBenchmark {
+    private static final int PAYLOADS = 1_024;
+
+    private final Gson gson = new Gson();
+    private final SensorDataDecoder decoder = new SensorDataDecoder();
+    private final BinaryPayloadCodec binaryCodec = new BinaryPayloadCodec();
+    private final SensorData reuse = new SensorData();
+    private final byte[][] payloads = new byte[PAYLOADS][];
+    private final byte[][] binaryPayloads = new byte[PAYLOADS][];
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        for (int i = 0; i < PAYLOADS; i++) {
+            SensorData reading = reading(i, 20.0 + (i % 100) / 8.0, 1_700_000_000L + i);
+            payloads[i] = json(reading);
+            binaryPayloads[i] = BinaryPayloadCodec.encode(reading);
+        }
+    }
+
+    private byte[] nextPayload() {
+        byte[] payload = payloads[next];
+        next = (next + 1) & (PAYLOADS - 1);
+        return payload;
+    }
+
+    @Benchmark
+    public SensorData gson() {
+        return gson.fromJson(new String(nextPayload(), StandardCharsets.UTF_8), SensorData.class);
+    }
+
+    @Benchmark
+    public SensorData decoder() {
+        return decoder.decode(nextPayload());
+    }
+
+    @Benchmark
+    public SensorData decoderReuse() {
+        return decoder.decode(nextPayload(), reuse);
+    }
+
+    @Benchmark
+    public SensorData binaryReuse() {
+        byte[] payload = binaryPayloads[next];
+        next = (next + 1) & (PAYLOADS - 1);
+        return binaryCodec.decode(payload, reuse);
+    }
+}
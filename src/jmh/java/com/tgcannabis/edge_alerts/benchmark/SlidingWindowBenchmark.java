@@ -0,0 +1,46 @@
+package com.tgcannabis.edge_alerts.benchmark;
+
+import com.tgcannabis.edge_alerts.alerts.SlidingWindow;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures a device window in steady state, once its arrays have grown: each operation adds one
+ * reading and evicts the one that expired, or, with {@code full}, adds to a window at its maximum
+ * capacity so the oldest reading is dropped instead. Run with {@code -prof gc} to confirm that
+ * neither path allocates.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SlidingWindowBenchmark {
+
+    @Param({"300", "3000"})
+    public int windowSize;
+
+    @Param({"false", "true"})
+    public boolean full;
+
+    private SlidingWindow window;
+    private long timestamp;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        window = full ? new SlidingWindow(windowSize) : new SlidingWindow();
+        for (timestamp = 0; timestamp < windowSize; timestamp++) {
+            window.add(timestamp, 20.0, timestamp % 10 == 0);
+        }
+    }
+
+    @Benchmark
+    public double addAndEvict() {
+        long now = timestamp++;
+        window.add(now, 20.0, now % 10 == 0);
+        window.evictOlderThan(now - windowSize + 1);
+        return window.percentageOut();
+    }
+}
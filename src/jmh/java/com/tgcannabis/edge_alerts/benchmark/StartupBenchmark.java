@@ -0,0 +1,115 @@
+package com.tgcannabis.edge_alerts.benchmark;
+
+import com.tgcannabis.edge_alerts.EdgeAlertsApplication;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the time to the first evaluated message after a cold start of the packaged fast-startup application.
+ * <p>
+ * Each operation launches {@code java -jar app.jar} from {@code target} as a child process with
+ * {@value EdgeAlertsApplication#STARTUP_PROBE_ARG}, which starts the application the way a real start does,
+ * minus the broker handshake, hands one reading to the MQTT callback and logs once it has been evaluated.
+ * The operation ends when that line is read, so it covers launching the JVM, loading its classes and
+ * evaluating the message, but not the child's shutdown.
+ * <p>
+ * {@code classDataSharing} selects how classes are loaded: {@code APP_ARCHIVE} maps them from the
+ * application's AppCDS archive {@code app.jsa}, {@code JDK_ARCHIVE} uses only the JDK's default archive,
+ * and {@code OFF} disables class data sharing. Build the jar and the archive first with
+ * {@code mvn -Pfast-startup package}, using the JVM that runs the benchmark, since an archive only
+ * matches the JVM that wrote it; {@code APP_ARCHIVE} runs with {@code -Xshare:on}, so a mismatched
+ * archive fails the run instead of being silently ignored.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 10)
+@Fork(1)
+public class StartupBenchmark {
+    private static final Path TARGET = Path.of("target");
+    private static final String JAR = "app.jar";
+    private static final String ARCHIVE = "app.jsa";
+
+    @Param({"APP_ARCHIVE", "JDK_ARCHIVE", "OFF"})
+    public String classDataSharing;
+
+    private List<String> command;
+    private Process application;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        if (!Files.isRegularFile(TARGET.resolve(JAR))) {
+            throw new IllegalStateException("No packaged application at " + TARGET.resolve(JAR).toAbsolutePath()
+                    + ", build it first with: mvn -Pfast-startup package");
+        }
+        command = new ArrayList<>();
+        command.add(Path.of(System.getProperty("java.home"), "bin", "java").toString());
+        switch (classDataSharing) {
+            case "APP_ARCHIVE" -> {
+                if (!Files.isRegularFile(TARGET.resolve(ARCHIVE))) {
+                    throw new IllegalStateException("No class data sharing archive at " + TARGET.resolve(ARCHIVE).toAbsolutePath()
+                            + ", build it first with: mvn -Pfast-startup package");
+                }
+                command.add("-XX:SharedArchiveFile=" + ARCHIVE);
+                command.add("-Xshare:on");
+            }
+            case "JDK_ARCHIVE" -> {
+                // The JDK's default archive is used unless disabled
+            }
+            case "OFF" -> command.add("-Xshare:off");
+            default -> throw new IllegalArgumentException("Unknown class data sharing mode: " + classDataSharing);
+        }
+        command.addAll(List.of("-jar", JAR, EdgeAlertsApplication.STARTUP_PROBE_ARG));
+    }
+
+    @Benchmark
+    public long timeToFirstEvaluatedMessage() throws IOException {
+        application = new ProcessBuilder(command)
+                .directory(TARGET.toFile())
+                .redirectErrorStream(true)
+                .start();
+        BufferedReader output = new BufferedReader(new InputStreamReader(application.getInputStream(), StandardCharsets.UTF_8));
+        String line;
+        long lines = 0;
+        while ((line = output.readLine()) != null) {
+            lines++;
+            if (line.contains(EdgeAlertsApplication.STARTUP_PROBE_EVALUATED)) {
+                return lines;
+            }
+        }
+        throw new IllegalStateException("Application exited with code " + exitCode() + " before evaluating a message");
+    }
+
+    @TearDown(Level.Invocation)
+    public void awaitExit() throws IOException, InterruptedException {
+        if (application == null) {
+            return;
+        }
+        // Keep reading, so the child never blocks on a full pipe while shutting down
+        application.getInputStream().transferTo(OutputStream.nullOutputStream());
+        if (!application.waitFor(30, TimeUnit.SECONDS)) {
+            application.destroyForcibly();
+        }
+        application = null;
+    }
+
+    private int exitCode() {
+        try {
+            return application.waitFor();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return -1;
+        }
+    }
+}
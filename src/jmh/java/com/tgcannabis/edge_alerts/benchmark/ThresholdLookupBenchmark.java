@@ -0,0 +1,51 @@
+package com.tgcannabis.edge_alerts.benchmark;
+
+import com.google.gson.Gson;
+import com.tgcannabis.edge_alerts.config.AlertConfigLoader;
+import com.tgcannabis.edge_alerts.model.SensorThreshold;
+import org.openjdk.jmh.annotations.*;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures threshold lookups against the bundled configuration, for a hit with the canonical
+ * lower-case name, a hit that needs case folding, and a miss: through
+ * {@link AlertConfigLoader#getThreshold(String)}, and by resolving the sensor type id from a
+ * {@code String} or straight from payload bytes.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ThresholdLookupBenchmark {
+
+    @Param({"temperature", "Temperature", "unknown"})
+    public String sensorType;
+
+    private AlertConfigLoader configLoader;
+    private byte[] sensorTypeBytes;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        configLoader = new AlertConfigLoader(new Gson());
+        sensorTypeBytes = sensorType.getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Benchmark
+    public SensorThreshold getThreshold() {
+        return configLoader.getThreshold(sensorType);
+    }
+
+    @Benchmark
+    public int idOfString() {
+        return configLoader.getThresholdTable().idOf(sensorType);
+    }
+
+    @Benchmark
+    public int idOfBytes() {
+        return configLoader.getThresholdTable().idOf(sensorTypeBytes, 0, sensorTypeBytes.length);
+    }
+}
@@ -2,12 +2,57 @@ package com.tgcannabis.edge_alerts;
 
 import com.google.gson.Gson;
 import com.tgcannabis.edge_alerts.alerts.AlertProcessor;
+import com.tgcannabis.edge_alerts.alerts.AlertStateCheckpointer;
+import com.tgcannabis.edge_alerts.alerts.AlertStateStore;
+import com.tgcannabis.edge_alerts.alerts.TimeMode;
+import com.tgcannabis.edge_alerts.codec.PayloadCodecRegistry;
+import com.tgcannabis.edge_alerts.codec.StringInterner;
+import com.tgcannabis.edge_alerts.codec.TopicPattern;
 import com.tgcannabis.edge_alerts.config.AlertConfigLoader;
+import com.tgcannabis.edge_alerts.config.ConfigFileWatcher;
 import com.tgcannabis.edge_alerts.config.EdgeAlertConfig;
+import com.tgcannabis.edge_alerts.logging.AsyncLogWriter;
+import com.tgcannabis.edge_alerts.metrics.MetricsBinder;
+import com.tgcannabis.edge_alerts.metrics.MetricsRegistry;
+import com.tgcannabis.edge_alerts.metrics.MetricsServer;
+import com.tgcannabis.edge_alerts.model.SensorData;
+import com.tgcannabis.edge_alerts.model.SensorThreshold;
+import com.tgcannabis.edge_alerts.mqtt.DeferredMessageHandler;
+import com.tgcannabis.edge_alerts.mqtt.MqttCustomCallback;
 import com.tgcannabis.edge_alerts.mqtt.MqttService;
+import com.tgcannabis.edge_alerts.mqtt.RawMessageHandler;
+import com.tgcannabis.edge_alerts.pipeline.IngestionPipeline;
+import com.tgcannabis.edge_alerts.pipeline.MessageDispatcher;
+import com.tgcannabis.edge_alerts.pipeline.VirtualThreadDispatcher;
+import com.tgcannabis.edge_alerts.publisher.AlertPublisher;
+import com.tgcannabis.edge_alerts.publisher.AsyncAlertPublisher;
+import com.tgcannabis.edge_alerts.publisher.MqttAlertPublisher;
+import com.tgcannabis.edge_alerts.publisher.PublishMode;
+import com.tgcannabis.edge_alerts.publisher.SpoolingAlertPublisher;
+import org.eclipse.paho.client.mqttv3.MqttAsyncClient;
+import org.eclipse.paho.client.mqttv3.MqttClient;
+import org.eclipse.paho.client.mqttv3.MqttException;
+import org.eclipse.paho.client.mqttv3.MqttMessage;
+import org.eclipse.paho.client.mqttv3.persist.MemoryPersistence;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
 /**
  * The EdgeAlertsApplication class is the entry point for the Edge Alerts monitoring system.
  * It initializes the MQTT service, alert processing, and configuration loading to monitor
@@ -15,33 +60,339 @@ import org.slf4j.LoggerFactory;
  */
 public class EdgeAlertsApplication {
     private static final Logger LOGGER = LoggerFactory.getLogger(EdgeAlertsApplication.class);
+
+    /**
+     * Time allowed for {@link #shutdown()} if the configuration could not be loaded.
+     */
+    private static final long DEFAULT_SHUTDOWN_TIMEOUT_SECONDS = 8;
+    /**
+     * Argument running {@link #trainClassDataSharing()} instead of the application.
+     */
+    static final String CDS_TRAINING_ARG = "--cds-training";
+    /**
+     * Argument running {@link #probeStartup()} instead of the application.
+     */
+    public static final String STARTUP_PROBE_ARG = "--startup-probe";
+    /**
+     * Start of the line {@link #probeStartup()} logs once its message has been evaluated.
+     */
+    public static final String STARTUP_PROBE_EVALUATED = "Startup probe evaluated its first message";
+    private static final String CDS_TRAINING_THRESHOLDS = "/alerts-config-example.json";
     private static MqttService mqttService;
+    private static MessageDispatcher messageDispatcher;
+    private static AlertPublisher alertPublisher;
+    private static ConfigFileWatcher configWatcher;
+    private static AlertStateCheckpointer stateCheckpointer;
+    private static MetricsServer metricsServer;
+    private static long shutdownTimeoutSeconds = DEFAULT_SHUTDOWN_TIMEOUT_SECONDS;
 
     /**
      * Starts the Edge Alerts application.
-     * - Loads the alert configuration.
-     * - Initializes the alert processor.
-     * - Sets up the MQTT service and connects to the broker.
+     * - Starts the background log writer used on the message path.
+     * - Opens the broker connections in the background, holding received messages until the alert processor is ready.
+     * - Meanwhile loads the alert configuration and restores the alert state checkpointed by a previous run,
+     *   if persistence is configured.
+     * - Initializes the alert processor and the dispatcher feeding it for the configured execution mode.
+     * - Once connected, sets up the alert publisher and releases the held messages.
+     * - Serves metrics over HTTP, if a metrics port is configured.
      * - Registers a shutdown hook for graceful termination.
      */
     void start() {
-        try {
-            AlertConfigLoader configLoader = new AlertConfigLoader(new Gson());
-            AlertProcessor alertProcessor = new AlertProcessor(configLoader);
-            mqttService = new MqttService(new EdgeAlertConfig());
-            mqttService.setMessageHandler(alertProcessor);
-            mqttService.connect();
+        DeferredMessageHandler messageHandler = new DeferredMessageHandler();
+        try (ExecutorService startupExecutor = Executors.newVirtualThreadPerTaskExecutor()) {
+            EdgeAlertConfig config = new EdgeAlertConfig();
+            AsyncLogWriter.install(new AsyncLogWriter(config.getLogQueueCapacity()));
+            shutdownTimeoutSeconds = config.getShutdownTimeoutSeconds();
+
+            // The connection handshakes are mostly waiting on the network, so they overlap with loading the rest
+            mqttService = new MqttService(config);
+            mqttService.setRawMessageHandler(messageHandler);
+            Future<?> subscriberConnecting = startupExecutor.submit(() -> {
+                mqttService.connect();
+                return null;
+            });
+            Future<MqttAsyncClient> publisherConnecting = config.getAlertPublishMode() == PublishMode.ASYNC
+                    ? startupExecutor.submit(() -> mqttService.connectPublisher(config.getAlertPublishMaxInflight()))
+                    : null;
+
+            AlertConfigLoader configLoader = createConfigLoader(config);
+            AlertStateStore stateStore = createStateStore(config);
+            restoreAlertState(config, stateStore);
+            AlertProcessor alertProcessor = createAlertProcessor(config, configLoader, stateStore);
+            RawMessageHandler dispatcher = createMessageHandler(config, alertProcessor);
 
-            alertProcessor.setMqttClient(mqttService.getMqttClient());
+            await(subscriberConnecting);
+            configureAlertPublisher(config, alertProcessor,
+                    publisherConnecting == null ? null : await(publisherConnecting));
+            messageHandler.complete(dispatcher);
+            startMetricsServer(config, alertProcessor);
 
-            LOGGER.info("Edge Alerts Application started successfully and is now monitoring sensor data...");
+            LOGGER.info("Edge Alerts Application started successfully in {} ms and is now monitoring sensor data...",
+                    ManagementFactory.getRuntimeMXBean().getUptime());
         } catch (Exception e) {
+            messageHandler.fail(e);
             LOGGER.error("FATAL: Application failed to start", e);
+            if (mqttService != null) {
+                mqttService.close(); // Do not stay subscribed with nothing to evaluate the messages
+            }
         } finally {
             addShutdownHook();
         }
     }
 
+    /**
+     * Exercises the startup and message paths without a broker, then shuts down. Run once at build time with
+     * {@code -XX:ArchiveClassesAtExit} so the JVM archives every class a real start and the first messages load,
+     * and later starts map them from the archive instead of loading and verifying them from the jar.
+     * <p>
+     * The run uses the bundled example thresholds, since the deployment's own may not be available at build time,
+     * and neither restores nor checkpoints alert state.
+     * Every sensor type is sent readings out of range for longer than its time threshold, in event time, so the
+     * alert path including its JSON serialization runs as well; alerts are serialized but not published.
+     *
+     * @throws IOException   If the thresholds cannot be copied to a temporary file.
+     * @throws MqttException If the MQTT client cannot be created.
+     */
+    void trainClassDataSharing() throws IOException, MqttException {
+        EdgeAlertConfig config = new EdgeAlertConfig();
+        AsyncLogWriter.install(new AsyncLogWriter(config.getLogQueueCapacity()));
+        Gson gson = new Gson();
+        Path thresholdsFile = copyTrainingThresholds();
+        try {
+            AlertConfigLoader configLoader = new AlertConfigLoader(gson, thresholdsFile);
+            AlertProcessor alertProcessor = createAlertProcessor(config, configLoader, createStateStore(config));
+            alertProcessor.setTimeMode(TimeMode.EVENT);
+            alertPublisher = gson::toJson;
+            alertProcessor.setAlertPublisher(alertPublisher);
+
+            DeferredMessageHandler messageHandler = new DeferredMessageHandler();
+            messageHandler.complete(createMessageHandler(config, alertProcessor));
+            MqttClient client = new MqttClient(config.getMqttBroker(), config.getMqttClientId(), new MemoryPersistence());
+            MqttCustomCallback callback = new MqttCustomCallback(client, config.getMqttTopic(), messageHandler);
+            for (Map.Entry<String, SensorThreshold> entry : configLoader.getThresholdsMap().entrySet()) {
+                SensorThreshold threshold = entry.getValue();
+                for (long timestamp = 0; timestamp <= threshold.getTimeThreshold() + 1L; timestamp++) {
+                    SensorData reading = new SensorData(entry.getKey(), "cds-training", "cds-training-1",
+                            threshold.getMax() + 1, timestamp);
+                    callback.messageArrived("sensors/" + entry.getKey(),
+                            new MqttMessage(gson.toJson(reading).getBytes(StandardCharsets.UTF_8)));
+                }
+            }
+            client.close();
+            shutdown();
+            LOGGER.info("Class data sharing training run evaluated {} readings and generated {} alerts",
+                    alertProcessor.getDecodedReadings(), alertProcessor.getFiredAlerts());
+        } finally {
+            Files.deleteIfExists(thresholdsFile);
+        }
+    }
+
+    /**
+     * Starts the way {@link #trainClassDataSharing()} does, hands a single in-range reading to the MQTT callback,
+     * logs the time from JVM start until it has been evaluated and shuts down. Run on the packaged application
+     * to time its startup, with and without its class data sharing archive, without needing a broker.
+     *
+     * @throws IOException   If the thresholds cannot be copied to a temporary file.
+     * @throws MqttException If the MQTT client cannot be created.
+     */
+    void probeStartup() throws IOException, MqttException {
+        EdgeAlertConfig config = new EdgeAlertConfig();
+        AsyncLogWriter.install(new AsyncLogWriter(config.getLogQueueCapacity()));
+        Gson gson = new Gson();
+        Path thresholdsFile = copyTrainingThresholds();
+        try {
+            AlertConfigLoader configLoader = new AlertConfigLoader(gson, thresholdsFile);
+            AlertStateStore stateStore = createStateStore(config);
+            AlertProcessor alertProcessor = createAlertProcessor(config, configLoader, stateStore);
+            alertPublisher = gson::toJson;
+            alertProcessor.setAlertPublisher(alertPublisher);
+
+            DeferredMessageHandler messageHandler = new DeferredMessageHandler();
+            messageHandler.complete(createMessageHandler(config, alertProcessor));
+            MqttClient client = new MqttClient(config.getMqttBroker(), config.getMqttClientId(), new MemoryPersistence());
+            MqttCustomCallback callback = new MqttCustomCallback(client, config.getMqttTopic(), messageHandler);
+            Map.Entry<String, SensorThreshold> sensorType = configLoader.getThresholdsMap().entrySet().iterator().next();
+            SensorThreshold threshold = sensorType.getValue();
+            SensorData reading = new SensorData(sensorType.getKey(), "startup-probe", "startup-probe-1",
+                    (threshold.getMin() + threshold.getMax()) / 2, System.currentTimeMillis() / 1_000);
+            callback.messageArrived("sensors/" + sensorType.getKey(),
+                    new MqttMessage(gson.toJson(reading).getBytes(StandardCharsets.UTF_8)));
+            // The device's state becomes visible once the evaluation holding its stripe lock has finished
+            while (stateStore.size() == 0) {
+                Thread.onSpinWait();
+            }
+            LOGGER.info("{} {} ms after JVM start", STARTUP_PROBE_EVALUATED, ManagementFactory.getRuntimeMXBean().getUptime());
+            client.close();
+            shutdown();
+        } finally {
+            Files.deleteIfExists(thresholdsFile);
+        }
+    }
+
+    /**
+     * Copies the bundled example thresholds used by the runs without a deployment configuration to a temporary file.
+     *
+     * @return The temporary file; the caller deletes it.
+     * @throws IOException If the thresholds cannot be copied.
+     */
+    private Path copyTrainingThresholds() throws IOException {
+        Path thresholdsFile = Files.createTempFile("edge-alerts-cds-training", ".json");
+        try (InputStream thresholds = Objects.requireNonNull(getClass().getResourceAsStream(CDS_TRAINING_THRESHOLDS),
+                "Training thresholds not found: " + CDS_TRAINING_THRESHOLDS)) {
+            Files.copy(thresholds, thresholdsFile, StandardCopyOption.REPLACE_EXISTING);
+        }
+        return thresholdsFile;
+    }
+
+    /**
+     * Creates the alert processor with the configured processing settings.
+     *
+     * @param config       The application configuration.
+     * @param configLoader The loader providing the current thresholds.
+     * @param stateStore   The store holding the alert state of every sensor device.
+     * @return The alert processor, without an alert publisher.
+     */
+    private AlertProcessor createAlertProcessor(EdgeAlertConfig config, AlertConfigLoader configLoader,
+                                                AlertStateStore stateStore) {
+        AlertProcessor alertProcessor = new AlertProcessor(configLoader, stateStore, null);
+        alertProcessor.setTimeMode(config.getAlertTimeMode());
+        alertProcessor.setAllowedLatenessSeconds(config.getAlertAllowedLatenessSeconds());
+        alertProcessor.setLatencyFields(config.isAlertLatencyFields());
+        if (config.getPayloadCodecs() != null) {
+            alertProcessor.setPayloadCodecs(PayloadCodecRegistry.parse(config.getPayloadCodecs(), new StringInterner()));
+        }
+        if (config.getAlertTopicPattern() != null) {
+            alertProcessor.setTopicPattern(TopicPattern.compile(config.getAlertTopicPattern()));
+        }
+        return alertProcessor;
+    }
+
+    /**
+     * Creates the alert state store with the configured limits.
+     *
+     * @param config The application configuration.
+     * @return The empty store.
+     */
+    private static AlertStateStore createStateStore(EdgeAlertConfig config) {
+        return new AlertStateStore(config.getAlertMaxKeys(), config.getAlertKeyIdleTimeoutSeconds(),
+                AlertStateStore.DEFAULT_STRIPES, config.getAlertWindowMaxReadings());
+    }
+
+    /**
+     * Loads the threshold configuration, from the configured file if any, and starts watching that file for changes.
+     *
+     * @param config The application configuration.
+     * @return The loader providing the current thresholds.
+     * @throws IOException If the configuration file cannot be watched.
+     */
+    private AlertConfigLoader createConfigLoader(EdgeAlertConfig config) throws IOException {
+        if (config.getAlertConfigFile() == null) {
+            return new AlertConfigLoader(new Gson());
+        }
+        AlertConfigLoader configLoader = new AlertConfigLoader(new Gson(), Path.of(config.getAlertConfigFile()));
+        configWatcher = new ConfigFileWatcher(configLoader);
+        return configLoader;
+    }
+
+    /**
+     * Restores the alert state saved by a previous run and starts checkpointing it, if a state directory is configured.
+     *
+     * @param config     The application configuration.
+     * @param stateStore The store to restore and checkpoint.
+     * @throws IOException If the checkpoint files cannot be opened.
+     */
+    private void restoreAlertState(EdgeAlertConfig config, AlertStateStore stateStore) throws IOException {
+        if (config.getAlertStateDir() == null) {
+            return;
+        }
+        stateCheckpointer = new AlertStateCheckpointer(stateStore, Path.of(config.getAlertStateDir()));
+        stateCheckpointer.restore();
+        stateCheckpointer.start(config.getAlertStateCheckpointSeconds());
+    }
+
+    /**
+     * Creates the handler feeding received messages to the alert processor according to the configured execution mode.
+     *
+     * @param config         The application configuration.
+     * @param alertProcessor The alert processor evaluating received messages.
+     * @return The handler to give the MQTT service's messages to.
+     */
+    private RawMessageHandler createMessageHandler(EdgeAlertConfig config, AlertProcessor alertProcessor) {
+        return switch (config.getExecutionMode()) {
+            case CALLBACK -> alertProcessor;
+            case PIPELINE -> {
+                IngestionPipeline pipeline = new IngestionPipeline(config.getIngestWorkers(),
+                        config.getIngestQueueCapacity(), config.getIngestOverflowPolicy(), alertProcessor);
+                messageDispatcher = pipeline;
+                yield pipeline;
+            }
+            case VIRTUAL -> {
+                // Alerts are published from the lane that evaluated the reading, so a sensor's alert and
+                // its resolve reach the broker in order
+                VirtualThreadDispatcher dispatcher = new VirtualThreadDispatcher(config.getIngestQueueCapacity(),
+                        config.getIngestOverflowPolicy(), alertProcessor);
+                messageDispatcher = dispatcher;
+                yield dispatcher;
+            }
+        };
+    }
+
+    /**
+     * Connects the alert processor to the broker using the configured publish mode.
+     * Unless disabled, alerts generated while the connection is down are spooled and sent after reconnecting.
+     *
+     * @param config          The application configuration.
+     * @param alertProcessor  The alert processor generating alerts.
+     * @param publisherClient The dedicated publisher connection in ASYNC publish mode, {@code null} otherwise.
+     */
+    private void configureAlertPublisher(EdgeAlertConfig config, AlertProcessor alertProcessor,
+                                         MqttAsyncClient publisherClient) {
+        AlertPublisher publisher;
+        BooleanSupplier connected;
+        if (config.getAlertPublishMode() == PublishMode.ASYNC) {
+            AsyncAlertPublisher asyncPublisher = new AsyncAlertPublisher(publisherClient, AlertPublisher.ALERTS_TOPIC,
+                    config.getAlertPublishQueueCapacity(), config.getAlertPublishMaxInflight(),
+                    config.getAlertPublishBatchSize());
+            mqttService.setDeliveryListener(asyncPublisher::onDeliveryComplete);
+            publisher = asyncPublisher;
+            connected = publisherClient::isConnected;
+        } else {
+            MqttClient mqttClient = mqttService.getMqttClient();
+            publisher = new MqttAlertPublisher(mqttClient);
+            connected = mqttClient::isConnected;
+        }
+        if (config.getAlertSpoolCapacity() > 0) {
+            publisher = new SpoolingAlertPublisher(publisher, connected,
+                    config.getAlertSpoolCapacity(), config.getAlertSpoolFlushRate());
+        }
+        alertPublisher = publisher;
+        alertProcessor.setAlertPublisher(publisher);
+    }
+
+    /**
+     * Binds the metrics of every running component and serves them, if a metrics port is configured.
+     *
+     * @param config         The application configuration.
+     * @param alertProcessor The alert processor evaluating received messages.
+     * @throws IOException If the metrics port cannot be bound.
+     */
+    private void startMetricsServer(EdgeAlertConfig config, AlertProcessor alertProcessor) throws IOException {
+        if (config.getMetricsPort() <= 0) {
+            return;
+        }
+        MetricsRegistry registry = new MetricsRegistry();
+        alertProcessor.bindTo(registry);
+        mqttService.bindTo(registry);
+        if (messageDispatcher instanceof MetricsBinder binder) {
+            binder.bindTo(registry);
+        }
+        if (alertPublisher instanceof MetricsBinder binder) {
+            binder.bindTo(registry);
+        }
+        AsyncLogWriter.shared().bindTo(registry);
+        metricsServer = MetricsServer.start(registry, config.getMetricsPort());
+    }
+
     /**
      * Registers a JVM shutdown hook to gracefully close resources.
      */
@@ -54,23 +405,92 @@ public class EdgeAlertsApplication {
     }
 
     /**
-     * Gracefully shuts down all services.
+     * Gracefully shuts down all services, in an order that loses neither received messages nor generated alerts,
+     * within the configured shutdown timeout:
+     * - Stops subscribing, so no new messages arrive.
+     * - Evaluates the messages the dispatcher already accepted.
+     * - Delivers the pending alerts and waits for the broker's acknowledgements.
+     * - Writes a final checkpoint of the alert state.
+     * - Disconnects from the broker.
+     * Steps still running when the timeout is up are cut short and reported; the final checkpoint is always written.
      */
     public void shutdown() {
-        LOGGER.info("Shutting down Edge Alerts Application...");
-        // Close in reverse order of dependency or where it makes sense
+        long startedNanos = System.nanoTime();
+        long deadline = startedNanos + TimeUnit.SECONDS.toNanos(shutdownTimeoutSeconds);
+        LOGGER.info("Shutting down Edge Alerts Application (timeout {} s)...", shutdownTimeoutSeconds);
+        if (configWatcher != null) {
+            configWatcher.close();
+        }
+        if (mqttService != null) {
+            mqttService.stopSubscribing(remainingMillis(deadline));
+        }
+        if (messageDispatcher != null && !messageDispatcher.close(remainingMillis(deadline))) {
+            LOGGER.warn("Shutdown timeout reached before every received message was evaluated");
+        }
+        if (alertPublisher != null) {
+            try {
+                if (!alertPublisher.close(remainingMillis(deadline))) {
+                    LOGGER.warn("Shutdown timeout reached before every pending alert was delivered");
+                }
+            } catch (Exception e) {
+                LOGGER.error("Error closing alert publisher", e);
+            }
+        }
+        if (stateCheckpointer != null) {
+            stateCheckpointer.close(); // After the drain, so the final checkpoint holds every processed reading
+        }
         if (mqttService != null) {
             try {
-                mqttService.close();
+                mqttService.close(remainingMillis(deadline));
             } catch (Exception e) {
                 LOGGER.error("Error closing MQTT Service", e);
             }
         }
-        LOGGER.info("Batch Processor Application shut down complete.");
+        if (metricsServer != null) {
+            metricsServer.close(); // Last, so the drain can be watched until the end
+        }
+        LOGGER.info("Edge Alerts Application shut down complete in {} ms.",
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startedNanos));
+        AsyncLogWriter.shared().close(); // Last, so the components' final log lines are written
     }
 
-    public static void main(String[] args) {
+    /**
+     * Waits for a startup task, rethrowing its failure.
+     *
+     * @param task The task started in the background.
+     * @return The task's result.
+     * @throws Exception The exception the task failed with.
+     */
+    private static <T> T await(Future<T> task) throws Exception {
+        try {
+            return task.get();
+        } catch (ExecutionException e) {
+            throw e.getCause() instanceof Exception cause ? cause : e;
+        }
+    }
+
+    private static long remainingMillis(long deadlineNanos) {
+        return Math.max(0, TimeUnit.NANOSECONDS.toMillis(deadlineNanos - System.nanoTime()));
+    }
+
+    /**
+     * Starts the application, or with {@value #CDS_TRAINING_ARG}, performs the class data sharing training run
+     * and exits, or with {@value #STARTUP_PROBE_ARG}, times the startup up to a first evaluated message and exits.
+     *
+     * @param args The command line arguments.
+     * @throws IOException   If the training run or startup probe cannot load its thresholds.
+     * @throws MqttException If the training run or startup probe cannot create its MQTT client.
+     */
+    public static void main(String[] args) throws IOException, MqttException {
         EdgeAlertsApplication app = new EdgeAlertsApplication();
+        if (args.length > 0 && CDS_TRAINING_ARG.equals(args[0])) {
+            app.trainClassDataSharing();
+            return;
+        }
+        if (args.length > 0 && STARTUP_PROBE_ARG.equals(args[0])) {
+            app.probeStartup();
+            return;
+        }
         app.start();
     }
 }
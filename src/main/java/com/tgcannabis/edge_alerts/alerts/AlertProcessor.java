@@ -1,54 +1,178 @@
 package com.tgcannabis.edge_alerts.alerts;
 
-import com.google.gson.Gson;
 import com.google.gson.JsonSyntaxException;
+import com.tgcannabis.edge_alerts.codec.PayloadCodecRegistry;
+import com.tgcannabis.edge_alerts.codec.PayloadFormatException;
+import com.tgcannabis.edge_alerts.codec.SensorDataDecoder;
+import com.tgcannabis.edge_alerts.codec.TopicPattern;
 import com.tgcannabis.edge_alerts.config.AlertConfigLoader;
+import com.tgcannabis.edge_alerts.config.ThresholdTable;
+import com.tgcannabis.edge_alerts.logging.HotPathLogger;
+import com.tgcannabis.edge_alerts.logging.LogSampler;
+import com.tgcannabis.edge_alerts.logging.RateLimitedCounter;
+import com.tgcannabis.edge_alerts.logging.StructuredEvent;
+import com.tgcannabis.edge_alerts.metrics.MetricsBinder;
+import com.tgcannabis.edge_alerts.metrics.MetricsRegistry;
 import com.tgcannabis.edge_alerts.model.AlertMessage;
 import com.tgcannabis.edge_alerts.model.SensorData;
 import com.tgcannabis.edge_alerts.model.SensorThreshold;
+import com.tgcannabis.edge_alerts.mqtt.RawMessageHandler;
+import com.tgcannabis.edge_alerts.publisher.AlertPublisher;
+import com.tgcannabis.edge_alerts.publisher.MqttAlertPublisher;
 import lombok.Setter;
 import org.eclipse.paho.client.mqttv3.MqttClient;
-import org.eclipse.paho.client.mqttv3.MqttException;
-import org.eclipse.paho.client.mqttv3.MqttMessage;
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
+import org.slf4j.event.Level;
 
+import java.nio.charset.StandardCharsets;
+import java.time.Clock;
 import java.time.Instant;
-import java.util.ArrayList;
-import java.util.List;
-import java.util.Map;
+import java.util.Arrays;
 import java.util.Objects;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
 import java.util.function.BiConsumer;
+import java.util.function.Consumer;
 
 /**
  * The {@code AlertProcessor} class is responsible for processing sensor data received via MQTT,
  * detecting threshold breaches based on predefined alert configurations, and triggering alerts when necessary.
  * It maintains a history of sensor readings and determines if a significant percentage of values
  * have exceeded the defined limits over a given period of time.
+ * <p>
+ * Alert state is kept per sensor device in a lock-striped {@link AlertStateStore}, so
+ * {@link #accept(String, String)} may be called concurrently from several threads.
+ * <p>
+ * Raw payloads handed to {@link #accept(String, byte[])} are decoded by the codec a {@link PayloadCodecRegistry}
+ * selects for their topic (JSON through a {@link SensorDataDecoder} by default) into a per-thread
+ * {@code SensorData} that is reused for every message. A payload may carry a batch of readings; each is
+ * streamed from the codec into the window store as it is decoded.
+ * <p>
+ * With a {@link TopicPattern} that captures the sensor type, messages for sensor types without a
+ * configured threshold are recognised from the topic and skipped before their payload is decoded.
+ * Skipped and invalid messages are counted; they are logged at most once a minute rather than per message.
+ * <p>
+ * Each device moves through the {@link AlertStatus} lifecycle: an alert is published once when the
+ * device starts firing and a resolve event once when its share of out-of-range readings falls below
+ * the resolve threshold, rather than an alert every {@code timeThreshold} seconds for as long as the
+ * breach lasts. A cooldown after each incident holds back new alerts from a flapping sensor.
+ * <p>
+ * Once bound to a {@link MetricsRegistry}, the processor traces every reading with {@link System#nanoTime()}
+ * through the stages of {@link SensorTypeLatencies}, from the arrival of its message to the broker's
+ * acknowledgement of its alert, into lock-free histograms per sensor type; until then no time is measured.
+ * Tracing reuses per-thread state and preallocated histograms, so it allocates nothing per reading.
+ * <p>
+ * Logging never blocks evaluation: lines are written asynchronously by a {@link HotPathLogger}, per-message
+ * DEBUG lines are sampled, and alerts and resolve events are logged as {@link StructuredEvent}s.
  */
-public class AlertProcessor implements BiConsumer<String, String> {
+public class AlertProcessor implements BiConsumer<String, String>, RawMessageHandler, MetricsBinder {
 
-    private static final Logger LOGGER = LoggerFactory.getLogger(AlertProcessor.class);
-    private static final Gson gson = new Gson();
+    private static final HotPathLogger LOGGER = HotPathLogger.of(AlertProcessor.class);
+    private static final HotPathLogger EVENTS = HotPathLogger.of(StructuredEvent.EVENTS_LOGGER);
+    private static final SensorDataDecoder jsonDecoder = new SensorDataDecoder();
+
+    /**
+     * Outcome of evaluating a reading that was discarded as late, handled outside the stripe lock.
+     */
+    private static final Transition LATE = new Transition(null, 0, 0);
+
+    /**
+     * Default for how far a reading may trail its device's newest reading in {@link TimeMode#EVENT} mode.
+     */
+    public static final long DEFAULT_ALLOWED_LATENESS_SECONDS = 30;
 
     private final AlertConfigLoader configLoader;
 
+    /**
+     * Publisher for generated alerts; may be provided after construction once the broker connection exists.
+     */
+    private volatile AlertPublisher alertPublisher;
+
+    /**
+     * Executor on which alerts are published. Publishes run on the evaluating thread by default, which keeps
+     * each sensor's alerts and resolves in the order they were generated; another executor must run the
+     * publishes of one sensor in the order they are submitted.
+     */
+    @Setter
+    private volatile Executor alertExecutor = Runnable::run;
+
+    /**
+     * Source of the current time used to age readings out of the windows; the system clock by default.
+     */
+    @Setter
+    private volatile Clock clock = Clock.systemUTC();
+
+    /**
+     * Clock driving eviction and the time threshold; the service's clock by default.
+     */
+    @Setter
+    private volatile TimeMode timeMode = TimeMode.PROCESSING;
+
+    private volatile long allowedLatenessSeconds = DEFAULT_ALLOWED_LATENESS_SECONDS;
+
+    /**
+     * Codecs decoding raw payloads by topic; every topic is decoded as JSON by default.
+     */
+    @Setter
+    private volatile PayloadCodecRegistry payloadCodecs = new PayloadCodecRegistry(new SensorDataDecoder());
+
+    /**
+     * Pattern locating the sensor type in message topics, or {@code null} to classify messages by their payload only.
+     */
+    @Setter
+    private volatile TopicPattern topicPattern;
+
+    /**
+     * Whether decode, evaluate and publish latencies are recorded; enabled by {@link #bindTo(MetricsRegistry)}.
+     */
+    @Setter
+    private volatile boolean latencyRecording;
+
+    /**
+     * Whether alerts carry the triggering reading's event time and the processing delay; off by default.
+     */
     @Setter
-    private MqttClient mqttClient;
+    private volatile boolean latencyFields;
 
-    final Map<String, List<SensorData>> history = new ConcurrentHashMap<>();
-    final Map<String, Long> firstEvaluationTime = new ConcurrentHashMap<>(); // Track first sensor data time
+    final AlertStateStore stateStore;
+
+    private final RateLimitedCounter unconfiguredReadings = new RateLimitedCounter();
+    private final RateLimitedCounter invalidMessages = new RateLimitedCounter();
+    private final RateLimitedCounter unmatchedTopics = new RateLimitedCounter();
+    private final RateLimitedCounter lateReadings = new RateLimitedCounter();
+    private final RateLimitedCounter truncatedReadings = new RateLimitedCounter();
+    private final RateLimitedCounter warmingUpReadings = new RateLimitedCounter();
+    private final LogSampler payloadLogSampler = new LogSampler();
+    private final LongAdder receivedMessages = new LongAdder();
+    private final LongAdder decodedReadings = new LongAdder();
+    private final LongAdder tooHighAlerts = new LongAdder();
+    private final LongAdder tooLowAlerts = new LongAdder();
+    private final LongAdder resolvedAlerts = new LongAdder();
+
+    /**
+     * Latency histograms indexed by sensor type id, replaced by a larger copy when a sensor type is first traced.
+     */
+    private volatile SensorTypeLatencies[] latencies = new SensorTypeLatencies[0];
+
+    /**
+     * Registry the processor is bound to, or {@code null}; sensor types traced later are registered with it.
+     */
+    private volatile MetricsRegistry metricsRegistry;
+
+    /**
+     * Sink reused by each thread for every message it decodes, so decoding does not allocate a callback or reading.
+     */
+    private final ThreadLocal<ReadingSink> readingSinks = ThreadLocal.withInitial(ReadingSink::new);
 
     /**
      * Constructs an {@code AlertProcessor} with a specified configuration loader for sensor thresholds.
      *
      * @param configLoader The loader responsible for fetching alert thresholds from a configuration file.
-     * @throws NullPointerException if {@code configLoader} is {@code null}.
+     * @param mqttClient   The MQTT client used to publish generated alerts.
+     * @throws NullPointerException if {@code configLoader} or {@code mqttClient} is {@code null}.
      */
     public AlertProcessor(AlertConfigLoader configLoader, MqttClient mqttClient) {
-        this.configLoader = Objects.requireNonNull(configLoader, "Alert config loader cannot be null");
-        this.mqttClient = Objects.requireNonNull(mqttClient, "MQTT client cannot be null");
+        this(configLoader, new AlertStateStore(), Objects.requireNonNull(mqttClient, "MQTT client cannot be null"));
     }
 
     /**
@@ -58,112 +182,561 @@ public class AlertProcessor implements BiConsumer<String, String> {
      * @throws NullPointerException if {@code configLoader} is {@code null}.
      */
     public AlertProcessor(AlertConfigLoader configLoader) {
+        this(configLoader, new AlertStateStore(), null);
+    }
+
+    /**
+     * Constructs an {@code AlertProcessor} that keeps per-device alert state in the given store.
+     *
+     * @param configLoader The loader responsible for fetching alert thresholds from a configuration file.
+     * @param stateStore   The store holding the sliding window of every tracked sensor device.
+     * @param mqttClient   The MQTT client used to publish generated alerts; may be {@code null}
+     *                     and provided later through {@link #setMqttClient(MqttClient)} or
+     *                     {@link #setAlertPublisher(AlertPublisher)}.
+     * @throws NullPointerException if {@code configLoader} or {@code stateStore} is {@code null}.
+     */
+    public AlertProcessor(AlertConfigLoader configLoader, AlertStateStore stateStore, MqttClient mqttClient) {
         this.configLoader = Objects.requireNonNull(configLoader, "Alert config loader cannot be null");
+        this.stateStore = Objects.requireNonNull(stateStore, "Alert state store cannot be null");
+        this.alertPublisher = mqttClient == null ? null : withDeliveryListener(new MqttAlertPublisher(mqttClient));
+    }
+
+    /**
+     * Sets how far, in {@link TimeMode#EVENT} mode, a reading may trail the newest reading of its device
+     * before it is discarded as late. A device's watermark is its newest reading timestamp minus this lateness.
+     *
+     * @param allowedLatenessSeconds The allowed lateness in seconds.
+     * @throws IllegalArgumentException if the lateness is negative.
+     */
+    public void setAllowedLatenessSeconds(long allowedLatenessSeconds) {
+        if (allowedLatenessSeconds < 0) {
+            throw new IllegalArgumentException("Allowed lateness must not be negative");
+        }
+        this.allowedLatenessSeconds = allowedLatenessSeconds;
+    }
+
+    /**
+     * Publishes generated alerts through the given MQTT client, waiting for each acknowledgement.
+     *
+     * @param mqttClient The connected MQTT client.
+     */
+    public void setMqttClient(MqttClient mqttClient) {
+        this.alertPublisher = withDeliveryListener(new MqttAlertPublisher(mqttClient));
+    }
+
+    /**
+     * Sets the publisher for generated alerts, and listens for their delivery to measure publish latency.
+     *
+     * @param alertPublisher The publisher, or {@code null} to drop alerts.
+     */
+    public void setAlertPublisher(AlertPublisher alertPublisher) {
+        this.alertPublisher = alertPublisher == null ? null : withDeliveryListener(alertPublisher);
+    }
+
+    private AlertPublisher withDeliveryListener(AlertPublisher publisher) {
+        publisher.setDeliveryListener(this::onAlertDelivered);
+        return publisher;
     }
 
     /**
      * Processes an incoming MQTT message by parsing sensor data and checking for threshold violations.
      *
      * @param topic   The MQTT topic from which the message was received.
-     * @param payload The JSON payload containing the sensor data.
+     * @param payload The JSON payload containing one reading or a batch of readings
+     *                (see {@link SensorDataDecoder#decodeEach}).
      */
     @Override
     public void accept(String topic, String payload) {
-        LOGGER.debug("Processing sensor data for alert detection - Topic: [{}], Payload: [{}]", topic, payload);
+        if (LOGGER.isDebugEnabled() && payloadLogSampler.sample()) {
+            LOGGER.debug("Processing sensor data for alert detection - Topic: [{}], Payload: [{}] (1 in {} messages logged)",
+                    topic, payload, LogSampler.DEFAULT_ONE_IN);
+        }
 
+        receivedMessages.increment();
+        if (!isConfiguredTopic(topic)) {
+            return;
+        }
+        ReadingSink sink = readingSinks.get();
+        sink.start(0);
         try {
-            SensorData sensorData = gson.fromJson(payload, SensorData.class);
+            jsonDecoder.decodeEach(payload.getBytes(StandardCharsets.UTF_8), sink.reading, sink);
+        } catch (JsonSyntaxException e) {
+            if (invalidMessages.increment()) {
+                LOGGER.error("JSON Parsing Error - Topic: [{}], Payload: [{}], Error: [{}] ({} invalid messages so far)",
+                        topic, payload, e.getMessage(), invalidMessages.sum());
+            }
+        } catch (Exception e) {
+            LOGGER.error("Unexpected error processing message - Topic: [{}], Error: [{}]", topic, e.getMessage(), e);
+        }
+    }
 
-            if (sensorData == null || sensorData.getSensorId() == null) {
-                LOGGER.warn("Skipping message due to incomplete data after serialization: {}", payload);
-                return;
+    /**
+     * Processes an undecoded MQTT message by parsing sensor data and checking for threshold violations.
+     * The payload is decoded straight from its bytes, without building an intermediate {@code String}.
+     * Each reading of a batched payload is evaluated as it is decoded, exactly as if it had arrived in
+     * a message of its own.
+     *
+     * @param topic   The MQTT topic from which the message was received.
+     * @param payload The encoded payload containing one reading or a batch of readings.
+     */
+    @Override
+    public void accept(String topic, byte[] payload) {
+        accept(topic, payload, 0);
+    }
+
+    /**
+     * Processes an undecoded MQTT message as {@link #accept(String, byte[])} does, measuring how long it
+     * waited since its arrival.
+     *
+     * @param topic         The MQTT topic from which the message was received.
+     * @param payload       The encoded payload containing one reading or a batch of readings.
+     * @param receivedNanos The {@link System#nanoTime()} at which the message arrived, or {@code 0} if unknown.
+     */
+    @Override
+    public void accept(String topic, byte[] payload, long receivedNanos) {
+        if (LOGGER.isDebugEnabled() && payloadLogSampler.sample()) {
+            LOGGER.debug("Processing sensor data for alert detection - Topic: [{}], Payload size: [{}] (1 in {} messages logged)",
+                    topic, payload.length, LogSampler.DEFAULT_ONE_IN);
+        }
+
+        receivedMessages.increment();
+        if (!isConfiguredTopic(topic)) {
+            return;
+        }
+        ReadingSink sink = readingSinks.get();
+        sink.start(receivedNanos);
+        try {
+            payloadCodecs.forTopic(topic).decodeEach(payload, sink.reading, sink);
+        } catch (JsonSyntaxException | PayloadFormatException e) {
+            if (invalidMessages.increment()) {
+                LOGGER.error("Payload Decoding Error - Topic: [{}], Payload: [{}], Error: [{}] ({} invalid messages so far)",
+                        topic, new String(payload, StandardCharsets.UTF_8), e.getMessage(), invalidMessages.sum());
             }
-            checkForAlert(sensorData);
-        } catch (JsonSyntaxException e) {
-            LOGGER.error("JSON Parsing Error - Topic: [{}], Payload: [{}], Error: [{}]", topic, payload, e.getMessage());
         } catch (Exception e) {
             LOGGER.error("Unexpected error processing message - Topic: [{}], Error: [{}]", topic, e.getMessage(), e);
         }
     }
 
+    /**
+     * Evaluates one decoded reading, skipping it if it is incomplete.
+     *
+     * @param data The reading, or {@code null} if the payload held none.
+     * @param sink The sink the reading was decoded into, tracing it.
+     */
+    private void acceptReading(SensorData data, ReadingSink sink) {
+        if (data == null || data.getSensorId() == null) {
+            if (invalidMessages.increment()) {
+                LOGGER.warn("Skipping reading due to incomplete data after serialization: {} ({} invalid messages so far)",
+                        data, invalidMessages.sum());
+            }
+            return;
+        }
+        decodedReadings.increment();
+        checkForAlert(data, sink);
+    }
+
+    /**
+     * @return The number of readings skipped because their sensor type has no configured threshold.
+     */
+    public long getUnconfiguredReadings() {
+        return unconfiguredReadings.sum();
+    }
+
+    /**
+     * @return The number of messages skipped because their payload was malformed, plus the number of
+     * incomplete readings skipped.
+     */
+    public long getInvalidMessages() {
+        return invalidMessages.sum();
+    }
+
+    /**
+     * @return The number of readings discarded in {@link TimeMode#EVENT} mode because they arrived behind
+     * their device's watermark.
+     */
+    public long getLateReadings() {
+        return lateReadings.sum();
+    }
+
+    /**
+     * @return The number of readings dropped from a full window before they left their time threshold,
+     * shortening the period the window was evaluated over.
+     */
+    public long getTruncatedReadings() {
+        return truncatedReadings.sum();
+    }
+
+    /**
+     * @return The number of messages handed to the processor, including messages skipped by their topic.
+     */
+    public long getReceivedMessages() {
+        return receivedMessages.sum();
+    }
+
+    /**
+     * @return The number of complete readings decoded from received messages and evaluated.
+     */
+    public long getDecodedReadings() {
+        return decodedReadings.sum();
+    }
+
+    /**
+     * @return The number of alerts published, one per incident.
+     */
+    public long getFiredAlerts() {
+        return tooHighAlerts.sum() + tooLowAlerts.sum();
+    }
+
+    /**
+     * @return The number of resolve events published.
+     */
+    public long getResolvedAlerts() {
+        return resolvedAlerts.sum();
+    }
+
+    /**
+     * @return The number of messages whose topic did not match the topic pattern, classified by their payload instead.
+     */
+    public long getUnmatchedTopics() {
+        return unmatchedTopics.sum();
+    }
+
+    /**
+     * Classifies a message by its topic before its payload is decoded.
+     *
+     * @param topic The topic the message was received on.
+     * @return {@code false} if the topic names a sensor type without a configured threshold, so the
+     * message can be skipped; {@code true} if it must be evaluated, including when no topic pattern is
+     * set or the topic does not match it.
+     */
+    private boolean isConfiguredTopic(String topic) {
+        TopicPattern pattern = topicPattern;
+        if (pattern == null) {
+            return true;
+        }
+        long range = pattern.locate(topic, TopicPattern.Field.SENSOR_TYPE);
+        if (range == TopicPattern.NO_MATCH) {
+            if (pattern.captures(TopicPattern.Field.SENSOR_TYPE) && unmatchedTopics.increment()) {
+                LOGGER.warn("Topic [{}] does not match topic pattern [{}], classifying by payload ({} such messages so far)",
+                        topic, pattern, unmatchedTopics.sum());
+            }
+            return true;
+        }
+        ThresholdTable thresholds = configLoader.getThresholdTable();
+        if (thresholds.get(thresholds.idOf(topic, TopicPattern.offset(range), TopicPattern.length(range))) != null) {
+            return true;
+        }
+        if (unconfiguredReadings.increment()) {
+            LOGGER.warn("No alert configuration found for sensor type of topic: {} ({} readings of unconfigured sensor types skipped so far)",
+                    topic, unconfiguredReadings.sum());
+        }
+        return false;
+    }
+
     /**
      * Analyzes the received sensor data to determine if an alert should be generated.
      *
      * @param data The sensor data to be evaluated.
+     * @param sink The sink the reading was decoded into, tracing it.
      */
-    private void checkForAlert(SensorData data) {
-        // Extract the sensor type from the incoming data and its given threshold configuration
-        String sensorType = data.getSensorType().toLowerCase();
-        SensorThreshold threshold = configLoader.getThreshold(sensorType);
+    private void checkForAlert(SensorData data, ReadingSink sink) {
+        // Resolve the sensor type to its id and threshold configuration without allocating
+        ThresholdTable thresholds = configLoader.getThresholdTable();
+        int sensorTypeId = thresholds.idOf(data.getSensorType());
+        SensorThreshold threshold = thresholds.get(sensorTypeId);
 
         if (threshold == null) {
-            LOGGER.warn("No alert configuration found for sensor type: {}", sensorType);
+            if (unconfiguredReadings.increment()) {
+                LOGGER.warn("No alert configuration found for sensor type: {} ({} readings of unconfigured sensor types skipped so far)",
+                        data.getSensorType(), unconfiguredReadings.sum());
+            }
             return; // Skip processing if no threshold is defined
         }
 
-        // Maintain the history of sensor readings for given sensor type
-        history.putIfAbsent(sensorType, new ArrayList<>());
-        List<SensorData> dataList = history.get(sensorType);
-        dataList.add(data);
+        // Update the device's window atomically; the alert itself is published outside the stripe lock
+        long now = Instant.now(clock).getEpochSecond();
+        SensorKey key = SensorKey.of(thresholds.sensorType(sensorTypeId), data);
+        boolean eventTime = timeMode == TimeMode.EVENT;
+        Transition transition = stateStore.compute(key, now, state -> eventTime
+                ? evaluateInEventTime(key, state, data, threshold)
+                : evaluate(key, state, data, threshold, now));
+        if (sink.recording) {
+            sink.recordEvaluated(latenciesFor(sensorTypeId, thresholds));
+        }
+
+        if (transition == null) {
+            return;
+        }
+        if (transition == LATE) {
+            if (lateReadings.increment()) {
+                LOGGER.warn("Discarding late reading of sensor {} with timestamp {}, more than {} seconds behind its newest reading ({} late readings so far)",
+                        key, data.getTimestamp(), allowedLatenessSeconds, lateReadings.sum());
+            }
+        } else if (transition.status() == AlertStatus.FIRING) {
+            generateAlert(data, threshold, transition.percentageOut(), sink);
+        } else {
+            resolvedAlerts.increment();
+            generateResolve(data, threshold, transition, sink);
+        }
+    }
+
+    /**
+     * Evaluates a reading against its device's event-time clock: the newest reading timestamp seen for
+     * the device. Readings behind the device's watermark are discarded; the others are windowed and
+     * evaluated exactly as in processing time, with the event-time clock standing in for the current time.
+     * Runs while the device's stripe lock is held.
+     *
+     * @return As {@link #evaluate}, or {@link #LATE} if the reading was discarded.
+     */
+    private Transition evaluateInEventTime(SensorKey key, AlertState state, SensorData data, SensorThreshold threshold) {
+        long eventTime = state.getEventTime();
+        if (eventTime == AlertState.NOT_STARTED && !state.getActiveWindow().isEmpty()) {
+            eventTime = state.getActiveWindow().newestTimestamp(); // Window restored from a checkpoint
+        }
+        long timestamp = data.getTimestamp();
+        if (eventTime != AlertState.NOT_STARTED && timestamp < eventTime - allowedLatenessSeconds) {
+            return LATE;
+        }
+        eventTime = Math.max(eventTime, timestamp);
+        state.setEventTime(eventTime);
+        return evaluate(key, state, data, threshold, eventTime);
+    }
+
+    /**
+     * Adds a reading to a device's window and advances the device's {@link AlertStatus}.
+     * Runs while the device's stripe lock is held.
+     *
+     * @param key       The device key, used for logging.
+     * @param state     The device's alert state.
+     * @param data      The sensor reading.
+     * @param threshold The threshold configuration for the reading's sensor type.
+     * @param now       The current time in epoch seconds, on the service's or the device's event-time clock.
+     * @return The transition to publish, if the device started firing or resolved; otherwise {@code null}.
+     */
+    private Transition evaluate(SensorKey key, AlertState state, SensorData data, SensorThreshold threshold, long now) {
+        // Maintain the history of sensor readings for the device that sent the reading
+        applyThreshold(key, state, threshold);
+        ReadingWindow window = state.getActiveWindow();
+        long dropped = window.getDroppedReadings();
+        window.add(data.getTimestamp(), data.getValue(), isOutOfRange(data.getValue(), threshold));
+        if (window.getDroppedReadings() != dropped && truncatedReadings.increment()) {
+            // A full window dropped its oldest reading, so it covers less than the time threshold
+            LOGGER.warn("Window of sensor {} is full, evaluating it over less than {} seconds; raise ALERT_WINDOW_MAX_READINGS or set bucketSeconds for its sensor type ({} readings truncated so far)",
+                    key, threshold.getTimeThreshold(), truncatedReadings.sum());
+        }
 
         // Remove old sensor readings based on threshold time
-        long now = Instant.now().getEpochSecond();
-        dataList.removeIf(d -> (now - d.getTimestamp()) > threshold.getTimeThreshold());
+        window.evictOlderThan(now - threshold.getTimeThreshold());
+
+        // Record first evaluation time for this device (if not already set)
+        if (!state.hasStarted()) {
+            state.setFirstEvaluationTime(now);
+        }
+
+        if (window.isEmpty()) {
+            return null; // Every reading (including this one) has already expired
+        }
+
+        // Percentage of readings that are out of range, kept incrementally by the window
+        double percentageOut = window.percentageOut();
+
+        if (state.getStatus() == AlertStatus.FIRING) {
+            if (percentageOut >= threshold.getEffectiveResolvePercentage()) {
+                return null; // Still the same incident: already alerted
+            }
+            long firingSeconds = now - state.getStatusSince();
+            moveTo(key, state, AlertStatus.RESOLVED, now);
+            state.setCooldownUntil(now + threshold.getCooldownSeconds());
+            return new Transition(AlertStatus.RESOLVED, percentageOut, firingSeconds);
+        }
+
+        if (percentageOut < threshold.getPercentageThreshold()) {
+            if (state.getStatus() == AlertStatus.PENDING
+                    || (state.getStatus() == AlertStatus.RESOLVED && now >= state.getCooldownUntil())) {
+                moveTo(key, state, AlertStatus.OK, now);
+            }
+            return null;
+        }
+
+        // Ensure that at least 'timeThreshold' seconds have passed since first data was received,
+        // and that the cooldown after the previous incident is over
+        if ((now - state.getFirstEvaluationTime()) < threshold.getTimeThreshold()) {
+            if (warmingUpReadings.increment()) {
+                LOGGER.info("Waiting for full time threshold before evaluating alerts for sensor: {} ({} such readings so far)",
+                        key, warmingUpReadings.sum());
+            }
+            moveTo(key, state, AlertStatus.PENDING, now);
+            return null;
+        }
+        if (now < state.getCooldownUntil()) {
+            moveTo(key, state, AlertStatus.PENDING, now);
+            return null;
+        }
+        moveTo(key, state, AlertStatus.FIRING, now);
+        state.setFirstEvaluationTime(now); // A new incident needs another full time threshold of readings
+        return new Transition(AlertStatus.FIRING, percentageOut, 0);
+    }
 
-        // Record first evaluation time for this sensor type (if not already set)
-        firstEvaluationTime.putIfAbsent(sensorType, now);
+    /**
+     * Moves a device to another status, recording when it did.
+     */
+    private static void moveTo(SensorKey key, AlertState state, AlertStatus status, long now) {
+        if (state.getStatus() == status) {
+            return;
+        }
+        LOGGER.debug("Sensor {} moved from {} to {}", key, state.getStatus(), status);
+        state.setStatus(status);
+        state.setStatusSince(now);
+    }
 
-        // Ensure that at least 'timeThreshold' seconds have passed since first data was received
-        long firstTime = firstEvaluationTime.get(sensorType);
-        if ((now - firstTime) < threshold.getTimeThreshold()) {
-            LOGGER.info("Waiting for full time threshold before evaluating alerts for sensor: {}", sensorType);
+    /**
+     * Brings a device's window in line with the current threshold after a configuration reload or a
+     * restore from a checkpoint. Readings are kept; if the bucket width changed they are re-aggregated
+     * (see {@link #applyBucketing}), and if the min/max range changed, or the window was restored, they
+     * are re-evaluated against the current range.
+     *
+     * @param key       The device key, used for logging.
+     * @param state     The device's alert state.
+     * @param threshold The current threshold configuration for the device's sensor type.
+     */
+    private static void applyThreshold(SensorKey key, AlertState state, SensorThreshold threshold) {
+        SensorThreshold previous = state.getThreshold();
+        if (previous == threshold) {
             return;
         }
+        boolean rangeChanged = previous == null
+                // A window restored from a checkpoint may predate the current configuration
+                ? !state.getActiveWindow().isEmpty()
+                : previous.getMin() != threshold.getMin() || previous.getMax() != threshold.getMax();
+        applyBucketing(key, state, threshold.getBucketSeconds());
+        if (rangeChanged) {
+            state.getActiveWindow().reclassify(threshold.getMin(), threshold.getMax());
+            LOGGER.debug("Re-evaluated window of sensor {} against updated range {} - {}", key, threshold.getMin(), threshold.getMax());
+        }
+        state.setThreshold(threshold);
+    }
 
-        // Calculate the percentage of readings that are out of range
-        long outOfRangeCount = dataList.stream()
-                .filter(d -> d.getValue() < threshold.getMin() || d.getValue() > threshold.getMax())
-                .count();
-        double percentageOut = (100.0 * outOfRangeCount) / dataList.size();
+    /**
+     * Switches a device's window to the configured bucket width. Raw readings are folded into the new
+     * buckets, and buckets of another width are merged by their start, which is exact when the new width
+     * is a multiple of the old one. Aggregated readings cannot be split back into raw readings, so
+     * they are discarded when bucketing is turned off.
+     *
+     * @param key           The device key, used for logging.
+     * @param state         The device's alert state.
+     * @param bucketSeconds The configured bucket width, or {@code 0} to keep every reading.
+     */
+    private static void applyBucketing(SensorKey key, AlertState state, int bucketSeconds) {
+        BucketedWindow current = state.getBuckets();
+        if (bucketSeconds == (current == null ? 0 : current.getBucketSeconds())) {
+            return;
+        }
+        if (bucketSeconds == 0) {
+            state.setBuckets(null);
+            LOGGER.info("Discarding {} aggregated readings of sensor {}, its readings are kept individually from now on",
+                    current.getReadingCount(), key);
+            return;
+        }
 
-        // Trigger the alert if the percentage exceeds the configured threshold
-        if (percentageOut >= threshold.getPercentageThreshold()) {
-            generateAlert(data, threshold, percentageOut);
-            firstEvaluationTime.put(sensorType, now); // Reset first evaluation time after generating an alert
+        SlidingWindow window = state.getWindow();
+        BucketedWindow buckets = new BucketedWindow(bucketSeconds, window.getMaxCapacity());
+        for (int i = 0; i < window.size(); i++) {
+            buckets.add(window.timestampAt(i), window.valueAt(i), window.isOutOfRangeAt(i));
+        }
+        window.clear();
+        if (current != null) {
+            for (int i = 0; i < current.size(); i++) {
+                buckets.merge(current.startAt(i), current.countAt(i), current.outOfRangeCountAt(i),
+                        current.minAt(i), current.maxAt(i), current.sumAt(i));
+            }
         }
+        state.setBuckets(buckets);
+        LOGGER.debug("Aggregating readings of sensor {} into {}-second buckets", key, bucketSeconds);
     }
 
     /**
-     * Generates an alert when a sensor's values exceed the configured threshold.
+     * Checks whether a value falls outside the configured min/max range.
+     *
+     * @param value     The sensor reading's value.
+     * @param threshold The threshold configuration for the reading's sensor type.
+     * @return {@code true} if the value is below the minimum or above the maximum.
+     */
+    private static boolean isOutOfRange(double value, SensorThreshold threshold) {
+        return value < threshold.getMin() || value > threshold.getMax();
+    }
+
+    /**
+     * Generates an alert when a sensor's values exceed the configured threshold, logging it as an
+     * {@code alert} event.
      *
      * @param data          The sensor data that triggered the alert.
      * @param threshold     The predefined threshold configuration.
      * @param percentageOut The percentage of out-of-range values over the configured period.
+     * @param sink          The sink tracing the reading.
      */
-    private void generateAlert(SensorData data, SensorThreshold threshold, double percentageOut) {
-        LOGGER.warn("ALERT: {} sensor has {}% values out of range in the last {} seconds. Value: {} (Expected: {} - {})",
-                data.getSensorType(),
-                percentageOut,
-                threshold.getTimeThreshold(),
-                data.getValue(),
-                threshold.getMin(),
-                threshold.getMax());
+    private void generateAlert(SensorData data, SensorThreshold threshold, double percentageOut, ReadingSink sink) {
+        double value = data.getValue();
+        String alertType = (value > threshold.getMax()) ? "TOO_HIGH" : "TOO_LOW";
+        EVENTS.event(Level.WARN, StructuredEvent.of("alert")
+                .with("alert_type", alertType)
+                .with("sensor_type", data.getSensorType())
+                .with("sensor_id", data.getSensorId())
+                .with("location", data.getLocation())
+                .with("value", value)
+                .with("percentage_out", percentageOut)
+                .with("window_seconds", threshold.getTimeThreshold())
+                .with("min", threshold.getMin())
+                .with("max", threshold.getMax()));
 
-        onAlertGenerated(data);
+        onAlertGenerated(data, threshold, alertType, sink);
     }
 
     /**
-     * Placeholder method for handling alert notifications
-     * This method should be implemented to define the alert handling mechanism.
+     * Publishes the resolve event of a device whose share of out-of-range readings fell below the resolve
+     * threshold, logging it as a {@code resolve} event.
      *
-     * @param data The sensor data that triggered the alert.
+     * @param data       The sensor data that resolved the alert.
+     * @param threshold  The threshold configuration the reading was evaluated against.
+     * @param transition The resolve transition, with the remaining percentage and how long the alert was firing.
+     * @param sink       The sink tracing the reading.
      */
-    private void onAlertGenerated(SensorData data) {
-        SensorThreshold threshold = configLoader.getThreshold(data.getSensorType().toLowerCase());
-        if (threshold == null) return;
+    private void generateResolve(SensorData data, SensorThreshold threshold, Transition transition, ReadingSink sink) {
+        EVENTS.event(Level.INFO, StructuredEvent.of("resolve")
+                .with("sensor_type", data.getSensorType())
+                .with("sensor_id", data.getSensorId())
+                .with("location", data.getLocation())
+                .with("value", data.getValue())
+                .with("duration_seconds", transition.durationSeconds())
+                .with("percentage_out", transition.percentageOut())
+                .with("window_seconds", threshold.getTimeThreshold()));
 
+        String message = String.format(
+                "%s is back in range after %d seconds",
+                data.getSensorType(), transition.durationSeconds()
+        );
+        publish(new AlertMessage(
+                data.getSensorType(),
+                data.getLocation(),
+                data.getSensorId(),
+                data.getValue(),
+                AlertStatus.RESOLVED.name(),
+                transition.durationSeconds(),
+                message
+        ), data, sink);
+    }
+
+    /**
+     * Builds the alert message for a reading that breached its threshold and hands it
+     * to the configured {@link AlertPublisher}.
+     *
+     * @param data      The sensor data that triggered the alert.
+     * @param threshold The threshold configuration the reading was evaluated against.
+     * @param alertType {@code TOO_HIGH} or {@code TOO_LOW}.
+     * @param sink      The sink tracing the reading.
+     */
+    private void onAlertGenerated(SensorData data, SensorThreshold threshold, String alertType, ReadingSink sink) {
         double value = data.getValue();
-        String alertType = (value > threshold.getMax()) ? "TOO_HIGH" : "TOO_LOW";
+        (value > threshold.getMax() ? tooHighAlerts : tooLowAlerts).increment();
         long duration = threshold.getTimeThreshold();
 
         String message = String.format(
@@ -173,20 +746,218 @@ public class AlertProcessor implements BiConsumer<String, String> {
 
         AlertMessage alert = new AlertMessage(
                 data.getSensorType(),
+                data.getLocation(),
+                data.getSensorId(),
                 value,
                 alertType,
                 duration,
                 message
         );
+        publish(alert, data, sink);
+    }
+
+    /**
+     * Hands an alert or resolve event to the configured {@link AlertPublisher} on the alert executor,
+     * stamping it with the latency fields and the time its delivery is measured from.
+     *
+     * @param alert The message to publish.
+     * @param data  The reading that triggered the message.
+     * @param sink  The sink tracing the reading.
+     */
+    private void publish(AlertMessage alert, SensorData data, ReadingSink sink) {
+        AlertPublisher publisher = alertPublisher;
+        if (publisher == null) {
+            LOGGER.error("No alert publisher configured, dropping {} for sensor {}", alert.getAlertType(), alert.getSensorId());
+            return;
+        }
+        alert.setReadingTimestamp(data.getTimestamp());
+        if (sink.timed) {
+            long now = System.nanoTime();
+            if (sink.fields) {
+                alert.setEventTime(data.getTimestamp());
+                alert.setProcessingDelayMillis(TimeUnit.NANOSECONDS.toMillis(now - sink.receivedNanos));
+            }
+            if (sink.recording) {
+                alert.setPublishedNanos(now);
+            }
+        }
+        alertExecutor.execute(() -> publisher.publish(alert));
+    }
+
+    /**
+     * Records the publish and end-to-end latency of an alert the broker acknowledged. End-to-end latency
+     * is measured on the processor's clock against the reading's timestamp, so it is only as precise as
+     * that timestamp (whole seconds) and the sensor's clock.
+     *
+     * @param alert The delivered alert.
+     */
+    private void onAlertDelivered(AlertMessage alert) {
+        long publishedNanos = alert.getPublishedNanos();
+        if (publishedNanos == 0) {
+            return; // Not traced
+        }
+        ThresholdTable thresholds = configLoader.getThresholdTable();
+        int sensorTypeId = thresholds.idOf(alert.getSensorType());
+        if (sensorTypeId == ThresholdTable.UNKNOWN) {
+            return; // Sensor type removed from the configuration since
+        }
+        SensorTypeLatencies typeLatencies = latenciesFor(sensorTypeId, thresholds);
+        typeLatencies.publish.recordSince(publishedNanos);
+        typeLatencies.endToEnd.record(TimeUnit.MILLISECONDS.toNanos(clock.millis() - alert.getReadingTimestamp() * 1_000));
+    }
 
-        String json = gson.toJson(alert);
+    /**
+     * Returns the latency histograms of a sensor type, creating and registering them the first time it is traced.
+     *
+     * @param sensorTypeId The sensor type's id in the threshold table.
+     * @param thresholds   The threshold table, naming the sensor type.
+     * @return The sensor type's histograms.
+     */
+    private SensorTypeLatencies latenciesFor(int sensorTypeId, ThresholdTable thresholds) {
+        SensorTypeLatencies[] current = latencies;
+        if (sensorTypeId < current.length && current[sensorTypeId] != null) {
+            return current[sensorTypeId];
+        }
+        return createLatencies(sensorTypeId, thresholds.sensorType(sensorTypeId));
+    }
 
-        try {
-            mqttClient.publish("alerts", new MqttMessage(json.getBytes()));
-            LOGGER.info("Published alert to MQTT topic [alerts]: {}", json);
-        } catch (MqttException e) {
-            LOGGER.error("Failed to publish alert message to MQTT", e);
+    private synchronized SensorTypeLatencies createLatencies(int sensorTypeId, String sensorType) {
+        SensorTypeLatencies[] current = latencies;
+        if (sensorTypeId < current.length && current[sensorTypeId] != null) {
+            return current[sensorTypeId]; // Created by another thread meanwhile
         }
+        SensorTypeLatencies[] grown = Arrays.copyOf(current, Math.max(current.length, sensorTypeId + 1));
+        SensorTypeLatencies created = new SensorTypeLatencies(sensorType);
+        grown[sensorTypeId] = created;
+        MetricsRegistry registry = metricsRegistry;
+        if (registry != null) {
+            created.bindTo(registry);
+        }
+        latencies = grown;
+        return created;
+    }
+
+    /**
+     * Returns the latency histograms of a sensor type.
+     *
+     * @param sensorType The sensor type.
+     * @return The histograms, or {@code null} if none of the sensor type's readings were traced.
+     */
+    SensorTypeLatencies latenciesOf(String sensorType) {
+        int sensorTypeId = configLoader.getThresholdTable().idOf(sensorType);
+        SensorTypeLatencies[] current = latencies;
+        return sensorTypeId >= 0 && sensorTypeId < current.length ? current[sensorTypeId] : null;
+    }
+
+    /**
+     * Registers the processor's message, reading and alert counters, the latency histograms of every
+     * sensor type (see {@link SensorTypeLatencies}) and the metrics of its {@link AlertStateStore},
+     * and starts recording latencies.
+     *
+     * @param registry The registry to register with.
+     */
+    @Override
+    public void bindTo(MetricsRegistry registry) {
+        registry.counter("messages_received", "Messages handed to the alert processor", receivedMessages::sum);
+        registry.counter("readings_decoded", "Complete readings decoded from received messages", decodedReadings::sum);
+        registry.counter("readings_dropped", "Messages or readings skipped before evaluation, by reason",
+                unconfiguredReadings::sum, "reason", "unconfigured");
+        registry.counter("readings_dropped", "Messages or readings skipped before evaluation, by reason",
+                invalidMessages::sum, "reason", "invalid");
+        registry.counter("readings_dropped", "Messages or readings skipped before evaluation, by reason",
+                lateReadings::sum, "reason", "late");
+        registry.counter("window_readings_truncated", "Readings dropped from full windows before leaving the time threshold",
+                truncatedReadings::sum);
+        registry.counter("topics_unmatched", "Messages whose topic did not match the topic pattern", unmatchedTopics::sum);
+        registry.counter("alerts", "Alerts and resolve events published, by alert type", tooHighAlerts::sum, "alert_type", "TOO_HIGH");
+        registry.counter("alerts", "Alerts and resolve events published, by alert type", tooLowAlerts::sum, "alert_type", "TOO_LOW");
+        registry.counter("alerts", "Alerts and resolve events published, by alert type", resolvedAlerts::sum,
+                "alert_type", AlertStatus.RESOLVED.name());
+        stateStore.bindTo(registry);
+        bindLatencies(registry);
+        latencyRecording = true;
+    }
+
+    private synchronized void bindLatencies(MetricsRegistry registry) {
+        metricsRegistry = registry;
+        for (SensorTypeLatencies typeLatencies : latencies) {
+            if (typeLatencies != null) {
+                typeLatencies.bindTo(registry);
+            }
+        }
+    }
+
+    /**
+     * Receives the readings decoded from one thread's messages and holds the timestamps tracing the
+     * message being processed: when it arrived, when its evaluation started, and when each reading was decoded.
+     */
+    private final class ReadingSink implements Consumer<SensorData> {
+        /**
+         * Reading reused for every decoded reading; windows only retain timestamps and values.
+         */
+        private final SensorData reading = new SensorData();
+        private boolean recording;
+        private boolean fields;
+        private boolean timed;
+        private boolean waitRecorded;
+        private long receivedNanos;
+        private long startedNanos;
+        private long markNanos;
+        private long decodedNanos;
+
+        /**
+         * Starts tracing a message, if latencies are recorded or published.
+         *
+         * @param receivedNanos When the message arrived, or {@code 0} if unknown.
+         */
+        private void start(long receivedNanos) {
+            recording = latencyRecording;
+            fields = latencyFields;
+            timed = recording || fields;
+            if (timed) {
+                startedNanos = System.nanoTime();
+                markNanos = startedNanos;
+                this.receivedNanos = receivedNanos == 0 ? startedNanos : receivedNanos;
+                waitRecorded = false;
+            }
+        }
+
+        /**
+         * Records the stages of the reading being evaluated: the message's wait for the first reading
+         * traced, the reading's decoding and its evaluation until now.
+         *
+         * @param typeLatencies The histograms of the reading's sensor type.
+         */
+        private void recordEvaluated(SensorTypeLatencies typeLatencies) {
+            long now = System.nanoTime();
+            if (!waitRecorded) {
+                typeLatencies.receive.record(startedNanos - receivedNanos);
+                waitRecorded = true;
+            }
+            typeLatencies.decode.record(decodedNanos - markNanos);
+            typeLatencies.evaluate.record(now - decodedNanos);
+        }
+
+        @Override
+        public void accept(SensorData data) {
+            if (!timed) {
+                acceptReading(data, this);
+                return;
+            }
+            decodedNanos = System.nanoTime();
+            acceptReading(data, this);
+            markNanos = System.nanoTime(); // The next reading is decoded from here
+        }
+    }
+
+    /**
+     * A change of a device's {@link AlertStatus} that must be published.
+     *
+     * @param status          {@link AlertStatus#FIRING} or {@link AlertStatus#RESOLVED}.
+     * @param percentageOut   The percentage of out-of-range readings when the status changed.
+     * @param durationSeconds For a resolve, how long the alert was firing.
+     */
+    private record Transition(AlertStatus status, double percentageOut, long durationSeconds) {
     }
 
 }
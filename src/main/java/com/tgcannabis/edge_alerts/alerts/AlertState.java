@@ -0,0 +1,99 @@
+package com.tgcannabis.edge_alerts.alerts;
+
+import com.tgcannabis.edge_alerts.model.SensorThreshold;
+import lombok.Getter;
+import lombok.Setter;
+
+/**
+ * Alert evaluation state of a single sensor device: its sliding window of readings (or, for sensor
+ * types with a bucket width, its window of aggregated buckets), the time evaluation started for it,
+ * its {@link AlertStatus} and, in {@link TimeMode#EVENT} mode, its event-time clock.
+ */
+@Getter
+public class AlertState {
+    /**
+     * Marker for a device whose evaluation period has not started yet.
+     */
+    static final long NOT_STARTED = Long.MIN_VALUE;
+
+    private final SlidingWindow window;
+
+    /**
+     * Aggregated readings while the device's sensor type is configured with a bucket width, otherwise
+     * {@code null}; the raw {@link #window} is then left empty.
+     */
+    @Setter
+    private BucketedWindow buckets;
+
+    @Setter
+    private long firstEvaluationTime = NOT_STARTED;
+
+    /**
+     * Where the device is in its alert lifecycle.
+     */
+    @Setter
+    private AlertStatus status = AlertStatus.OK;
+
+    /**
+     * Time (epoch seconds) the device entered its current {@link #status}, or {@link #NOT_STARTED}.
+     */
+    @Setter
+    private long statusSince = NOT_STARTED;
+
+    /**
+     * Time (epoch seconds) until which the device cannot fire again after its last alert resolved,
+     * or {@link #NOT_STARTED}.
+     */
+    @Setter
+    private long cooldownUntil = NOT_STARTED;
+
+    /**
+     * Newest reading timestamp (epoch seconds) seen for this device in {@link TimeMode#EVENT} mode, or
+     * {@link #NOT_STARTED}. The device's watermark trails it by the allowed lateness.
+     */
+    @Setter
+    private long eventTime = NOT_STARTED;
+
+    /**
+     * Last time (epoch seconds) a reading for this device was processed; used for idle expiry.
+     */
+    @Setter
+    private long lastSeen;
+
+    /**
+     * Threshold the window's out-of-range flags were last computed with; {@code null} until the first reading.
+     */
+    @Setter
+    private SensorThreshold threshold;
+
+    /**
+     * Creates the state of a device whose window holds at most {@value SlidingWindow#DEFAULT_MAX_CAPACITY} readings.
+     */
+    public AlertState() {
+        this(SlidingWindow.DEFAULT_MAX_CAPACITY);
+    }
+
+    /**
+     * Creates the state of a device.
+     *
+     * @param windowCapacity Maximum number of readings kept in the device's window.
+     * @throws IllegalArgumentException if the capacity is not positive.
+     */
+    public AlertState(int windowCapacity) {
+        this.window = new SlidingWindow(windowCapacity);
+    }
+
+    /**
+     * @return The window readings are currently kept in: the bucketed window if there is one, otherwise the raw window.
+     */
+    public ReadingWindow getActiveWindow() {
+        return buckets != null ? buckets : window;
+    }
+
+    /**
+     * @return {@code true} if the evaluation period for this device has started.
+     */
+    public boolean hasStarted() {
+        return firstEvaluationTime != NOT_STARTED;
+    }
+}
@@ -0,0 +1,507 @@
+package com.tgcannabis.edge_alerts.alerts;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.BufferOverflowException;
+import java.nio.BufferUnderflowException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.CRC32;
+
+/**
+ * Persists the per-device alert state of an {@link AlertStateStore} in memory-mapped files, so a
+ * restarted processor resumes evaluation with its windows and evaluation periods intact instead of
+ * waiting out a fresh warm-up of up to {@code timeThreshold} seconds.
+ * <p>
+ * State is checkpointed periodically into one of two slot files that stay mapped between
+ * checkpoints. Each checkpoint carries a generation number and a CRC32 checksum and overwrites the
+ * slot holding the older generation, so a crash while writing leaves the newest complete checkpoint
+ * untouched. On startup the valid slot with the highest generation is restored; a slot whose
+ * checksum does not match is ignored. A checkpoint only holds a stripe's lock while copying its
+ * devices' windows into plain arrays; growing the file, encoding, checksumming and flushing happen
+ * on that copy with no lock held, so processing is not stalled by disk I/O.
+ * <p>
+ * Slot layout: a {@value #HEADER_BYTES}-byte header (magic, version, generation, save time, payload
+ * length, device count, CRC32 of the header fields and payload) followed by one record per device:
+ * its key, first evaluation time, last seen time, the readings of its window, since version 2 its
+ * bucket width and aggregated buckets, and since version 3 its {@link AlertStatus}, the time it entered
+ * that status and the end of its cooldown. Checkpoints of earlier versions are still restored, with
+ * every device {@link AlertStatus#OK}.
+ */
+public class AlertStateCheckpointer implements AutoCloseable {
+    private static final Logger LOGGER = LoggerFactory.getLogger(AlertStateCheckpointer.class);
+
+    public static final long DEFAULT_INTERVAL_SECONDS = 10;
+
+    private static final int MAGIC = 0x45415753; // "EAWS"
+    private static final int VERSION = 3;
+    private static final int FIRST_BUCKETED_VERSION = 2;
+    private static final int FIRST_STATUS_VERSION = 3;
+    private static final int HEADER_BYTES = 40;
+    private static final int GENERATION_OFFSET = 8;
+    private static final int SAVED_AT_OFFSET = 16;
+    private static final int LENGTH_OFFSET = 24;
+    private static final int COUNT_OFFSET = 28;
+    private static final int CRC_OFFSET = 32;
+    private static final int READING_BYTES = Long.BYTES + Double.BYTES + 1;
+    private static final int BUCKET_BYTES = Long.BYTES + 2 * Integer.BYTES + 3 * Double.BYTES;
+    private static final int INITIAL_SLOT_BYTES = 1 << 20;
+
+    private final AlertStateStore stateStore;
+    private final Slot[] slots;
+    private ScheduledExecutorService scheduler;
+    private long generation;
+
+    /**
+     * Opens, creating them if needed, the checkpoint files of the given store.
+     *
+     * @param stateStore The store to checkpoint and restore.
+     * @param directory  The directory holding the checkpoint files; created if missing.
+     * @throws IOException if the directory or the checkpoint files cannot be opened.
+     */
+    public AlertStateCheckpointer(AlertStateStore stateStore, Path directory) throws IOException {
+        this.stateStore = Objects.requireNonNull(stateStore, "Alert state store cannot be null");
+        Objects.requireNonNull(directory, "Checkpoint directory cannot be null");
+        Files.createDirectories(directory);
+        this.slots = new Slot[]{
+                new Slot(directory.resolve("alert-state-0.bin")),
+                new Slot(directory.resolve("alert-state-1.bin"))
+        };
+    }
+
+    /**
+     * Loads the newest valid checkpoint into the store. Must be called before messages are processed.
+     *
+     * @return The number of devices restored; {@code 0} if there is no valid checkpoint.
+     */
+    public synchronized int restore() {
+        Slot newest = null;
+        for (Slot slot : slots) {
+            if (slot.isValid() && (newest == null || slot.generation() > newest.generation())) {
+                newest = slot;
+            }
+        }
+        for (Slot slot : slots) {
+            generation = Math.max(generation, slot.isValid() ? slot.generation() : 0);
+        }
+        if (newest == null) {
+            LOGGER.info("No valid alert state checkpoint found, starting with empty windows");
+            return 0;
+        }
+
+        List<Record> records;
+        try {
+            records = newest.read();
+        } catch (BufferUnderflowException | IllegalArgumentException e) {
+            LOGGER.error("Alert state checkpoint {} is malformed, starting with empty windows", newest.path);
+            return 0;
+        }
+
+        // Restore in the order devices were last seen, so the store's idle expiry order is preserved
+        records.sort(Comparator.comparingLong(Record::lastSeen));
+        for (Record record : records) {
+            stateStore.compute(record.key(), record.lastSeen(), state -> {
+                state.setFirstEvaluationTime(record.firstEvaluationTime());
+                state.setStatus(record.status());
+                state.setStatusSince(record.statusSince());
+                state.setCooldownUntil(record.cooldownUntil());
+                SlidingWindow window = state.getWindow();
+                for (int i = 0; i < record.timestamps().length; i++) {
+                    window.add(record.timestamps()[i], record.values()[i], record.outOfRange()[i]);
+                }
+                if (record.bucketSeconds() > 0) {
+                    BucketedWindow buckets = new BucketedWindow(record.bucketSeconds(), window.getMaxCapacity());
+                    for (int i = 0; i < record.bucketStarts().length; i++) {
+                        buckets.merge(record.bucketStarts()[i], record.bucketCounts()[i], record.bucketOutOfRange()[i],
+                                record.bucketMins()[i], record.bucketMaxs()[i], record.bucketSums()[i]);
+                    }
+                    state.setBuckets(buckets);
+                }
+                return null;
+            });
+        }
+        LOGGER.info("Restored alert state of {} sensors from checkpoint {} (generation {}, saved at {})",
+                records.size(), newest.path, newest.generation(), Instant.ofEpochSecond(newest.savedAt()));
+        return records.size();
+    }
+
+    /**
+     * Writes the current state of every device into the slot holding the older checkpoint.
+     *
+     * @return {@code true} if the checkpoint was written.
+     */
+    public synchronized boolean checkpoint() {
+        long next = generation + 1;
+        Slot slot = slots[(int) (next % slots.length)];
+        List<Record> records = snapshot();
+        try {
+            slot.write(records, next, Instant.now().getEpochSecond());
+            generation = next;
+            LOGGER.debug("Checkpointed alert state of {} sensors (generation {})", records.size(), next);
+            return true;
+        } catch (IOException | BufferOverflowException e) {
+            LOGGER.error("Failed to checkpoint alert state to {}: {}", slot.path, e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * Copies the state of every device, holding each stripe's lock only while its devices are copied.
+     */
+    private List<Record> snapshot() {
+        List<Record> records = new ArrayList<>();
+        stateStore.forEachState((key, state) -> records.add(Record.of(key, state)));
+        return records;
+    }
+
+    /**
+     * Starts checkpointing periodically in the background.
+     *
+     * @param intervalSeconds Seconds between checkpoints.
+     * @throws IllegalArgumentException if the interval is not positive.
+     * @throws IllegalStateException    if checkpointing was already started.
+     */
+    public synchronized void start(long intervalSeconds) {
+        if (intervalSeconds <= 0) {
+            throw new IllegalArgumentException("Checkpoint interval must be positive");
+        }
+        if (scheduler != null) {
+            throw new IllegalStateException("Checkpointing already started");
+        }
+        scheduler = Executors.newSingleThreadScheduledExecutor(task -> {
+            Thread thread = new Thread(task, "alert-state-checkpoint");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleWithFixedDelay(this::checkpoint, intervalSeconds, intervalSeconds, TimeUnit.SECONDS);
+        LOGGER.info("Checkpointing alert state every {} seconds", intervalSeconds);
+    }
+
+    /**
+     * @return The generation of the newest checkpoint written or restored; {@code 0} if there is none.
+     */
+    public synchronized long getGeneration() {
+        return generation;
+    }
+
+    /**
+     * Stops periodic checkpointing, writes a final checkpoint and closes the checkpoint files.
+     * Call once message processing has stopped, so the final checkpoint holds every processed reading.
+     */
+    @Override
+    public void close() {
+        ScheduledExecutorService running;
+        synchronized (this) {
+            running = scheduler;
+            scheduler = null;
+        }
+        if (running != null) {
+            running.shutdown();
+            try {
+                running.awaitTermination(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        checkpoint();
+        for (Slot slot : slots) {
+            slot.close();
+        }
+    }
+
+    /**
+     * The persisted state of one device. {@code bucketSeconds} is {@code 0} for a device without buckets.
+     */
+    private record Record(SensorKey key, long firstEvaluationTime, long lastSeen,
+                          long[] timestamps, double[] values, boolean[] outOfRange,
+                          int bucketSeconds, long[] bucketStarts, int[] bucketCounts, int[] bucketOutOfRange,
+                          double[] bucketMins, double[] bucketMaxs, double[] bucketSums,
+                          AlertStatus status, long statusSince, long cooldownUntil) {
+
+        /**
+         * Copies the state of a device. Must be called while holding the lock of its stripe.
+         */
+        private static Record of(SensorKey key, AlertState state) {
+            SlidingWindow window = state.getWindow();
+            int readings = window.size();
+            long[] timestamps = new long[readings];
+            double[] values = new double[readings];
+            boolean[] outOfRange = new boolean[readings];
+            for (int i = 0; i < readings; i++) {
+                timestamps[i] = window.timestampAt(i);
+                values[i] = window.valueAt(i);
+                outOfRange[i] = window.isOutOfRangeAt(i);
+            }
+
+            BucketedWindow buckets = state.getBuckets();
+            int bucketCount = buckets == null ? 0 : buckets.size();
+            long[] starts = new long[bucketCount];
+            int[] counts = new int[bucketCount];
+            int[] outOfRangeCounts = new int[bucketCount];
+            double[] mins = new double[bucketCount];
+            double[] maxs = new double[bucketCount];
+            double[] sums = new double[bucketCount];
+            for (int i = 0; i < bucketCount; i++) {
+                starts[i] = buckets.startAt(i);
+                counts[i] = buckets.countAt(i);
+                outOfRangeCounts[i] = buckets.outOfRangeCountAt(i);
+                mins[i] = buckets.minAt(i);
+                maxs[i] = buckets.maxAt(i);
+                sums[i] = buckets.sumAt(i);
+            }
+            return new Record(key, state.getFirstEvaluationTime(), state.getLastSeen(), timestamps, values, outOfRange,
+                    buckets == null ? 0 : buckets.getBucketSeconds(), starts, counts, outOfRangeCounts, mins, maxs, sums,
+                    state.getStatus(), state.getStatusSince(), state.getCooldownUntil());
+        }
+    }
+
+    /**
+     * One checkpoint file, kept open and mapped between checkpoints. The mapping grows by doubling
+     * when a checkpoint does not fit; bytes past the recorded payload length are ignored.
+     */
+    private static final class Slot {
+        private final Path path;
+        private final FileChannel channel;
+        private MappedByteBuffer buffer;
+
+        private Slot(Path path) throws IOException {
+            this.path = path;
+            this.channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            long size = channel.size();
+            if (size >= HEADER_BYTES && size <= Integer.MAX_VALUE) {
+                buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+            }
+        }
+
+        private long generation() {
+            return buffer.getLong(GENERATION_OFFSET);
+        }
+
+        private long savedAt() {
+            return buffer.getLong(SAVED_AT_OFFSET);
+        }
+
+        /**
+         * @return {@code true} if the slot holds a complete checkpoint whose checksum matches.
+         */
+        private boolean isValid() {
+            if (buffer == null || buffer.getInt(0) != MAGIC || buffer.getInt(4) < 1 || buffer.getInt(4) > VERSION) {
+                return false;
+            }
+            int length = buffer.getInt(LENGTH_OFFSET);
+            if (length < 0 || length > buffer.capacity() - HEADER_BYTES) {
+                return false;
+            }
+            return buffer.getInt(CRC_OFFSET) == checksum(length);
+        }
+
+        private List<Record> read() {
+            int count = buffer.getInt(COUNT_OFFSET);
+            if (count < 0) {
+                throw new IllegalArgumentException("Negative device count");
+            }
+            int version = buffer.getInt(4);
+            boolean bucketed = version >= FIRST_BUCKETED_VERSION;
+            boolean withStatus = version >= FIRST_STATUS_VERSION;
+            buffer.position(HEADER_BYTES);
+            List<Record> records = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                SensorKey key = new SensorKey(readString(), readString(), readString());
+                long firstEvaluationTime = buffer.getLong();
+                long lastSeen = buffer.getLong();
+                int readings = buffer.getInt();
+                if (readings < 0) {
+                    throw new IllegalArgumentException("Negative reading count");
+                }
+                long[] timestamps = new long[readings];
+                double[] values = new double[readings];
+                boolean[] outOfRange = new boolean[readings];
+                for (int r = 0; r < readings; r++) {
+                    timestamps[r] = buffer.getLong();
+                    values[r] = buffer.getDouble();
+                    outOfRange[r] = buffer.get() != 0;
+                }
+
+                int bucketSeconds = bucketed ? buffer.getInt() : 0;
+                int buckets = bucketed ? buffer.getInt() : 0;
+                if (bucketSeconds < 0 || buckets < 0 || (bucketSeconds == 0 && buckets > 0)) {
+                    throw new IllegalArgumentException("Invalid buckets");
+                }
+                long[] starts = new long[buckets];
+                int[] counts = new int[buckets];
+                int[] outOfRangeCounts = new int[buckets];
+                double[] mins = new double[buckets];
+                double[] maxs = new double[buckets];
+                double[] sums = new double[buckets];
+                for (int b = 0; b < buckets; b++) {
+                    starts[b] = buffer.getLong();
+                    counts[b] = buffer.getInt();
+                    outOfRangeCounts[b] = buffer.getInt();
+                    mins[b] = buffer.getDouble();
+                    maxs[b] = buffer.getDouble();
+                    sums[b] = buffer.getDouble();
+                }
+
+                AlertStatus status = AlertStatus.OK;
+                long statusSince = AlertState.NOT_STARTED;
+                long cooldownUntil = AlertState.NOT_STARTED;
+                if (withStatus) {
+                    int ordinal = buffer.get();
+                    if (ordinal < 0 || ordinal >= AlertStatus.values().length) {
+                        throw new IllegalArgumentException("Invalid alert status");
+                    }
+                    status = AlertStatus.values()[ordinal];
+                    statusSince = buffer.getLong();
+                    cooldownUntil = buffer.getLong();
+                }
+                records.add(new Record(key, firstEvaluationTime, lastSeen, timestamps, values, outOfRange,
+                        bucketSeconds, starts, counts, outOfRangeCounts, mins, maxs, sums,
+                        status, statusSince, cooldownUntil));
+            }
+            return records;
+        }
+
+        /**
+         * Writes a checkpoint: the payload is written and flushed before the header that validates it.
+         */
+        private void write(List<Record> records, long generation, long savedAt) throws IOException {
+            ensureCapacity(INITIAL_SLOT_BYTES);
+            buffer.position(HEADER_BYTES);
+            for (Record record : records) {
+                writeRecord(record);
+            }
+            int length = buffer.position() - HEADER_BYTES;
+            buffer.force(HEADER_BYTES, length);
+
+            buffer.putInt(0, MAGIC);
+            buffer.putInt(4, VERSION);
+            buffer.putLong(GENERATION_OFFSET, generation);
+            buffer.putLong(SAVED_AT_OFFSET, savedAt);
+            buffer.putInt(LENGTH_OFFSET, length);
+            buffer.putInt(COUNT_OFFSET, records.size());
+            buffer.putInt(CRC_OFFSET, checksum(length));
+            buffer.force(0, HEADER_BYTES);
+        }
+
+        private void writeRecord(Record record) throws IOException {
+            SensorKey key = record.key();
+            int readings = record.timestamps().length;
+            int bucketCount = record.bucketStarts().length;
+            byte[] sensorType = encode(key.sensorType());
+            byte[] location = encode(key.location());
+            byte[] sensorId = encode(key.sensorId());
+            long bytes = 3L * Short.BYTES + length(sensorType) + length(location) + length(sensorId)
+                    + 2L * Long.BYTES + Integer.BYTES + (long) readings * READING_BYTES
+                    + 2L * Integer.BYTES + (long) bucketCount * BUCKET_BYTES
+                    + 1 + 2L * Long.BYTES;
+            ensureCapacity(buffer.position() + bytes);
+
+            writeString(sensorType);
+            writeString(location);
+            writeString(sensorId);
+            buffer.putLong(record.firstEvaluationTime());
+            buffer.putLong(record.lastSeen());
+            buffer.putInt(readings);
+            for (int i = 0; i < readings; i++) {
+                buffer.putLong(record.timestamps()[i]);
+                buffer.putDouble(record.values()[i]);
+                buffer.put((byte) (record.outOfRange()[i] ? 1 : 0));
+            }
+            buffer.putInt(record.bucketSeconds());
+            buffer.putInt(bucketCount);
+            for (int i = 0; i < bucketCount; i++) {
+                buffer.putLong(record.bucketStarts()[i]);
+                buffer.putInt(record.bucketCounts()[i]);
+                buffer.putInt(record.bucketOutOfRange()[i]);
+                buffer.putDouble(record.bucketMins()[i]);
+                buffer.putDouble(record.bucketMaxs()[i]);
+                buffer.putDouble(record.bucketSums()[i]);
+            }
+            buffer.put((byte) record.status().ordinal());
+            buffer.putLong(record.statusSince());
+            buffer.putLong(record.cooldownUntil());
+        }
+
+        /**
+         * Remaps the file so at least {@code bytes} bytes are available, keeping everything written so far.
+         */
+        private void ensureCapacity(long bytes) throws IOException {
+            if (buffer != null && buffer.capacity() >= bytes) {
+                return;
+            }
+            if (bytes > Integer.MAX_VALUE) {
+                throw new IOException("Alert state checkpoint exceeds 2 GB");
+            }
+            long capacity = buffer == null ? bytes : Math.max(bytes, Math.min(2L * buffer.capacity(), Integer.MAX_VALUE));
+            int position = buffer == null ? 0 : buffer.position();
+            buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, capacity);
+            buffer.position(position);
+        }
+
+        /**
+         * CRC32 of the header fields before the checksum followed by the payload.
+         */
+        private int checksum(int length) {
+            CRC32 crc = new CRC32();
+            crc.update(buffer.slice(0, CRC_OFFSET));
+            crc.update(buffer.slice(HEADER_BYTES, length));
+            return (int) crc.getValue();
+        }
+
+        private void writeString(byte[] bytes) {
+            if (bytes == null) {
+                buffer.putShort((short) -1);
+                return;
+            }
+            buffer.putShort((short) bytes.length);
+            buffer.put(bytes);
+        }
+
+        private String readString() {
+            short length = buffer.getShort();
+            if (length < 0) {
+                return null;
+            }
+            byte[] bytes = new byte[length];
+            buffer.get(bytes);
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+
+        private static byte[] encode(String value) throws IOException {
+            if (value == null) {
+                return null;
+            }
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            if (bytes.length > Short.MAX_VALUE) {
+                throw new IOException("Sensor key component too long to checkpoint");
+            }
+            return bytes;
+        }
+
+        private static int length(byte[] bytes) {
+            return bytes == null ? 0 : bytes.length;
+        }
+
+        private void close() {
+            try {
+                channel.close();
+            } catch (IOException e) {
+                LOGGER.warn("Error closing alert state checkpoint {}: {}", path, e.getMessage());
+            }
+        }
+    }
+}
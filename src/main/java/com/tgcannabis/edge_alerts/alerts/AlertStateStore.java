@@ -0,0 +1,366 @@
+package com.tgcannabis.edge_alerts.alerts;
+
+import com.tgcannabis.edge_alerts.logging.HotPathLogger;
+import com.tgcannabis.edge_alerts.metrics.MetricsBinder;
+import com.tgcannabis.edge_alerts.metrics.MetricsRegistry;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.BiConsumer;
+
+/**
+ * Keyed store of per-device {@link AlertState}, safe for concurrent use.
+ * <p>
+ * Keys are spread over a fixed number of lock stripes. Each stripe owns its own map and lock,
+ * so readings for devices in different stripes are processed in parallel without a global lock,
+ * while all updates to one device are serialized by its stripe.
+ * <p>
+ * Within a stripe, entries are kept in the order their devices were last seen, so the least recently
+ * seen device is always at the head. This lets the store bound the number of live keys (evicting the least recently seen
+ * device) and expire idle devices by looking only at the head, keeping the cost per message
+ * constant regardless of how many devices are tracked. Together with the fixed maximum capacity of
+ * each device's {@link SlidingWindow}, this bounds the memory held by the store.
+ * <p>
+ * Window sizes are exported as a distribution over all tracked devices rather than one series per
+ * device, so the number of exported series does not grow with the number of devices.
+ */
+public class AlertStateStore implements MetricsBinder {
+    private static final HotPathLogger LOGGER = HotPathLogger.of(AlertStateStore.class);
+
+    public static final int DEFAULT_MAX_KEYS = 50_000;
+    public static final long DEFAULT_IDLE_TIMEOUT_SECONDS = 3_600;
+    public static final int DEFAULT_STRIPES = 64;
+
+    /**
+     * Upper bounds of the buckets of the exported window size distribution, in readings.
+     */
+    private static final long[] WINDOW_READINGS_BOUNDS = {0, 1, 4, 16, 64, 256, 1_024, 4_096, 16_384, 65_536};
+
+    /**
+     * Work performed on a device's state while its stripe lock is held.
+     *
+     * @param <R> The type of the result handed back to the caller.
+     */
+    @FunctionalInterface
+    public interface StateAction<R> {
+        R apply(AlertState state);
+    }
+
+    private final long idleTimeoutSeconds;
+    private final int windowCapacity;
+    private final Stripe[] stripes;
+    private final int stripeMask;
+
+    private final LongAdder evictedKeys = new LongAdder();
+    private final LongAdder expiredKeys = new LongAdder();
+
+    /**
+     * Creates a store with the default key cap, idle timeout and stripe count.
+     */
+    public AlertStateStore() {
+        this(DEFAULT_MAX_KEYS, DEFAULT_IDLE_TIMEOUT_SECONDS);
+    }
+
+    /**
+     * Creates a store with the given limits and the default stripe count.
+     *
+     * @param maxKeys            Maximum number of devices tracked at once.
+     * @param idleTimeoutSeconds Seconds without readings after which a device's state is dropped.
+     * @throws IllegalArgumentException if any limit is not positive.
+     */
+    public AlertStateStore(int maxKeys, long idleTimeoutSeconds) {
+        this(maxKeys, idleTimeoutSeconds, DEFAULT_STRIPES);
+    }
+
+    /**
+     * Creates a store with the given limits.
+     *
+     * @param maxKeys            Maximum number of devices tracked at once. The cap is split evenly over
+     *                           the stripes; when a stripe is full its least recently seen device is evicted.
+     * @param idleTimeoutSeconds Seconds without readings after which a device's state is dropped.
+     * @param stripeCount        Number of lock stripes, rounded up to a power of two and capped at {@code maxKeys}.
+     * @throws IllegalArgumentException if any argument is not positive.
+     */
+    public AlertStateStore(int maxKeys, long idleTimeoutSeconds, int stripeCount) {
+        this(maxKeys, idleTimeoutSeconds, stripeCount, SlidingWindow.DEFAULT_MAX_CAPACITY);
+    }
+
+    /**
+     * Creates a store with the given limits.
+     *
+     * @param maxKeys            Maximum number of devices tracked at once. The cap is split evenly over
+     *                           the stripes; when a stripe is full its least recently seen device is evicted.
+     * @param idleTimeoutSeconds Seconds without readings after which a device's state is dropped.
+     * @param stripeCount        Number of lock stripes, rounded up to a power of two and capped at {@code maxKeys}.
+     * @param windowCapacity     Maximum number of readings kept in each device's window.
+     * @throws IllegalArgumentException if any argument is not positive.
+     */
+    public AlertStateStore(int maxKeys, long idleTimeoutSeconds, int stripeCount, int windowCapacity) {
+        if (maxKeys <= 0) {
+            throw new IllegalArgumentException("Max keys must be positive");
+        }
+        if (idleTimeoutSeconds <= 0) {
+            throw new IllegalArgumentException("Idle timeout must be positive");
+        }
+        if (stripeCount <= 0) {
+            throw new IllegalArgumentException("Stripe count must be positive");
+        }
+        if (windowCapacity <= 0) {
+            throw new IllegalArgumentException("Window capacity must be positive");
+        }
+        this.idleTimeoutSeconds = idleTimeoutSeconds;
+        this.windowCapacity = windowCapacity;
+
+        int count = Integer.highestOneBit(Math.min(stripeCount, maxKeys));
+        if (count < Math.min(stripeCount, maxKeys)) count <<= 1;
+        int perStripe = Math.max(1, maxKeys / count);
+
+        this.stripes = new Stripe[count];
+        this.stripeMask = count - 1;
+        for (int i = 0; i < count; i++) {
+            stripes[i] = new Stripe(perStripe);
+        }
+    }
+
+    /**
+     * Runs an action on the state of the given device while holding its stripe lock, creating the
+     * state if needed and marking it as seen. Devices of the same stripe that have been idle for
+     * longer than the idle timeout are expired first.
+     *
+     * @param key    The device key.
+     * @param now    The current time in epoch seconds.
+     * @param action The work to perform on the device's state; must not block.
+     * @param <R>    The type of the action's result.
+     * @return The result of the action.
+     */
+    public <R> R compute(SensorKey key, long now, StateAction<R> action) {
+        Stripe stripe = stripeFor(key);
+        stripe.lock.lock();
+        try {
+            return action.apply(stripe.getOrCreate(key, now));
+        } finally {
+            stripe.lock.unlock();
+        }
+    }
+
+    /**
+     * Returns the state for the given device, creating it if needed, and marks it as seen.
+     * The returned state is not guarded by any lock; callers that may run concurrently
+     * with message processing must use {@link #compute(SensorKey, long, StateAction)}.
+     *
+     * @param key The device key.
+     * @param now The current time in epoch seconds.
+     * @return The state associated with the device.
+     */
+    public AlertState getOrCreate(SensorKey key, long now) {
+        return compute(key, now, state -> state);
+    }
+
+    /**
+     * Returns the state for the given device without creating it. The device is not marked as seen,
+     * so looking it up does not delay its eviction or expiry.
+     *
+     * @param key The device key.
+     * @return The state, or {@code null} if the device is not tracked.
+     */
+    public AlertState get(SensorKey key) {
+        Stripe stripe = stripeFor(key);
+        stripe.lock.lock();
+        try {
+            return stripe.states.get(key);
+        } finally {
+            stripe.lock.unlock();
+        }
+    }
+
+    /**
+     * @return The number of devices currently tracked.
+     */
+    public int size() {
+        int size = 0;
+        for (Stripe stripe : stripes) {
+            stripe.lock.lock();
+            try {
+                size += stripe.states.size();
+            } finally {
+                stripe.lock.unlock();
+            }
+        }
+        return size;
+    }
+
+    /**
+     * @return The number of devices evicted because the key cap was reached.
+     */
+    public long getEvictedKeys() {
+        return evictedKeys.sum();
+    }
+
+    /**
+     * @return The number of devices expired because they stopped sending readings.
+     */
+    public long getExpiredKeys() {
+        return expiredKeys.sum();
+    }
+
+    /**
+     * Sums the memory retained by the windows of all tracked devices. This visits every device,
+     * so it is meant for periodic monitoring rather than the message path.
+     *
+     * @return The retained size of all windows in bytes, as reported by {@link ReadingWindow#getFootprintBytes()}.
+     */
+    public long getWindowFootprintBytes() {
+        long bytes = 0;
+        for (Stripe stripe : stripes) {
+            stripe.lock.lock();
+            try {
+                for (AlertState state : stripe.states.values()) {
+                    bytes += state.getWindow().getFootprintBytes();
+                    if (state.getBuckets() != null) {
+                        bytes += state.getBuckets().getFootprintBytes();
+                    }
+                }
+            } finally {
+                stripe.lock.unlock();
+            }
+        }
+        return bytes;
+    }
+
+    /**
+     * @return The number of readings the windows of the tracked devices dropped early because they were full.
+     */
+    public long getDroppedReadings() {
+        long dropped = 0;
+        for (Stripe stripe : stripes) {
+            stripe.lock.lock();
+            try {
+                for (AlertState state : stripe.states.values()) {
+                    dropped += state.getWindow().getDroppedReadings();
+                    if (state.getBuckets() != null) {
+                        dropped += state.getBuckets().getDroppedReadings();
+                    }
+                }
+            } finally {
+                stripe.lock.unlock();
+            }
+        }
+        return dropped;
+    }
+
+    /**
+     * Registers the number of tracked devices, key evictions and expiries, the memory held by the windows,
+     * and the distribution of window sizes. Each is computed when scraped by visiting every device.
+     *
+     * @param registry The registry to register with.
+     */
+    @Override
+    public void bindTo(MetricsRegistry registry) {
+        registry.gauge("tracked_sensors", "Sensor devices with alert state", this::size);
+        registry.counter("sensors_evicted", "Sensor devices evicted because the key cap was reached", evictedKeys::sum);
+        registry.counter("sensors_expired", "Sensor devices expired because they stopped sending readings", expiredKeys::sum);
+        registry.gauge("window_footprint_bytes", "Heap memory retained by the windows of all tracked sensor devices",
+                this::getWindowFootprintBytes);
+        registry.gauge("window_dropped_readings", "Readings the windows of the tracked sensor devices dropped because they were full",
+                this::getDroppedReadings);
+        registry.distribution("window_readings", "Readings held in the window of each tracked sensor device",
+                WINDOW_READINGS_BOUNDS, this::fillWindowReadings);
+    }
+
+    /**
+     * Counts the tracked devices by the number of readings in their window.
+     *
+     * @param counts Receives the number of devices per bucket of {@link #WINDOW_READINGS_BOUNDS}, plus one for larger windows.
+     * @return The number of readings in all windows.
+     */
+    private double fillWindowReadings(long[] counts) {
+        long[] total = new long[1];
+        forEachState((key, state) -> {
+            int readings = state.getActiveWindow().getReadingCount();
+            int bucket = 0;
+            while (bucket < WINDOW_READINGS_BOUNDS.length && readings > WINDOW_READINGS_BOUNDS[bucket]) {
+                bucket++;
+            }
+            counts[bucket]++;
+            total[0] += readings;
+        });
+        return total[0];
+    }
+
+    /**
+     * Visits every tracked device, holding each stripe's lock while its devices are visited.
+     * Devices are not marked as seen.
+     *
+     * @param visitor Receives each device's key and state; must not block or call back into the store.
+     */
+    void forEachState(BiConsumer<SensorKey, AlertState> visitor) {
+        for (Stripe stripe : stripes) {
+            stripe.lock.lock();
+            try {
+                stripe.states.forEach(visitor);
+            } finally {
+                stripe.lock.unlock();
+            }
+        }
+    }
+
+    private Stripe stripeFor(SensorKey key) {
+        int h = key.hashCode();
+        return stripes[(h ^ (h >>> 16)) & stripeMask];
+    }
+
+    /**
+     * One lock stripe: a map of device states ordered by when they were last seen, guarded by its own lock.
+     */
+    private final class Stripe {
+        private final ReentrantLock lock = new ReentrantLock();
+        private final Map<SensorKey, AlertState> states;
+
+        private Stripe(int maxKeys) {
+            this.states = new LinkedHashMap<>() {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<SensorKey, AlertState> eldest) {
+                    if (size() > maxKeys) {
+                        evictedKeys.increment();
+                        LOGGER.debug("Evicting alert state for least recently seen sensor: {}", eldest.getKey());
+                        return true;
+                    }
+                    return false;
+                }
+            };
+        }
+
+        private AlertState getOrCreate(SensorKey key, long now) {
+            expireIdle(now);
+
+            // Re-inserting moves the device to the tail, keeping the map ordered by when devices were last seen
+            AlertState state = states.remove(key);
+            if (state == null) {
+                state = new AlertState(windowCapacity);
+            }
+            states.put(key, state);
+            state.setLastSeen(now);
+            return state;
+        }
+
+        /**
+         * Drops devices from the head of the map until the head has been seen recently.
+         */
+        private void expireIdle(long now) {
+            long cutoff = now - idleTimeoutSeconds;
+            Iterator<Map.Entry<SensorKey, AlertState>> iterator = states.entrySet().iterator();
+            while (iterator.hasNext()) {
+                Map.Entry<SensorKey, AlertState> eldest = iterator.next();
+                if (eldest.getValue().getLastSeen() >= cutoff) {
+                    return;
+                }
+                iterator.remove();
+                expiredKeys.increment();
+                LOGGER.debug("Expired idle alert state for sensor: {}", eldest.getKey());
+            }
+        }
+    }
+}
@@ -0,0 +1,28 @@
+package com.tgcannabis.edge_alerts.alerts;
+
+/**
+ * Alert lifecycle of a single sensor device. An alert is published only on the transition into
+ * {@link #FIRING}, and a resolve event only on the transition into {@link #RESOLVED}, so a sensor
+ * that stays out of range, or oscillates around its threshold, produces one alert per incident.
+ */
+public enum AlertStatus {
+    /**
+     * The share of out-of-range readings is below the percentage threshold.
+     */
+    OK,
+    /**
+     * The percentage threshold is breached, but the alert is held back until the device's first full
+     * time threshold has passed, or until the cooldown after its last incident has ended.
+     */
+    PENDING,
+    /**
+     * An alert was published and the share of out-of-range readings has not yet fallen below the
+     * resolve threshold.
+     */
+    FIRING,
+    /**
+     * The last alert was resolved and a resolve event published. Breaches during the cooldown are held
+     * back in {@link #PENDING}; once the cooldown has ended the device returns to {@link #OK}.
+     */
+    RESOLVED
+}
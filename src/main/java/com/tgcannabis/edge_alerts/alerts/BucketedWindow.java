@@ -0,0 +1,407 @@
+package com.tgcannabis.edge_alerts.alerts;
+
+/**
+ * A time-ordered ring buffer of fixed-width time buckets, each aggregating the readings whose timestamps
+ * fall into it: their count, how many were out of range, and their minimum, maximum and sum.
+ * <p>
+ * Alert evaluation only needs the share of out-of-range readings, so for periods measured in hours
+ * keeping every reading is wasteful. A bucketed window holds at most one bucket per {@code bucketSeconds}
+ * of the alert period, so its memory depends on the period and the bucket width, not on how fast the
+ * sensor reports. The price is granularity: a bucket is evicted only once all of it is older than the
+ * window, so the window reaches back up to one bucket width further than the time threshold.
+ * <p>
+ * Buckets are stored column-wise in primitive arrays that start small and double up to a fixed maximum
+ * capacity, like {@link SlidingWindow}. Readings for the newest bucket are folded in O(1); a reading for
+ * an older bucket is placed by binary search.
+ * <p>
+ * This class is not thread-safe; {@link AlertStateStore} guards each window with its stripe lock.
+ */
+public class BucketedWindow implements ReadingWindow {
+    private static final int INITIAL_CAPACITY = 16;
+
+    /**
+     * Object layout sizes of a 64-bit HotSpot JVM with compressed oops and class pointers
+     * (the default for heaps below 32 GB), used by {@link #getFootprintBytes()}.
+     */
+    private static final int OBJECT_ALIGNMENT = 8;
+    private static final int ARRAY_HEADER_BYTES = 16;
+    private static final int SHALLOW_BYTES = 80; // 12-byte header, 6 references, 6 ints and 2 longs
+
+    private final int bucketSeconds;
+    private final int maxCapacity;
+    private long[] starts;
+    private int[] counts;
+    private int[] outOfRangeCounts;
+    private double[] mins;
+    private double[] maxs;
+    private double[] sums;
+    private int head;
+    private int size;
+    private int readingCount;
+    private int outOfRangeCount;
+    private long droppedReadings;
+    private long newestTimestamp = Long.MIN_VALUE;
+
+    /**
+     * Creates a window of buckets of the given width holding at most {@value SlidingWindow#DEFAULT_MAX_CAPACITY} buckets.
+     *
+     * @param bucketSeconds Width of each bucket in seconds.
+     * @throws IllegalArgumentException if the width is not positive.
+     */
+    public BucketedWindow(int bucketSeconds) {
+        this(bucketSeconds, SlidingWindow.DEFAULT_MAX_CAPACITY);
+    }
+
+    /**
+     * Creates a window of buckets of the given width holding at most the given number of buckets.
+     *
+     * @param bucketSeconds Width of each bucket in seconds.
+     * @param maxCapacity   Maximum number of buckets kept; when exceeded, the oldest bucket is dropped.
+     * @throws IllegalArgumentException if the width or the capacity is not positive.
+     */
+    public BucketedWindow(int bucketSeconds, int maxCapacity) {
+        if (bucketSeconds <= 0) {
+            throw new IllegalArgumentException("Bucket width must be positive");
+        }
+        if (maxCapacity <= 0) {
+            throw new IllegalArgumentException("Max capacity must be positive");
+        }
+        this.bucketSeconds = bucketSeconds;
+        this.maxCapacity = maxCapacity;
+        allocate(Math.min(INITIAL_CAPACITY, maxCapacity));
+    }
+
+    /**
+     * Folds a reading into the bucket covering its timestamp, creating the bucket if needed.
+     * If a new bucket is needed and the window is at its maximum capacity, its oldest bucket is dropped first.
+     *
+     * @param timestamp  The reading's timestamp in epoch seconds.
+     * @param value      The reading's value.
+     * @param outOfRange Whether the reading is outside the configured min/max range.
+     */
+    @Override
+    public void add(long timestamp, double value, boolean outOfRange) {
+        merge(bucketStart(timestamp), 1, outOfRange ? 1 : 0, value, value, value);
+        newestTimestamp = Math.max(newestTimestamp, timestamp);
+    }
+
+    /**
+     * Folds already aggregated readings into the bucket covering {@code start}, e.g. when restoring a
+     * checkpoint or re-bucketing a window after the bucket width changed.
+     *
+     * @param start      A timestamp (epoch seconds) inside the target bucket.
+     * @param count      The number of readings.
+     * @param outOfRange How many of them were out of range.
+     * @param min        Their minimum value.
+     * @param max        Their maximum value.
+     * @param sum        The sum of their values.
+     */
+    void merge(long start, int count, int outOfRange, double min, double max, double sum) {
+        start = bucketStart(start);
+        int position = find(start);
+        if (position < 0) {
+            position = insert(-position - 1, start);
+        }
+
+        int slot = index(position);
+        counts[slot] += count;
+        outOfRangeCounts[slot] += outOfRange;
+        mins[slot] = Math.min(mins[slot], min);
+        maxs[slot] = Math.max(maxs[slot], max);
+        sums[slot] += sum;
+        readingCount += count;
+        outOfRangeCount += outOfRange;
+        newestTimestamp = Math.max(newestTimestamp, start);
+    }
+
+    /**
+     * Evicts every bucket whose readings are all strictly older than the given cutoff. The bucket holding
+     * the cutoff is kept whole.
+     *
+     * @param cutoff The oldest timestamp (epoch seconds) that is still part of the window.
+     * @return The number of evicted readings.
+     */
+    @Override
+    public int evictOlderThan(long cutoff) {
+        int evicted = 0;
+        while (size > 0 && starts[head] < cutoff - bucketSeconds + 1) {
+            evicted += counts[head];
+            removeHead();
+        }
+        return evicted;
+    }
+
+    /**
+     * Re-evaluates the out-of-range counts against a new range. A bucket whose readings all lie inside the
+     * range, or all outside it, is reclassified exactly from its minimum and maximum; a bucket straddling a
+     * range boundary cannot be, and keeps its previous count.
+     *
+     * @param min The new minimum of the range.
+     * @param max The new maximum of the range.
+     */
+    @Override
+    public void reclassify(double min, double max) {
+        outOfRangeCount = 0;
+        for (int i = 0; i < size; i++) {
+            int slot = index(i);
+            if (mins[slot] >= min && maxs[slot] <= max) {
+                outOfRangeCounts[slot] = 0;
+            } else if (maxs[slot] < min || mins[slot] > max) {
+                outOfRangeCounts[slot] = counts[slot];
+            }
+            outOfRangeCount += outOfRangeCounts[slot];
+        }
+    }
+
+    /**
+     * @return The number of buckets currently held in the window.
+     */
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * @return The number of readings aggregated in the window's buckets.
+     */
+    @Override
+    public int getReadingCount() {
+        return readingCount;
+    }
+
+    /**
+     * @return The number of readings in the window that are out of range.
+     */
+    public int getOutOfRangeCount() {
+        return outOfRangeCount;
+    }
+
+    @Override
+    public double percentageOut() {
+        return readingCount == 0 ? 0.0 : (100.0 * outOfRangeCount) / readingCount;
+    }
+
+    /**
+     * @return The timestamp (epoch seconds) of the newest reading added to the window, or the start of the
+     * newest bucket if it was merged in whole.
+     * @throws IllegalStateException if the window is empty.
+     */
+    @Override
+    public long newestTimestamp() {
+        if (size == 0) {
+            throw new IllegalStateException("Window is empty");
+        }
+        return newestTimestamp;
+    }
+
+    /**
+     * @return The width of each bucket in seconds.
+     */
+    public int getBucketSeconds() {
+        return bucketSeconds;
+    }
+
+    /**
+     * @return The maximum number of buckets the window keeps.
+     */
+    public int getMaxCapacity() {
+        return maxCapacity;
+    }
+
+    @Override
+    public long getDroppedReadings() {
+        return droppedReadings;
+    }
+
+    /**
+     * Returns the heap memory retained by this window: the window object and its six arrays.
+     * The size is exact for a 64-bit HotSpot JVM with compressed oops, and only changes when the
+     * arrays grow.
+     *
+     * @return The retained size in bytes.
+     */
+    @Override
+    public long getFootprintBytes() {
+        int capacity = starts.length;
+        return SHALLOW_BYTES
+                + arrayBytes(capacity, Long.BYTES)
+                + 2 * arrayBytes(capacity, Integer.BYTES)
+                + 3 * arrayBytes(capacity, Double.BYTES);
+    }
+
+    /**
+     * @param position Logical position of a bucket, from 0 (oldest) to {@link #size()} - 1.
+     * @return The bucket's start in epoch seconds, a multiple of the bucket width.
+     */
+    long startAt(int position) {
+        return starts[index(position)];
+    }
+
+    /**
+     * @param position Logical position of a bucket, from 0 (oldest) to {@link #size()} - 1.
+     * @return The number of readings in the bucket.
+     */
+    int countAt(int position) {
+        return counts[index(position)];
+    }
+
+    /**
+     * @param position Logical position of a bucket, from 0 (oldest) to {@link #size()} - 1.
+     * @return The number of readings in the bucket that are out of range.
+     */
+    int outOfRangeCountAt(int position) {
+        return outOfRangeCounts[index(position)];
+    }
+
+    /**
+     * @param position Logical position of a bucket, from 0 (oldest) to {@link #size()} - 1.
+     * @return The smallest value in the bucket.
+     */
+    double minAt(int position) {
+        return mins[index(position)];
+    }
+
+    /**
+     * @param position Logical position of a bucket, from 0 (oldest) to {@link #size()} - 1.
+     * @return The largest value in the bucket.
+     */
+    double maxAt(int position) {
+        return maxs[index(position)];
+    }
+
+    /**
+     * @param position Logical position of a bucket, from 0 (oldest) to {@link #size()} - 1.
+     * @return The sum of the values in the bucket.
+     */
+    double sumAt(int position) {
+        return sums[index(position)];
+    }
+
+    private long bucketStart(long timestamp) {
+        return Math.floorDiv(timestamp, bucketSeconds) * bucketSeconds;
+    }
+
+    /**
+     * Finds the bucket with the given start.
+     *
+     * @return The bucket's logical position, or {@code -(insertion point) - 1} if there is none.
+     */
+    private int find(long start) {
+        if (size == 0 || starts[index(size - 1)] < start) {
+            return -size - 1; // A new newest bucket
+        }
+        if (starts[index(size - 1)] == start) {
+            return size - 1; // The common case: the newest bucket
+        }
+        int low = 0;
+        int high = size - 2;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            long candidate = starts[index(middle)];
+            if (candidate < start) {
+                low = middle + 1;
+            } else if (candidate > start) {
+                high = middle - 1;
+            } else {
+                return middle;
+            }
+        }
+        return -low - 1;
+    }
+
+    /**
+     * Inserts an empty bucket, moving the newer buckets one slot towards the tail.
+     *
+     * @return The logical position of the new bucket.
+     */
+    private int insert(int position, long start) {
+        if (size == starts.length) {
+            if (size < maxCapacity) {
+                grow();
+            } else {
+                droppedReadings += counts[head];
+                removeHead();
+                position = Math.max(0, position - 1);
+            }
+        }
+        for (int i = size; i > position; i--) {
+            int from = index(i - 1);
+            int to = index(i);
+            starts[to] = starts[from];
+            counts[to] = counts[from];
+            outOfRangeCounts[to] = outOfRangeCounts[from];
+            mins[to] = mins[from];
+            maxs[to] = maxs[from];
+            sums[to] = sums[from];
+        }
+
+        int slot = index(position);
+        starts[slot] = start;
+        counts[slot] = 0;
+        outOfRangeCounts[slot] = 0;
+        mins[slot] = Double.POSITIVE_INFINITY;
+        maxs[slot] = Double.NEGATIVE_INFINITY;
+        sums[slot] = 0;
+        size++;
+        return position;
+    }
+
+    /**
+     * Maps a logical position (0 = oldest bucket) to a physical slot in the ring.
+     */
+    private int index(int position) {
+        return (head + position) % starts.length;
+    }
+
+    private void removeHead() {
+        readingCount -= counts[head];
+        outOfRangeCount -= outOfRangeCounts[head];
+        head = (head + 1) % starts.length;
+        if (--size == 0) {
+            newestTimestamp = Long.MIN_VALUE;
+        }
+    }
+
+    private static long arrayBytes(int length, int elementBytes) {
+        long bytes = ARRAY_HEADER_BYTES + (long) length * elementBytes;
+        return (bytes + OBJECT_ALIGNMENT - 1) / OBJECT_ALIGNMENT * OBJECT_ALIGNMENT;
+    }
+
+    private void allocate(int capacity) {
+        starts = new long[capacity];
+        counts = new int[capacity];
+        outOfRangeCounts = new int[capacity];
+        mins = new double[capacity];
+        maxs = new double[capacity];
+        sums = new double[capacity];
+    }
+
+    /**
+     * Doubles the capacity of the ring, up to the maximum capacity, unrolling it so the oldest bucket sits at slot 0.
+     */
+    private void grow() {
+        long[] oldStarts = starts;
+        int[] oldCounts = counts;
+        int[] oldOutOfRangeCounts = outOfRangeCounts;
+        double[] oldMins = mins;
+        double[] oldMaxs = maxs;
+        double[] oldSums = sums;
+        int oldCapacity = oldStarts.length;
+
+        allocate((int) Math.min((long) oldCapacity * 2, maxCapacity));
+        for (int i = 0; i < size; i++) {
+            int slot = (head + i) % oldCapacity;
+            starts[i] = oldStarts[slot];
+            counts[i] = oldCounts[slot];
+            outOfRangeCounts[i] = oldOutOfRangeCounts[slot];
+            mins[i] = oldMins[slot];
+            maxs[i] = oldMaxs[slot];
+            sums[i] = oldSums[slot];
+        }
+        head = 0;
+    }
+}
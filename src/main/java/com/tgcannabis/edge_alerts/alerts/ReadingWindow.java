@@ -0,0 +1,69 @@
+package com.tgcannabis.edge_alerts.alerts;
+
+/**
+ * The readings of one sensor device over its alert period, reduced to what alert evaluation needs:
+ * how many of them fell outside the configured range.
+ * <p>
+ * {@link SlidingWindow} keeps every reading; {@link BucketedWindow} folds readings into fixed-width
+ * time buckets for long periods. Implementations are not thread-safe; {@link AlertStateStore}
+ * guards each window with its stripe lock.
+ */
+public interface ReadingWindow {
+
+    /**
+     * Adds a reading to the window.
+     *
+     * @param timestamp  The reading's timestamp in epoch seconds.
+     * @param value      The reading's value.
+     * @param outOfRange Whether the reading is outside the configured min/max range.
+     */
+    void add(long timestamp, double value, boolean outOfRange);
+
+    /**
+     * Evicts the readings older than the given cutoff.
+     *
+     * @param cutoff The oldest timestamp (epoch seconds) that is still part of the window.
+     * @return The number of evicted readings.
+     */
+    int evictOlderThan(long cutoff);
+
+    /**
+     * Re-evaluates which readings are out of range after the configured range changed, keeping every reading.
+     *
+     * @param min The new minimum of the range.
+     * @param max The new maximum of the range.
+     */
+    void reclassify(double min, double max);
+
+    /**
+     * @return {@code true} if the window holds no readings.
+     */
+    boolean isEmpty();
+
+    /**
+     * @return The number of readings in the window, including readings aggregated into buckets.
+     */
+    int getReadingCount();
+
+    /**
+     * @return The percentage (0-100) of readings in the window that are out of range,
+     * or {@code 0} if the window is empty.
+     */
+    double percentageOut();
+
+    /**
+     * @return The timestamp (epoch seconds) of the newest reading in the window.
+     * @throws IllegalStateException if the window is empty.
+     */
+    long newestTimestamp();
+
+    /**
+     * @return The heap memory retained by the window in bytes.
+     */
+    long getFootprintBytes();
+
+    /**
+     * @return The number of readings dropped before they expired because the window was full.
+     */
+    long getDroppedReadings();
+}
@@ -0,0 +1,41 @@
+package com.tgcannabis.edge_alerts.alerts;
+
+import com.tgcannabis.edge_alerts.model.SensorData;
+
+/**
+ * Identifies a single physical sensor device. Alert state is tracked independently per key,
+ * so one faulty sensor cannot hide behind many healthy sensors of the same type.
+ *
+ * @param sensorType The lower-cased sensor type (e.g. temperature, humidity).
+ * @param location   The location reported by the sensor, may be {@code null}.
+ * @param sensorId   The identifier of the sensor device.
+ */
+public record SensorKey(String sensorType, String location, String sensorId) {
+
+    /**
+     * Builds the key for the device that produced the given reading.
+     *
+     * @param data The sensor reading.
+     * @return The key identifying the reading's device.
+     */
+    public static SensorKey of(SensorData data) {
+        return of(data.getSensorType().toLowerCase(), data);
+    }
+
+    /**
+     * Builds the key for the device that produced the given reading, using an already lower-cased
+     * sensor type, e.g. the canonical name from the threshold table.
+     *
+     * @param sensorType The lower-cased sensor type.
+     * @param data       The sensor reading.
+     * @return The key identifying the reading's device.
+     */
+    public static SensorKey of(String sensorType, SensorData data) {
+        return new SensorKey(sensorType, data.getLocation(), data.getSensorId());
+    }
+
+    @Override
+    public String toString() {
+        return sensorType + "/" + location + "/" + sensorId;
+    }
+}
@@ -0,0 +1,50 @@
+package com.tgcannabis.edge_alerts.alerts;
+
+import com.tgcannabis.edge_alerts.metrics.LatencyHistogram;
+import com.tgcannabis.edge_alerts.metrics.MetricsBinder;
+import com.tgcannabis.edge_alerts.metrics.MetricsRegistry;
+
+/**
+ * The latencies of one sensor type's readings and alerts, one histogram per stage:
+ * <ul>
+ *     <li>receive: from a message's arrival from the broker until its evaluation starts, i.e. the time it was queued;</li>
+ *     <li>decode: decoding a reading from its message's payload;</li>
+ *     <li>evaluate: updating the device's window and deciding whether to alert;</li>
+ *     <li>publish: from handing an alert to the publisher until the broker acknowledged it;</li>
+ *     <li>end to end: from the triggering reading's timestamp until the broker acknowledged its alert.</li>
+ * </ul>
+ */
+final class SensorTypeLatencies implements MetricsBinder {
+    final LatencyHistogram receive = new LatencyHistogram();
+    final LatencyHistogram decode = new LatencyHistogram();
+    final LatencyHistogram evaluate = new LatencyHistogram();
+    final LatencyHistogram publish = new LatencyHistogram();
+    final LatencyHistogram endToEnd = new LatencyHistogram();
+
+    private final String sensorType;
+
+    /**
+     * @param sensorType The canonical name of the sensor type, used as the {@code sensor_type} label.
+     */
+    SensorTypeLatencies(String sensorType) {
+        this.sensorType = sensorType;
+    }
+
+    /**
+     * Registers the histograms, labelled with the sensor type.
+     *
+     * @param registry The registry to register with.
+     */
+    @Override
+    public void bindTo(MetricsRegistry registry) {
+        registry.histogram("receive_latency_seconds", "Time a message waited between its arrival and its evaluation",
+                receive, "sensor_type", sensorType);
+        registry.histogram("decode_latency_seconds", "Time spent decoding a reading", decode, "sensor_type", sensorType);
+        registry.histogram("evaluate_latency_seconds", "Time spent evaluating a decoded reading", evaluate,
+                "sensor_type", sensorType);
+        registry.histogram("publish_latency_seconds", "Time between handing an alert to the publisher and its acknowledgement",
+                publish, "sensor_type", sensorType);
+        registry.histogram("alert_latency_seconds", "Time between the triggering reading's timestamp and the alert's acknowledgement",
+                endToEnd, "sensor_type", sensorType);
+    }
+}
@@ -0,0 +1,349 @@
+package com.tgcannabis.edge_alerts.alerts;
+
+import com.tgcannabis.edge_alerts.model.SensorData;
+
+import java.util.function.DoublePredicate;
+
+/**
+ * A time-ordered ring buffer of sensor reading timestamps and values that keeps a running count of the
+ * readings that fell outside the configured range when they were added.
+ * <p>
+ * Readings are kept sorted by their timestamp, so expired readings are always evicted
+ * from the head of the buffer. Together with the running count this answers
+ * {@link #percentageOut()} in amortized O(1), instead of rescanning the whole history
+ * for every message. In-order readings are appended in O(1); a reading that arrives out of order is
+ * placed by binary search, and the shorter side of the ring (towards the head or the tail) is moved
+ * to make room, so even a late reading moves at most half of the window.
+ * <p>
+ * Readings are stored column-wise in primitive arrays, so the window holds no per-reading objects.
+ * The arrays start small and double until they can hold a sensor's steady-state window, bounded by a
+ * fixed maximum capacity; after that warm-up, adding and evicting readings allocates nothing. When a
+ * full window receives another reading, its oldest reading is dropped early, keeping the memory used
+ * per device bounded no matter how fast the sensor reports.
+ * <p>
+ * This class is not thread-safe; {@link AlertStateStore} guards each window with its stripe lock.
+ */
+public class SlidingWindow implements ReadingWindow {
+    public static final int DEFAULT_MAX_CAPACITY = 4_096;
+    private static final int INITIAL_CAPACITY = 16;
+
+    /**
+     * Object layout sizes of a 64-bit HotSpot JVM with compressed oops and class pointers
+     * (the default for heaps below 32 GB), used by {@link #getFootprintBytes()}.
+     */
+    private static final int OBJECT_ALIGNMENT = 8;
+    private static final int ARRAY_HEADER_BYTES = 16;
+    private static final int SHALLOW_BYTES = 48; // 12-byte header, 3 references, 4 ints and 1 long
+
+    private final int maxCapacity;
+    private long[] timestamps;
+    private double[] values;
+    private boolean[] outOfRange;
+    private int head;
+    private int size;
+    private int outOfRangeCount;
+    private long droppedReadings;
+
+    /**
+     * Creates a window holding at most {@value #DEFAULT_MAX_CAPACITY} readings.
+     */
+    public SlidingWindow() {
+        this(DEFAULT_MAX_CAPACITY);
+    }
+
+    /**
+     * Creates a window holding at most the given number of readings.
+     *
+     * @param maxCapacity Maximum number of readings kept; when exceeded, the oldest reading is dropped.
+     * @throws IllegalArgumentException if the capacity is not positive.
+     */
+    public SlidingWindow(int maxCapacity) {
+        if (maxCapacity <= 0) {
+            throw new IllegalArgumentException("Max capacity must be positive");
+        }
+        this.maxCapacity = maxCapacity;
+        int capacity = Math.min(INITIAL_CAPACITY, maxCapacity);
+        this.timestamps = new long[capacity];
+        this.values = new double[capacity];
+        this.outOfRange = new boolean[capacity];
+    }
+
+    /**
+     * Adds a reading to the window, keeping the buffer ordered by timestamp.
+     * Only the reading's timestamp and value are retained, so the caller may reuse the {@code SensorData} instance.
+     *
+     * @param data        The sensor reading to add.
+     * @param outOfRange  Whether the reading is outside the configured min/max range.
+     */
+    public void add(SensorData data, boolean outOfRange) {
+        add(data.getTimestamp(), data.getValue(), outOfRange);
+    }
+
+    /**
+     * Adds a reading to the window, keeping the buffer ordered by timestamp.
+     * If the window is already at its maximum capacity, its oldest reading is dropped first.
+     *
+     * @param timestamp   The reading's timestamp in epoch seconds.
+     * @param value       The reading's value.
+     * @param outOfRange  Whether the reading is outside the configured min/max range.
+     */
+    @Override
+    public void add(long timestamp, double value, boolean outOfRange) {
+        if (size == timestamps.length) {
+            if (size < maxCapacity) {
+                grow();
+            } else {
+                dropOldest();
+            }
+        }
+
+        int position = insertionPoint(timestamp);
+        if (position < size - position) {
+            // Closer to the head: move the older readings one slot towards it
+            head = (head - 1 + timestamps.length) % timestamps.length;
+            for (int i = 0; i < position; i++) {
+                move(index(i + 1), index(i));
+            }
+        } else {
+            for (int i = size; i > position; i--) {
+                move(index(i - 1), index(i));
+            }
+        }
+
+        int slot = index(position);
+        timestamps[slot] = timestamp;
+        values[slot] = value;
+        this.outOfRange[slot] = outOfRange;
+        size++;
+        if (outOfRange) outOfRangeCount++;
+    }
+
+    /**
+     * Finds where a reading belongs: after every reading with the same or an older timestamp, so readings
+     * with equal timestamps keep their arrival order.
+     *
+     * @return The logical position for the reading, from 0 to {@link #size()}.
+     */
+    private int insertionPoint(long timestamp) {
+        if (size == 0 || timestamps[index(size - 1)] <= timestamp) {
+            return size; // In order: the common case
+        }
+        int low = 0;
+        int high = size - 1; // The newest reading is known to be later
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (timestamps[index(middle)] <= timestamp) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    private void move(int from, int to) {
+        timestamps[to] = timestamps[from];
+        values[to] = values[from];
+        outOfRange[to] = outOfRange[from];
+    }
+
+    /**
+     * Evicts every reading whose timestamp is strictly older than the given cutoff.
+     *
+     * @param cutoff The oldest timestamp (epoch seconds) that is still part of the window.
+     * @return The number of evicted readings.
+     */
+    @Override
+    public int evictOlderThan(long cutoff) {
+        int evicted = 0;
+        while (size > 0 && timestamps[head] < cutoff) {
+            removeHead();
+            evicted++;
+        }
+        return evicted;
+    }
+
+    /**
+     * Re-evaluates which readings are out of range, e.g. after the configured min/max changed,
+     * keeping every reading in the window.
+     *
+     * @param outOfRange Decides whether a reading's value is out of range.
+     */
+    public void reclassify(DoublePredicate outOfRange) {
+        outOfRangeCount = 0;
+        for (int i = 0; i < size; i++) {
+            int slot = index(i);
+            boolean out = outOfRange.test(values[slot]);
+            this.outOfRange[slot] = out;
+            if (out) outOfRangeCount++;
+        }
+    }
+
+    /**
+     * Re-evaluates which readings are out of range against a new min/max range.
+     *
+     * @param min The new minimum of the range.
+     * @param max The new maximum of the range.
+     */
+    @Override
+    public void reclassify(double min, double max) {
+        reclassify(value -> value < min || value > max);
+    }
+
+    /**
+     * Removes every reading, e.g. once they have been folded into a {@link BucketedWindow}.
+     */
+    void clear() {
+        head = 0;
+        size = 0;
+        outOfRangeCount = 0;
+    }
+
+    /**
+     * @return The number of readings currently held in the window.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @return {@code true} if the window holds no readings.
+     */
+    @Override
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * @return The number of readings currently held in the window; the same as {@link #size()}.
+     */
+    @Override
+    public int getReadingCount() {
+        return size;
+    }
+
+    /**
+     * @return The number of readings in the window that are out of range.
+     */
+    public int getOutOfRangeCount() {
+        return outOfRangeCount;
+    }
+
+    /**
+     * @return The timestamp (epoch seconds) of the newest reading in the window.
+     * @throws IllegalStateException if the window is empty.
+     */
+    @Override
+    public long newestTimestamp() {
+        if (size == 0) {
+            throw new IllegalStateException("Window is empty");
+        }
+        return timestamps[index(size - 1)];
+    }
+
+    /**
+     * @param position Logical position of a reading, from 0 (oldest) to {@link #size()} - 1.
+     * @return The reading's timestamp in epoch seconds.
+     */
+    long timestampAt(int position) {
+        return timestamps[index(position)];
+    }
+
+    /**
+     * @param position Logical position of a reading, from 0 (oldest) to {@link #size()} - 1.
+     * @return The reading's value.
+     */
+    double valueAt(int position) {
+        return values[index(position)];
+    }
+
+    /**
+     * @param position Logical position of a reading, from 0 (oldest) to {@link #size()} - 1.
+     * @return Whether the reading was out of range when it was added or last reclassified.
+     */
+    boolean isOutOfRangeAt(int position) {
+        return outOfRange[index(position)];
+    }
+
+    /**
+     * @return The maximum number of readings the window keeps.
+     */
+    public int getMaxCapacity() {
+        return maxCapacity;
+    }
+
+    /**
+     * @return The number of readings dropped before they expired because the window was full.
+     */
+    @Override
+    public long getDroppedReadings() {
+        return droppedReadings;
+    }
+
+    /**
+     * Returns the heap memory retained by this window: the window object and its three arrays.
+     * The size is exact for a 64-bit HotSpot JVM with compressed oops, and only changes when the
+     * arrays grow.
+     *
+     * @return The retained size in bytes.
+     */
+    @Override
+    public long getFootprintBytes() {
+        int capacity = timestamps.length;
+        return SHALLOW_BYTES
+                + arrayBytes(capacity, Long.BYTES)
+                + arrayBytes(capacity, Double.BYTES)
+                + arrayBytes(capacity, 1);
+    }
+
+    /**
+     * @return The percentage (0-100) of readings in the window that are out of range,
+     * or {@code 0} if the window is empty.
+     */
+    @Override
+    public double percentageOut() {
+        return size == 0 ? 0.0 : (100.0 * outOfRangeCount) / size;
+    }
+
+    /**
+     * Maps a logical position (0 = oldest reading) to a physical slot in the ring.
+     */
+    private int index(int position) {
+        return (head + position) % timestamps.length;
+    }
+
+    private void removeHead() {
+        if (outOfRange[head]) outOfRangeCount--;
+        head = (head + 1) % timestamps.length;
+        size--;
+    }
+
+    private void dropOldest() {
+        removeHead();
+        droppedReadings++;
+    }
+
+    private static long arrayBytes(int length, int elementBytes) {
+        long bytes = ARRAY_HEADER_BYTES + (long) length * elementBytes;
+        return (bytes + OBJECT_ALIGNMENT - 1) / OBJECT_ALIGNMENT * OBJECT_ALIGNMENT;
+    }
+
+    /**
+     * Doubles the capacity of the ring, up to the maximum capacity, unrolling it so the oldest reading sits at slot 0.
+     */
+    private void grow() {
+        int capacity = (int) Math.min((long) timestamps.length * 2, maxCapacity);
+        long[] newTimestamps = new long[capacity];
+        double[] newValues = new double[capacity];
+        boolean[] newOutOfRange = new boolean[capacity];
+        for (int i = 0; i < size; i++) {
+            newTimestamps[i] = timestamps[index(i)];
+            newValues[i] = values[index(i)];
+            newOutOfRange[i] = outOfRange[index(i)];
+        }
+        timestamps = newTimestamps;
+        values = newValues;
+        outOfRange = newOutOfRange;
+        head = 0;
+    }
+}
@@ -0,0 +1,16 @@
+package com.tgcannabis.edge_alerts.alerts;
+
+/**
+ * Clock that drives window eviction and the alert time threshold.
+ */
+public enum TimeMode {
+    /**
+     * Use the service's clock: readings expire relative to the time they are processed.
+     */
+    PROCESSING,
+    /**
+     * Use the sensors' own timestamps: each device's window advances with the newest reading it sent,
+     * so buffered or clock-skewed sensors are evaluated over the period they actually measured.
+     */
+    EVENT
+}
@@ -0,0 +1,237 @@
+package com.tgcannabis.edge_alerts.codec;
+
+import com.tgcannabis.edge_alerts.model.SensorData;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.util.Objects;
+import java.util.function.Consumer;
+
+/**
+ * Decodes {@link SensorData} from a fixed-layout little-endian binary record, the cheapest format
+ * for sensor microcontrollers to produce.
+ * <p>
+ * Layout, with all numbers little-endian:
+ * <pre>
+ * offset  size  field
+ *      0     1  format version, {@value #VERSION}
+ *      1     8  timestamp, signed epoch seconds
+ *      9     8  value, IEEE 754 double
+ *     17   1+n  sensorType: length byte, then n UTF-8 bytes
+ *           1+n location
+ *           1+n sensorId
+ * </pre>
+ * A length byte of {@code 0xFF} encodes a {@code null} string, so strings hold at most 254 bytes.
+ * <p>
+ * A batch of readings from one device uses a columnar layout (see {@link #decodeEach(byte[], SensorData, Consumer)}):
+ * <pre>
+ * offset  size  field
+ *      0     1  format version, {@value #BATCH_VERSION}
+ *      1   1+n  sensorType, location and sensorId as above
+ *            4  count, unsigned
+ *      8*count  timestamps, signed epoch seconds
+ *      8*count  values, IEEE 754 doubles
+ * </pre>
+ * <p>
+ * Instances hold no per-call state and may be shared between threads.
+ */
+public final class BinaryPayloadCodec implements PayloadCodec {
+    /**
+     * Version of the record layout described above.
+     */
+    public static final int VERSION = 1;
+
+    /**
+     * Version of the columnar batch layout described above.
+     */
+    public static final int BATCH_VERSION = 2;
+
+    private static final int TIMESTAMP_OFFSET = 1;
+    private static final int VALUE_OFFSET = 9;
+    private static final int STRINGS_OFFSET = 17;
+    private static final int NULL_LENGTH = 0xFF;
+
+    private static final VarHandle INT = MethodHandles.byteArrayViewVarHandle(int[].class, ByteOrder.LITTLE_ENDIAN);
+    private static final VarHandle LONG = MethodHandles.byteArrayViewVarHandle(long[].class, ByteOrder.LITTLE_ENDIAN);
+    private static final VarHandle DOUBLE = MethodHandles.byteArrayViewVarHandle(double[].class, ByteOrder.LITTLE_ENDIAN);
+
+    private final StringInterner interner;
+
+    /**
+     * Creates a codec with its own interner of the default size.
+     */
+    public BinaryPayloadCodec() {
+        this(new StringInterner());
+    }
+
+    /**
+     * Creates a codec that shares sensor type and location strings through the given interner.
+     *
+     * @param interner The interner used for sensor types and locations.
+     * @throws NullPointerException if {@code interner} is {@code null}.
+     */
+    public BinaryPayloadCodec(StringInterner interner) {
+        this.interner = Objects.requireNonNull(interner, "String interner cannot be null");
+    }
+
+    /**
+     * Decodes a binary record into {@code reuse}.
+     *
+     * @param payload The binary record.
+     * @param reuse   The instance to fill.
+     * @return {@code reuse}, or {@code null} if the payload is empty.
+     * @throws PayloadFormatException if the payload has another version, is truncated or has trailing bytes.
+     */
+    @Override
+    public SensorData decode(byte[] payload, SensorData reuse) {
+        if (payload.length == 0) {
+            return null;
+        }
+        if (payload[0] != VERSION) {
+            throw new PayloadFormatException("Unsupported binary reading version " + (payload[0] & 0xFF));
+        }
+        if (payload.length < STRINGS_OFFSET + 3) {
+            throw new PayloadFormatException("Truncated binary reading");
+        }
+        reuse.setTimestamp((long) LONG.get(payload, TIMESTAMP_OFFSET));
+        reuse.setValue((double) DOUBLE.get(payload, VALUE_OFFSET));
+
+        int pos = readString(payload, STRINGS_OFFSET, SensorDataFields.SENSOR_TYPE, reuse);
+        pos = readString(payload, pos, SensorDataFields.LOCATION, reuse);
+        pos = readString(payload, pos, SensorDataFields.SENSOR_ID, reuse);
+        if (pos != payload.length) {
+            throw new PayloadFormatException("Unexpected data after the binary reading");
+        }
+        return reuse;
+    }
+
+    /**
+     * Decodes a single reading, or a columnar batch with each reading handed to the sink as soon as it is
+     * decoded. Readings of a batch share the device fields and are filled into {@code reuse} in turn.
+     *
+     * @param payload The binary record or batch.
+     * @param reuse   The instance to fill for each reading.
+     * @param sink    Receives each reading.
+     * @throws PayloadFormatException if the payload has another version, is truncated or has trailing bytes.
+     */
+    @Override
+    public void decodeEach(byte[] payload, SensorData reuse, Consumer<SensorData> sink) {
+        if (payload.length == 0 || payload[0] != BATCH_VERSION) {
+            sink.accept(decode(payload, reuse));
+            return;
+        }
+        int pos = readString(payload, 1, SensorDataFields.SENSOR_TYPE, reuse);
+        pos = readString(payload, pos, SensorDataFields.LOCATION, reuse);
+        pos = readString(payload, pos, SensorDataFields.SENSOR_ID, reuse);
+        if (payload.length - pos < 4) {
+            throw new PayloadFormatException("Truncated binary batch");
+        }
+        long count = Integer.toUnsignedLong((int) INT.get(payload, pos));
+        int timestamps = pos + 4;
+        if (payload.length - timestamps != count * 16) {
+            throw new PayloadFormatException("Binary batch of " + count + " readings must have "
+                    + count * 16 + " bytes of columns, not " + (payload.length - timestamps));
+        }
+        int values = timestamps + (int) count * 8;
+        for (int i = 0; i < count; i++) {
+            reuse.setTimestamp((long) LONG.get(payload, timestamps + i * 8));
+            reuse.setValue((double) DOUBLE.get(payload, values + i * 8));
+            sink.accept(reuse);
+        }
+    }
+
+    /**
+     * Encodes a batch of readings from one device in the columnar layout.
+     *
+     * @param device     A reading whose sensor type, location and sensor id name the device.
+     * @param timestamps The readings' timestamps in epoch seconds.
+     * @param values     The readings' values, one per timestamp.
+     * @return The binary batch.
+     * @throws IllegalArgumentException if the arrays differ in length or a string field is longer than 254 UTF-8 bytes.
+     */
+    public static byte[] encodeBatch(SensorData device, long[] timestamps, double[] values) {
+        if (timestamps.length != values.length) {
+            throw new IllegalArgumentException("Timestamps and values must have the same length");
+        }
+        byte[][] strings = {utf8(device.getSensorType()), utf8(device.getLocation()), utf8(device.getSensorId())};
+        int length = 1 + 4 + 16 * timestamps.length;
+        for (byte[] string : strings) {
+            length += 1 + (string == null ? 0 : string.length);
+        }
+
+        byte[] payload = new byte[length];
+        payload[0] = BATCH_VERSION;
+        int pos = writeStrings(payload, 1, strings);
+        INT.set(payload, pos, timestamps.length);
+        pos += 4;
+        for (int i = 0; i < timestamps.length; i++) {
+            LONG.set(payload, pos + i * 8, timestamps[i]);
+            DOUBLE.set(payload, pos + (timestamps.length + i) * 8, values[i]);
+        }
+        return payload;
+    }
+
+    /**
+     * Encodes a reading in this format, e.g. for tests and tools that feed the service.
+     *
+     * @param data The reading to encode.
+     * @return The binary record.
+     * @throws IllegalArgumentException if a string field is longer than 254 UTF-8 bytes.
+     */
+    public static byte[] encode(SensorData data) {
+        byte[][] strings = {utf8(data.getSensorType()), utf8(data.getLocation()), utf8(data.getSensorId())};
+        int length = STRINGS_OFFSET;
+        for (byte[] string : strings) {
+            length += 1 + (string == null ? 0 : string.length);
+        }
+
+        byte[] payload = new byte[length];
+        payload[0] = VERSION;
+        LONG.set(payload, TIMESTAMP_OFFSET, data.getTimestamp());
+        DOUBLE.set(payload, VALUE_OFFSET, data.getValue());
+        writeStrings(payload, STRINGS_OFFSET, strings);
+        return payload;
+    }
+
+    private static int writeStrings(byte[] payload, int pos, byte[][] strings) {
+        for (byte[] string : strings) {
+            if (string == null) {
+                payload[pos++] = (byte) NULL_LENGTH;
+            } else {
+                payload[pos++] = (byte) string.length;
+                System.arraycopy(string, 0, payload, pos, string.length);
+                pos += string.length;
+            }
+        }
+        return pos;
+    }
+
+    private int readString(byte[] payload, int pos, int field, SensorData target) {
+        if (pos >= payload.length) {
+            throw new PayloadFormatException("Truncated binary reading");
+        }
+        int length = payload[pos] & 0xFF;
+        if (length == NULL_LENGTH) {
+            SensorDataFields.setString(target, field, payload, pos + 1, -1, interner);
+            return pos + 1;
+        }
+        if (length > payload.length - pos - 1) {
+            throw new PayloadFormatException("Truncated binary reading");
+        }
+        SensorDataFields.setString(target, field, payload, pos + 1, length, interner);
+        return pos + 1 + length;
+    }
+
+    private static byte[] utf8(String value) {
+        if (value == null) {
+            return null;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        if (bytes.length >= NULL_LENGTH) {
+            throw new IllegalArgumentException("String field too long for a binary reading: " + value);
+        }
+        return bytes;
+    }
+}
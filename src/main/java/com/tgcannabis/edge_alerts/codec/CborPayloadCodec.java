@@ -0,0 +1,312 @@
+package com.tgcannabis.edge_alerts.codec;
+
+import com.tgcannabis.edge_alerts.model.SensorData;
+
+import java.util.Objects;
+import java.util.function.Consumer;
+
+/**
+ * Decodes {@link SensorData} from CBOR (RFC 8949) payloads.
+ * <p>
+ * A reading is a map with the same text keys as the JSON form: {@code sensorType}, {@code location}
+ * and {@code sensorId} as text strings, {@code value} as an integer or half, single or double
+ * precision float, and {@code timestamp} as an integer number of epoch seconds, optionally tagged
+ * (e.g. tag 1). {@code null} and {@code undefined} leave a field at its default. Unknown keys and
+ * their values are skipped, including nested items. Definite and indefinite length maps are
+ * supported; the payload is read in place without building intermediate objects. A batch of
+ * readings is an array of such maps (see {@link #decodeEach(byte[], SensorData, Consumer)}).
+ * <p>
+ * Instances hold no per-call state and may be shared between threads.
+ */
+public final class CborPayloadCodec implements PayloadCodec {
+    private static final int MAJOR_UNSIGNED = 0;
+    private static final int MAJOR_NEGATIVE = 1;
+    private static final int MAJOR_BYTES = 2;
+    private static final int MAJOR_TEXT = 3;
+    private static final int MAJOR_ARRAY = 4;
+    private static final int MAJOR_MAP = 5;
+    private static final int MAJOR_TAG = 6;
+    private static final int MAJOR_SIMPLE = 7;
+
+    private static final int INDEFINITE = 31;
+    private static final int BREAK = 0xFF;
+    private static final int NULL = 0xF6;
+    private static final int UNDEFINED = 0xF7;
+    private static final int HALF_FLOAT = 0xF9;
+    private static final int SINGLE_FLOAT = 0xFA;
+    private static final int DOUBLE_FLOAT = 0xFB;
+
+    /**
+     * Maximum nesting of skipped arrays, maps and tags, so hostile payloads cannot exhaust the stack.
+     */
+    private static final int MAX_DEPTH = 32;
+
+    private final StringInterner interner;
+
+    /**
+     * Creates a codec with its own interner of the default size.
+     */
+    public CborPayloadCodec() {
+        this(new StringInterner());
+    }
+
+    /**
+     * Creates a codec that shares sensor type and location strings through the given interner.
+     *
+     * @param interner The interner used for sensor types and locations.
+     * @throws NullPointerException if {@code interner} is {@code null}.
+     */
+    public CborPayloadCodec(StringInterner interner) {
+        this.interner = Objects.requireNonNull(interner, "String interner cannot be null");
+    }
+
+    /**
+     * Decodes a CBOR payload into {@code reuse}.
+     *
+     * @param payload The CBOR encoded reading.
+     * @param reuse   The instance to fill.
+     * @return {@code reuse}, or {@code null} if the payload is empty or the CBOR {@code null} value.
+     * @throws PayloadFormatException if the payload is not a well-formed CBOR map of reading fields.
+     */
+    @Override
+    public SensorData decode(byte[] payload, SensorData reuse) {
+        if (payload.length == 0 || (payload.length == 1 && (payload[0] & 0xFF) == NULL)) {
+            return null;
+        }
+        int end = decodeMap(payload, 0, reuse);
+        if (end != payload.length) {
+            throw new PayloadFormatException("Unexpected data after the CBOR reading");
+        }
+        return reuse;
+    }
+
+    /**
+     * Decodes a single reading map, or an array of reading maps (definite or indefinite length) with each
+     * reading handed to the sink as soon as it is decoded. {@code null} elements are handed on as {@code null}.
+     *
+     * @param payload The CBOR encoded reading or array of readings.
+     * @param reuse   The instance to fill for each reading.
+     * @param sink    Receives each reading.
+     * @throws PayloadFormatException if the payload or one of its readings is malformed.
+     */
+    @Override
+    public void decodeEach(byte[] payload, SensorData reuse, Consumer<SensorData> sink) {
+        if (payload.length == 0 || (payload[0] & 0xFF) >>> 5 != MAJOR_ARRAY) {
+            sink.accept(decode(payload, reuse));
+            return;
+        }
+        boolean indefinite = (payload[0] & 0x1F) == INDEFINITE;
+        long elements = indefinite ? Long.MAX_VALUE : argument(payload, 0);
+        int pos = indefinite ? 1 : headEnd(payload, 0);
+        for (long element = 0; element < elements; element++) {
+            int initial = byteAt(payload, pos);
+            if (indefinite && initial == BREAK) {
+                pos++;
+                break;
+            }
+            if (initial == NULL) {
+                pos++;
+                sink.accept(null);
+            } else {
+                pos = decodeMap(payload, pos, reuse);
+                sink.accept(reuse);
+            }
+        }
+        if (pos != payload.length) {
+            throw new PayloadFormatException("Unexpected data after the CBOR readings");
+        }
+    }
+
+    /**
+     * Decodes the reading map starting at {@code pos} into the target.
+     *
+     * @return The position after the map.
+     */
+    private int decodeMap(byte[] payload, int pos, SensorData target) {
+        SensorDataFields.reset(target);
+
+        int initial = byteAt(payload, pos);
+        if (initial >>> 5 != MAJOR_MAP) {
+            throw new PayloadFormatException("CBOR reading must be a map");
+        }
+        boolean indefinite = (initial & 0x1F) == INDEFINITE;
+        long entries = indefinite ? Long.MAX_VALUE : argument(payload, pos);
+        pos = indefinite ? pos + 1 : headEnd(payload, pos);
+
+        for (long entry = 0; entry < entries; entry++) {
+            if (indefinite && byteAt(payload, pos) == BREAK) {
+                pos++;
+                break;
+            }
+            int key = byteAt(payload, pos);
+            if (key >>> 5 == MAJOR_TEXT && (key & 0x1F) != INDEFINITE) {
+                int start = headEnd(payload, pos);
+                int end = end(payload, start, argument(payload, pos));
+                pos = readField(payload, end, SensorDataFields.fieldOf(payload, start, end - start), target);
+            } else {
+                pos = skip(payload, skip(payload, pos, 0), 0); // Non-text key: skip it and its value
+            }
+        }
+        return pos;
+    }
+
+    /**
+     * Reads the value of one field into the target.
+     *
+     * @return The position after the value.
+     */
+    private int readField(byte[] payload, int pos, int field, SensorData target) {
+        if (field == SensorDataFields.UNKNOWN) {
+            return skip(payload, pos, 0);
+        }
+        int initial = byteAt(payload, pos);
+        while (initial >>> 5 == MAJOR_TAG) {
+            pos = headEnd(payload, pos);
+            initial = byteAt(payload, pos);
+        }
+        if (initial == NULL || initial == UNDEFINED) {
+            return pos + 1;
+        }
+
+        int major = initial >>> 5;
+        if (field == SensorDataFields.VALUE || field == SensorDataFields.TIMESTAMP) {
+            long integer = 0;
+            double number;
+            boolean integral = major == MAJOR_UNSIGNED || major == MAJOR_NEGATIVE;
+            if (integral) {
+                long argument = argument(payload, pos);
+                if (argument < 0) {
+                    throw new PayloadFormatException("CBOR integer out of range");
+                }
+                integer = major == MAJOR_UNSIGNED ? argument : -1 - argument;
+                number = integer;
+            } else if (initial == HALF_FLOAT) {
+                number = Float.float16ToFloat((short) readBigEndian(payload, pos + 1, 2));
+            } else if (initial == SINGLE_FLOAT) {
+                number = Float.intBitsToFloat((int) readBigEndian(payload, pos + 1, 4));
+            } else if (initial == DOUBLE_FLOAT) {
+                number = Double.longBitsToDouble(readBigEndian(payload, pos + 1, 8));
+            } else {
+                throw new PayloadFormatException("CBOR field must be a number");
+            }
+            if (field == SensorDataFields.VALUE) {
+                target.setValue(number);
+            } else {
+                target.setTimestamp(integral ? integer : SensorDataFields.toTimestamp(number));
+            }
+            return headEnd(payload, pos);
+        }
+
+        if (major != MAJOR_TEXT || (initial & 0x1F) == INDEFINITE) {
+            throw new PayloadFormatException("CBOR field must be a definite length text string");
+        }
+        int start = headEnd(payload, pos);
+        int end = end(payload, start, argument(payload, pos));
+        SensorDataFields.setString(target, field, payload, start, end - start, interner);
+        return end;
+    }
+
+    /**
+     * Skips one data item, including nested items.
+     *
+     * @return The position after the item.
+     */
+    private static int skip(byte[] payload, int pos, int depth) {
+        if (depth > MAX_DEPTH) {
+            throw new PayloadFormatException("CBOR payload nested too deeply");
+        }
+        int initial = byteAt(payload, pos);
+        int major = initial >>> 5;
+        if ((initial & 0x1F) == INDEFINITE) {
+            if (major == MAJOR_UNSIGNED || major == MAJOR_NEGATIVE || major == MAJOR_TAG || major == MAJOR_SIMPLE) {
+                throw new PayloadFormatException("Unexpected CBOR break");
+            }
+            pos++;
+            while (byteAt(payload, pos) != BREAK) {
+                pos = skip(payload, pos, depth + 1);
+            }
+            return pos + 1;
+        }
+
+        int end = headEnd(payload, pos);
+        return switch (major) {
+            case MAJOR_BYTES, MAJOR_TEXT -> end(payload, end, argument(payload, pos));
+            case MAJOR_ARRAY, MAJOR_MAP -> {
+                long items = argument(payload, pos);
+                if (items < 0 || items > payload.length) {
+                    throw new PayloadFormatException("Truncated CBOR payload");
+                }
+                items *= major == MAJOR_MAP ? 2 : 1;
+                for (long item = 0; item < items; item++) {
+                    end = skip(payload, end, depth + 1);
+                }
+                yield end;
+            }
+            case MAJOR_TAG -> skip(payload, end, depth + 1);
+            default -> end;
+        };
+    }
+
+    /**
+     * @return The position after the head (initial byte and argument) of the item at {@code pos}.
+     */
+    private static int headEnd(byte[] payload, int pos) {
+        int info = byteAt(payload, pos) & 0x1F;
+        int end = pos + switch (info) {
+            case 24 -> 2;
+            case 25 -> 3;
+            case 26 -> 5;
+            case 27 -> 9;
+            default -> {
+                if (info > 27) throw new PayloadFormatException("Invalid CBOR additional information " + info);
+                yield 1;
+            }
+        };
+        if (end > payload.length) {
+            throw new PayloadFormatException("Truncated CBOR payload");
+        }
+        return end;
+    }
+
+    /**
+     * @return The argument of the item at {@code pos}; negative if it does not fit a signed long.
+     */
+    private static long argument(byte[] payload, int pos) {
+        int info = byteAt(payload, pos) & 0x1F;
+        return switch (info) {
+            case 24 -> readBigEndian(payload, pos + 1, 1);
+            case 25 -> readBigEndian(payload, pos + 1, 2);
+            case 26 -> readBigEndian(payload, pos + 1, 4);
+            case 27 -> readBigEndian(payload, pos + 1, 8);
+            default -> info;
+        };
+    }
+
+    private static long readBigEndian(byte[] payload, int pos, int length) {
+        if (pos + length > payload.length) {
+            throw new PayloadFormatException("Truncated CBOR payload");
+        }
+        long value = 0;
+        for (int i = 0; i < length; i++) {
+            value = (value << 8) | (payload[pos + i] & 0xFF);
+        }
+        return value;
+    }
+
+    /**
+     * @return The position {@code length} bytes after {@code start}, checked against the payload size.
+     */
+    private static int end(byte[] payload, int start, long length) {
+        if (length < 0 || length > payload.length - start) {
+            throw new PayloadFormatException("Truncated CBOR payload");
+        }
+        return start + (int) length;
+    }
+
+    private static int byteAt(byte[] payload, int pos) {
+        if (pos >= payload.length) {
+            throw new PayloadFormatException("Truncated CBOR payload");
+        }
+        return payload[pos] & 0xFF;
+    }
+}
@@ -0,0 +1,325 @@
+package com.tgcannabis.edge_alerts.codec;
+
+import com.tgcannabis.edge_alerts.model.SensorData;
+
+import java.util.Objects;
+import java.util.function.Consumer;
+
+/**
+ * Decodes {@link SensorData} from MessagePack payloads.
+ * <p>
+ * A reading is a map with the same string keys as the JSON form: {@code sensorType}, {@code location}
+ * and {@code sensorId} as strings, {@code value} as any integer or float, and {@code timestamp} as an
+ * integer number of epoch seconds. {@code nil} leaves a field at its default. Unknown keys and their
+ * values are skipped, including nested arrays, maps, binaries and extensions. The payload is read in
+ * place without building intermediate objects. A batch of readings is an array of such maps (see
+ * {@link #decodeEach(byte[], SensorData, Consumer)}).
+ * <p>
+ * Instances hold no per-call state and may be shared between threads.
+ */
+public final class MessagePackPayloadCodec implements PayloadCodec {
+    private static final int NIL = 0xC0;
+    private static final int FLOAT32 = 0xCA;
+    private static final int FLOAT64 = 0xCB;
+    private static final int UINT8 = 0xCC;
+    private static final int UINT64 = 0xCF;
+    private static final int INT8 = 0xD0;
+    private static final int INT64 = 0xD3;
+    private static final int STR8 = 0xD9;
+    private static final int STR16 = 0xDA;
+    private static final int STR32 = 0xDB;
+    private static final int ARRAY16 = 0xDC;
+    private static final int ARRAY32 = 0xDD;
+    private static final int MAP16 = 0xDE;
+    private static final int MAP32 = 0xDF;
+
+    /**
+     * Maximum nesting of skipped arrays and maps, so hostile payloads cannot exhaust the stack.
+     */
+    private static final int MAX_DEPTH = 32;
+
+    private final StringInterner interner;
+
+    /**
+     * Creates a codec with its own interner of the default size.
+     */
+    public MessagePackPayloadCodec() {
+        this(new StringInterner());
+    }
+
+    /**
+     * Creates a codec that shares sensor type and location strings through the given interner.
+     *
+     * @param interner The interner used for sensor types and locations.
+     * @throws NullPointerException if {@code interner} is {@code null}.
+     */
+    public MessagePackPayloadCodec(StringInterner interner) {
+        this.interner = Objects.requireNonNull(interner, "String interner cannot be null");
+    }
+
+    /**
+     * Decodes a MessagePack payload into {@code reuse}.
+     *
+     * @param payload The MessagePack encoded reading.
+     * @param reuse   The instance to fill.
+     * @return {@code reuse}, or {@code null} if the payload is empty or {@code nil}.
+     * @throws PayloadFormatException if the payload is not a well-formed MessagePack map of reading fields.
+     */
+    @Override
+    public SensorData decode(byte[] payload, SensorData reuse) {
+        if (payload.length == 0 || (payload.length == 1 && (payload[0] & 0xFF) == NIL)) {
+            return null;
+        }
+        int end = decodeMap(payload, 0, reuse);
+        if (end != payload.length) {
+            throw new PayloadFormatException("Unexpected data after the MessagePack reading");
+        }
+        return reuse;
+    }
+
+    /**
+     * Decodes a single reading map, or an array of reading maps with each reading handed to the sink as
+     * soon as it is decoded. {@code nil} elements are handed on as {@code null}.
+     *
+     * @param payload The MessagePack encoded reading or array of readings.
+     * @param reuse   The instance to fill for each reading.
+     * @param sink    Receives each reading.
+     * @throws PayloadFormatException if the payload or one of its readings is malformed.
+     */
+    @Override
+    public void decodeEach(byte[] payload, SensorData reuse, Consumer<SensorData> sink) {
+        int format = payload.length == 0 ? NIL : payload[0] & 0xFF;
+        long elements;
+        int pos;
+        if (format >= 0x90 && format <= 0x9F) {
+            elements = format & 0x0F;
+            pos = 1;
+        } else if (format == ARRAY16 || format == ARRAY32) {
+            int size = format == ARRAY16 ? 2 : 4;
+            elements = readBigEndian(payload, 1, size);
+            pos = 1 + size;
+        } else {
+            sink.accept(decode(payload, reuse));
+            return;
+        }
+        for (long element = 0; element < elements; element++) {
+            if (byteAt(payload, pos) == NIL) {
+                pos++;
+                sink.accept(null);
+            } else {
+                pos = decodeMap(payload, pos, reuse);
+                sink.accept(reuse);
+            }
+        }
+        if (pos != payload.length) {
+            throw new PayloadFormatException("Unexpected data after the MessagePack readings");
+        }
+    }
+
+    /**
+     * Decodes the reading map starting at {@code pos} into the target.
+     *
+     * @return The position after the map.
+     */
+    private int decodeMap(byte[] payload, int pos, SensorData target) {
+        SensorDataFields.reset(target);
+
+        int format = byteAt(payload, pos);
+        long entries;
+        if (format >= 0x80 && format <= 0x8F) {
+            entries = format & 0x0F;
+            pos++;
+        } else if (format == MAP16 || format == MAP32) {
+            int size = format == MAP16 ? 2 : 4;
+            entries = readBigEndian(payload, pos + 1, size);
+            pos += 1 + size;
+        } else {
+            throw new PayloadFormatException("MessagePack reading must be a map");
+        }
+
+        for (long entry = 0; entry < entries; entry++) {
+            long key = stringRange(payload, pos);
+            if (key < 0) {
+                pos = skip(payload, skip(payload, pos, 0), 0); // Non-string key: skip it and its value
+                continue;
+            }
+            int start = (int) (key >>> 32);
+            int end = (int) key;
+            pos = readField(payload, end, SensorDataFields.fieldOf(payload, start, end - start), target);
+        }
+        return pos;
+    }
+
+    /**
+     * Reads the value of one field into the target.
+     *
+     * @return The position after the value.
+     */
+    private int readField(byte[] payload, int pos, int field, SensorData target) {
+        if (field == SensorDataFields.UNKNOWN) {
+            return skip(payload, pos, 0);
+        }
+        int format = byteAt(payload, pos);
+        if (format == NIL) {
+            return pos + 1;
+        }
+
+        if (field == SensorDataFields.VALUE || field == SensorDataFields.TIMESTAMP) {
+            if (format == FLOAT32 || format == FLOAT64) {
+                double number = format == FLOAT32
+                        ? Float.intBitsToFloat((int) readBigEndian(payload, pos + 1, 4))
+                        : Double.longBitsToDouble(readBigEndian(payload, pos + 1, 8));
+                if (field == SensorDataFields.VALUE) {
+                    target.setValue(number);
+                } else {
+                    target.setTimestamp(SensorDataFields.toTimestamp(number));
+                }
+                return pos + (format == FLOAT32 ? 5 : 9);
+            }
+
+            long integer;
+            int end;
+            if (format <= 0x7F || format >= 0xE0) {
+                integer = (byte) format; // Positive and negative fixint
+                end = pos + 1;
+            } else if (format >= UINT8 && format <= UINT64) {
+                int size = 1 << (format - UINT8);
+                integer = readBigEndian(payload, pos + 1, size);
+                if (integer < 0) {
+                    throw new PayloadFormatException("MessagePack integer out of range");
+                }
+                end = pos + 1 + size;
+            } else if (format >= INT8 && format <= INT64) {
+                int size = 1 << (format - INT8);
+                // Sign-extend from the encoded width
+                integer = readBigEndian(payload, pos + 1, size) << (64 - 8 * size) >> (64 - 8 * size);
+                end = pos + 1 + size;
+            } else {
+                throw new PayloadFormatException("MessagePack field must be a number");
+            }
+            if (field == SensorDataFields.VALUE) {
+                target.setValue(integer);
+            } else {
+                target.setTimestamp(integer);
+            }
+            return end;
+        }
+
+        long range = stringRange(payload, pos);
+        if (range < 0) {
+            throw new PayloadFormatException("MessagePack field must be a string");
+        }
+        int start = (int) (range >>> 32);
+        int end = (int) range;
+        SensorDataFields.setString(target, field, payload, start, end - start, interner);
+        return end;
+    }
+
+    /**
+     * Locates the bytes of a string.
+     *
+     * @return The start and end of the string's bytes packed into a long, or {@code -1} if the item
+     * at {@code pos} is not a string.
+     */
+    private static long stringRange(byte[] payload, int pos) {
+        int format = byteAt(payload, pos);
+        int start;
+        long length;
+        if (format >= 0xA0 && format <= 0xBF) {
+            start = pos + 1;
+            length = format & 0x1F;
+        } else if (format >= STR8 && format <= STR32) {
+            int size = 1 << (format - STR8);
+            start = pos + 1 + size;
+            length = readBigEndian(payload, pos + 1, size);
+        } else {
+            return -1;
+        }
+        return ((long) start << 32) | end(payload, start, length);
+    }
+
+    /**
+     * Skips one item, including nested items.
+     *
+     * @return The position after the item.
+     */
+    private static int skip(byte[] payload, int pos, int depth) {
+        if (depth > MAX_DEPTH) {
+            throw new PayloadFormatException("MessagePack payload nested too deeply");
+        }
+        int format = byteAt(payload, pos);
+        if (format <= 0x7F || format >= 0xE0) {
+            return pos + 1; // fixint
+        } else if (format <= 0x8F) {
+            return skipItems(payload, pos + 1, 2L * (format & 0x0F), depth); // fixmap
+        } else if (format <= 0x9F) {
+            return skipItems(payload, pos + 1, format & 0x0F, depth); // fixarray
+        } else if (format <= 0xBF) {
+            return end(payload, pos + 1, format & 0x1F); // fixstr
+        }
+        return switch (format) {
+            case NIL, 0xC2, 0xC3 -> pos + 1; // nil, false, true
+            case 0xC4, 0xC5, 0xC6 -> { // bin 8/16/32
+                int size = 1 << (format - 0xC4);
+                yield end(payload, pos + 1 + size, readBigEndian(payload, pos + 1, size));
+            }
+            case 0xC7, 0xC8, 0xC9 -> { // ext 8/16/32: length, type, data
+                int size = 1 << (format - 0xC7);
+                yield end(payload, pos + 2 + size, readBigEndian(payload, pos + 1, size));
+            }
+            case FLOAT32 -> end(payload, pos, 5);
+            case FLOAT64 -> end(payload, pos, 9);
+            case 0xCC, 0xCD, 0xCE, 0xCF -> end(payload, pos, 1 + (1 << (format - UINT8)));
+            case 0xD0, 0xD1, 0xD2, 0xD3 -> end(payload, pos, 1 + (1 << (format - INT8)));
+            case 0xD4, 0xD5, 0xD6, 0xD7, 0xD8 -> end(payload, pos, 2 + (1 << (format - 0xD4))); // fixext
+            case STR8, STR16, STR32 -> {
+                int size = 1 << (format - STR8);
+                yield end(payload, pos + 1 + size, readBigEndian(payload, pos + 1, size));
+            }
+            case ARRAY16, ARRAY32 -> {
+                int size = format == ARRAY16 ? 2 : 4;
+                yield skipItems(payload, pos + 1 + size, readBigEndian(payload, pos + 1, size), depth);
+            }
+            case MAP16, MAP32 -> {
+                int size = format == MAP16 ? 2 : 4;
+                yield skipItems(payload, pos + 1 + size, 2 * readBigEndian(payload, pos + 1, size), depth);
+            }
+            default -> throw new PayloadFormatException("Invalid MessagePack format byte " + format);
+        };
+    }
+
+    private static int skipItems(byte[] payload, int pos, long items, int depth) {
+        for (long item = 0; item < items; item++) {
+            pos = skip(payload, pos, depth + 1);
+        }
+        return pos;
+    }
+
+    private static long readBigEndian(byte[] payload, int pos, int length) {
+        if (pos + length > payload.length) {
+            throw new PayloadFormatException("Truncated MessagePack payload");
+        }
+        long value = 0;
+        for (int i = 0; i < length; i++) {
+            value = (value << 8) | (payload[pos + i] & 0xFF);
+        }
+        return value;
+    }
+
+    /**
+     * @return The position {@code length} bytes after {@code start}, checked against the payload size.
+     */
+    private static int end(byte[] payload, int start, long length) {
+        if (length < 0 || length > payload.length - start) {
+            throw new PayloadFormatException("Truncated MessagePack payload");
+        }
+        return start + (int) length;
+    }
+
+    private static int byteAt(byte[] payload, int pos) {
+        if (pos >= payload.length) {
+            throw new PayloadFormatException("Truncated MessagePack payload");
+        }
+        return payload[pos] & 0xFF;
+    }
+}
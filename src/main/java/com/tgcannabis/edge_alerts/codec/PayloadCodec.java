@@ -0,0 +1,45 @@
+package com.tgcannabis.edge_alerts.codec;
+
+import com.tgcannabis.edge_alerts.model.SensorData;
+
+import java.util.function.Consumer;
+
+/**
+ * Decodes a sensor reading straight from the bytes of an MQTT message.
+ * <p>
+ * Built-in codecs are listed in {@link PayloadFormat}; other formats can be supported by implementing
+ * this interface and registering the codec for a topic pattern in a {@link PayloadCodecRegistry}.
+ * Implementations must be safe to share between threads.
+ */
+public interface PayloadCodec {
+
+    /**
+     * Decodes a payload, preferably by filling {@code reuse} instead of allocating. Fields missing from
+     * the payload are reset to their defaults.
+     *
+     * @param payload The message payload.
+     * @param reuse   An instance the codec may fill and return.
+     * @return {@code reuse} or a new instance holding the decoded reading, or {@code null} if the payload
+     * holds no reading (empty, or the format's null value).
+     * @throws RuntimeException if the payload is malformed; built-in codecs throw
+     *                          {@link com.google.gson.JsonSyntaxException} or {@link PayloadFormatException}.
+     */
+    SensorData decode(byte[] payload, SensorData reuse);
+
+    /**
+     * Decodes every reading of a payload that may carry a batch of readings, handing each to {@code sink}
+     * as soon as it is decoded rather than collecting them first. The sink must not keep the reading it
+     * is given, which may be {@code reuse} refilled for the next reading. A malformed reading stops
+     * decoding; the readings before it have already been handed to the sink.
+     * <p>
+     * The default implementation supports single readings only.
+     *
+     * @param payload The message payload.
+     * @param reuse   An instance the codec may fill for each reading.
+     * @param sink    Receives each reading, or {@code null} once if the payload holds no reading.
+     * @throws RuntimeException if the payload is malformed, as for {@link #decode(byte[], SensorData)}.
+     */
+    default void decodeEach(byte[] payload, SensorData reuse, Consumer<SensorData> sink) {
+        sink.accept(decode(payload, reuse));
+    }
+}
@@ -0,0 +1,106 @@
+package com.tgcannabis.edge_alerts.codec;
+
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.Objects;
+
+/**
+ * Selects the {@link PayloadCodec} for a message by its topic.
+ * <p>
+ * Codecs are registered for {@link TopicPattern}s and tried in registration order; the first pattern
+ * matching the topic wins, and topics matching none use the default codec. Registries are immutable:
+ * {@link #with(TopicPattern, PayloadCodec)} returns a new registry, so one can be swapped in while
+ * messages are being decoded.
+ */
+public final class PayloadCodecRegistry {
+    private final PayloadCodec defaultCodec;
+    private final TopicPattern[] patterns;
+    private final PayloadCodec[] codecs;
+
+    /**
+     * Creates a registry that decodes every topic with the given codec.
+     *
+     * @param defaultCodec The codec for topics matching no registered pattern.
+     * @throws NullPointerException if {@code defaultCodec} is {@code null}.
+     */
+    public PayloadCodecRegistry(PayloadCodec defaultCodec) {
+        this(Objects.requireNonNull(defaultCodec, "Default codec cannot be null"),
+                new TopicPattern[0], new PayloadCodec[0]);
+    }
+
+    private PayloadCodecRegistry(PayloadCodec defaultCodec, TopicPattern[] patterns, PayloadCodec[] codecs) {
+        this.defaultCodec = defaultCodec;
+        this.patterns = patterns;
+        this.codecs = codecs;
+    }
+
+    /**
+     * Creates a registry from a comma-separated list of {@code <topic pattern>=<format>} entries, e.g.
+     * {@code sensors/+/+/cbor=CBOR,devices/#=BINARY}. Topics matching no entry are decoded as JSON.
+     *
+     * @param mappings The mappings, or {@code null} to decode every topic as JSON.
+     * @param interner The interner shared by the codecs for sensor types and locations.
+     * @return The registry.
+     * @throws IllegalArgumentException if an entry is malformed or names an unknown {@link PayloadFormat}.
+     */
+    public static PayloadCodecRegistry parse(String mappings, StringInterner interner) {
+        PayloadCodec[] byFormat = new PayloadCodec[PayloadFormat.values().length];
+        byFormat[PayloadFormat.JSON.ordinal()] = PayloadFormat.JSON.createCodec(interner);
+        PayloadCodecRegistry registry = new PayloadCodecRegistry(byFormat[PayloadFormat.JSON.ordinal()]);
+        if (mappings == null) {
+            return registry;
+        }
+        for (String mapping : mappings.split(",")) {
+            if (mapping.isBlank()) {
+                continue;
+            }
+            int separator = mapping.lastIndexOf('=');
+            if (separator < 0) {
+                throw new IllegalArgumentException("Payload codec mapping '" + mapping.trim() + "' must be <topic pattern>=<format>");
+            }
+            PayloadFormat format = PayloadFormat.valueOf(mapping.substring(separator + 1).trim().toUpperCase(Locale.ROOT));
+            if (byFormat[format.ordinal()] == null) {
+                byFormat[format.ordinal()] = format.createCodec(interner);
+            }
+            registry = registry.with(TopicPattern.compile(mapping.substring(0, separator).trim()), byFormat[format.ordinal()]);
+        }
+        return registry;
+    }
+
+    /**
+     * Returns a registry that also decodes topics matching {@code pattern} with {@code codec}, after the
+     * patterns already registered.
+     *
+     * @param pattern The topic pattern.
+     * @param codec   The codec for matching topics.
+     * @return The new registry.
+     * @throws NullPointerException if the pattern or codec is {@code null}.
+     */
+    public PayloadCodecRegistry with(TopicPattern pattern, PayloadCodec codec) {
+        TopicPattern[] newPatterns = Arrays.copyOf(patterns, patterns.length + 1);
+        PayloadCodec[] newCodecs = Arrays.copyOf(codecs, codecs.length + 1);
+        newPatterns[patterns.length] = Objects.requireNonNull(pattern, "Topic pattern cannot be null");
+        newCodecs[codecs.length] = Objects.requireNonNull(codec, "Payload codec cannot be null");
+        return new PayloadCodecRegistry(defaultCodec, newPatterns, newCodecs);
+    }
+
+    /**
+     * @param topic The topic a message was received on.
+     * @return The codec for the topic.
+     */
+    public PayloadCodec forTopic(String topic) {
+        for (int i = 0; i < patterns.length; i++) {
+            if (patterns[i].matches(topic)) {
+                return codecs[i];
+            }
+        }
+        return defaultCodec;
+    }
+
+    /**
+     * @return The number of registered topic patterns, not counting the default codec.
+     */
+    public int size() {
+        return patterns.length;
+    }
+}
@@ -0,0 +1,38 @@
+package com.tgcannabis.edge_alerts.codec;
+
+/**
+ * Built-in wire formats for sensor readings.
+ */
+public enum PayloadFormat {
+    /**
+     * JSON text, the default ({@link SensorDataDecoder}).
+     */
+    JSON,
+    /**
+     * A CBOR map keyed by field name ({@link CborPayloadCodec}).
+     */
+    CBOR,
+    /**
+     * A MessagePack map keyed by field name ({@link MessagePackPayloadCodec}).
+     */
+    MSGPACK,
+    /**
+     * A fixed-layout little-endian record ({@link BinaryPayloadCodec}).
+     */
+    BINARY;
+
+    /**
+     * Creates the codec for this format.
+     *
+     * @param interner The interner shared by codecs for sensor types and locations.
+     * @return A new codec.
+     */
+    public PayloadCodec createCodec(StringInterner interner) {
+        return switch (this) {
+            case JSON -> new SensorDataDecoder(interner);
+            case CBOR -> new CborPayloadCodec(interner);
+            case MSGPACK -> new MessagePackPayloadCodec(interner);
+            case BINARY -> new BinaryPayloadCodec(interner);
+        };
+    }
+}
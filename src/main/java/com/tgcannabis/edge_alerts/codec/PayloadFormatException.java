@@ -0,0 +1,15 @@
+package com.tgcannabis.edge_alerts.codec;
+
+/**
+ * Thrown when a binary payload cannot be decoded into a sensor reading.
+ */
+public class PayloadFormatException extends RuntimeException {
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * @param message Description of what is wrong with the payload.
+     */
+    public PayloadFormatException(String message) {
+        super(message);
+    }
+}
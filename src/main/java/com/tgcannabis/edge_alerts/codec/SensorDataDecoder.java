@@ -0,0 +1,580 @@
+package com.tgcannabis.edge_alerts.codec;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import com.google.gson.JsonSyntaxException;
+import com.tgcannabis.edge_alerts.model.SensorData;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Objects;
+import java.util.function.Consumer;
+
+/**
+ * Decodes {@link SensorData} JSON payloads straight from the MQTT message bytes.
+ * <p>
+ * The common payload is a flat object with the five {@code SensorData} fields. This decoder parses it
+ * in a single pass over the UTF-8 bytes, without building an intermediate {@code String} or using
+ * reflection, and can fill a caller-supplied {@code SensorData} instead of allocating a new one.
+ * Sensor types and locations are shared through a {@link StringInterner}. Anything outside that
+ * fast path (escaped strings, quoted numbers, {@code null} values for numeric fields, malformed
+ * input) is handed to Gson, so the decoded result and the errors raised are the same as before.
+ * Batched payloads carrying many readings are decoded by {@link #decodeEach(byte[], SensorData, Consumer)}.
+ * <p>
+ * Instances hold no per-call state and may be shared between threads.
+ */
+public final class SensorDataDecoder implements PayloadCodec {
+    private static final Gson gson = new Gson();
+
+    private static final byte[] SENSOR_TYPE = ascii("sensorType");
+    private static final byte[] LOCATION = ascii("location");
+    private static final byte[] SENSOR_ID = ascii("sensorId");
+    private static final byte[] VALUE = ascii("value");
+    private static final byte[] TIMESTAMP = ascii("timestamp");
+    private static final byte[] TIMESTAMPS = ascii("timestamps");
+    private static final byte[] VALUES = ascii("values");
+    private static final byte[] NULL = ascii("null");
+
+    private static final int TIMESTAMPS_COLUMN = 0;
+    private static final int VALUES_COLUMN = 1;
+
+    /**
+     * Exact powers of ten usable for fast, correctly rounded decimal conversion.
+     */
+    private static final double[] POWERS_OF_TEN = {
+            1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+            1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+    };
+    private static final long MAX_EXACT_MANTISSA = 1L << 53;
+
+    /**
+     * Signals that a payload cannot be decoded by the fast path.
+     */
+    private static final int FAILED = -1;
+
+    private final StringInterner interner;
+
+    /**
+     * Creates a decoder with its own interner of the default size.
+     */
+    public SensorDataDecoder() {
+        this(new StringInterner());
+    }
+
+    /**
+     * Creates a decoder that shares sensor type and location strings through the given interner.
+     *
+     * @param interner The interner used for sensor types and locations.
+     * @throws NullPointerException if {@code interner} is {@code null}.
+     */
+    public SensorDataDecoder(StringInterner interner) {
+        this.interner = Objects.requireNonNull(interner, "String interner cannot be null");
+    }
+
+    /**
+     * Decodes a payload into a new {@code SensorData}.
+     *
+     * @param payload The UTF-8 encoded JSON payload.
+     * @return The decoded reading, or {@code null} if the payload is empty or the JSON literal {@code null}.
+     * @throws JsonSyntaxException if the payload is not a valid {@code SensorData} document.
+     */
+    public SensorData decode(byte[] payload) {
+        return decode(payload, new SensorData());
+    }
+
+    /**
+     * Decodes a payload, filling {@code reuse} when the payload takes the fast path. Fields missing
+     * from the payload are reset to their defaults. Payloads the fast path does not handle are decoded
+     * by Gson into a new instance, leaving {@code reuse} in an unspecified state.
+     *
+     * @param payload The UTF-8 encoded JSON payload.
+     * @param reuse   The instance to fill.
+     * @return {@code reuse} or a new instance holding the decoded reading, or {@code null} if the
+     * payload is empty or the JSON literal {@code null}.
+     * @throws JsonSyntaxException if the payload is not a valid {@code SensorData} document.
+     */
+    @Override
+    public SensorData decode(byte[] payload, SensorData reuse) {
+        if (decodeInto(payload, reuse)) {
+            return reuse;
+        }
+        return gson.fromJson(new String(payload, StandardCharsets.UTF_8), SensorData.class);
+    }
+
+    /**
+     * Decodes every reading in a payload, handing each to {@code sink} as soon as it is decoded. Besides a
+     * single object, the payload may be:
+     * <ul>
+     *   <li>an array of reading objects,</li>
+     *   <li>newline-delimited JSON, one reading object per line,</li>
+     *   <li>a columnar batch: one object naming the device once, with a {@code timestamps} and a
+     *   {@code values} array of equal length, e.g.
+     *   {@code {"sensorType":"temperature","location":"room-1","sensorId":"s-1","timestamps":[..],"values":[..]}}.</li>
+     * </ul>
+     * Readings are streamed into {@code reuse} on the fast path, without collecting them first. A
+     * malformed reading stops decoding; the readings before it have already been handed to the sink.
+     *
+     * @param payload The UTF-8 encoded JSON payload.
+     * @param reuse   The instance to fill for each reading.
+     * @param sink    Receives each reading, or {@code null} if the payload is empty or the JSON literal {@code null}.
+     * @throws JsonSyntaxException if the payload or one of its readings is malformed.
+     */
+    @Override
+    public void decodeEach(byte[] payload, SensorData reuse, Consumer<SensorData> sink) {
+        int pos = skipWhitespace(payload, 0);
+        if (pos < payload.length && payload[pos] == '[') {
+            int[] columns = new int[2];
+            pos = skipWhitespace(payload, pos + 1);
+            if (pos < payload.length && payload[pos] == ']') {
+                pos++;
+            } else {
+                while (true) {
+                    pos = skipWhitespace(payload, decodeElement(payload, pos, reuse, columns, sink));
+                    if (pos < payload.length && payload[pos] == ']') {
+                        pos++;
+                        break;
+                    }
+                    if (pos >= payload.length || payload[pos] != ',') {
+                        throw new JsonSyntaxException("Expected ',' or ']' at offset " + pos + " of a reading array");
+                    }
+                    pos = skipWhitespace(payload, pos + 1);
+                }
+            }
+            if (skipWhitespace(payload, pos) != payload.length) {
+                throw new JsonSyntaxException("Unexpected data after the reading array at offset " + pos);
+            }
+        } else if (pos < payload.length && payload[pos] == '{') {
+            // A single reading, or one reading per line
+            int[] columns = new int[2];
+            while (pos < payload.length) {
+                pos = skipWhitespace(payload, decodeElement(payload, pos, reuse, columns, sink));
+            }
+        } else {
+            sink.accept(decode(payload, reuse));
+        }
+    }
+
+    /**
+     * Decodes the reading object, or columnar batch, starting at {@code pos} and hands its readings to the sink.
+     *
+     * @param columns Scratch space for the positions of the {@code timestamps} and {@code values} arrays.
+     * @return The position after the object.
+     */
+    private int decodeElement(byte[] payload, int pos, SensorData reuse, int[] columns, Consumer<SensorData> sink) {
+        columns[TIMESTAMPS_COLUMN] = FAILED;
+        columns[VALUES_COLUMN] = FAILED;
+        int end = decodeObject(payload, pos, reuse, columns);
+        if (end == FAILED) {
+            // Outside the fast path: hand just this object to Gson
+            end = objectEnd(payload, pos);
+            if (end == FAILED) {
+                throw new JsonSyntaxException("Malformed reading at offset " + pos);
+            }
+            decodeTree(JsonParser.parseString(new String(payload, pos, end - pos, StandardCharsets.UTF_8)), sink);
+        } else if (columns[TIMESTAMPS_COLUMN] == FAILED && columns[VALUES_COLUMN] == FAILED) {
+            sink.accept(reuse);
+        } else {
+            decodeColumns(payload, columns[TIMESTAMPS_COLUMN], columns[VALUES_COLUMN], reuse, sink);
+        }
+        return end;
+    }
+
+    /**
+     * Walks the {@code timestamps} and {@code values} arrays of a columnar batch in lockstep, handing the
+     * device's reading to the sink once per pair.
+     */
+    private static void decodeColumns(byte[] payload, int timestamps, int values, SensorData reading,
+                                      Consumer<SensorData> sink) {
+        if (timestamps == FAILED || values == FAILED) {
+            throw new JsonSyntaxException("Columnar batch needs both a timestamps and a values array");
+        }
+        timestamps = openArray(payload, timestamps);
+        values = openArray(payload, values);
+        while (true) {
+            boolean timestampsDone = payload[timestamps] == ']';
+            boolean valuesDone = payload[values] == ']';
+            if (timestampsDone || valuesDone) {
+                if (timestampsDone != valuesDone) {
+                    throw new JsonSyntaxException("Columnar batch has timestamps and values arrays of different lengths");
+                }
+                return;
+            }
+            timestamps = nextElement(payload, readTimestamp(payload, timestamps, reading));
+            values = nextElement(payload, readValue(payload, values, reading));
+            sink.accept(reading);
+        }
+    }
+
+    /**
+     * Decodes a reading object or columnar batch parsed by Gson, for payloads outside the fast path.
+     */
+    private static void decodeTree(JsonElement element, Consumer<SensorData> sink) {
+        if (!element.isJsonObject()) {
+            sink.accept(gson.fromJson(element, SensorData.class));
+            return;
+        }
+        JsonObject object = element.getAsJsonObject();
+        if (!object.has("timestamps") && !object.has("values")) {
+            sink.accept(gson.fromJson(object, SensorData.class));
+            return;
+        }
+        try {
+            JsonArray timestamps = object.getAsJsonArray("timestamps");
+            JsonArray values = object.getAsJsonArray("values");
+            if (timestamps == null || values == null || timestamps.size() != values.size()) {
+                throw new JsonSyntaxException("Columnar batch needs timestamps and values arrays of equal length");
+            }
+            SensorData device = gson.fromJson(object, SensorData.class);
+            for (int i = 0; i < values.size(); i++) {
+                sink.accept(new SensorData(device.getSensorType(), device.getLocation(), device.getSensorId(),
+                        values.get(i).getAsDouble(), timestamps.get(i).getAsLong()));
+            }
+        } catch (ClassCastException | IllegalStateException | UnsupportedOperationException | NumberFormatException e) {
+            throw new JsonSyntaxException("Malformed columnar batch: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Attempts to decode a payload with the fast path only.
+     *
+     * @param payload The UTF-8 encoded JSON payload.
+     * @param target  The instance to fill.
+     * @return {@code true} if the payload was decoded into {@code target}; {@code false} if it must be
+     * decoded by the general-purpose parser instead.
+     */
+    public boolean decodeInto(byte[] payload, SensorData target) {
+        int end = decodeObject(payload, skipWhitespace(payload, 0), target, null);
+        return end != FAILED && skipWhitespace(payload, end) == payload.length;
+    }
+
+    /**
+     * Decodes the object starting at {@code pos} with the fast path.
+     *
+     * @param columns Receives the positions of the {@code timestamps} and {@code values} arrays of a
+     *                columnar batch, or {@code null} to skip those fields like any unknown field.
+     * @return The position after the closing brace, or {@link #FAILED}.
+     */
+    private int decodeObject(byte[] payload, int pos, SensorData target, int[] columns) {
+        target.setSensorType(null);
+        target.setLocation(null);
+        target.setSensorId(null);
+        target.setValue(0);
+        target.setTimestamp(0);
+
+        if (pos >= payload.length || payload[pos] != '{') return FAILED;
+        pos = skipWhitespace(payload, pos + 1);
+        if (pos < payload.length && payload[pos] == '}') {
+            return pos + 1;
+        }
+
+        while (true) {
+            // Field name
+            if (pos >= payload.length || payload[pos] != '"') return FAILED;
+            int nameStart = pos + 1;
+            int nameEnd = scanString(payload, nameStart);
+            if (nameEnd == FAILED) return FAILED;
+            pos = skipWhitespace(payload, nameEnd + 1);
+            if (pos >= payload.length || payload[pos] != ':') return FAILED;
+            pos = skipWhitespace(payload, pos + 1);
+
+            // Field value
+            if (columns != null && nameEquals(payload, nameStart, nameEnd - nameStart, TIMESTAMPS)) {
+                columns[TIMESTAMPS_COLUMN] = pos;
+                pos = skipValue(payload, pos);
+            } else if (columns != null && nameEquals(payload, nameStart, nameEnd - nameStart, VALUES)) {
+                columns[VALUES_COLUMN] = pos;
+                pos = skipValue(payload, pos);
+            } else {
+                pos = readField(payload, nameStart, nameEnd - nameStart, pos, target);
+            }
+            if (pos == FAILED) return FAILED;
+
+            pos = skipWhitespace(payload, pos);
+            if (pos >= payload.length) return FAILED;
+            if (payload[pos] == '}') {
+                return pos + 1;
+            }
+            if (payload[pos] != ',') return FAILED;
+            pos = skipWhitespace(payload, pos + 1);
+        }
+    }
+
+    /**
+     * Reads the value of one field into the target.
+     *
+     * @return The position after the value, or {@link #FAILED}.
+     */
+    private int readField(byte[] payload, int nameStart, int nameLength, int pos, SensorData target) {
+        if (nameEquals(payload, nameStart, nameLength, SENSOR_TYPE)) {
+            return readString(payload, pos, target, 0);
+        } else if (nameEquals(payload, nameStart, nameLength, LOCATION)) {
+            return readString(payload, pos, target, 1);
+        } else if (nameEquals(payload, nameStart, nameLength, SENSOR_ID)) {
+            return readString(payload, pos, target, 2);
+        } else if (nameEquals(payload, nameStart, nameLength, VALUE)) {
+            return readValue(payload, pos, target);
+        } else if (nameEquals(payload, nameStart, nameLength, TIMESTAMP)) {
+            return readTimestamp(payload, pos, target);
+        }
+        return skipValue(payload, pos);
+    }
+
+    /**
+     * Reads a string or {@code null} into one of the three string fields.
+     */
+    private int readString(byte[] payload, int pos, SensorData target, int field) {
+        String value;
+        int end;
+        if (matches(payload, pos, NULL)) {
+            value = null;
+            end = pos + NULL.length;
+        } else if (pos < payload.length && payload[pos] == '"') {
+            int stringEnd = scanString(payload, pos + 1);
+            if (stringEnd == FAILED) return FAILED;
+            int length = stringEnd - pos - 1;
+            value = field == 2
+                    ? new String(payload, pos + 1, length, StandardCharsets.UTF_8)
+                    : interner.intern(payload, pos + 1, length);
+            end = stringEnd + 1;
+        } else {
+            return FAILED;
+        }
+
+        switch (field) {
+            case 0 -> target.setSensorType(value);
+            case 1 -> target.setLocation(value);
+            default -> target.setSensorId(value);
+        }
+        return end;
+    }
+
+    /**
+     * Reads a decimal number into the value field.
+     */
+    private static int readValue(byte[] payload, int pos, SensorData target) {
+        int start = pos;
+        int end = pos;
+        if (end < payload.length && payload[end] == '-') end++;
+
+        long mantissa = 0;
+        int digits = 0;
+        int scale = 0;
+        boolean exact = true;
+
+        int integerStart = end;
+        while (end < payload.length && isDigit(payload[end])) {
+            mantissa = mantissa * 10 + (payload[end] - '0');
+            digits++;
+            end++;
+        }
+        if (end == integerStart) return FAILED;
+
+        if (end < payload.length && payload[end] == '.') {
+            end++;
+            int fractionStart = end;
+            while (end < payload.length && isDigit(payload[end])) {
+                mantissa = mantissa * 10 + (payload[end] - '0');
+                digits++;
+                scale++;
+                end++;
+            }
+            if (end == fractionStart) return FAILED;
+        }
+
+        if (end < payload.length && (payload[end] == 'e' || payload[end] == 'E')) {
+            // Exponents are rare in sensor payloads; leave them to the JDK's parser
+            exact = false;
+            end++;
+            if (end < payload.length && (payload[end] == '+' || payload[end] == '-')) end++;
+            int exponentStart = end;
+            while (end < payload.length && isDigit(payload[end])) end++;
+            if (end == exponentStart) return FAILED;
+        }
+
+        double value;
+        if (exact && digits <= 18 && mantissa < MAX_EXACT_MANTISSA && scale < POWERS_OF_TEN.length) {
+            // Both operands are exact doubles, so a single division is correctly rounded
+            value = mantissa / POWERS_OF_TEN[scale];
+            if (payload[start] == '-') value = -value;
+        } else {
+            try {
+                value = Double.parseDouble(new String(payload, start, end - start, StandardCharsets.ISO_8859_1));
+            } catch (NumberFormatException e) {
+                return FAILED;
+            }
+        }
+        target.setValue(value);
+        return end;
+    }
+
+    /**
+     * Reads an integral number of epoch seconds into the timestamp field.
+     */
+    private static int readTimestamp(byte[] payload, int pos, SensorData target) {
+        int end = pos;
+        boolean negative = end < payload.length && payload[end] == '-';
+        if (negative) end++;
+
+        long timestamp = 0;
+        int digitsStart = end;
+        while (end < payload.length && isDigit(payload[end])) {
+            if (end - digitsStart == 18) return FAILED; // Could overflow a long
+            timestamp = timestamp * 10 + (payload[end] - '0');
+            end++;
+        }
+        if (end == digitsStart) return FAILED;
+        if (end < payload.length && (payload[end] == '.' || payload[end] == 'e' || payload[end] == 'E')) {
+            return FAILED;
+        }
+        target.setTimestamp(negative ? -timestamp : timestamp);
+        return end;
+    }
+
+    /**
+     * Skips the value of a field this decoder does not know, including nested objects and arrays.
+     */
+    private static int skipValue(byte[] payload, int pos) {
+        int start = pos;
+        int depth = 0;
+        while (pos < payload.length) {
+            byte b = payload[pos];
+            if (b == '"') {
+                int end = skipEscapedString(payload, pos + 1);
+                if (end == FAILED) return FAILED;
+                pos = end + 1;
+            } else if (b == '{' || b == '[') {
+                depth++;
+                pos++;
+            } else if (b == '}' || b == ']') {
+                if (depth == 0) return pos == start ? FAILED : pos;
+                depth--;
+                pos++;
+            } else if (b == ',' && depth == 0) {
+                return pos == start ? FAILED : pos;
+            } else {
+                pos++;
+            }
+            if (depth == 0 && pos < payload.length && (payload[pos] == ',' || payload[pos] == '}')) {
+                return pos;
+            }
+        }
+        return FAILED;
+    }
+
+    /**
+     * Finds the closing quote of a string that contains no escapes or control characters.
+     *
+     * @param start Index of the first byte after the opening quote.
+     * @return Index of the closing quote, or {@link #FAILED}.
+     */
+    private static int scanString(byte[] payload, int start) {
+        for (int i = start; i < payload.length; i++) {
+            byte b = payload[i];
+            if (b == '"') return i;
+            if (b == '\\' || (b >= 0 && b < 0x20)) return FAILED;
+        }
+        return FAILED;
+    }
+
+    /**
+     * Finds the closing quote of a string that may contain escapes.
+     */
+    private static int skipEscapedString(byte[] payload, int start) {
+        for (int i = start; i < payload.length; i++) {
+            if (payload[i] == '\\') {
+                i++;
+            } else if (payload[i] == '"') {
+                return i;
+            }
+        }
+        return FAILED;
+    }
+
+    /**
+     * Finds the end of the object starting at {@code pos}, matching nested brackets and skipping strings.
+     *
+     * @return The position after the closing brace, or {@link #FAILED}.
+     */
+    private static int objectEnd(byte[] payload, int pos) {
+        if (pos >= payload.length || payload[pos] != '{') return FAILED;
+        int depth = 0;
+        for (int i = pos; i < payload.length; i++) {
+            byte b = payload[i];
+            if (b == '"') {
+                i = skipEscapedString(payload, i + 1);
+                if (i == FAILED) return FAILED;
+            } else if (b == '{' || b == '[') {
+                depth++;
+            } else if ((b == '}' || b == ']') && --depth == 0) {
+                return i + 1;
+            }
+        }
+        return FAILED;
+    }
+
+    /**
+     * @return The position of the first element of the array starting at {@code pos}, or of its closing bracket.
+     */
+    private static int openArray(byte[] payload, int pos) {
+        if (pos >= payload.length || payload[pos] != '[') {
+            throw new JsonSyntaxException("Expected an array at offset " + pos + " of a columnar batch");
+        }
+        return checkedPosition(payload, skipWhitespace(payload, pos + 1));
+    }
+
+    /**
+     * @param pos The position after an array element, or {@link #FAILED} if the element was malformed.
+     * @return The position of the next element, or of the closing bracket.
+     */
+    private static int nextElement(byte[] payload, int pos) {
+        if (pos == FAILED) {
+            throw new JsonSyntaxException("Malformed number in a columnar batch");
+        }
+        pos = checkedPosition(payload, skipWhitespace(payload, pos));
+        if (payload[pos] == ',') {
+            return checkedPosition(payload, skipWhitespace(payload, pos + 1));
+        }
+        if (payload[pos] != ']') {
+            throw new JsonSyntaxException("Expected ',' or ']' at offset " + pos + " of a columnar batch");
+        }
+        return pos;
+    }
+
+    private static int checkedPosition(byte[] payload, int pos) {
+        if (pos >= payload.length) {
+            throw new JsonSyntaxException("Unterminated array in a columnar batch");
+        }
+        return pos;
+    }
+
+    private static int skipWhitespace(byte[] payload, int pos) {
+        while (pos < payload.length) {
+            byte b = payload[pos];
+            if (b != ' ' && b != '\t' && b != '\n' && b != '\r') break;
+            pos++;
+        }
+        return pos;
+    }
+
+    private static boolean nameEquals(byte[] payload, int start, int length, byte[] name) {
+        return length == name.length && matches(payload, start, name);
+    }
+
+    private static boolean matches(byte[] payload, int start, byte[] expected) {
+        if (start + expected.length > payload.length) return false;
+        for (int i = 0; i < expected.length; i++) {
+            if (payload[start + i] != expected[i]) return false;
+        }
+        return true;
+    }
+
+    private static boolean isDigit(byte b) {
+        return b >= '0' && b <= '9';
+    }
+
+    private static byte[] ascii(String value) {
+        return value.getBytes(StandardCharsets.US_ASCII);
+    }
+}
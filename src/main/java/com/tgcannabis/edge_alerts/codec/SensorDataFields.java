@@ -0,0 +1,89 @@
+package com.tgcannabis.edge_alerts.codec;
+
+import com.tgcannabis.edge_alerts.model.SensorData;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Field names and setters shared by the codecs that decode readings from keyed binary maps.
+ */
+final class SensorDataFields {
+    static final int UNKNOWN = -1;
+    static final int SENSOR_TYPE = 0;
+    static final int LOCATION = 1;
+    static final int SENSOR_ID = 2;
+    static final int VALUE = 3;
+    static final int TIMESTAMP = 4;
+
+    private static final byte[][] NAMES = {
+            ascii("sensorType"), ascii("location"), ascii("sensorId"), ascii("value"), ascii("timestamp")
+    };
+
+    private SensorDataFields() {
+    }
+
+    /**
+     * Resolves a UTF-8 encoded field name.
+     *
+     * @return One of the field constants, or {@link #UNKNOWN}.
+     */
+    static int fieldOf(byte[] payload, int offset, int length) {
+        for (int field = 0; field < NAMES.length; field++) {
+            byte[] name = NAMES[field];
+            if (name.length == length && Arrays.equals(payload, offset, offset + length, name, 0, length)) {
+                return field;
+            }
+        }
+        return UNKNOWN;
+    }
+
+    /**
+     * Resets every field of a reading to its default.
+     */
+    static void reset(SensorData target) {
+        target.setSensorType(null);
+        target.setLocation(null);
+        target.setSensorId(null);
+        target.setValue(0);
+        target.setTimestamp(0);
+    }
+
+    /**
+     * Sets one of the string fields from UTF-8 bytes; sensor types and locations are interned.
+     *
+     * @param length Number of bytes, or {@code -1} for {@code null}.
+     */
+    static void setString(SensorData target, int field, byte[] payload, int offset, int length, StringInterner interner) {
+        String value;
+        if (length < 0) {
+            value = null;
+        } else if (field == SENSOR_ID) {
+            value = new String(payload, offset, length, StandardCharsets.UTF_8);
+        } else {
+            value = interner.intern(payload, offset, length);
+        }
+        switch (field) {
+            case SENSOR_TYPE -> target.setSensorType(value);
+            case LOCATION -> target.setLocation(value);
+            default -> target.setSensorId(value);
+        }
+    }
+
+    /**
+     * Converts a decoded number to epoch seconds.
+     *
+     * @throws PayloadFormatException if the number is not integral.
+     */
+    static long toTimestamp(double number) {
+        long timestamp = (long) number;
+        if (timestamp != number) {
+            throw new PayloadFormatException("Timestamp must be an integral number of seconds: " + number);
+        }
+        return timestamp;
+    }
+
+    private static byte[] ascii(String value) {
+        return value.getBytes(StandardCharsets.US_ASCII);
+    }
+}
@@ -0,0 +1,79 @@
+package com.tgcannabis.edge_alerts.codec;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * A small, lossy cache that maps UTF-8 byte ranges to shared {@link String} instances.
+ * <p>
+ * Sensor types and locations come from a small set of values, so decoding them into a new
+ * {@code String} for every message only produces garbage. The cache is direct-mapped: each byte
+ * range hashes to exactly one slot, and a colliding value simply replaces the previous one, so a
+ * lookup never allocates on a hit and the cache never grows. Slots hold immutable entries, which
+ * makes the cache safe to share between threads without locking; a lost race only costs an extra
+ * {@code String}.
+ */
+public final class StringInterner {
+    public static final int DEFAULT_CAPACITY = 1024;
+    public static final int MAX_INTERNED_LENGTH = 64;
+
+    private final Entry[] table;
+    private final int mask;
+
+    /**
+     * Creates an interner with the default number of slots.
+     */
+    public StringInterner() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Creates an interner with the given number of slots.
+     *
+     * @param capacity Number of slots, rounded up to a power of two.
+     * @throws IllegalArgumentException if the capacity is not positive.
+     */
+    public StringInterner(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Capacity must be positive");
+        }
+        int size = Integer.highestOneBit(capacity);
+        if (size < capacity) size <<= 1;
+        this.table = new Entry[size];
+        this.mask = size - 1;
+    }
+
+    /**
+     * Returns the string encoded by a range of UTF-8 bytes, reusing a previously decoded instance if cached.
+     * Ranges longer than {@link #MAX_INTERNED_LENGTH} bytes are decoded without being cached.
+     *
+     * @param bytes  The buffer holding the encoded string.
+     * @param offset Index of the first byte of the string.
+     * @param length Number of bytes in the string.
+     * @return The decoded string.
+     */
+    public String intern(byte[] bytes, int offset, int length) {
+        if (length > MAX_INTERNED_LENGTH) {
+            return new String(bytes, offset, length, StandardCharsets.UTF_8);
+        }
+
+        int hash = 1;
+        for (int i = offset; i < offset + length; i++) {
+            hash = 31 * hash + bytes[i];
+        }
+        int slot = (hash ^ (hash >>> 16)) & mask;
+
+        Entry entry = table[slot];
+        if (entry != null && Arrays.equals(entry.bytes, 0, entry.bytes.length, bytes, offset, offset + length)) {
+            return entry.value;
+        }
+
+        byte[] copy = Arrays.copyOfRange(bytes, offset, offset + length);
+        String value = new String(copy, StandardCharsets.UTF_8);
+        table[slot] = new Entry(copy, value);
+        return value;
+    }
+
+    private record Entry(byte[] bytes, String value) {
+    }
+}
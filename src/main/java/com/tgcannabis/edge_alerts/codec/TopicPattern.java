@@ -0,0 +1,185 @@
+package com.tgcannabis.edge_alerts.codec;
+
+import java.util.Arrays;
+import java.util.Objects;
+
+/**
+ * A compiled topic pattern such as {@code sensors/{location}/{sensorType}/{sensorId}} that locates
+ * reading fields in a topic string, so messages can be classified before their payload is decoded.
+ * <p>
+ * A pattern is a list of levels separated by {@code /}. Each level is a literal that must match
+ * exactly, a {@code {field}} placeholder capturing that level, or the single-level wildcard
+ * {@code +}. A trailing {@code #} matches any remaining levels. Fields are located as offset and
+ * length ranges of the topic, without allocating.
+ */
+public final class TopicPattern {
+    /**
+     * Returned by {@link #locate(String, Field)} when the topic does not match or the field is not captured.
+     */
+    public static final long NO_MATCH = -1;
+
+    /**
+     * Reading fields a pattern can capture.
+     */
+    public enum Field {
+        SENSOR_TYPE("sensorType"),
+        LOCATION("location"),
+        SENSOR_ID("sensorId");
+
+        private final String placeholder;
+
+        Field(String placeholder) {
+            this.placeholder = placeholder;
+        }
+    }
+
+    private final String pattern;
+    /**
+     * Literal of each level, or {@code null} for placeholders and wildcards.
+     */
+    private final String[] literals;
+    private final int[] fieldLevels;
+    private final boolean multiLevel;
+
+    private TopicPattern(String pattern, String[] literals, int[] fieldLevels, boolean multiLevel) {
+        this.pattern = pattern;
+        this.literals = literals;
+        this.fieldLevels = fieldLevels;
+        this.multiLevel = multiLevel;
+    }
+
+    /**
+     * Compiles a topic pattern.
+     *
+     * @param pattern The pattern, e.g. {@code sensors/{location}/{sensorType}/{sensorId}}.
+     * @return The compiled pattern.
+     * @throws IllegalArgumentException if the pattern is malformed, names an unknown field or captures a field twice.
+     * @throws NullPointerException     if the pattern is {@code null}.
+     */
+    public static TopicPattern compile(String pattern) {
+        Objects.requireNonNull(pattern, "Topic pattern cannot be null");
+        String[] levels = pattern.split("/", -1);
+        boolean multiLevel = levels[levels.length - 1].equals("#");
+        int levelCount = multiLevel ? levels.length - 1 : levels.length;
+
+        String[] literals = new String[levelCount];
+        int[] fieldLevels = new int[Field.values().length];
+        Arrays.fill(fieldLevels, -1);
+        for (int level = 0; level < levelCount; level++) {
+            String text = levels[level];
+            if (text.startsWith("{") && text.endsWith("}")) {
+                Field field = field(pattern, text.substring(1, text.length() - 1));
+                if (fieldLevels[field.ordinal()] >= 0) {
+                    throw new IllegalArgumentException("Topic pattern '" + pattern + "' captures " + text + " twice");
+                }
+                fieldLevels[field.ordinal()] = level;
+            } else if (text.contains("{") || text.contains("}") || text.contains("#")
+                    || (text.contains("+") && !text.equals("+"))) {
+                throw new IllegalArgumentException("Invalid level '" + text + "' in topic pattern '" + pattern + "'");
+            } else if (!text.equals("+")) {
+                literals[level] = text;
+            }
+        }
+        return new TopicPattern(pattern, literals, fieldLevels, multiLevel);
+    }
+
+    private static Field field(String pattern, String placeholder) {
+        for (Field field : Field.values()) {
+            if (field.placeholder.equals(placeholder)) {
+                return field;
+            }
+        }
+        throw new IllegalArgumentException("Unknown field {" + placeholder + "} in topic pattern '" + pattern + "'");
+    }
+
+    /**
+     * @param field A reading field.
+     * @return {@code true} if the pattern captures the field.
+     */
+    public boolean captures(Field field) {
+        return fieldLevels[field.ordinal()] >= 0;
+    }
+
+    /**
+     * @param topic The topic a message was received on.
+     * @return {@code true} if the topic matches the pattern.
+     */
+    public boolean matches(String topic) {
+        return match(topic, -1) != NO_MATCH;
+    }
+
+    /**
+     * Locates a field in a topic.
+     *
+     * @param topic The topic a message was received on.
+     * @param field The field to locate.
+     * @return The field's range packed into a long (see {@link #offset(long)} and {@link #length(long)}),
+     * or {@link #NO_MATCH} if the topic does not match the pattern or the pattern does not capture the field.
+     */
+    public long locate(String topic, Field field) {
+        int target = fieldLevels[field.ordinal()];
+        return target < 0 ? NO_MATCH : match(topic, target);
+    }
+
+    /**
+     * Matches a topic against the pattern.
+     *
+     * @param target The level whose range to return, or {@code -1} to only match.
+     * @return The range of the target level, {@code 0} if matched without a target, or {@link #NO_MATCH}.
+     */
+    private long match(String topic, int target) {
+        long range = 0;
+        int start = 0;
+        for (int level = 0; level < literals.length; level++) {
+            if (start > topic.length()) {
+                return NO_MATCH; // The topic has fewer levels than the pattern
+            }
+            int end = topic.indexOf('/', start);
+            if (end < 0) end = topic.length();
+
+            String literal = literals[level];
+            if (literal != null && (end - start != literal.length() || !topic.startsWith(literal, start))) {
+                return NO_MATCH;
+            }
+            if (level == target) {
+                range = ((long) start << 32) | (end - start);
+            }
+            start = end + 1;
+        }
+        // Without a trailing '#', every level of the topic must have been consumed
+        return multiLevel || start == topic.length() + 1 ? range : NO_MATCH;
+    }
+
+    /**
+     * @param range A range returned by {@link #locate(String, Field)}.
+     * @return Index of the first character of the field in the topic.
+     */
+    public static int offset(long range) {
+        return (int) (range >>> 32);
+    }
+
+    /**
+     * @param range A range returned by {@link #locate(String, Field)}.
+     * @return Number of characters in the field.
+     */
+    public static int length(long range) {
+        return (int) range;
+    }
+
+    /**
+     * Extracts a field from a topic as a new string.
+     *
+     * @param topic The topic a message was received on.
+     * @param field The field to extract.
+     * @return The field's value, or {@code null} if the topic does not match or the field is not captured.
+     */
+    public String extract(String topic, Field field) {
+        long range = locate(topic, field);
+        return range == NO_MATCH ? null : topic.substring(offset(range), offset(range) + length(range));
+    }
+
+    @Override
+    public String toString() {
+        return pattern;
+    }
+}
@@ -7,32 +7,52 @@ import lombok.Getter;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.IOException;
+import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.lang.reflect.Type;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Locale;
 import java.util.Map;
 import java.util.Objects;
+import java.util.concurrent.atomic.AtomicReference;
 
 /**
  * Loads sensor threshold configurations from a JSON file.
  * This class reads a configuration file containing sensor threshold settings
  * and provides access to them via a map.
+ * <p>
+ * The configuration is read from the classpath or, when a file path is given, from the file system.
+ * File-based configurations can be re-read with {@link #reload()} (see {@link ConfigFileWatcher}).
+ * Every load is validated, compiled into an immutable {@link ThresholdTable} and published through an
+ * atomic reference, so lookups never lock or allocate and always see a complete, valid configuration.
  */
-@Getter
 public class AlertConfigLoader {
     private static final Logger LOGGER = LoggerFactory.getLogger(AlertConfigLoader.class.getName());
     private static final String CONFIG_FILE = "/alerts-config.json";
+    private static final Type CONFIG_TYPE = new TypeToken<Map<String, SensorThreshold>>() {
+    }.getType();
 
-    private final Map<String, SensorThreshold> thresholdsMap;
+    private final AtomicReference<ThresholdTable> thresholds = new AtomicReference<>();
+    @Getter
     private final Gson gson;
 
+    /**
+     * The external configuration file, or {@code null} when the configuration comes from the classpath.
+     */
+    @Getter
+    private final Path configFile;
+
     /**
      * Initializes the alert configuration loader by reading the configuration file.
      * The configuration is stored as a map where sensor types are keys, and the values
      * are {@link SensorThreshold} objects.
      */
     public AlertConfigLoader() {
-        this.thresholdsMap = loadConfig();
-        gson = new Gson();
+        this(new Gson());
     }
 
     /**
@@ -42,37 +62,151 @@ public class AlertConfigLoader {
      * @param gson The Gson instance to use for JSON deserialization.
      */
     public AlertConfigLoader(Gson gson) {
-        this.gson = Objects.requireNonNull(gson, "Gson instance must not be null");
-        this.thresholdsMap = loadConfig();
+        this(gson, null);
     }
 
     /**
-     * Loads the sensor threshold configuration from a JSON file.
+     * Initializes the alert configuration loader from an external configuration file.
      *
-     * @return A map containing sensor types as keys and their respective thresholds as values.
-     * @throws RuntimeException if the configuration file cannot be loaded.
+     * @param gson       The Gson instance to use for JSON deserialization.
+     * @param configFile The JSON configuration file, or {@code null} to read {@value #CONFIG_FILE} from the classpath.
+     * @throws RuntimeException if the configuration file cannot be loaded or is invalid.
      */
-    private Map<String, SensorThreshold> loadConfig() {
-        try (InputStreamReader reader = new InputStreamReader(
-                Objects.requireNonNull(getClass().getResourceAsStream(CONFIG_FILE),
-                        "Configuration file not found: " + CONFIG_FILE)
-        )) {
-            Type type = new TypeToken<Map<String, SensorThreshold>>() {
-            }.getType();
-            return gson.fromJson(reader, type); // Use the instance gson
+    public AlertConfigLoader(Gson gson, Path configFile) {
+        this.gson = Objects.requireNonNull(gson, "Gson instance must not be null");
+        this.configFile = configFile;
+        try {
+            thresholds.set(ThresholdTable.compile(snapshot(loadConfig(), Map.of()), null));
         } catch (Exception e) {
             LOGGER.error("Error loading alert configuration: {}", e.getMessage(), e);
             throw new RuntimeException("Failed to load alert configuration", e);
         }
+        LOGGER.info("Loaded alert thresholds for {} sensor types from {}",
+                thresholds.get().asMap().size(), configFile != null ? configFile : "classpath:" + CONFIG_FILE);
+    }
+
+    /**
+     * @return The current, unmodifiable threshold configuration keyed by lower-case sensor type.
+     */
+    public Map<String, SensorThreshold> getThresholdsMap() {
+        return thresholds.get().asMap();
+    }
+
+    /**
+     * @return The current compiled threshold configuration.
+     */
+    public ThresholdTable getThresholdTable() {
+        return thresholds.get();
+    }
+
+    /**
+     * Re-reads the configuration and publishes it if it is valid and differs from the current one.
+     * An invalid configuration is logged and ignored, leaving the current thresholds in place.
+     *
+     * @return {@code true} if a new configuration was published.
+     */
+    public boolean reload() {
+        ThresholdTable current = thresholds.get();
+        Map<String, SensorThreshold> updated;
+        try {
+            updated = snapshot(loadConfig(), current.asMap());
+        } catch (Exception e) {
+            LOGGER.error("Ignoring invalid alert configuration, keeping the current thresholds: {}", e.getMessage());
+            return false;
+        }
+        if (updated.equals(current.asMap())) {
+            LOGGER.debug("Alert configuration unchanged");
+            return false;
+        }
+        thresholds.set(ThresholdTable.compile(updated, current));
+        LOGGER.info("Reloaded alert thresholds for {} sensor types", updated.size());
+        return true;
+    }
+
+    /**
+     * Loads the sensor threshold configuration from a JSON file.
+     *
+     * @return A map containing sensor types as keys and their respective thresholds as values.
+     * @throws IOException if the configuration file cannot be read.
+     */
+    private Map<String, SensorThreshold> loadConfig() throws IOException {
+        try (InputStreamReader reader = new InputStreamReader(openConfig(), StandardCharsets.UTF_8)) {
+            return gson.fromJson(reader, CONFIG_TYPE); // Use the instance gson
+        }
+    }
+
+    private InputStream openConfig() throws IOException {
+        if (configFile != null) {
+            return Files.newInputStream(configFile);
+        }
+        return Objects.requireNonNull(getClass().getResourceAsStream(CONFIG_FILE),
+                "Configuration file not found: " + CONFIG_FILE);
+    }
+
+    /**
+     * Validates a parsed configuration and normalizes it to lower-case keys.
+     * Thresholds equal to the ones in the previous snapshot keep their previous instance, so evaluation
+     * can cheaply tell which sensor types actually changed.
+     *
+     * @param parsed   The parsed configuration.
+     * @param previous The currently published snapshot.
+     * @return The validated configuration.
+     * @throws IllegalArgumentException if the configuration is empty or any threshold is invalid.
+     */
+    private static Map<String, SensorThreshold> snapshot(Map<String, SensorThreshold> parsed,
+                                                         Map<String, SensorThreshold> previous) {
+        if (parsed == null || parsed.isEmpty()) {
+            throw new IllegalArgumentException("Configuration defines no sensor thresholds");
+        }
+        Map<String, SensorThreshold> snapshot = new HashMap<>();
+        for (Map.Entry<String, SensorThreshold> entry : parsed.entrySet()) {
+            String sensorType = entry.getKey().toLowerCase(Locale.ROOT);
+            SensorThreshold threshold = entry.getValue();
+            validate(sensorType, threshold);
+
+            SensorThreshold unchanged = previous.get(sensorType);
+            snapshot.put(sensorType, threshold.equals(unchanged) ? unchanged : threshold);
+        }
+        return snapshot;
+    }
+
+    private static void validate(String sensorType, SensorThreshold threshold) {
+        if (sensorType.isBlank()) {
+            throw new IllegalArgumentException("Sensor type must not be blank");
+        }
+        if (threshold == null) {
+            throw new IllegalArgumentException("Missing threshold for sensor type " + sensorType);
+        }
+        if (Double.isNaN(threshold.getMin()) || Double.isNaN(threshold.getMax()) || threshold.getMin() > threshold.getMax()) {
+            throw new IllegalArgumentException("Invalid range for sensor type " + sensorType + ": min must not exceed max");
+        }
+        if (threshold.getTimeThreshold() <= 0) {
+            throw new IllegalArgumentException("Time threshold for sensor type " + sensorType + " must be positive");
+        }
+        if (threshold.getPercentageThreshold() < 0 || threshold.getPercentageThreshold() > 100) {
+            throw new IllegalArgumentException("Percentage threshold for sensor type " + sensorType + " must be between 0 and 100");
+        }
+        if (threshold.getBucketSeconds() < 0 || threshold.getBucketSeconds() > threshold.getTimeThreshold()) {
+            throw new IllegalArgumentException("Bucket width for sensor type " + sensorType + " must be between 0 and its time threshold");
+        }
+        Integer resolve = threshold.getResolvePercentageThreshold();
+        if (resolve != null && (resolve < 0 || resolve > threshold.getPercentageThreshold())) {
+            throw new IllegalArgumentException("Resolve percentage threshold for sensor type " + sensorType
+                    + " must be between 0 and its percentage threshold");
+        }
+        if (threshold.getCooldownSeconds() < 0) {
+            throw new IllegalArgumentException("Cooldown for sensor type " + sensorType + " must not be negative");
+        }
     }
 
     /**
      * Retrieves the threshold configuration for a specific sensor type.
      *
-     * @param sensorType The type of sensor (e.g., temperature, humidity, CO2).
+     * @param sensorType The type of sensor (e.g., temperature, humidity, CO2), matched case-insensitively.
      * @return The corresponding {@link SensorThreshold} object, or null if not found.
      */
     public SensorThreshold getThreshold(String sensorType) {
-        return thresholdsMap.get(sensorType.toLowerCase());
+        ThresholdTable table = thresholds.get();
+        return table.get(table.idOf(sensorType));
     }
 }
@@ -0,0 +1,94 @@
+package com.tgcannabis.edge_alerts.config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Watches the external threshold configuration file and reloads it when it changes.
+ * <p>
+ * The file's directory is watched rather than the file itself, so editors that replace the file
+ * and mounted config maps that swap a symlink are picked up as well. Bursts of events are coalesced
+ * before reloading; the loader ignores reloads that leave the configuration unchanged.
+ */
+public class ConfigFileWatcher implements AutoCloseable {
+    private static final Logger LOGGER = LoggerFactory.getLogger(ConfigFileWatcher.class);
+    private static final long DEBOUNCE_MILLIS = 200;
+
+    private final AlertConfigLoader configLoader;
+    private final WatchService watchService;
+    private final Thread thread;
+
+    /**
+     * Starts watching the configuration file of the given loader.
+     *
+     * @param configLoader The loader to reload; must read its configuration from a file.
+     * @throws IOException              if the file's directory cannot be watched.
+     * @throws IllegalArgumentException if the loader reads its configuration from the classpath.
+     */
+    public ConfigFileWatcher(AlertConfigLoader configLoader) throws IOException {
+        this.configLoader = Objects.requireNonNull(configLoader, "Alert config loader cannot be null");
+        Path configFile = configLoader.getConfigFile();
+        if (configFile == null) {
+            throw new IllegalArgumentException("Only file-based configurations can be watched");
+        }
+        Path directory = configFile.toAbsolutePath().getParent();
+
+        this.watchService = FileSystems.getDefault().newWatchService();
+        directory.register(watchService, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY);
+
+        this.thread = new Thread(this::watch, "config-watcher");
+        this.thread.setDaemon(true);
+        this.thread.start();
+        LOGGER.info("Watching alert configuration file {} for changes", configFile);
+    }
+
+    /**
+     * Watch loop: waits for changes in the configuration directory and reloads the configuration.
+     */
+    private void watch() {
+        try {
+            while (true) {
+                WatchKey key = watchService.take();
+                // Let the writer finish and drain the events it caused before reading the file
+                Thread.sleep(DEBOUNCE_MILLIS);
+                do {
+                    key.pollEvents();
+                    if (!key.reset()) {
+                        LOGGER.warn("Alert configuration directory is no longer accessible, stopping watcher");
+                        return;
+                    }
+                    key = watchService.poll(0, TimeUnit.MILLISECONDS);
+                } while (key != null);
+
+                configLoader.reload();
+            }
+        } catch (ClosedWatchServiceException | InterruptedException e) {
+            // Closed by close()
+        } catch (Exception e) {
+            LOGGER.error("Alert configuration watcher failed: {}", e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Stops watching the configuration file.
+     */
+    @Override
+    public void close() {
+        try {
+            watchService.close();
+        } catch (IOException e) {
+            LOGGER.warn("Error closing configuration watch service: {}", e.getMessage());
+        }
+        thread.interrupt();
+    }
+}
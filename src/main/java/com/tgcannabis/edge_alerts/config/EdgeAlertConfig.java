@@ -1,10 +1,23 @@
 package com.tgcannabis.edge_alerts.config;
 
+import com.tgcannabis.edge_alerts.alerts.AlertProcessor;
+import com.tgcannabis.edge_alerts.alerts.AlertStateCheckpointer;
+import com.tgcannabis.edge_alerts.alerts.AlertStateStore;
+import com.tgcannabis.edge_alerts.alerts.SlidingWindow;
+import com.tgcannabis.edge_alerts.alerts.TimeMode;
+import com.tgcannabis.edge_alerts.logging.AsyncLogWriter;
+import com.tgcannabis.edge_alerts.mqtt.SessionMode;
+import com.tgcannabis.edge_alerts.pipeline.ExecutionMode;
+import com.tgcannabis.edge_alerts.pipeline.OverflowPolicy;
+import com.tgcannabis.edge_alerts.publisher.PublishMode;
 import io.github.cdimascio.dotenv.Dotenv;
 import lombok.Getter;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+
 @Getter
 public class EdgeAlertConfig {
 
@@ -13,6 +26,35 @@ public class EdgeAlertConfig {
     private final String mqttBroker;
     private final String mqttClientId;
     private final String mqttTopic;
+    private final int mqttConnections;
+    private final String mqttShareGroup;
+    private final SessionMode mqttSessionMode;
+    private final String mqttPersistenceDir;
+    private final long mqttMaxReconnectDelaySeconds;
+    private final String alertConfigFile;
+    private final String alertTopicPattern;
+    private final String payloadCodecs;
+    private final int alertMaxKeys;
+    private final long alertKeyIdleTimeoutSeconds;
+    private final int alertWindowMaxReadings;
+    private final TimeMode alertTimeMode;
+    private final long alertAllowedLatenessSeconds;
+    private final String alertStateDir;
+    private final long alertStateCheckpointSeconds;
+    private final ExecutionMode executionMode;
+    private final int ingestWorkers;
+    private final int ingestQueueCapacity;
+    private final OverflowPolicy ingestOverflowPolicy;
+    private final PublishMode alertPublishMode;
+    private final int alertPublishQueueCapacity;
+    private final int alertPublishMaxInflight;
+    private final int alertPublishBatchSize;
+    private final int alertSpoolCapacity;
+    private final int alertSpoolFlushRate;
+    private final boolean alertLatencyFields;
+    private final int metricsPort;
+    private final int logQueueCapacity;
+    private final long shutdownTimeoutSeconds;
 
     /**
      * Initializes the key connection configuration value and keys by reading the env file
@@ -22,12 +64,84 @@ public class EdgeAlertConfig {
                 .ignoreIfMissing()
                 .load();
         mqttBroker = getEnv(dotenv, "MQTT_BROKER", "tcp://localhost:1883");
-        mqttClientId = getEnv(dotenv, "MQTT_CLIENT_ID", "edge-alert-" + System.currentTimeMillis());
+        mqttSessionMode = SessionMode.valueOf(
+                getEnv(dotenv, "MQTT_SESSION_MODE", SessionMode.CLEAN.name()).toUpperCase());
+        // A persistent session is only found again under the same client id, so derive a stable default
+        mqttClientId = getEnv(dotenv, "MQTT_CLIENT_ID", mqttSessionMode == SessionMode.PERSISTENT
+                ? "edge-alert-" + hostName()
+                : "edge-alert-" + System.currentTimeMillis());
         mqttTopic = getEnv(dotenv, "MQTT_TOPIC_FILTER", "sensors/#");
+        mqttConnections = getIntEnv(dotenv, "MQTT_CONNECTIONS", 1);
+        mqttShareGroup = getEnv(dotenv, "MQTT_SHARE_GROUP", null);
+        mqttPersistenceDir = getEnv(dotenv, "MQTT_PERSISTENCE_DIR", "mqtt-persistence");
+        mqttMaxReconnectDelaySeconds = getLongEnv(dotenv, "MQTT_MAX_RECONNECT_DELAY_SECONDS", 60);
+        alertConfigFile = getEnv(dotenv, "ALERT_CONFIG_FILE", null);
+        alertTopicPattern = getEnv(dotenv, "ALERT_TOPIC_PATTERN", null);
+        payloadCodecs = getEnv(dotenv, "PAYLOAD_CODECS", null);
+        alertMaxKeys = getIntEnv(dotenv, "ALERT_MAX_KEYS", AlertStateStore.DEFAULT_MAX_KEYS);
+        alertKeyIdleTimeoutSeconds = getLongEnv(dotenv, "ALERT_KEY_IDLE_TIMEOUT_SECONDS",
+                AlertStateStore.DEFAULT_IDLE_TIMEOUT_SECONDS);
+        alertWindowMaxReadings = getIntEnv(dotenv, "ALERT_WINDOW_MAX_READINGS", SlidingWindow.DEFAULT_MAX_CAPACITY);
+        alertTimeMode = TimeMode.valueOf(
+                getEnv(dotenv, "ALERT_TIME_MODE", TimeMode.PROCESSING.name()).toUpperCase());
+        alertAllowedLatenessSeconds = getLongEnv(dotenv, "ALERT_ALLOWED_LATENESS_SECONDS",
+                AlertProcessor.DEFAULT_ALLOWED_LATENESS_SECONDS);
+        alertStateDir = getEnv(dotenv, "ALERT_STATE_DIR", null);
+        alertStateCheckpointSeconds = getLongEnv(dotenv, "ALERT_STATE_CHECKPOINT_SECONDS",
+                AlertStateCheckpointer.DEFAULT_INTERVAL_SECONDS);
+        executionMode = ExecutionMode.valueOf(
+                getEnv(dotenv, "EXECUTION_MODE", ExecutionMode.PIPELINE.name()).toUpperCase());
+        ingestWorkers = getIntEnv(dotenv, "INGEST_WORKERS", Runtime.getRuntime().availableProcessors());
+        ingestQueueCapacity = getIntEnv(dotenv, "INGEST_QUEUE_CAPACITY", 10_000);
+        ingestOverflowPolicy = OverflowPolicy.valueOf(
+                getEnv(dotenv, "INGEST_OVERFLOW_POLICY", OverflowPolicy.BLOCK.name()).toUpperCase());
+        alertPublishMode = PublishMode.valueOf(
+                getEnv(dotenv, "ALERT_PUBLISH_MODE", PublishMode.SYNC.name()).toUpperCase());
+        alertPublishQueueCapacity = getIntEnv(dotenv, "ALERT_PUBLISH_QUEUE_CAPACITY", 1_000);
+        alertPublishMaxInflight = getIntEnv(dotenv, "ALERT_PUBLISH_MAX_INFLIGHT", 10);
+        alertPublishBatchSize = getIntEnv(dotenv, "ALERT_PUBLISH_BATCH_SIZE", 1);
+        alertSpoolCapacity = getIntEnv(dotenv, "ALERT_SPOOL_CAPACITY", 1_000);
+        alertSpoolFlushRate = getIntEnv(dotenv, "ALERT_SPOOL_FLUSH_RATE", 50);
+        alertLatencyFields = Boolean.parseBoolean(getEnv(dotenv, "ALERT_LATENCY_FIELDS", "false").trim());
+        metricsPort = getIntEnv(dotenv, "METRICS_PORT", 0);
+        logQueueCapacity = getIntEnv(dotenv, "LOG_QUEUE_CAPACITY", AsyncLogWriter.DEFAULT_CAPACITY);
+        shutdownTimeoutSeconds = getLongEnv(dotenv, "SHUTDOWN_TIMEOUT_SECONDS", 8);
 
+        validateExecutionMode(executionMode, mqttConnections);
         logConfiguration();
     }
 
+    /**
+     * Rejects the CALLBACK execution mode with several MQTT connections: each connection evaluates its messages
+     * on its own callback thread, so readings of one sensor delivered on different connections, as a shared
+     * subscription does, could be evaluated out of order. PIPELINE and VIRTUAL route every sensor to one worker.
+     *
+     * @param executionMode   The configured execution mode.
+     * @param mqttConnections The configured number of subscriber connections.
+     * @throws IllegalArgumentException if the mode is CALLBACK and there is more than one connection.
+     */
+    static void validateExecutionMode(ExecutionMode executionMode, int mqttConnections) {
+        if (executionMode == ExecutionMode.CALLBACK && mqttConnections > 1) {
+            throw new IllegalArgumentException("EXECUTION_MODE=CALLBACK cannot keep readings of a sensor in order over "
+                    + mqttConnections + " MQTT connections; use PIPELINE or VIRTUAL, or MQTT_CONNECTIONS=1");
+        }
+    }
+
+    /**
+     * Resolves the name of the host this instance runs on, e.g. the pod name in Kubernetes.
+     *
+     * @return The host name, or {@code "local"} if it cannot be determined.
+     */
+    private static String hostName() {
+        String hostName = System.getenv("HOSTNAME");
+        if (hostName != null && !hostName.isBlank()) return hostName;
+        try {
+            return InetAddress.getLocalHost().getHostName();
+        } catch (UnknownHostException e) {
+            return "local";
+        }
+    }
+
     /**
      * Gets a value from System env variables (Or Dotenv file as fallback), returning a default if not found.
      *
@@ -44,13 +158,72 @@ public class EdgeAlertConfig {
         return value != null ? value : defaultValue;
     }
 
+    /**
+     * Gets an integer value from System env variables (Or Dotenv file as fallback), returning a default if not found.
+     *
+     * @param dotenv       Dotenv instance
+     * @param varName      Environment variable name
+     * @param defaultValue Default value if not found
+     * @return The value found or the default value
+     * @throws NumberFormatException if the value found is not a valid integer
+     */
+    private int getIntEnv(Dotenv dotenv, String varName, int defaultValue) {
+        return Integer.parseInt(getEnv(dotenv, varName, String.valueOf(defaultValue)).trim());
+    }
+
+    /**
+     * Gets a long value from System env variables (Or Dotenv file as fallback), returning a default if not found.
+     *
+     * @param dotenv       Dotenv instance
+     * @param varName      Environment variable name
+     * @param defaultValue Default value if not found
+     * @return The value found or the default value
+     * @throws NumberFormatException if the value found is not a valid long
+     */
+    private long getLongEnv(Dotenv dotenv, String varName, long defaultValue) {
+        return Long.parseLong(getEnv(dotenv, varName, String.valueOf(defaultValue)).trim());
+    }
+
     /**
      * Logs the loaded configuration (except sensitive tokens).
      */
     private void logConfiguration() {
-        LOGGER.info("Batch Processor Configuration Loaded:");
+        LOGGER.info("Edge Alerts Configuration Loaded:");
         LOGGER.info("  MQTT Broker: {}", mqttBroker);
         LOGGER.info("  MQTT Client ID: {}", mqttClientId);
         LOGGER.info("  MQTT Topic Filter: {}", mqttTopic);
+        LOGGER.info("  MQTT Connections: {}", mqttConnections);
+        LOGGER.info("  MQTT Shared Subscription Group: {}", mqttShareGroup != null ? mqttShareGroup : "(none)");
+        LOGGER.info("  MQTT Session Mode: {}", mqttSessionMode);
+        if (mqttSessionMode == SessionMode.PERSISTENT) {
+            LOGGER.info("  MQTT Persistence Directory: {}", mqttPersistenceDir);
+        }
+        LOGGER.info("  MQTT Max Reconnect Delay (s): {}", mqttMaxReconnectDelaySeconds);
+        LOGGER.info("  Alert Config File: {}", alertConfigFile != null ? alertConfigFile : "(bundled)");
+        LOGGER.info("  Alert Topic Pattern: {}", alertTopicPattern != null ? alertTopicPattern : "(classify by payload)");
+        LOGGER.info("  Payload Codecs: {}", payloadCodecs != null ? payloadCodecs + " (JSON otherwise)" : "JSON");
+        LOGGER.info("  Alert Max Tracked Sensors: {}", alertMaxKeys);
+        LOGGER.info("  Alert Sensor Idle Timeout (s): {}", alertKeyIdleTimeoutSeconds);
+        LOGGER.info("  Alert Window Max Readings: {}", alertWindowMaxReadings);
+        LOGGER.info("  Alert Time Mode: {}", alertTimeMode);
+        if (alertTimeMode == TimeMode.EVENT) {
+            LOGGER.info("  Alert Allowed Lateness: {} s", alertAllowedLatenessSeconds);
+        }
+        LOGGER.info("  Alert State Directory: {}", alertStateDir != null ? alertStateDir : "(not persisted)");
+        LOGGER.info("  Alert State Checkpoint Interval (s): {}", alertStateCheckpointSeconds);
+        LOGGER.info("  Execution Mode: {}", executionMode);
+        LOGGER.info("  Ingest Workers: {}", ingestWorkers);
+        LOGGER.info("  Ingest Queue Capacity: {}", ingestQueueCapacity);
+        LOGGER.info("  Ingest Overflow Policy: {}", ingestOverflowPolicy);
+        LOGGER.info("  Alert Publish Mode: {}", alertPublishMode);
+        LOGGER.info("  Alert Publish Queue Capacity: {}", alertPublishQueueCapacity);
+        LOGGER.info("  Alert Publish Max Inflight: {}", alertPublishMaxInflight);
+        LOGGER.info("  Alert Publish Batch Size: {}", alertPublishBatchSize);
+        LOGGER.info("  Alert Spool Capacity: {}", alertSpoolCapacity);
+        LOGGER.info("  Alert Spool Flush Rate (alerts/s): {}", alertSpoolFlushRate);
+        LOGGER.info("  Alert Latency Fields: {}", alertLatencyFields ? "enabled" : "disabled");
+        LOGGER.info("  Metrics Port: {}", metricsPort > 0 ? metricsPort : "(disabled)");
+        LOGGER.info("  Log Queue Capacity: {}", logQueueCapacity);
+        LOGGER.info("  Shutdown Timeout (s): {}", shutdownTimeoutSeconds);
     }
 }
@@ -0,0 +1,210 @@
+package com.tgcannabis.edge_alerts.config;
+
+import com.tgcannabis.edge_alerts.model.SensorThreshold;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * An immutable, compiled form of the threshold configuration.
+ * <p>
+ * Every sensor type gets a small integer id, and thresholds are stored in an array indexed by that id.
+ * Sensor type names are resolved to ids case-insensitively through an open-addressing hash table,
+ * straight from a {@code String} or from the raw payload bytes, without allocating. Ids are stable
+ * across reloads: a table compiled from a previous one keeps the ids of known sensor types and only
+ * appends new ones, so state keyed by id stays valid when the configuration changes.
+ */
+public final class ThresholdTable {
+    /**
+     * Id returned for sensor types the table does not know.
+     */
+    public static final int UNKNOWN = -1;
+
+    private final String[] sensorTypes;
+    private final SensorThreshold[] thresholds;
+    private final int[] slots;
+    private final int mask;
+    private final Map<String, SensorThreshold> asMap;
+
+    private ThresholdTable(String[] sensorTypes, SensorThreshold[] thresholds) {
+        this.sensorTypes = sensorTypes;
+        this.thresholds = thresholds;
+
+        // Keep the load factor at or below 50% so probe sequences stay short
+        int capacity = Integer.highestOneBit(Math.max(1, sensorTypes.length) * 2 - 1) << 1;
+        this.slots = new int[capacity];
+        this.mask = capacity - 1;
+        Map<String, SensorThreshold> map = new HashMap<>();
+        for (int id = 0; id < sensorTypes.length; id++) {
+            String sensorType = sensorTypes[id];
+            int slot = hash(sensorType, 0, sensorType.length()) & mask;
+            while (slots[slot] != 0) {
+                slot = (slot + 1) & mask;
+            }
+            slots[slot] = id + 1;
+            if (thresholds[id] != null) {
+                map.put(sensorType, thresholds[id]);
+            }
+        }
+        this.asMap = Collections.unmodifiableMap(map);
+    }
+
+    /**
+     * Compiles a threshold configuration into a table.
+     *
+     * @param thresholds The thresholds by sensor type; names are matched case-insensitively.
+     * @param previous   The table this one replaces, whose ids are kept; {@code null} for the first table.
+     * @return The compiled table.
+     */
+    public static ThresholdTable compile(Map<String, SensorThreshold> thresholds, ThresholdTable previous) {
+        List<String> names = new ArrayList<>();
+        Map<String, Integer> ids = new HashMap<>();
+        if (previous != null) {
+            for (String sensorType : previous.sensorTypes) {
+                ids.put(sensorType, names.size());
+                names.add(sensorType);
+            }
+        }
+
+        Map<String, SensorThreshold> byName = new HashMap<>();
+        for (Map.Entry<String, SensorThreshold> entry : thresholds.entrySet()) {
+            String sensorType = entry.getKey().toLowerCase(Locale.ROOT);
+            byName.put(sensorType, entry.getValue());
+            if (!ids.containsKey(sensorType)) {
+                ids.put(sensorType, names.size());
+                names.add(sensorType);
+            }
+        }
+
+        String[] sensorTypes = names.toArray(new String[0]);
+        SensorThreshold[] compiled = new SensorThreshold[sensorTypes.length];
+        for (int id = 0; id < sensorTypes.length; id++) {
+            compiled[id] = byName.get(sensorTypes[id]);
+        }
+        return new ThresholdTable(sensorTypes, compiled);
+    }
+
+    /**
+     * Resolves a sensor type name to its id, ignoring case.
+     *
+     * @param sensorType The sensor type name; may be {@code null}.
+     * @return The id, or {@link #UNKNOWN}.
+     */
+    public int idOf(String sensorType) {
+        if (sensorType == null) return UNKNOWN;
+        return idOf(sensorType, 0, sensorType.length());
+    }
+
+    /**
+     * Resolves a sensor type name held in part of a string, such as one level of a topic, to its id, ignoring case.
+     *
+     * @param text   The string holding the name.
+     * @param offset Index of the first character of the name.
+     * @param length Number of characters in the name.
+     * @return The id, or {@link #UNKNOWN}.
+     */
+    public int idOf(String text, int offset, int length) {
+        int slot = hash(text, offset, length) & mask;
+        int entry;
+        while ((entry = slots[slot]) != 0) {
+            String candidate = sensorTypes[entry - 1];
+            if (candidate.length() == length && candidate.regionMatches(true, 0, text, offset, length)) {
+                return entry - 1;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return UNKNOWN;
+    }
+
+    /**
+     * Resolves a UTF-8 encoded sensor type name to its id, ignoring case.
+     *
+     * @param bytes  The buffer holding the encoded name, e.g. a message payload.
+     * @param offset Index of the first byte of the name.
+     * @param length Number of bytes in the name.
+     * @return The id, or {@link #UNKNOWN}.
+     */
+    public int idOf(byte[] bytes, int offset, int length) {
+        int hash = 0;
+        for (int i = offset; i < offset + length; i++) {
+            if (bytes[i] < 0) {
+                // Non-ASCII names are rare; resolve them through their decoded form
+                return idOf(new String(bytes, offset, length, StandardCharsets.UTF_8));
+            }
+            hash = 31 * hash + toLowerAscii(bytes[i]);
+        }
+
+        int slot = spread(hash) & mask;
+        int entry;
+        while ((entry = slots[slot]) != 0) {
+            if (asciiEqualsIgnoreCase(sensorTypes[entry - 1], bytes, offset, length)) {
+                return entry - 1;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return UNKNOWN;
+    }
+
+    /**
+     * @param id A sensor type id.
+     * @return The threshold for the sensor type, or {@code null} if the id is {@link #UNKNOWN}
+     * or the sensor type is no longer configured.
+     */
+    public SensorThreshold get(int id) {
+        return id < 0 ? null : thresholds[id];
+    }
+
+    /**
+     * @param id A sensor type id.
+     * @return The canonical lower-case name of the sensor type; the same instance for every lookup.
+     */
+    public String sensorType(int id) {
+        return sensorTypes[id];
+    }
+
+    /**
+     * @return The number of ids assigned, including sensor types removed from the configuration.
+     */
+    public int size() {
+        return sensorTypes.length;
+    }
+
+    /**
+     * @return The configured thresholds keyed by lower-case sensor type, as an unmodifiable map.
+     */
+    public Map<String, SensorThreshold> asMap() {
+        return asMap;
+    }
+
+    /**
+     * Case-insensitive hash, consistent between {@link #idOf(String, int, int)} and {@link #idOf(byte[], int, int)}.
+     */
+    private static int hash(String text, int offset, int length) {
+        int hash = 0;
+        for (int i = offset; i < offset + length; i++) {
+            hash = 31 * hash + Character.toLowerCase(text.charAt(i));
+        }
+        return spread(hash);
+    }
+
+    private static int spread(int hash) {
+        return hash ^ (hash >>> 16);
+    }
+
+    private static int toLowerAscii(byte b) {
+        return b >= 'A' && b <= 'Z' ? b + ('a' - 'A') : b;
+    }
+
+    private static boolean asciiEqualsIgnoreCase(String canonical, byte[] bytes, int offset, int length) {
+        if (canonical.length() != length) return false;
+        for (int i = 0; i < length; i++) {
+            if (canonical.charAt(i) != toLowerAscii(bytes[offset + i])) return false;
+        }
+        return true;
+    }
+}
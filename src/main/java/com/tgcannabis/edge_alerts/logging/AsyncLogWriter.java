@@ -0,0 +1,234 @@
+package com.tgcannabis.edge_alerts.logging;
+
+import com.tgcannabis.edge_alerts.metrics.MetricsBinder;
+import com.tgcannabis.edge_alerts.metrics.MetricsRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.slf4j.event.Level;
+
+import java.util.Objects;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Writes log lines to their SLF4J loggers on a dedicated daemon thread, so that threads processing
+ * messages never wait for console or file I/O.
+ * <p>
+ * Lines wait in a bounded queue. When it is full, further lines are dropped and counted rather than
+ * blocking the caller; the writer reports how many were dropped once it has caught up. Arguments that
+ * may change after the call, such as the reused per-thread {@code SensorData}, are rendered to strings
+ * when queued, so the line shows them as they were when it was logged.
+ * <p>
+ * Components log through a {@link HotPathLogger}, which queues to the {@link #shared()} writer. Once a
+ * writer is closed, lines are written on the calling thread.
+ */
+public final class AsyncLogWriter implements AutoCloseable, MetricsBinder {
+    private static final Logger LOGGER = LoggerFactory.getLogger(AsyncLogWriter.class);
+
+    /**
+     * Default number of lines that may wait to be written.
+     */
+    public static final int DEFAULT_CAPACITY = 8_192;
+
+    /**
+     * How long {@link #close()} waits for queued lines to be written.
+     */
+    private static final long CLOSE_TIMEOUT_MILLIS = 5_000;
+
+    private static volatile AsyncLogWriter shared;
+
+    private final BlockingQueue<LogLine> queue;
+    private final Thread thread;
+    private final LongAdder queuedLines = new LongAdder();
+    private final LongAdder droppedLines = new LongAdder();
+    private volatile boolean closed;
+
+    /**
+     * Number of dropped lines already reported; only accessed by the writer thread.
+     */
+    private long reportedDroppedLines;
+
+    /**
+     * Starts a writer.
+     *
+     * @param capacity The number of lines that may wait to be written.
+     * @throws IllegalArgumentException if the capacity is not positive.
+     */
+    public AsyncLogWriter(int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("Log queue capacity must be at least 1");
+        }
+        this.queue = new ArrayBlockingQueue<>(capacity);
+        this.thread = new Thread(this::run, "log-writer");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * @return The writer {@link HotPathLogger}s queue to, started with {@value #DEFAULT_CAPACITY} lines
+     * of capacity on first use unless another was {@linkplain #install installed}.
+     */
+    public static AsyncLogWriter shared() {
+        AsyncLogWriter writer = shared;
+        if (writer == null) {
+            synchronized (AsyncLogWriter.class) {
+                if (shared == null) {
+                    shared = new AsyncLogWriter(DEFAULT_CAPACITY);
+                }
+                writer = shared;
+            }
+        }
+        return writer;
+    }
+
+    /**
+     * Makes a writer the {@link #shared()} one, closing the previous shared writer once its queued lines are written.
+     *
+     * @param writer The writer to install.
+     */
+    public static void install(AsyncLogWriter writer) {
+        Objects.requireNonNull(writer, "Log writer cannot be null");
+        AsyncLogWriter previous;
+        synchronized (AsyncLogWriter.class) {
+            previous = shared;
+            shared = writer;
+        }
+        if (previous != null && previous != writer) {
+            previous.close();
+        }
+    }
+
+    /**
+     * Queues a line, or drops it if the queue is full. Never blocks.
+     *
+     * @param logger The logger to write the line to.
+     * @param level  The line's level, already known to be enabled.
+     * @param format The SLF4J message format.
+     * @param args   The message arguments; mutable ones are replaced by their string form in place.
+     */
+    void write(Logger logger, Level level, String format, Object[] args) {
+        if (closed) {
+            log(logger, level, format, args);
+            return;
+        }
+        snapshot(args);
+        if (queue.offer(new LogLine(logger, level, format, args))) {
+            queuedLines.increment();
+        } else {
+            droppedLines.increment();
+        }
+    }
+
+    /**
+     * @return The number of lines queued to be written.
+     */
+    public long getQueuedLines() {
+        return queuedLines.sum();
+    }
+
+    /**
+     * @return The number of lines dropped because the queue was full.
+     */
+    public long getDroppedLines() {
+        return droppedLines.sum();
+    }
+
+    /**
+     * @return The number of lines waiting to be written.
+     */
+    public int getQueueDepth() {
+        return queue.size();
+    }
+
+    /**
+     * Registers the queued and dropped line counters and the queue depth.
+     *
+     * @param registry The registry to register with.
+     */
+    @Override
+    public void bindTo(MetricsRegistry registry) {
+        registry.counter("log_lines_queued", "Log lines queued to be written asynchronously", this::getQueuedLines);
+        registry.counter("log_lines_dropped", "Log lines dropped because the log queue was full", this::getDroppedLines);
+        registry.gauge("log_queue_depth", "Log lines waiting to be written", this::getQueueDepth);
+    }
+
+    /**
+     * Writes the queued lines and stops the writer thread; later lines are written on the calling thread.
+     */
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        thread.interrupt();
+        try {
+            thread.join(CLOSE_TIMEOUT_MILLIS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void run() {
+        while (!closed) {
+            try {
+                LogLine line = queue.poll(1, TimeUnit.SECONDS);
+                if (line != null) {
+                    log(line.logger, line.level, line.format, line.args);
+                }
+            } catch (InterruptedException e) {
+                break; // Closing: write what is left below
+            }
+            if (queue.isEmpty()) {
+                reportDroppedLines();
+            }
+        }
+        LogLine line;
+        while ((line = queue.poll()) != null) {
+            log(line.logger, line.level, line.format, line.args);
+        }
+        reportDroppedLines();
+    }
+
+    private void reportDroppedLines() {
+        long dropped = droppedLines.sum();
+        if (dropped > reportedDroppedLines) {
+            LOGGER.warn("Log queue full, dropped {} log lines ({} so far)", dropped - reportedDroppedLines, dropped);
+            reportedDroppedLines = dropped;
+        }
+    }
+
+    private static void log(Logger logger, Level level, String format, Object[] args) {
+        switch (level) {
+            case ERROR -> logger.error(format, args);
+            case WARN -> logger.warn(format, args);
+            case INFO -> logger.info(format, args);
+            case DEBUG -> logger.debug(format, args);
+            case TRACE -> logger.trace(format, args);
+        }
+    }
+
+    /**
+     * Replaces arguments that may change before the line is written by their string form.
+     */
+    private static void snapshot(Object[] args) {
+        for (int i = 0; i < args.length; i++) {
+            Object arg = args[i];
+            if (arg != null && !isImmutable(arg)) {
+                args[i] = String.valueOf(arg);
+            }
+        }
+    }
+
+    private static boolean isImmutable(Object arg) {
+        return arg instanceof String || arg instanceof Integer || arg instanceof Long || arg instanceof Double
+                || arg instanceof Float || arg instanceof Boolean || arg instanceof Character || arg instanceof Short
+                || arg instanceof Byte || arg instanceof Enum<?> || arg instanceof Record || arg instanceof Throwable
+                || arg instanceof StructuredEvent;
+    }
+
+    private record LogLine(Logger logger, Level level, String format, Object[] args) {
+    }
+}
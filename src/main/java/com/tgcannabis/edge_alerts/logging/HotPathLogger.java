@@ -0,0 +1,130 @@
+package com.tgcannabis.edge_alerts.logging;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.slf4j.event.Level;
+
+import java.util.Objects;
+
+/**
+ * Logger for code on the message path: lines are handed to an {@link AsyncLogWriter} and written on its
+ * thread instead of the caller's, and dropped rather than waited for if the writer falls behind.
+ * <p>
+ * Mirrors the SLF4J methods the message path uses. The level is checked before anything is queued, so a
+ * disabled line costs one check; lines logged per message should additionally be rate-limited with a
+ * {@link RateLimitedCounter} or sampled with a {@link LogSampler} kept per call site.
+ */
+public final class HotPathLogger {
+    private final Logger logger;
+
+    /**
+     * The writer lines are queued to, or {@code null} for the {@linkplain AsyncLogWriter#shared() shared} writer.
+     */
+    private final AsyncLogWriter writer;
+
+    HotPathLogger(Logger logger, AsyncLogWriter writer) {
+        this.logger = Objects.requireNonNull(logger, "Logger cannot be null");
+        this.writer = writer;
+    }
+
+    /**
+     * @param type The class logging.
+     * @return A logger named after the class, writing through the shared writer.
+     */
+    public static HotPathLogger of(Class<?> type) {
+        return new HotPathLogger(LoggerFactory.getLogger(type), null);
+    }
+
+    /**
+     * @param name The logger's name.
+     * @return A logger with the given name, writing through the shared writer.
+     */
+    public static HotPathLogger of(String name) {
+        return new HotPathLogger(LoggerFactory.getLogger(name), null);
+    }
+
+    /**
+     * @return Whether DEBUG lines are written.
+     */
+    public boolean isDebugEnabled() {
+        return logger.isDebugEnabled();
+    }
+
+    /**
+     * @return Whether INFO lines are written.
+     */
+    public boolean isInfoEnabled() {
+        return logger.isInfoEnabled();
+    }
+
+    /**
+     * Logs a DEBUG line asynchronously.
+     *
+     * @param format The SLF4J message format.
+     * @param args   The message arguments; a trailing {@link Throwable} is logged with its stack trace.
+     */
+    public void debug(String format, Object... args) {
+        if (logger.isDebugEnabled()) {
+            writer().write(logger, Level.DEBUG, format, args);
+        }
+    }
+
+    /**
+     * Logs an INFO line asynchronously.
+     *
+     * @param format The SLF4J message format.
+     * @param args   The message arguments; a trailing {@link Throwable} is logged with its stack trace.
+     */
+    public void info(String format, Object... args) {
+        if (logger.isInfoEnabled()) {
+            writer().write(logger, Level.INFO, format, args);
+        }
+    }
+
+    /**
+     * Logs a WARN line asynchronously.
+     *
+     * @param format The SLF4J message format.
+     * @param args   The message arguments; a trailing {@link Throwable} is logged with its stack trace.
+     */
+    public void warn(String format, Object... args) {
+        if (logger.isWarnEnabled()) {
+            writer().write(logger, Level.WARN, format, args);
+        }
+    }
+
+    /**
+     * Logs an ERROR line asynchronously.
+     *
+     * @param format The SLF4J message format.
+     * @param args   The message arguments; a trailing {@link Throwable} is logged with its stack trace.
+     */
+    public void error(String format, Object... args) {
+        if (logger.isErrorEnabled()) {
+            writer().write(logger, Level.ERROR, format, args);
+        }
+    }
+
+    /**
+     * Logs a structured event asynchronously, as its {@code key=value} fields.
+     *
+     * @param level The event's level.
+     * @param event The event.
+     */
+    public void event(Level level, StructuredEvent event) {
+        boolean enabled = switch (level) {
+            case ERROR -> logger.isErrorEnabled();
+            case WARN -> logger.isWarnEnabled();
+            case INFO -> logger.isInfoEnabled();
+            case DEBUG -> logger.isDebugEnabled();
+            case TRACE -> logger.isTraceEnabled();
+        };
+        if (enabled) {
+            writer().write(logger, level, "{}", new Object[]{event});
+        }
+    }
+
+    private AsyncLogWriter writer() {
+        return writer != null ? writer : AsyncLogWriter.shared();
+    }
+}
@@ -0,0 +1,54 @@
+package com.tgcannabis.edge_alerts.logging;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Samples a per-message log line, such as a DEBUG line describing every received payload, so that only
+ * one in every {@code n} events is logged. Keep one sampler per call site and consult it only once the
+ * log level is known to be enabled, so that a disabled line costs nothing.
+ */
+public final class LogSampler {
+    /**
+     * Default sampling rate: one line logged per this many events.
+     */
+    public static final int DEFAULT_ONE_IN = 100;
+
+    private final AtomicLong events = new AtomicLong();
+    private final int oneIn;
+
+    /**
+     * Creates a sampler logging one in every {@value #DEFAULT_ONE_IN} events.
+     */
+    public LogSampler() {
+        this(DEFAULT_ONE_IN);
+    }
+
+    /**
+     * Creates a sampler logging the first event and then one in every {@code oneIn} events.
+     *
+     * @param oneIn The number of events per logged line; {@code 1} logs every event.
+     * @throws IllegalArgumentException if {@code oneIn} is not positive.
+     */
+    public LogSampler(int oneIn) {
+        if (oneIn < 1) {
+            throw new IllegalArgumentException("Sampling rate must be at least 1");
+        }
+        this.oneIn = oneIn;
+    }
+
+    /**
+     * Counts one event.
+     *
+     * @return {@code true} if the caller should log about it.
+     */
+    public boolean sample() {
+        return events.getAndIncrement() % oneIn == 0;
+    }
+
+    /**
+     * @return The number of events counted, logged or not.
+     */
+    public long getEvents() {
+        return events.get();
+    }
+}
@@ -0,0 +1,55 @@
+package com.tgcannabis.edge_alerts.logging;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counts recurring events, such as skipped messages, and tells the caller when to log about them,
+ * at most once per interval. This replaces per-message log lines that would flood the log when a
+ * large share of the traffic is affected; a counter kept per call site rate-limits that call site
+ * independently of the others.
+ */
+public final class RateLimitedCounter {
+    public static final long DEFAULT_INTERVAL_SECONDS = 60;
+
+    private final LongAdder count = new LongAdder();
+    private final AtomicLong nextLogNanos;
+    private final long intervalNanos;
+
+    /**
+     * Creates a counter that allows logging once every {@value #DEFAULT_INTERVAL_SECONDS} seconds.
+     */
+    public RateLimitedCounter() {
+        this(TimeUnit.SECONDS.toNanos(DEFAULT_INTERVAL_SECONDS));
+    }
+
+    /**
+     * Creates a counter that allows logging once per interval; the first event may always be logged.
+     *
+     * @param intervalNanos Minimum time between two log lines, in nanoseconds.
+     */
+    public RateLimitedCounter(long intervalNanos) {
+        this.intervalNanos = intervalNanos;
+        this.nextLogNanos = new AtomicLong(System.nanoTime());
+    }
+
+    /**
+     * Counts one event.
+     *
+     * @return {@code true} if the caller should log about it, i.e. nothing was logged within the interval.
+     */
+    public boolean increment() {
+        count.increment();
+        long now = System.nanoTime();
+        long next = nextLogNanos.get();
+        return now - next >= 0 && nextLogNanos.compareAndSet(next, now + intervalNanos);
+    }
+
+    /**
+     * @return The number of events counted.
+     */
+    public long sum() {
+        return count.sum();
+    }
+}
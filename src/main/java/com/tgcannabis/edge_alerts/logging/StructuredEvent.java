@@ -0,0 +1,99 @@
+package com.tgcannabis.edge_alerts.logging;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * A log event made of key/value fields, rendered on one line in the logfmt style
+ * ({@code event=alert sensor_type=temperature value=35.2}) so that log collectors can index it
+ * without parsing free text.
+ * <p>
+ * Fields are only rendered when the event is written; values should be immutable (strings, numbers,
+ * enums), since a {@link HotPathLogger} writes the event later, on its writer thread.
+ */
+public final class StructuredEvent {
+    /**
+     * Name of the logger alert lifecycle events are logged to, so they can be routed apart from diagnostics.
+     */
+    public static final String EVENTS_LOGGER = "com.tgcannabis.edge_alerts.events";
+
+    private final List<Object> fields = new ArrayList<>(20);
+
+    private StructuredEvent(String name) {
+        fields.add("event");
+        fields.add(Objects.requireNonNull(name, "Event name cannot be null"));
+    }
+
+    /**
+     * Starts an event.
+     *
+     * @param name The event's name, written as its {@code event} field.
+     * @return The event, to add fields to.
+     */
+    public static StructuredEvent of(String name) {
+        return new StructuredEvent(name);
+    }
+
+    /**
+     * Adds a field.
+     *
+     * @param key   The field's key.
+     * @param value The field's value; {@code null} is written as an empty string.
+     * @return This event.
+     */
+    public StructuredEvent with(String key, Object value) {
+        fields.add(Objects.requireNonNull(key, "Field key cannot be null"));
+        fields.add(value);
+        return this;
+    }
+
+    /**
+     * @return The fields as {@code key=value} pairs separated by spaces; values holding spaces, quotes or
+     * {@code =} are quoted.
+     */
+    @Override
+    public String toString() {
+        StringBuilder line = new StringBuilder(128);
+        for (int i = 0; i < fields.size(); i += 2) {
+            if (i > 0) {
+                line.append(' ');
+            }
+            line.append(fields.get(i)).append('=');
+            appendValue(line, fields.get(i + 1));
+        }
+        return line.toString();
+    }
+
+    private static void appendValue(StringBuilder line, Object value) {
+        String text = value == null ? "" : value.toString();
+        if (!needsQuotes(text)) {
+            line.append(text);
+            return;
+        }
+        line.append('"');
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            switch (c) {
+                case '"' -> line.append("\\\"");
+                case '\\' -> line.append("\\\\");
+                case '\n' -> line.append("\\n");
+                default -> line.append(c);
+            }
+        }
+        line.append('"');
+    }
+
+    private static boolean needsQuotes(String text) {
+        if (text.isEmpty()) {
+            return true;
+        }
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c <= ' ' || c == '"' || c == '=' || c == '\\') {
+                return true;
+            }
+        }
+        return false;
+    }
+}
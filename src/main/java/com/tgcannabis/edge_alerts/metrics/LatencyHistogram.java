@@ -0,0 +1,145 @@
+package com.tgcannabis.edge_alerts.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A concurrent histogram of durations in nanoseconds, recorded without locks or allocation.
+ * <p>
+ * Like an HDR histogram, buckets are log-linear: every power of two is split into
+ * {@value #SUB_BUCKETS} equal sub-buckets, so a recorded value is known to within 12.5% across the whole
+ * range from nanoseconds to {@link #MAX_TRACKABLE_NANOS}; larger values are counted in the last bucket.
+ * Recording is one atomic increment of the value's bucket plus striped updates of the sum and maximum,
+ * so many threads may record at once. Reads are not atomic with respect to concurrent recording; a
+ * scrape may miss the values recorded while it runs.
+ */
+public final class LatencyHistogram {
+    private static final int SUB_BUCKET_BITS = 3;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int MAX_MAGNITUDE = 40;
+
+    /**
+     * Largest duration with its own bucket, 2^41 - 1 ns or about 36.6 minutes.
+     */
+    public static final long MAX_TRACKABLE_NANOS = (1L << (MAX_MAGNITUDE + 1)) - 1;
+
+    private final AtomicLongArray counts = new AtomicLongArray(indexOf(MAX_TRACKABLE_NANOS) + 1);
+    private final LongAdder sum = new LongAdder();
+    private final AtomicLong max = new AtomicLong();
+
+    /**
+     * Records one duration.
+     *
+     * @param nanos The duration in nanoseconds; negative values, e.g. from clock adjustments, count as zero.
+     */
+    public void record(long nanos) {
+        long value = Math.max(0, nanos);
+        counts.incrementAndGet(indexOf(Math.min(value, MAX_TRACKABLE_NANOS)));
+        sum.add(value);
+        long current;
+        while (value > (current = max.get()) && !max.compareAndSet(current, value)) {
+            // Retry until the maximum is at least this value
+        }
+    }
+
+    /**
+     * Records the time elapsed since {@code startNanos}.
+     *
+     * @param startNanos A {@link System#nanoTime()} reading taken when the measured work started.
+     */
+    public void recordSince(long startNanos) {
+        record(System.nanoTime() - startNanos);
+    }
+
+    /**
+     * @return The number of recorded values.
+     */
+    public long getCount() {
+        long count = 0;
+        for (int i = 0; i < counts.length(); i++) {
+            count += counts.get(i);
+        }
+        return count;
+    }
+
+    /**
+     * @return The sum of the recorded values in nanoseconds.
+     */
+    public long getSumNanos() {
+        return sum.sum();
+    }
+
+    /**
+     * @return The largest recorded value in nanoseconds, or {@code 0} if none was recorded.
+     */
+    public long getMaxNanos() {
+        return max.get();
+    }
+
+    /**
+     * Returns the value below which the given share of the recorded values fall, as the upper end of the bucket
+     * holding it.
+     *
+     * @param percentile The percentile, from 0 to 100.
+     * @return The value in nanoseconds, or {@code 0} if nothing was recorded.
+     * @throws IllegalArgumentException if the percentile is outside 0 to 100.
+     */
+    public long valueAtPercentile(double percentile) {
+        if (!(percentile >= 0 && percentile <= 100)) {
+            throw new IllegalArgumentException("Percentile must be between 0 and 100");
+        }
+        long total = getCount();
+        if (total == 0) {
+            return 0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(percentile / 100 * total));
+        long seen = 0;
+        for (int i = 0; i < counts.length(); i++) {
+            seen += counts.get(i);
+            if (seen >= rank) {
+                return Math.min(highestOf(i), getMaxNanos());
+            }
+        }
+        return getMaxNanos();
+    }
+
+    /**
+     * Counts the recorded values up to a bound, as a Prometheus histogram bucket does.
+     *
+     * @param magnitude The bound as a power of two: values below {@code 2^magnitude} nanoseconds are counted.
+     * @return The number of recorded values below the bound.
+     */
+    long countBelowPowerOfTwo(int magnitude) {
+        int end = magnitude > MAX_MAGNITUDE ? counts.length() : indexOf(1L << magnitude);
+        long count = 0;
+        for (int i = 0; i < end; i++) {
+            count += counts.get(i);
+        }
+        return count;
+    }
+
+    /**
+     * Maps a value to its bucket: values below {@value #SUB_BUCKETS} get a bucket each, larger values one of
+     * the {@value #SUB_BUCKETS} sub-buckets of their power of two.
+     */
+    static int indexOf(long value) {
+        if (value < SUB_BUCKETS) {
+            return (int) value;
+        }
+        int shift = 63 - Long.numberOfLeadingZeros(value) - SUB_BUCKET_BITS;
+        return ((shift + 1) << SUB_BUCKET_BITS) + (int) ((value >>> shift) & (SUB_BUCKETS - 1));
+    }
+
+    /**
+     * @return The largest value mapped to the given bucket.
+     */
+    static long highestOf(int index) {
+        if (index < SUB_BUCKETS) {
+            return index;
+        }
+        int shift = (index >>> SUB_BUCKET_BITS) - 1;
+        long lowest = (long) (SUB_BUCKETS + (index & (SUB_BUCKETS - 1))) << shift;
+        return lowest + (1L << shift) - 1;
+    }
+}
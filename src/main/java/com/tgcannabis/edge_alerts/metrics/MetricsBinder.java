@@ -0,0 +1,15 @@
+package com.tgcannabis.edge_alerts.metrics;
+
+/**
+ * A component that exposes its counters, gauges and latency histograms through a {@link MetricsRegistry}.
+ */
+public interface MetricsBinder {
+
+    /**
+     * Registers the component's metrics. Called once, after the component is set up; components that
+     * measure latencies only start timing their work once bound.
+     *
+     * @param registry The registry to register with.
+     */
+    void bindTo(MetricsRegistry registry);
+}
@@ -0,0 +1,234 @@
+package com.tgcannabis.edge_alerts.metrics;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.DoubleSupplier;
+import java.util.function.LongSupplier;
+import java.util.regex.Pattern;
+
+/**
+ * Collects the service's metrics and renders them in the Prometheus text exposition format (version 0.0.4).
+ * <p>
+ * Metrics are read only when scraped: counters and gauges are registered as suppliers reading the
+ * counters components already keep, and latencies as {@link LatencyHistogram}s recorded on the message
+ * path, so the registry adds no work per message. Each metric may be registered several times with
+ * different labels; the series are grouped under one {@code # HELP} and {@code # TYPE} header. Metric names
+ * get the {@value #PREFIX} prefix.
+ */
+public final class MetricsRegistry {
+    /**
+     * Prefix of every metric name.
+     */
+    public static final String PREFIX = "edge_alerts_";
+
+    /**
+     * Upper bounds of the exported histogram buckets, as powers of two nanoseconds: about 1 µs to 34 s.
+     */
+    private static final int FIRST_BUCKET_MAGNITUDE = 10;
+    private static final int LAST_BUCKET_MAGNITUDE = 35;
+
+    private static final Pattern NAME = Pattern.compile("[a-zA-Z_:][a-zA-Z0-9_:]*");
+    private static final Pattern LABEL_NAME = Pattern.compile("[a-zA-Z_][a-zA-Z0-9_]*");
+
+    private final Map<String, Family> families = new LinkedHashMap<>();
+
+    /**
+     * Registers a counter: a value that only increases, such as the number of messages received.
+     *
+     * @param name   The metric name without prefix; {@code _total} is appended.
+     * @param help   What the metric counts.
+     * @param value  Reads the current count.
+     * @param labels Alternating label names and values.
+     * @throws IllegalArgumentException if the name or labels are invalid, or the name is registered with another type.
+     */
+    public void counter(String name, String help, LongSupplier value, String... labels) {
+        Objects.requireNonNull(value, "Counter value cannot be null");
+        register(name + "_total", help, "counter", labels, (out, series, labelText) ->
+                sample(out, series, labelText, Long.toString(value.getAsLong())));
+    }
+
+    /**
+     * Registers a gauge: a value that goes up and down, such as a queue depth.
+     *
+     * @param name   The metric name without prefix.
+     * @param help   What the metric measures.
+     * @param value  Reads the current value.
+     * @param labels Alternating label names and values.
+     * @throws IllegalArgumentException if the name or labels are invalid, or the name is registered with another type.
+     */
+    public void gauge(String name, String help, DoubleSupplier value, String... labels) {
+        Objects.requireNonNull(value, "Gauge value cannot be null");
+        register(name, help, "gauge", labels, (out, series, labelText) ->
+                sample(out, series, labelText, format(value.getAsDouble())));
+    }
+
+    /**
+     * Registers a latency histogram, exported in seconds with buckets at powers of two nanoseconds.
+     *
+     * @param name      The metric name without prefix; should end in {@code _seconds}.
+     * @param help      What the histogram measures.
+     * @param histogram The histogram the measured code records into.
+     * @param labels    Alternating label names and values.
+     * @throws IllegalArgumentException if the name or labels are invalid, or the name is registered with another type.
+     */
+    public void histogram(String name, String help, LatencyHistogram histogram, String... labels) {
+        Objects.requireNonNull(histogram, "Histogram cannot be null");
+        register(name, help, "histogram", labels, (out, series, labelText) -> {
+            String separator = labelText.isEmpty() ? "" : labelText + ",";
+            for (int magnitude = FIRST_BUCKET_MAGNITUDE; magnitude <= LAST_BUCKET_MAGNITUDE; magnitude++) {
+                sample(out, series + "_bucket", separator + "le=\"" + format((1L << magnitude) / 1e9) + "\"",
+                        Long.toString(histogram.countBelowPowerOfTwo(magnitude)));
+            }
+            long count = histogram.getCount();
+            sample(out, series + "_bucket", separator + "le=\"+Inf\"", Long.toString(count));
+            sample(out, series + "_sum", labelText, format(histogram.getSumNanos() / 1e9));
+            sample(out, series + "_count", labelText, Long.toString(count));
+        });
+    }
+
+    /**
+     * Registers a histogram of values other than latencies, computed when scraped, e.g. the distribution of
+     * window sizes across sensors.
+     *
+     * @param name   The metric name without prefix.
+     * @param help   What the histogram measures.
+     * @param bounds The ascending upper bounds of the buckets, without {@code +Inf}.
+     * @param values Fills an array with the number of values in each bucket, one more than there are bounds
+     *               (the last for values above every bound), and returns the sum of all values.
+     * @throws IllegalArgumentException if the name is invalid or registered with another type.
+     */
+    public void distribution(String name, String help, long[] bounds, DistributionSource values) {
+        Objects.requireNonNull(values, "Distribution source cannot be null");
+        long[] upperBounds = bounds.clone();
+        register(name, help, "histogram", new String[0], (out, series, labelText) -> {
+            long[] counts = new long[upperBounds.length + 1];
+            double sum = values.fill(counts);
+            long cumulative = 0;
+            for (int i = 0; i < upperBounds.length; i++) {
+                cumulative += counts[i];
+                sample(out, series + "_bucket", "le=\"" + upperBounds[i] + "\"", Long.toString(cumulative));
+            }
+            cumulative += counts[upperBounds.length];
+            sample(out, series + "_bucket", "le=\"+Inf\"", Long.toString(cumulative));
+            sample(out, series + "_sum", "", format(sum));
+            sample(out, series + "_count", "", Long.toString(cumulative));
+        });
+    }
+
+    /**
+     * Renders every registered metric.
+     *
+     * @return The metrics in the Prometheus text format.
+     */
+    public String scrape() {
+        List<Family> snapshot;
+        synchronized (families) {
+            snapshot = new ArrayList<>(families.values());
+        }
+        StringBuilder out = new StringBuilder(4_096);
+        for (Family family : snapshot) {
+            out.append("# HELP ").append(family.name).append(' ').append(family.help.replace("\\", "\\\\").replace("\n", "\\n")).append('\n');
+            out.append("# TYPE ").append(family.name).append(' ').append(family.type).append('\n');
+            for (Series series : family.series()) {
+                series.writer.write(out, family.name, series.labels);
+            }
+        }
+        return out.toString();
+    }
+
+    private void register(String name, String help, String type, String[] labels, SeriesWriter writer) {
+        String fullName = PREFIX + name;
+        if (!NAME.matcher(fullName).matches()) {
+            throw new IllegalArgumentException("Invalid metric name: " + name);
+        }
+        String labelText = labelText(labels);
+        synchronized (families) {
+            Family family = families.computeIfAbsent(fullName, key -> new Family(key, help, type));
+            if (!family.type.equals(type)) {
+                throw new IllegalArgumentException("Metric " + fullName + " is already registered as a " + family.type);
+            }
+            family.add(new Series(labelText, writer));
+        }
+    }
+
+    private static String labelText(String[] labels) {
+        if (labels.length % 2 != 0) {
+            throw new IllegalArgumentException("Labels must be name and value pairs");
+        }
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < labels.length; i += 2) {
+            if (!LABEL_NAME.matcher(labels[i]).matches()) {
+                throw new IllegalArgumentException("Invalid label name: " + labels[i]);
+            }
+            if (!text.isEmpty()) {
+                text.append(',');
+            }
+            text.append(labels[i]).append("=\"")
+                    .append(labels[i + 1].replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n"))
+                    .append('"');
+        }
+        return text.toString();
+    }
+
+    private static void sample(StringBuilder out, String name, String labelText, String value) {
+        out.append(name);
+        if (!labelText.isEmpty()) {
+            out.append('{').append(labelText).append('}');
+        }
+        out.append(' ').append(value).append('\n');
+    }
+
+    private static String format(double value) {
+        if (Double.isNaN(value)) {
+            return "NaN";
+        }
+        if (Double.isInfinite(value)) {
+            return value > 0 ? "+Inf" : "-Inf";
+        }
+        return value == Math.rint(value) && Math.abs(value) < 1e15 ? Long.toString((long) value) : Double.toString(value);
+    }
+
+    /**
+     * Computes the buckets of a {@link #distribution} when it is scraped.
+     */
+    @FunctionalInterface
+    public interface DistributionSource {
+        /**
+         * @param counts Receives the number of values per bucket; zeroed on entry.
+         * @return The sum of all values.
+         */
+        double fill(long[] counts);
+    }
+
+    @FunctionalInterface
+    private interface SeriesWriter {
+        void write(StringBuilder out, String name, String labelText);
+    }
+
+    private record Series(String labels, SeriesWriter writer) {
+    }
+
+    private static final class Family {
+        private final String name;
+        private final String help;
+        private final String type;
+        private final List<Series> series = new ArrayList<>();
+
+        private Family(String name, String help, String type) {
+            this.name = name;
+            this.help = help;
+            this.type = type;
+        }
+
+        private synchronized void add(Series added) {
+            series.add(added);
+        }
+
+        private synchronized List<Series> series() {
+            return new ArrayList<>(series);
+        }
+    }
+}
@@ -0,0 +1,114 @@
+package com.tgcannabis.edge_alerts.metrics;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.Objects;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Serves the metrics of a {@link MetricsRegistry} to Prometheus over HTTP at {@value #PATH}.
+ * <p>
+ * Built on the JDK's embedded HTTP server, with a single daemon thread answering scrapes, so
+ * serving metrics adds no dependency and never competes with message processing for more than one thread.
+ */
+public final class MetricsServer implements AutoCloseable {
+    private static final Logger LOGGER = LoggerFactory.getLogger(MetricsServer.class);
+
+    /**
+     * Path the metrics are served at.
+     */
+    public static final String PATH = "/metrics";
+
+    private static final String CONTENT_TYPE = "text/plain; version=0.0.4; charset=utf-8";
+
+    private final MetricsRegistry registry;
+    private final HttpServer server;
+    private final ExecutorService executor;
+
+    /**
+     * Starts serving the registry's metrics.
+     *
+     * @param registry The registry to serve.
+     * @param port     The port to listen on, or {@code 0} to pick a free port (see {@link #getPort()}).
+     * @return The running server.
+     * @throws IOException              If the port cannot be bound.
+     * @throws IllegalArgumentException if the port is outside 0 to 65535.
+     */
+    public static MetricsServer start(MetricsRegistry registry, int port) throws IOException {
+        MetricsServer metricsServer = new MetricsServer(registry, port);
+        // Scrapes are only served once the server is fully constructed
+        metricsServer.server.createContext(PATH, metricsServer::handle);
+        metricsServer.server.start();
+        LOGGER.info("Serving metrics on port {} at {}", metricsServer.getPort(), PATH);
+        return metricsServer;
+    }
+
+    private MetricsServer(MetricsRegistry registry, int port) throws IOException {
+        this.registry = Objects.requireNonNull(registry, "Metrics registry cannot be null");
+        if (port < 0 || port > 65_535) {
+            throw new IllegalArgumentException("Metrics port must be between 0 and 65535");
+        }
+        this.server = HttpServer.create(new InetSocketAddress(port), 0);
+        this.executor = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "metrics-server");
+            thread.setDaemon(true);
+            return thread;
+        });
+        server.setExecutor(executor);
+    }
+
+    /**
+     * @return The port the server listens on.
+     */
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    /**
+     * Answers a scrape with the current metrics; methods other than GET and HEAD are refused.
+     */
+    private void handle(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            String method = exchange.getRequestMethod();
+            if (!"GET".equals(method) && !"HEAD".equals(method)) {
+                exchange.getResponseHeaders().set("Allow", "GET, HEAD");
+                exchange.sendResponseHeaders(405, -1);
+                return;
+            }
+            byte[] body;
+            try {
+                body = registry.scrape().getBytes(StandardCharsets.UTF_8);
+            } catch (RuntimeException e) {
+                LOGGER.error("Error collecting metrics: {}", e.getMessage(), e);
+                exchange.sendResponseHeaders(500, -1);
+                return;
+            }
+            exchange.getResponseHeaders().set("Content-Type", CONTENT_TYPE);
+            if ("HEAD".equals(method)) {
+                exchange.sendResponseHeaders(200, -1);
+                return;
+            }
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        }
+    }
+
+    /**
+     * Stops serving metrics.
+     */
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+}
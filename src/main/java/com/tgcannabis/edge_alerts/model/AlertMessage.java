@@ -1,6 +1,5 @@
 package com.tgcannabis.edge_alerts.model;
 
-import lombok.AllArgsConstructor;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
@@ -8,11 +7,46 @@ import lombok.Setter;
 @Getter
 @Setter
 @NoArgsConstructor
-@AllArgsConstructor
 public class AlertMessage {
     private String sensorType;
+    private String location;
+    private String sensorId;
     private double currentValue;
     private String alertType;
     private long durationSeconds;
     private String message;
+
+    /**
+     * Timestamp (epoch seconds) of the reading that triggered the alert; only published when latency
+     * fields are enabled, {@code null} otherwise.
+     */
+    private Long eventTime;
+
+    /**
+     * Milliseconds from the arrival of the triggering reading to the alert being handed to the publisher;
+     * only published when latency fields are enabled, {@code null} otherwise.
+     */
+    private Long processingDelayMillis;
+
+    /**
+     * Timestamp (epoch seconds) of the triggering reading, kept to measure end-to-end latency; not published.
+     */
+    private transient long readingTimestamp;
+
+    /**
+     * {@link System#nanoTime()} at which the alert was handed to the publisher, or {@code 0} if its delivery
+     * is not timed; not published.
+     */
+    private transient long publishedNanos;
+
+    public AlertMessage(String sensorType, String location, String sensorId, double currentValue,
+                        String alertType, long durationSeconds, String message) {
+        this.sensorType = sensorType;
+        this.location = location;
+        this.sensorId = sensorId;
+        this.currentValue = currentValue;
+        this.alertType = alertType;
+        this.durationSeconds = durationSeconds;
+        this.message = message;
+    }
 }
@@ -15,4 +15,43 @@ public class SensorThreshold {
     // Ignoring for default value since it can be loaded from JSON config file in AlertConfigLoader
     @SuppressWarnings("FieldMayBeFinal")
     private int percentageThreshold = 100;
+
+    /**
+     * Width in seconds of the time buckets readings are aggregated into, or {@code 0} (the default)
+     * to keep every reading. Bucketing bounds the memory of long windows regardless of the sample rate.
+     */
+    private int bucketSeconds;
+
+    /**
+     * Percentage of out-of-range readings below which a firing alert resolves, or {@code null} (the default)
+     * to resolve below {@link #percentageThreshold}. A lower value leaves a hysteresis band, so a sensor
+     * oscillating around the percentage threshold does not fire and resolve over and over.
+     */
+    private Integer resolvePercentageThreshold;
+
+    /**
+     * Seconds after an alert resolves during which the same sensor cannot fire again; {@code 0} by default.
+     */
+    private int cooldownSeconds;
+
+    /**
+     * Creates a threshold that keeps every reading in its window.
+     */
+    public SensorThreshold(double min, double max, int timeThreshold, int percentageThreshold) {
+        this(min, max, timeThreshold, percentageThreshold, 0);
+    }
+
+    /**
+     * Creates a threshold without hysteresis or cooldown.
+     */
+    public SensorThreshold(double min, double max, int timeThreshold, int percentageThreshold, int bucketSeconds) {
+        this(min, max, timeThreshold, percentageThreshold, bucketSeconds, null, 0);
+    }
+
+    /**
+     * @return The percentage of out-of-range readings below which a firing alert resolves.
+     */
+    public int getEffectiveResolvePercentage() {
+        return resolvePercentageThreshold != null ? resolvePercentageThreshold : percentageThreshold;
+    }
 }
@@ -0,0 +1,104 @@
+package com.tgcannabis.edge_alerts.mqtt;
+
+import com.tgcannabis.edge_alerts.logging.HotPathLogger;
+
+import java.util.Objects;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A message handler that can be given to the MQTT service before the handler evaluating the messages exists,
+ * so the broker connections can be opened while the rest of the application is still starting.
+ * <p>
+ * Messages arriving before {@link #complete(RawMessageHandler)} hold the MQTT callback thread until the handler
+ * is ready, keeping them in order and leaving later ones with the broker; they are then handed over with their
+ * original arrival time, so the wait shows up in the processing delay. If startup fails, held and later
+ * messages are dropped and counted.
+ */
+public final class DeferredMessageHandler implements RawMessageHandler {
+    private static final HotPathLogger LOGGER = HotPathLogger.of(DeferredMessageHandler.class);
+
+    private final CompletableFuture<RawMessageHandler> target = new CompletableFuture<>();
+    private final LongAdder heldMessages = new LongAdder();
+    private final LongAdder droppedMessages = new LongAdder();
+
+    /**
+     * Sets the handler messages are handed to, releasing the messages held so far.
+     *
+     * @param handler The handler evaluating the messages.
+     * @throws NullPointerException  if handler is {@code null}.
+     * @throws IllegalStateException if the handler was already set or startup failed.
+     */
+    public void complete(RawMessageHandler handler) {
+        if (!target.complete(Objects.requireNonNull(handler, "Message handler cannot be null"))) {
+            throw new IllegalStateException("Message handler was already set or has failed");
+        }
+        long held = heldMessages.sum();
+        if (held > 0) {
+            LOGGER.info("Releasing {} messages received while the application was starting", held);
+        }
+    }
+
+    /**
+     * Drops the messages held so far and every later one, since no handler will ever be set.
+     *
+     * @param cause Why the handler could not be created.
+     */
+    public void fail(Throwable cause) {
+        target.completeExceptionally(cause);
+    }
+
+    /**
+     * @return {@code true} once the handler has been set.
+     */
+    public boolean isReady() {
+        return target.isDone() && !target.isCompletedExceptionally();
+    }
+
+    /**
+     * @return The number of messages that arrived before the handler was set.
+     */
+    public long getHeldMessages() {
+        return heldMessages.sum();
+    }
+
+    /**
+     * @return The number of messages dropped because the handler could not be created.
+     */
+    public long getDroppedMessages() {
+        return droppedMessages.sum();
+    }
+
+    @Override
+    public void accept(String topic, byte[] payload) {
+        accept(topic, payload, System.nanoTime());
+    }
+
+    @Override
+    public void accept(String topic, byte[] payload, long receivedNanos) {
+        RawMessageHandler handler = isReady() ? target.resultNow() : awaitHandler();
+        if (handler == null) {
+            droppedMessages.increment();
+            return;
+        }
+        handler.accept(topic, payload, receivedNanos);
+    }
+
+    /**
+     * Waits for the handler to be set, unless startup already failed.
+     *
+     * @return The handler, or {@code null} if startup failed.
+     */
+    private RawMessageHandler awaitHandler() {
+        if (!target.isDone()) {
+            heldMessages.increment();
+        }
+        try {
+            return target.join();
+        } catch (CompletionException | CancellationException e) {
+            return null;
+        }
+    }
+}
@@ -1,33 +1,87 @@
 package com.tgcannabis.edge_alerts.mqtt;
 
+import com.tgcannabis.edge_alerts.logging.HotPathLogger;
+import com.tgcannabis.edge_alerts.logging.LogSampler;
+import com.tgcannabis.edge_alerts.logging.RateLimitedCounter;
+import lombok.Setter;
 import org.eclipse.paho.client.mqttv3.*;
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
 
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
 import java.util.function.BiConsumer;
+import java.util.function.Consumer;
 
 /**
  * Custom MQTT callback handler for managing connection events, message reception,
  * and automatic re-subscription to a specified topic.
+ * <p>
+ * Runs on the client's callback thread, so it logs through a {@link HotPathLogger} and samples its
+ * per-message DEBUG line.
  */
 public class MqttCustomCallback implements MqttCallbackExtended {
 
-    private static final Logger LOGGER = LoggerFactory.getLogger(MqttCustomCallback.class);
+    private static final HotPathLogger LOGGER = HotPathLogger.of(MqttCustomCallback.class);
 
     private final MqttClient mqttClient;
-    private final String topicFilter;
-    private final BiConsumer<String, String> messageHandler; // Handles incoming messages
+    private final List<String> topicFilters;
+    private final RawMessageHandler messageHandler; // Handles incoming messages
 
     /**
-     * Constructs an MQTT callback instance.
+     * Notified when the broker acknowledges a message published through this connection.
+     */
+    @Setter
+    private volatile Consumer<IMqttDeliveryToken> deliveryListener;
+
+    private final LongAdder connectionLosses = new LongAdder();
+    private final LogSampler receivedLogSampler = new LogSampler();
+    private final RateLimitedCounter unhandledMessages = new RateLimitedCounter();
+
+    /**
+     * Cleared by {@link #unsubscribe()} during shutdown, so that a reconnect does not subscribe again.
+     */
+    private volatile boolean subscribing = true;
+
+    /**
+     * Cleared by {@link #stopConsuming()} during shutdown, so later messages are neither handled nor acknowledged.
+     */
+    private volatile boolean consuming = true;
+    private volatile boolean manualAcks;
+    private final LongAdder unacknowledgedMessages = new LongAdder();
+
+    /**
+     * Constructs an MQTT callback instance that decodes payloads as UTF-8 text.
      *
      * @param mqttClient The MQTT client instance.
      * @param topicFilter The topic filter to subscribe to.
      * @param messageHandler A function to process received messages, accepting topic and payload.
      */
     public MqttCustomCallback(MqttClient mqttClient, String topicFilter, BiConsumer<String, String> messageHandler) {
+        this(mqttClient, topicFilter, messageHandler == null ? null
+                : (RawMessageHandler) (topic, payload) -> messageHandler.accept(topic, new String(payload, StandardCharsets.UTF_8)));
+    }
+
+    /**
+     * Constructs an MQTT callback instance that hands raw payloads to the handler.
+     *
+     * @param mqttClient The MQTT client instance.
+     * @param topicFilter The topic filter to subscribe to, or {@code null} for a publish-only connection.
+     * @param messageHandler A handler receiving the topic and the undecoded payload.
+     */
+    public MqttCustomCallback(MqttClient mqttClient, String topicFilter, RawMessageHandler messageHandler) {
+        this(mqttClient, topicFilter == null ? List.of() : List.of(topicFilter), messageHandler);
+    }
+
+    /**
+     * Constructs an MQTT callback instance that subscribes to several topic filters and hands raw payloads to the handler.
+     *
+     * @param mqttClient The MQTT client instance.
+     * @param topicFilters The topic filters to subscribe to; empty for a publish-only connection.
+     * @param messageHandler A handler receiving the topic and the undecoded payload.
+     */
+    public MqttCustomCallback(MqttClient mqttClient, List<String> topicFilters, RawMessageHandler messageHandler) {
         this.mqttClient = mqttClient;
-        this.topicFilter = topicFilter;
+        this.topicFilters = List.copyOf(topicFilters);
         this.messageHandler = messageHandler;
     }
 
@@ -50,9 +104,17 @@ public class MqttCustomCallback implements MqttCallbackExtended {
      */
     @Override
     public void connectionLost(Throwable cause) {
+        connectionLosses.increment();
         LOGGER.warn("MQTT Connection lost!", cause);
     }
 
+    /**
+     * @return The number of times the connection was lost.
+     */
+    public long getConnectionLosses() {
+        return connectionLosses.sum();
+    }
+
     /**
      * Called when a message is received on a subscribed topic.
      *
@@ -62,44 +124,126 @@ public class MqttCustomCallback implements MqttCallbackExtended {
      */
     @Override
     public void messageArrived(String topic, MqttMessage message) {
+        long receivedNanos = System.nanoTime();
+        if (!consuming) {
+            // Left unacknowledged, so the broker redelivers it to the next run of a persistent session
+            unacknowledgedMessages.increment();
+            return;
+        }
         try {
-            String payload = new String(message.getPayload());
-            LOGGER.debug("MQTT Message received - Topic: [{}], Payload: [{}]", topic, payload);
+            byte[] payload = message.getPayload();
+            if (LOGGER.isDebugEnabled() && receivedLogSampler.sample()) {
+                LOGGER.debug("MQTT Message received - Topic: [{}], Payload size: [{}] (1 in {} messages logged)",
+                        topic, payload.length, LogSampler.DEFAULT_ONE_IN);
+            }
 
             if (messageHandler != null) {
-                messageHandler.accept(topic, payload);
-            } else {
-                LOGGER.warn("No message handler set for received message on topic {}", topic);
+                messageHandler.accept(topic, payload, receivedNanos);
+            } else if (unhandledMessages.increment()) {
+                LOGGER.warn("No message handler set for received message on topic {} ({} such messages so far)",
+                        topic, unhandledMessages.sum());
             }
         } catch (Exception e) {
             LOGGER.error("Error processing message from topic {}: {}", topic, e.getMessage(), e);
         }
+        acknowledge(message);
+    }
+
+    /**
+     * Acknowledges a handled message, when acknowledgements are sent by this callback.
+     */
+    private void acknowledge(MqttMessage message) {
+        if (!manualAcks) {
+            return;
+        }
+        try {
+            mqttClient.messageArrivedComplete(message.getId(), message.getQos());
+        } catch (MqttException e) {
+            LOGGER.error("Error acknowledging MQTT message {}: {}", message.getId(), e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Makes this callback acknowledge each message only once it has been handed to the message handler,
+     * instead of the client acknowledging it on arrival, so messages refused after {@link #stopConsuming()}
+     * stay unacknowledged. Call before connecting.
+     */
+    public void useManualAcks() {
+        if (mqttClient != null) {
+            mqttClient.setManualAcks(true);
+            manualAcks = true;
+        }
+    }
+
+    /**
+     * Stops handing messages to the message handler. Messages arriving afterwards are not acknowledged, so in a
+     * persistent session the broker keeps and redelivers them, instead of them being lost in a closed dispatcher.
+     * Requires {@link #useManualAcks()}.
+     */
+    public void stopConsuming() {
+        consuming = false;
+    }
+
+    /**
+     * @return The number of messages left unacknowledged because they arrived after {@link #stopConsuming()}.
+     */
+    public long getUnacknowledgedMessages() {
+        return unacknowledgedMessages.sum();
     }
 
     /**
-     * Called when message delivery is complete. Not used for subscribers.
+     * Called when the broker has acknowledged a published message. Forwards the token to the
+     * delivery listener, if any, e.g. to measure alert delivery latency.
      *
      * @param token The delivery token associated with the message.
      */
     @Override
     public void deliveryComplete(IMqttDeliveryToken token) {
-        // Not needed for subscriber
+        Consumer<IMqttDeliveryToken> listener = deliveryListener;
+        if (listener != null) {
+            try {
+                listener.accept(token);
+            } catch (Exception e) {
+                LOGGER.error("Error handling delivery completion: {}", e.getMessage(), e);
+            }
+        }
     }
 
     /**
-     * Subscribes to the configured MQTT topic filter.
+     * Subscribes to the configured MQTT topic filters.
      */
     private void subscribe() {
+        if (topicFilters.isEmpty() || !subscribing) {
+            return; // Publish-only connection, or shutting down
+        }
         if (mqttClient != null && mqttClient.isConnected()) {
-            try {
-                LOGGER.info("Subscribing to MQTT topic filter: {}", topicFilter);
-                mqttClient.subscribe(topicFilter, 1); // QoS 1: At least once
-                LOGGER.info("Subscribed to MQTT topic filter: {}", topicFilter);
-            } catch (MqttException e) {
-                LOGGER.error("Error subscribing to MQTT topic filter '{}': {}", topicFilter, e.getMessage(), e);
+            for (String topicFilter : topicFilters) {
+                try {
+                    LOGGER.info("Subscribing to MQTT topic filter: {}", topicFilter);
+                    mqttClient.subscribe(topicFilter, 1); // QoS 1: At least once
+                    LOGGER.info("Subscribed to MQTT topic filter: {}", topicFilter);
+                } catch (MqttException e) {
+                    LOGGER.error("Error subscribing to MQTT topic filter '{}': {}", topicFilter, e.getMessage(), e);
+                }
             }
         } else {
             LOGGER.warn("Cannot subscribe, MQTT client not connected.");
         }
     }
+
+    /**
+     * Stops subscribing: unsubscribes from the topic filters and no longer subscribes after a reconnect.
+     */
+    public void unsubscribe() {
+        subscribing = false;
+        if (topicFilters.isEmpty() || mqttClient == null || !mqttClient.isConnected()) {
+            return;
+        }
+        try {
+            mqttClient.unsubscribe(topicFilters.toArray(new String[0]));
+            LOGGER.info("Unsubscribed from MQTT topic filters: {}", topicFilters);
+        } catch (MqttException e) {
+            LOGGER.error("Error unsubscribing from MQTT topic filters {}: {}", topicFilters, e.getMessage(), e);
+        }
+    }
 }
@@ -1,38 +1,82 @@
 package com.tgcannabis.edge_alerts.mqtt;
 
 import com.tgcannabis.edge_alerts.config.EdgeAlertConfig;
+import com.tgcannabis.edge_alerts.metrics.MetricsBinder;
+import com.tgcannabis.edge_alerts.metrics.MetricsRegistry;
 import lombok.Getter;
-import lombok.Setter;
+import org.eclipse.paho.client.mqttv3.IMqttDeliveryToken;
+import org.eclipse.paho.client.mqttv3.MqttAsyncClient;
 import org.eclipse.paho.client.mqttv3.MqttClient;
+import org.eclipse.paho.client.mqttv3.MqttClientPersistence;
 import org.eclipse.paho.client.mqttv3.MqttConnectOptions;
 import org.eclipse.paho.client.mqttv3.MqttException;
 import org.eclipse.paho.client.mqttv3.persist.MemoryPersistence;
+import org.eclipse.paho.client.mqttv3.persist.MqttDefaultFilePersistence;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
 import java.util.Objects;
+import java.util.concurrent.TimeUnit;
 import java.util.function.BiConsumer;
+import java.util.function.BooleanSupplier;
+import java.util.function.Consumer;
 
 /**
  * Manages MQTT connection, subscription, and message handling.
  * This service allows connecting to an MQTT broker, handling messages,
  * and disconnecting gracefully.
+ * <p>
+ * Connections reconnect automatically, backing off exponentially up to the configured maximum delay.
+ * In {@link SessionMode#PERSISTENT} mode the broker keeps the session while the processor is
+ * disconnected, so QoS 1 readings queued in the meantime are delivered on reconnect, and
+ * unacknowledged messages are kept in file-based persistence so they survive a restart.
+ * <p>
+ * Readings can be received over several connections. With a shared subscription group, every
+ * connection subscribes to {@code $share/<group>/<filter>} and the broker splits the messages
+ * between them, and between every other process subscribed with the same group. Without a group,
+ * the configured topic filters are divided between the connections instead. Either way the message
+ * handler shards messages by topic, so each sensor's readings are still evaluated by one worker.
  */
-public class MqttService implements AutoCloseable {
+public class MqttService implements AutoCloseable, MetricsBinder {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(MqttService.class);
 
+    private static final String PUBLISHER_CLIENT_SUFFIX = "-publisher";
+
+    /**
+     * How long {@link #close()} lets work in progress complete before disconnecting, as Paho does by default.
+     */
+    private static final long DISCONNECT_TIMEOUT_MILLIS = 30_000;
+
+    /**
+     * The first subscriber connection, also used to publish alerts in {@code SYNC} mode.
+     */
     @Getter
     private MqttClient mqttClient;
 
+    private final List<MqttClient> subscriberClients = new ArrayList<>();
+    private final List<MqttCustomCallback> subscriberCallbacks = new ArrayList<>();
+
+    /**
+     * Dedicated non-blocking connection used to publish alerts, if opened with {@link #connectPublisher(int)}.
+     */
+    @Getter
+    private MqttAsyncClient publisherClient;
+
+    private MqttCustomCallback publisherCallback;
+    private volatile Consumer<IMqttDeliveryToken> deliveryListener;
+
     private final EdgeAlertConfig config;
 
     /**
-     * Functional interface for handling incoming MQTT messages.
-     * Accepts a topic and message payload.
+     * Handler for incoming MQTT messages.
+     * Accepts a topic and the raw message payload.
      */
-    @Setter
-    private BiConsumer<String, String> messageHandler;
+    private RawMessageHandler messageHandler;
 
     /**
      * Constructs the MQTT service with the provided configuration.
@@ -45,59 +89,324 @@ public class MqttService implements AutoCloseable {
     }
 
     /**
-     * Establishes a connection to the MQTT broker and sets up message handling.
+     * Sets the handler for incoming messages, receiving each payload decoded as UTF-8 text.
      *
-     * @throws MqttException        If the connection to the broker fails.
-     * @throws NullPointerException If messageHandler is not set before connecting.
+     * @param messageHandler A function accepting the topic and the message payload.
+     */
+    public void setMessageHandler(BiConsumer<String, String> messageHandler) {
+        this.messageHandler = messageHandler == null ? null
+                : (topic, payload) -> messageHandler.accept(topic, new String(payload, StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Sets the handler for incoming messages, receiving each payload undecoded.
+     *
+     * @param messageHandler A handler accepting the topic and the raw message payload.
+     */
+    public void setRawMessageHandler(RawMessageHandler messageHandler) {
+        this.messageHandler = messageHandler;
+    }
+
+    /**
+     * Sets the listener notified when the broker acknowledges a message published through
+     * any of this service's connections.
+     *
+     * @param deliveryListener The listener receiving delivery tokens.
+     */
+    public void setDeliveryListener(Consumer<IMqttDeliveryToken> deliveryListener) {
+        this.deliveryListener = deliveryListener;
+        for (MqttCustomCallback callback : subscriberCallbacks) {
+            callback.setDeliveryListener(deliveryListener);
+        }
+        if (publisherCallback != null) publisherCallback.setDeliveryListener(deliveryListener);
+    }
+
+    /**
+     * Establishes the subscriber connections to the MQTT broker and sets up message handling.
+     *
+     * @throws MqttException            If a connection to the broker fails; connections already opened are closed.
+     * @throws NullPointerException     If messageHandler is not set before connecting.
+     * @throws IllegalArgumentException If, without a shared subscription group, there are more connections than topic filters.
      */
     public void connect() throws MqttException {
         Objects.requireNonNull(messageHandler, "Message handler must be set before connecting");
 
-        mqttClient = new MqttClient(config.getMqttBroker(), config.getMqttClientId(), new MemoryPersistence());
-        MqttConnectOptions connectOptions = new MqttConnectOptions();
-        connectOptions.setCleanSession(true);
+        List<List<String>> assignments = assignTopicFilters(parseTopicFilters(config.getMqttTopic()),
+                Math.max(1, config.getMqttConnections()), config.getMqttShareGroup());
+        MqttConnectOptions connectOptions = createConnectOptions();
+
+        for (int i = 0; i < assignments.size(); i++) {
+            String clientId = assignments.size() == 1 ? config.getMqttClientId() : config.getMqttClientId() + "-" + (i + 1);
+            MqttClient client = new MqttClient(config.getMqttBroker(), clientId, createPersistence());
+
+            MqttCustomCallback callback = new MqttCustomCallback(client, assignments.get(i), messageHandler);
+            callback.useManualAcks();
+            callback.setDeliveryListener(deliveryListener);
+            client.setCallback(callback);
+            subscriberClients.add(client);
+            subscriberCallbacks.add(callback);
+            if (mqttClient == null) {
+                mqttClient = client;
+            }
+
+            LOGGER.info("Connecting to MQTT broker: {} (client {}, {} session, topic filters {})", config.getMqttBroker(),
+                    clientId, isPersistentSession() ? "persistent" : "clean", assignments.get(i));
+
+            try {
+                client.connect(connectOptions);
+            } catch (MqttException e) {
+                LOGGER.error("Error connecting MQTT client: {}", e.getMessage(), e);
+                close();
+                throw e;
+            }
+        }
+    }
+
+    /**
+     * @return The subscriber connections opened by {@link #connect()}, in order.
+     */
+    public List<MqttClient> getSubscriberClients() {
+        return Collections.unmodifiableList(subscriberClients);
+    }
+
+    /**
+     * Opens a second, publish-only connection to the broker backed by a non-blocking
+     * {@link MqttAsyncClient}, so alert publishes never wait on the subscriber connection.
+     *
+     * @param maxInflight Maximum number of unacknowledged messages the connection allows.
+     * @return The connected asynchronous client.
+     * @throws MqttException If the connection to the broker fails.
+     */
+    public MqttAsyncClient connectPublisher(int maxInflight) throws MqttException {
+        String clientId = config.getMqttClientId() + PUBLISHER_CLIENT_SUFFIX;
+        publisherClient = new MqttAsyncClient(config.getMqttBroker(), clientId, createPersistence());
 
-        mqttClient.setCallback(new MqttCustomCallback(mqttClient, config.getMqttTopic(), messageHandler));
+        MqttConnectOptions connectOptions = createConnectOptions();
+        connectOptions.setMaxInflight(maxInflight);
 
-        LOGGER.info("Connecting to MQTT broker: {}", config.getMqttBroker());
+        publisherCallback = new MqttCustomCallback(null, List.of(), null);
+        publisherCallback.setDeliveryListener(deliveryListener);
+        publisherClient.setCallback(publisherCallback);
+
+        LOGGER.info("Connecting alert publisher {} to MQTT broker: {}", clientId, config.getMqttBroker());
 
         try {
-            mqttClient.connect();
+            publisherClient.connect(connectOptions).waitForCompletion();
         } catch (MqttException e) {
-            LOGGER.error("Error connecting MQTT client: {}", e.getMessage(), e);
+            LOGGER.error("Error connecting MQTT alert publisher: {}", e.getMessage(), e);
             throw e;
         }
+        return publisherClient;
+    }
+
+    /**
+     * Registers the connection state of every connection opened so far, labelled by client id and role,
+     * and the number of times each lost its connection. Call after {@link #connect()} and
+     * {@link #connectPublisher(int)}.
+     *
+     * @param registry The registry to register with.
+     */
+    @Override
+    public void bindTo(MetricsRegistry registry) {
+        for (int i = 0; i < subscriberClients.size(); i++) {
+            MqttClient client = subscriberClients.get(i);
+            bindConnection(registry, client.getClientId(), "subscriber", client::isConnected, subscriberCallbacks.get(i));
+        }
+        if (publisherClient != null) {
+            MqttAsyncClient client = publisherClient;
+            bindConnection(registry, client.getClientId(), "publisher", client::isConnected, publisherCallback);
+        }
+    }
+
+    private static void bindConnection(MetricsRegistry registry, String clientId, String role,
+                                       BooleanSupplier connected, MqttCustomCallback callback) {
+        registry.gauge("mqtt_connected", "Whether the MQTT connection is up (1) or down (0)",
+                () -> connected.getAsBoolean() ? 1 : 0, "client", clientId, "role", role);
+        registry.counter("mqtt_connection_losses", "Times the MQTT connection was lost",
+                callback::getConnectionLosses, "client", clientId, "role", role);
+    }
+
+    /**
+     * @return {@code true} if the connections resume their broker session across reconnects and restarts.
+     */
+    private boolean isPersistentSession() {
+        return config.getMqttSessionMode() == SessionMode.PERSISTENT;
+    }
+
+    /**
+     * Creates the store for messages that are not yet acknowledged: on disk for persistent sessions, in memory otherwise.
+     */
+    private MqttClientPersistence createPersistence() {
+        if (isPersistentSession()) {
+            return new MqttDefaultFilePersistence(config.getMqttPersistenceDir());
+        }
+        return new MemoryPersistence();
+    }
+
+    /**
+     * Creates the connect options shared by both connections: the session mode and automatic reconnection.
+     */
+    private MqttConnectOptions createConnectOptions() {
+        MqttConnectOptions connectOptions = new MqttConnectOptions();
+        connectOptions.setCleanSession(!isPersistentSession());
+        connectOptions.setAutomaticReconnect(true);
+        long maxReconnectDelaySeconds = config.getMqttMaxReconnectDelaySeconds();
+        if (maxReconnectDelaySeconds > 0) {
+            connectOptions.setMaxReconnectDelay((int) Math.min(maxReconnectDelaySeconds * 1_000, Integer.MAX_VALUE));
+        }
+        return connectOptions;
+    }
+
+    /**
+     * Splits a comma-separated list of topic filters.
+     *
+     * @param topicFilters The configured topic filters.
+     * @return The non-blank filters, in order.
+     */
+    static List<String> parseTopicFilters(String topicFilters) {
+        List<String> filters = new ArrayList<>();
+        if (topicFilters != null) {
+            for (String filter : topicFilters.split(",")) {
+                if (!filter.isBlank()) {
+                    filters.add(filter.trim());
+                }
+            }
+        }
+        return filters;
+    }
+
+    /**
+     * Decides which topic filters each subscriber connection subscribes to.
+     *
+     * @param topicFilters The configured topic filters.
+     * @param connections  The number of subscriber connections.
+     * @param shareGroup   The shared subscription group, or {@code null} to divide the filters between the connections.
+     * @return The filters of each connection.
+     * @throws IllegalArgumentException if, without a group, there are more connections than filters, since
+     *                                  connections sharing a filter would each receive every message.
+     */
+    static List<List<String>> assignTopicFilters(List<String> topicFilters, int connections, String shareGroup) {
+        List<List<String>> assignments = new ArrayList<>();
+        if (shareGroup != null && !shareGroup.isBlank()) {
+            List<String> shared = topicFilters.stream().map(filter -> "$share/" + shareGroup + "/" + filter).toList();
+            for (int i = 0; i < connections; i++) {
+                assignments.add(shared);
+            }
+            return assignments;
+        }
+        if (connections > Math.max(1, topicFilters.size())) {
+            throw new IllegalArgumentException("Without a shared subscription group, the number of MQTT connections ("
+                    + connections + ") cannot exceed the number of topic filters (" + topicFilters.size() + ")");
+        }
+        for (int i = 0; i < connections; i++) {
+            assignments.add(new ArrayList<>());
+        }
+        for (int i = 0; i < topicFilters.size(); i++) {
+            assignments.get(i % connections).add(topicFilters.get(i));
+        }
+        return assignments;
+    }
+
+    /**
+     * Stops receiving messages ahead of shutdown, so that the messages already received can be evaluated
+     * before the connections close.
+     * <p>
+     * Subscriber connections that are not used to publish alerts are disconnected, letting the messages
+     * being handed to the message handler finish within the timeout; in a persistent session the broker keeps
+     * later messages for the next run. The connection alerts are published on when there is no dedicated
+     * publisher connection stays up until {@link #close(long)}. It stops handing messages over at once, leaving the
+     * ones still delivered unacknowledged: in a clean session it is also unsubscribed from its topic filters, while
+     * in a persistent session it keeps them, since unsubscribing would also discard the messages the broker holds
+     * for the next run, and the broker redelivers the unacknowledged ones then.
+     *
+     * @param timeoutMillis The maximum time to wait for the messages being handed over, in milliseconds.
+     */
+    public void stopSubscribing(long timeoutMillis) {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+        for (int i = 0; i < subscriberClients.size(); i++) {
+            MqttClient client = subscriberClients.get(i);
+            if (client == mqttClient && publisherClient == null) {
+                subscriberCallbacks.get(i).stopConsuming();
+                if (!isPersistentSession()) {
+                    subscriberCallbacks.get(i).unsubscribe();
+                }
+            } else {
+                disconnect(client, remainingMillis(deadline));
+            }
+        }
     }
 
     /**
-     * Closes the MQTT connection gracefully.
-     * Ensures disconnection before shutting down the client.
+     * Closes the MQTT connections gracefully, waiting up to {@value #DISCONNECT_TIMEOUT_MILLIS} ms for work in progress.
+     * Ensures disconnection before shutting down the clients.
      */
     @Override
     public void close() {
-        if (mqttClient != null && mqttClient.isConnected()) {
-            try {
-                mqttClient.disconnect();
-            } catch (MqttException e) {
-                LOGGER.error("Error disconnecting MQTT client: {}", e.getMessage(), e);
-            } finally {
-                closeClientQuietly();
+        close(DISCONNECT_TIMEOUT_MILLIS);
+    }
+
+    /**
+     * Closes the MQTT connections gracefully, letting messages being handled and publishes in progress
+     * complete within the timeout.
+     *
+     * @param timeoutMillis The maximum time to wait for the connections to disconnect, in milliseconds.
+     */
+    public void close(long timeoutMillis) {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+        closePublisher(remainingMillis(deadline));
+
+        for (MqttClient client : subscriberClients) {
+            disconnect(client, remainingMillis(deadline));
+            closeClientQuietly(client);
+        }
+        subscriberClients.clear();
+        subscriberCallbacks.clear();
+        mqttClient = null;
+    }
+
+    /**
+     * Disconnects and closes the publish-only connection, if it was opened.
+     */
+    private void closePublisher(long timeoutMillis) {
+        if (publisherClient == null) return;
+        try {
+            if (publisherClient.isConnected()) {
+                publisherClient.disconnect(timeoutMillis).waitForCompletion(timeoutMillis);
             }
-        } else if (mqttClient != null) {
-            closeClientQuietly();
+            publisherClient.close();
+        } catch (MqttException e) {
+            LOGGER.error("Error closing MQTT alert publisher: {}", e.getMessage(), e);
+        } finally {
+            publisherClient = null;
         }
     }
 
     /**
-     * Closes the MQTT client instance quietly, suppressing any exceptions.
+     * Disconnects a subscriber connection, if connected, waiting at most the given time for the work in progress.
      */
-    private void closeClientQuietly() {
+    private static void disconnect(MqttClient client, long quiesceMillis) {
+        if (!client.isConnected()) {
+            return;
+        }
         try {
-            mqttClient.close();
+            client.disconnect(quiesceMillis);
+        } catch (MqttException e) {
+            LOGGER.error("Error disconnecting MQTT client: {}", e.getMessage(), e);
+        }
+    }
+
+    private static long remainingMillis(long deadlineNanos) {
+        return Math.max(1, TimeUnit.NANOSECONDS.toMillis(deadlineNanos - System.nanoTime()));
+    }
+
+    /**
+     * Closes an MQTT client instance quietly, suppressing any exceptions.
+     */
+    private static void closeClientQuietly(MqttClient client) {
+        try {
+            client.close();
         } catch (MqttException e) {
             LOGGER.error("Error closing MQTT client instance: {}", e.getMessage(), e);
-        } finally {
-            mqttClient = null;
         }
     }
 
@@ -0,0 +1,29 @@
+package com.tgcannabis.edge_alerts.mqtt;
+
+/**
+ * Handles an MQTT message as received from the broker, before its payload is decoded.
+ */
+@FunctionalInterface
+public interface RawMessageHandler {
+
+    /**
+     * Handles a received message.
+     *
+     * @param topic   The topic on which the message was received.
+     * @param payload The raw message payload. Implementations must not modify it.
+     */
+    void accept(String topic, byte[] payload);
+
+    /**
+     * Handles a received message, together with the time it arrived, so handlers that queue messages
+     * can pass the arrival time on and the time a message waited before being evaluated can be measured.
+     * By default the arrival time is ignored.
+     *
+     * @param topic         The topic on which the message was received.
+     * @param payload       The raw message payload. Implementations must not modify it.
+     * @param receivedNanos The {@link System#nanoTime()} at which the message arrived from the broker.
+     */
+    default void accept(String topic, byte[] payload, long receivedNanos) {
+        accept(topic, payload);
+    }
+}
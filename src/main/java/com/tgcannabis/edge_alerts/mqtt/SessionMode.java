@@ -0,0 +1,16 @@
+package com.tgcannabis.edge_alerts.mqtt;
+
+/**
+ * How the broker keeps the session of this processor's connections.
+ */
+public enum SessionMode {
+    /**
+     * Start every connection with a fresh session kept in memory; messages queued while disconnected are lost.
+     */
+    CLEAN,
+    /**
+     * Resume the broker session across reconnects and restarts: the client id is stable, the session is not
+     * cleaned, and unacknowledged QoS 1 messages are persisted on disk.
+     */
+    PERSISTENT
+}
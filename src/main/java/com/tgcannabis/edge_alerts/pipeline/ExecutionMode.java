@@ -0,0 +1,19 @@
+package com.tgcannabis.edge_alerts.pipeline;
+
+/**
+ * Threading model used to evaluate received messages and publish alerts.
+ */
+public enum ExecutionMode {
+    /**
+     * Evaluate and publish directly on the MQTT client's callback thread.
+     */
+    CALLBACK,
+    /**
+     * Hand messages to a fixed pool of platform worker threads through the {@link IngestionPipeline}.
+     */
+    PIPELINE,
+    /**
+     * Evaluate and publish on virtual threads through the {@link VirtualThreadDispatcher}.
+     */
+    VIRTUAL
+}
@@ -0,0 +1,288 @@
+package com.tgcannabis.edge_alerts.pipeline;
+
+import com.tgcannabis.edge_alerts.logging.HotPathLogger;
+import com.tgcannabis.edge_alerts.metrics.MetricsBinder;
+import com.tgcannabis.edge_alerts.metrics.MetricsRegistry;
+import com.tgcannabis.edge_alerts.mqtt.RawMessageHandler;
+import lombok.Getter;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Objects;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BiConsumer;
+
+/**
+ * Decouples MQTT message reception from alert evaluation.
+ * <p>
+ * {@link #accept(String, byte[])} only hands the raw payload to a bounded worker queue and returns,
+ * so the MQTT client's callback thread is never held up by evaluation or alert publishing.
+ * Messages are sharded over the workers by topic, so every message of a given sensor is evaluated
+ * by the same worker, in the order it was received. What happens when a worker queue is full
+ * is controlled by the configured {@link OverflowPolicy}.
+ */
+public class IngestionPipeline implements MessageDispatcher, MetricsBinder {
+
+    private static final HotPathLogger LOGGER = HotPathLogger.of(IngestionPipeline.class);
+    private static final long CLOSE_TIMEOUT_MILLIS = 5_000;
+
+    /**
+     * How long an idle worker waits for a message before checking whether the pipeline is closing.
+     */
+    private static final long POLL_INTERVAL_MILLIS = 100;
+
+    private final Worker[] workers;
+    private final RawMessageHandler messageHandler;
+
+    @Getter
+    private final OverflowPolicy overflowPolicy;
+    @Getter
+    private final int queueCapacity;
+
+    private final LongAdder receivedMessages = new LongAdder();
+    private final LongAdder droppedMessages = new LongAdder();
+    private final LongAdder processedMessages = new LongAdder();
+
+    /**
+     * Cleared by {@link #close(long)}: new messages are refused and the workers stop once their queue is empty.
+     */
+    private volatile boolean accepting = true;
+
+    /**
+     * Cleared when the close timeout has passed: the workers stop even if messages are still queued.
+     */
+    private volatile boolean running = true;
+
+    /**
+     * Creates the pipeline and starts its worker threads.
+     *
+     * @param workerCount    Number of evaluation workers.
+     * @param queueCapacity  Total number of messages that may be queued, split evenly over the workers.
+     * @param overflowPolicy What to do with a message when its worker queue is full.
+     * @param messageHandler The handler evaluating messages, e.g. the alert processor. Handlers that also
+     *                       implement {@link RawMessageHandler} receive the undecoded payload.
+     * @throws IllegalArgumentException if the worker count or queue capacity is not positive.
+     * @throws NullPointerException     if the overflow policy or handler is {@code null}.
+     */
+    public IngestionPipeline(int workerCount, int queueCapacity, OverflowPolicy overflowPolicy,
+                             BiConsumer<String, String> messageHandler) {
+        if (workerCount <= 0) {
+            throw new IllegalArgumentException("Worker count must be positive");
+        }
+        if (queueCapacity < workerCount) {
+            throw new IllegalArgumentException("Queue capacity must be at least the worker count");
+        }
+        this.overflowPolicy = Objects.requireNonNull(overflowPolicy, "Overflow policy cannot be null");
+        Objects.requireNonNull(messageHandler, "Message handler cannot be null");
+        this.messageHandler = messageHandler instanceof RawMessageHandler raw ? raw
+                : (topic, payload) -> messageHandler.accept(topic, new String(payload, StandardCharsets.UTF_8));
+        this.queueCapacity = queueCapacity;
+
+        this.workers = new Worker[workerCount];
+        for (int i = 0; i < workerCount; i++) {
+            workers[i] = new Worker(i, queueCapacity / workerCount);
+            workers[i].thread.start();
+        }
+        LOGGER.info("Ingestion pipeline started with {} workers, queue capacity {} and overflow policy {}",
+                workerCount, queueCapacity, overflowPolicy);
+    }
+
+    /**
+     * Queues a received message for evaluation, applying the overflow policy if the queue is full.
+     *
+     * @param topic   The topic on which the message was received.
+     * @param payload The raw message payload.
+     */
+    @Override
+    public void accept(String topic, byte[] payload) {
+        accept(topic, payload, System.nanoTime());
+    }
+
+    /**
+     * Queues a received message as {@link #accept(String, byte[])} does, keeping its arrival time so
+     * the handler can tell how long it waited.
+     *
+     * @param topic         The topic on which the message was received.
+     * @param payload       The raw message payload.
+     * @param receivedNanos The {@link System#nanoTime()} at which the message arrived from the broker.
+     */
+    @Override
+    public void accept(String topic, byte[] payload, long receivedNanos) {
+        receivedMessages.increment();
+        if (!accepting) {
+            droppedMessages.increment();
+            return;
+        }
+
+        Message message = new Message(topic, payload, receivedNanos);
+        BlockingQueue<Message> queue = workers[shardFor(topic)].queue;
+
+        switch (overflowPolicy) {
+            case BLOCK -> {
+                try {
+                    queue.put(message);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    droppedMessages.increment();
+                }
+            }
+            case DROP_OLDEST -> {
+                while (!queue.offer(message)) {
+                    if (queue.poll() != null) {
+                        droppedMessages.increment();
+                    }
+                }
+            }
+            case DROP_NEWEST -> {
+                if (!queue.offer(message)) {
+                    droppedMessages.increment();
+                }
+            }
+        }
+    }
+
+    /**
+     * @return The number of messages currently waiting in all worker queues.
+     */
+    public int getQueueDepth() {
+        int depth = 0;
+        for (Worker worker : workers) {
+            depth += worker.queue.size();
+        }
+        return depth;
+    }
+
+    /**
+     * @return The number of messages handed to the pipeline.
+     */
+    public long getReceivedMessages() {
+        return receivedMessages.sum();
+    }
+
+    /**
+     * @return The number of messages discarded because of the overflow policy or shutdown.
+     */
+    public long getDroppedMessages() {
+        return droppedMessages.sum();
+    }
+
+    /**
+     * @return The number of messages evaluated by the workers.
+     */
+    public long getProcessedMessages() {
+        return processedMessages.sum();
+    }
+
+    /**
+     * @return The number of evaluation workers.
+     */
+    public int getWorkerCount() {
+        return workers.length;
+    }
+
+    /**
+     * Registers the received, dropped and processed message counters and the queue depth.
+     *
+     * @param registry The registry to register with.
+     */
+    @Override
+    public void bindTo(MetricsRegistry registry) {
+        registry.counter("dispatch_messages_received", "Messages handed to the message dispatcher", receivedMessages::sum);
+        registry.counter("dispatch_messages_dropped", "Messages discarded because of the overflow policy or shutdown",
+                droppedMessages::sum, "policy", overflowPolicy.name());
+        registry.counter("dispatch_messages_processed", "Messages evaluated by the workers", processedMessages::sum);
+        registry.gauge("dispatch_queue_depth", "Messages waiting in the worker queues", this::getQueueDepth);
+    }
+
+    /**
+     * Stops accepting messages and waits up to {@value #CLOSE_TIMEOUT_MILLIS} ms for the queued ones to be evaluated.
+     */
+    @Override
+    public void close() {
+        close(CLOSE_TIMEOUT_MILLIS);
+    }
+
+    /**
+     * Stops accepting messages and lets the workers evaluate the messages still queued before they stop.
+     * Messages still queued when the timeout has passed are discarded.
+     *
+     * @param timeoutMillis The maximum time to wait for the queues to drain, in milliseconds.
+     * @return {@code true} if every queued message was evaluated.
+     */
+    @Override
+    public boolean close(long timeoutMillis) {
+        accepting = false;
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+        try {
+            for (Worker worker : workers) {
+                worker.thread.join(Math.max(1, TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime())));
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        running = false;
+        int discarded = 0;
+        for (Worker worker : workers) {
+            discarded += worker.queue.size();
+            worker.queue.clear();
+        }
+        droppedMessages.add(discarded);
+        LOGGER.info("Ingestion pipeline stopped. Received: {}, processed: {}, dropped: {}",
+                getReceivedMessages(), getProcessedMessages(), getDroppedMessages());
+        return discarded == 0;
+    }
+
+    /**
+     * Picks the worker for a topic. Sensors publish on their own topic, so keeping a topic on one
+     * worker keeps every sensor's readings in order.
+     */
+    private int shardFor(String topic) {
+        int h = topic.hashCode();
+        return Math.floorMod(h ^ (h >>> 16), workers.length);
+    }
+
+    private record Message(String topic, byte[] payload, long receivedNanos) {
+    }
+
+    /**
+     * An evaluation worker with its own bounded queue.
+     */
+    private final class Worker implements Runnable {
+        private final BlockingQueue<Message> queue;
+        private final Thread thread;
+
+        private Worker(int index, int capacity) {
+            this.queue = new ArrayBlockingQueue<>(capacity);
+            this.thread = new Thread(this, "alert-worker-" + index);
+            this.thread.setDaemon(true);
+        }
+
+        @Override
+        public void run() {
+            while (running) {
+                Message message;
+                try {
+                    message = queue.poll(POLL_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+                } catch (InterruptedException e) {
+                    continue; // The loop condition decides whether to stop
+                }
+                if (message == null) {
+                    if (!accepting) {
+                        return; // Closing and drained
+                    }
+                    continue;
+                }
+
+                try {
+                    messageHandler.accept(message.topic(), message.payload(), message.receivedNanos());
+                } catch (Exception e) {
+                    LOGGER.error("Error evaluating message from topic {}: {}", message.topic(), e.getMessage(), e);
+                } finally {
+                    processedMessages.increment();
+                }
+            }
+        }
+    }
+}
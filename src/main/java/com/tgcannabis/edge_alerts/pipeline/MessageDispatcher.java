@@ -0,0 +1,25 @@
+package com.tgcannabis.edge_alerts.pipeline;
+
+import com.tgcannabis.edge_alerts.mqtt.RawMessageHandler;
+
+/**
+ * Hands received messages to the alert processor on threads other than the MQTT callback thread,
+ * as selected by the {@link ExecutionMode}.
+ */
+public interface MessageDispatcher extends RawMessageHandler, AutoCloseable {
+
+    /**
+     * Stops accepting messages and evaluates the messages already accepted, waiting at most the given time.
+     * Messages still waiting when the time is up are discarded and counted as dropped.
+     *
+     * @param timeoutMillis The maximum time to wait, in milliseconds.
+     * @return {@code true} if every accepted message was evaluated.
+     */
+    boolean close(long timeoutMillis);
+
+    /**
+     * Stops accepting messages and evaluates the messages already accepted, waiting a few seconds at most.
+     */
+    @Override
+    void close();
+}
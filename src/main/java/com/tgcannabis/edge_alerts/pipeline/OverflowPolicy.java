@@ -0,0 +1,19 @@
+package com.tgcannabis.edge_alerts.pipeline;
+
+/**
+ * What the {@link IngestionPipeline} does with a message when the target worker queue is full.
+ */
+public enum OverflowPolicy {
+    /**
+     * Wait for space in the queue. Back-pressure propagates to the MQTT client and the broker.
+     */
+    BLOCK,
+    /**
+     * Discard the oldest queued message to make room for the new one.
+     */
+    DROP_OLDEST,
+    /**
+     * Discard the new message.
+     */
+    DROP_NEWEST
+}
@@ -0,0 +1,306 @@
+package com.tgcannabis.edge_alerts.pipeline;
+
+import com.tgcannabis.edge_alerts.logging.HotPathLogger;
+import com.tgcannabis.edge_alerts.metrics.MetricsBinder;
+import com.tgcannabis.edge_alerts.metrics.MetricsRegistry;
+import com.tgcannabis.edge_alerts.mqtt.RawMessageHandler;
+import lombok.Getter;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Objects;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BiConsumer;
+
+/**
+ * Evaluates received messages on virtual threads while keeping each sensor's messages in order.
+ * <p>
+ * Topics are hashed onto a fixed set of serial lanes. A lane holds the messages waiting for its
+ * topics and is drained by at most one virtual thread at a time, so messages of one sensor are
+ * never evaluated concurrently or out of order, while different lanes run in parallel. Blocking
+ * work done by the handler (such as waiting for a publish acknowledgement) parks a virtual thread
+ * instead of occupying a platform worker.
+ * <p>
+ * The number of messages waiting or being evaluated is bounded by the queue capacity; the
+ * {@link OverflowPolicy} decides what happens when it is reached.
+ */
+public class VirtualThreadDispatcher implements MessageDispatcher, MetricsBinder {
+
+    private static final HotPathLogger LOGGER = HotPathLogger.of(VirtualThreadDispatcher.class);
+    private static final int DEFAULT_LANES = 4_096;
+    private static final long CLOSE_TIMEOUT_MILLIS = 5_000;
+
+    private final Lane[] lanes;
+    private final Semaphore capacity;
+    private final ExecutorService executor;
+    private final RawMessageHandler messageHandler;
+
+    @Getter
+    private final OverflowPolicy overflowPolicy;
+    @Getter
+    private final int queueCapacity;
+
+    private final LongAdder receivedMessages = new LongAdder();
+    private final LongAdder droppedMessages = new LongAdder();
+    private final LongAdder processedMessages = new LongAdder();
+
+    private volatile boolean running = true;
+
+    /**
+     * Creates a dispatcher with the default number of serial lanes.
+     *
+     * @param queueCapacity  Maximum number of messages waiting or being evaluated.
+     * @param overflowPolicy What to do with a message when the capacity is reached.
+     * @param messageHandler The handler evaluating messages, e.g. the alert processor. Handlers that also
+     *                       implement {@link RawMessageHandler} receive the undecoded payload.
+     */
+    public VirtualThreadDispatcher(int queueCapacity, OverflowPolicy overflowPolicy,
+                                   BiConsumer<String, String> messageHandler) {
+        this(DEFAULT_LANES, queueCapacity, overflowPolicy, messageHandler);
+    }
+
+    /**
+     * Creates a dispatcher.
+     *
+     * @param laneCount      Number of serial lanes topics are hashed onto.
+     * @param queueCapacity  Maximum number of messages waiting or being evaluated.
+     * @param overflowPolicy What to do with a message when the capacity is reached.
+     * @param messageHandler The handler evaluating messages, e.g. the alert processor. Handlers that also
+     *                       implement {@link RawMessageHandler} receive the undecoded payload.
+     * @throws IllegalArgumentException if the lane count or queue capacity is not positive.
+     * @throws NullPointerException     if the overflow policy or handler is {@code null}.
+     */
+    public VirtualThreadDispatcher(int laneCount, int queueCapacity, OverflowPolicy overflowPolicy,
+                                   BiConsumer<String, String> messageHandler) {
+        if (laneCount <= 0) {
+            throw new IllegalArgumentException("Lane count must be positive");
+        }
+        if (queueCapacity <= 0) {
+            throw new IllegalArgumentException("Queue capacity must be positive");
+        }
+        this.overflowPolicy = Objects.requireNonNull(overflowPolicy, "Overflow policy cannot be null");
+        Objects.requireNonNull(messageHandler, "Message handler cannot be null");
+        this.messageHandler = messageHandler instanceof RawMessageHandler raw ? raw
+                : (topic, payload) -> messageHandler.accept(topic, new String(payload, StandardCharsets.UTF_8));
+        this.queueCapacity = queueCapacity;
+        this.capacity = new Semaphore(queueCapacity);
+        this.executor = Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("alert-vthread-", 0).factory());
+
+        this.lanes = new Lane[laneCount];
+        for (int i = 0; i < laneCount; i++) {
+            lanes[i] = new Lane();
+        }
+        LOGGER.info("Virtual thread dispatcher started with {} lanes, queue capacity {} and overflow policy {}",
+                laneCount, queueCapacity, overflowPolicy);
+    }
+
+    /**
+     * Queues a received message on its topic's lane, applying the overflow policy if the capacity is reached.
+     *
+     * @param topic   The topic on which the message was received.
+     * @param payload The raw message payload.
+     */
+    @Override
+    public void accept(String topic, byte[] payload) {
+        accept(topic, payload, System.nanoTime());
+    }
+
+    /**
+     * Queues a received message as {@link #accept(String, byte[])} does, keeping its arrival time so
+     * the handler can tell how long it waited.
+     *
+     * @param topic         The topic on which the message was received.
+     * @param payload       The raw message payload.
+     * @param receivedNanos The {@link System#nanoTime()} at which the message arrived from the broker.
+     */
+    @Override
+    public void accept(String topic, byte[] payload, long receivedNanos) {
+        receivedMessages.increment();
+        if (!running) {
+            droppedMessages.increment();
+            return;
+        }
+
+        Lane lane = lanes[laneFor(topic)];
+        if (!reserve(lane)) {
+            droppedMessages.increment();
+            return;
+        }
+        lane.messages.offer(new Message(topic, payload, receivedNanos));
+        lane.schedule();
+    }
+
+    /**
+     * @return The number of messages waiting or being evaluated.
+     */
+    public int getQueueDepth() {
+        return queueCapacity - capacity.availablePermits();
+    }
+
+    /**
+     * @return The number of messages handed to the dispatcher.
+     */
+    public long getReceivedMessages() {
+        return receivedMessages.sum();
+    }
+
+    /**
+     * @return The number of messages discarded because of the overflow policy or shutdown.
+     */
+    public long getDroppedMessages() {
+        return droppedMessages.sum();
+    }
+
+    /**
+     * @return The number of messages evaluated.
+     */
+    public long getProcessedMessages() {
+        return processedMessages.sum();
+    }
+
+    /**
+     * Registers the received, dropped and processed message counters and the queue depth.
+     *
+     * @param registry The registry to register with.
+     */
+    @Override
+    public void bindTo(MetricsRegistry registry) {
+        registry.counter("dispatch_messages_received", "Messages handed to the message dispatcher", receivedMessages::sum);
+        registry.counter("dispatch_messages_dropped", "Messages discarded because of the overflow policy or shutdown",
+                droppedMessages::sum, "policy", overflowPolicy.name());
+        registry.counter("dispatch_messages_processed", "Messages evaluated", processedMessages::sum);
+        registry.gauge("dispatch_queue_depth", "Messages waiting or being evaluated", this::getQueueDepth);
+    }
+
+    /**
+     * Stops accepting messages and waits up to {@value #CLOSE_TIMEOUT_MILLIS} ms for the queued ones to be evaluated.
+     */
+    @Override
+    public void close() {
+        close(CLOSE_TIMEOUT_MILLIS);
+    }
+
+    /**
+     * Stops accepting messages and lets the lanes evaluate the messages still waiting. Evaluations still
+     * running when the timeout has passed are interrupted and the messages still waiting are discarded.
+     *
+     * @param timeoutMillis The maximum time to wait for the lanes to drain, in milliseconds.
+     * @return {@code true} if every waiting message was evaluated.
+     */
+    @Override
+    public boolean close(long timeoutMillis) {
+        running = false;
+        executor.shutdown();
+        boolean drained;
+        try {
+            drained = executor.awaitTermination(timeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            drained = false;
+            Thread.currentThread().interrupt();
+        }
+        if (!drained) {
+            executor.shutdownNow();
+            for (Lane lane : lanes) {
+                lane.discardWaiting();
+            }
+        }
+        LOGGER.info("Virtual thread dispatcher stopped. Received: {}, processed: {}, dropped: {}",
+                getReceivedMessages(), getProcessedMessages(), getDroppedMessages());
+        return drained;
+    }
+
+    /**
+     * Takes a capacity permit for a new message according to the overflow policy.
+     *
+     * @param lane The lane the new message goes to.
+     * @return {@code true} if the message may be queued.
+     */
+    private boolean reserve(Lane lane) {
+        switch (overflowPolicy) {
+            case BLOCK -> {
+                try {
+                    capacity.acquire();
+                    return true;
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return false;
+                }
+            }
+            case DROP_OLDEST -> {
+                if (capacity.tryAcquire()) return true;
+                // Reuse the permit of the oldest message still waiting on the same lane, if any
+                if (lane.messages.poll() != null) {
+                    droppedMessages.increment();
+                    return true;
+                }
+                return false;
+            }
+            default -> {
+                return capacity.tryAcquire();
+            }
+        }
+    }
+
+    private int laneFor(String topic) {
+        int h = topic.hashCode();
+        return Math.floorMod(h ^ (h >>> 16), lanes.length);
+    }
+
+    private record Message(String topic, byte[] payload, long receivedNanos) {
+    }
+
+    /**
+     * A serial lane: messages waiting for evaluation, drained by at most one virtual thread at a time.
+     */
+    private final class Lane implements Runnable {
+        private final Queue<Message> messages = new ConcurrentLinkedQueue<>();
+        private final AtomicBoolean scheduled = new AtomicBoolean();
+
+        private void schedule() {
+            if (scheduled.compareAndSet(false, true)) {
+                try {
+                    executor.execute(this);
+                } catch (RuntimeException e) {
+                    // Executor already shut down: no thread will evaluate the lane's messages
+                    discardWaiting();
+                    scheduled.set(false);
+                }
+            }
+        }
+
+        /**
+         * Discards the messages waiting on the lane, freeing their capacity and counting them as dropped.
+         */
+        private void discardWaiting() {
+            while (messages.poll() != null) {
+                capacity.release();
+                droppedMessages.increment();
+            }
+        }
+
+        @Override
+        public void run() {
+            do {
+                Message message;
+                while ((message = messages.poll()) != null) {
+                    try {
+                        messageHandler.accept(message.topic(), message.payload(), message.receivedNanos());
+                    } catch (Exception e) {
+                        LOGGER.error("Error evaluating message from topic {}: {}", message.topic(), e.getMessage(), e);
+                    } finally {
+                        capacity.release();
+                        processedMessages.increment();
+                    }
+                }
+                scheduled.set(false);
+                // A message may have been queued after the last poll but before the flag was cleared
+            } while (!messages.isEmpty() && scheduled.compareAndSet(false, true));
+        }
+    }
+}
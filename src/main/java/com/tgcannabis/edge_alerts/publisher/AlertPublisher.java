@@ -0,0 +1,50 @@
+package com.tgcannabis.edge_alerts.publisher;
+
+import com.tgcannabis.edge_alerts.model.AlertMessage;
+
+import java.util.function.Consumer;
+
+/**
+ * Delivers generated alerts to downstream consumers.
+ */
+public interface AlertPublisher extends AutoCloseable {
+    /**
+     * Default MQTT topic alerts are published to.
+     */
+    String ALERTS_TOPIC = "alerts";
+
+    /**
+     * Publishes an alert. Implementations must not throw; delivery failures are logged.
+     *
+     * @param alert The alert to publish.
+     */
+    void publish(AlertMessage alert);
+
+    /**
+     * Sets the listener notified with each alert once the broker has acknowledged it, e.g. to measure
+     * delivery latency. Ignored by default.
+     *
+     * @param deliveryListener The listener receiving delivered alerts, or {@code null} for none.
+     */
+    default void setDeliveryListener(Consumer<AlertMessage> deliveryListener) {
+    }
+
+    /**
+     * Releases the publisher's resources, delivering pending alerts where possible.
+     */
+    @Override
+    default void close() {
+    }
+
+    /**
+     * Delivers pending alerts, waiting at most the given time for the broker's acknowledgements, then
+     * releases the publisher's resources. Publishers without pending alerts just {@linkplain #close() close}.
+     *
+     * @param timeoutMillis The maximum time to wait, in milliseconds.
+     * @return {@code true} if every pending alert was delivered.
+     */
+    default boolean close(long timeoutMillis) {
+        close();
+        return true;
+    }
+}
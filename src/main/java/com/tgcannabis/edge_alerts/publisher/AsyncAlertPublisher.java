@@ -0,0 +1,373 @@
+package com.tgcannabis.edge_alerts.publisher;
+
+import com.google.gson.Gson;
+import com.tgcannabis.edge_alerts.logging.HotPathLogger;
+import com.tgcannabis.edge_alerts.metrics.LatencyHistogram;
+import com.tgcannabis.edge_alerts.metrics.MetricsBinder;
+import com.tgcannabis.edge_alerts.metrics.MetricsRegistry;
+import com.tgcannabis.edge_alerts.model.AlertMessage;
+import lombok.Getter;
+import org.eclipse.paho.client.mqttv3.IMqttActionListener;
+import org.eclipse.paho.client.mqttv3.IMqttAsyncClient;
+import org.eclipse.paho.client.mqttv3.IMqttDeliveryToken;
+import org.eclipse.paho.client.mqttv3.IMqttToken;
+import org.eclipse.paho.client.mqttv3.MqttException;
+import org.eclipse.paho.client.mqttv3.MqttMessage;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+/**
+ * Publishes alerts through a non-blocking {@link IMqttAsyncClient}.
+ * <p>
+ * {@link #publish(AlertMessage)} only queues the alert in a bounded outbound queue, so alert storms
+ * never stall message evaluation; alerts that do not fit are dropped and counted. A dispatcher thread
+ * sends queued alerts while keeping at most {@code maxInflight} publishes unacknowledged. When
+ * {@code maxBatchSize} is greater than one, alerts queued together are coalesced into a single message
+ * holding a JSON array. Delivery latency is measured from send to {@link #onDeliveryComplete}, which
+ * is wired to the connection's {@code deliveryComplete} callback.
+ */
+public class AsyncAlertPublisher implements AlertPublisher, MetricsBinder {
+
+    private static final HotPathLogger LOGGER = HotPathLogger.of(AsyncAlertPublisher.class);
+    private static final Gson gson = new Gson();
+    private static final long POLL_INTERVAL_MILLIS = 100;
+    private static final long CLOSE_TIMEOUT_MILLIS = 5_000;
+
+    private final IMqttAsyncClient mqttClient;
+    private final String topic;
+    private final BlockingQueue<AlertMessage> queue;
+    private final Semaphore inflight;
+    private final Thread dispatcher;
+
+    @Getter
+    private final int maxInflight;
+    @Getter
+    private final int maxBatchSize;
+
+    private final LongAdder publishedAlerts = new LongAdder();
+    private final LongAdder publishedMessages = new LongAdder();
+    private final LongAdder droppedAlerts = new LongAdder();
+    private final LongAdder failedMessages = new LongAdder();
+    private final LongAdder deliveredMessages = new LongAdder();
+    private final AtomicInteger unacknowledgedMessages = new AtomicInteger();
+    private final LatencyHistogram deliveryLatency = new LatencyHistogram();
+
+    private volatile Consumer<AlertMessage> alertDeliveryListener;
+    private volatile boolean closing;
+
+    /**
+     * Creates the publisher and starts its dispatcher thread.
+     *
+     * @param mqttClient    The connected asynchronous MQTT client.
+     * @param topic         The topic alerts are published to.
+     * @param queueCapacity Maximum number of alerts waiting to be sent.
+     * @param maxInflight   Maximum number of sent messages waiting for the broker's acknowledgement.
+     * @param maxBatchSize  Maximum number of alerts coalesced into one message; 1 disables coalescing.
+     * @throws IllegalArgumentException if any limit is not positive.
+     * @throws NullPointerException     if the client or topic is {@code null}.
+     */
+    public AsyncAlertPublisher(IMqttAsyncClient mqttClient, String topic, int queueCapacity, int maxInflight, int maxBatchSize) {
+        if (queueCapacity <= 0 || maxInflight <= 0 || maxBatchSize <= 0) {
+            throw new IllegalArgumentException("Queue capacity, max inflight and max batch size must be positive");
+        }
+        this.mqttClient = Objects.requireNonNull(mqttClient, "MQTT client cannot be null");
+        this.topic = Objects.requireNonNull(topic, "Topic cannot be null");
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        this.inflight = new Semaphore(maxInflight);
+        this.maxInflight = maxInflight;
+        this.maxBatchSize = maxBatchSize;
+
+        this.dispatcher = new Thread(this::dispatch, "alert-publisher");
+        this.dispatcher.setDaemon(true);
+        this.dispatcher.start();
+    }
+
+    /**
+     * Queues an alert for publishing. Never blocks; the alert is dropped if the queue is full.
+     *
+     * @param alert The alert to publish.
+     */
+    @Override
+    public void publish(AlertMessage alert) {
+        if (closing || !queue.offer(alert)) {
+            droppedAlerts.increment();
+            LOGGER.warn("Alert publish queue full or closing, dropping alert for sensor {}", alert.getSensorId());
+        }
+    }
+
+    /**
+     * Records the acknowledgement of a message sent by this publisher and frees its inflight slot.
+     * Tokens of messages sent by other publishers are ignored.
+     *
+     * @param token The delivery token reported by the MQTT client.
+     */
+    public void onDeliveryComplete(IMqttDeliveryToken token) {
+        if (!(token.getUserContext() instanceof SendContext context) || context.publisher() != this) {
+            return;
+        }
+        deliveredMessages.increment();
+        deliveryLatency.recordSince(context.sentAtNanos());
+        unacknowledgedMessages.decrementAndGet();
+        inflight.release();
+        Consumer<AlertMessage> listener = alertDeliveryListener;
+        if (listener != null && context.alerts() != null) {
+            for (AlertMessage alert : context.alerts()) {
+                listener.accept(alert);
+            }
+        }
+    }
+
+    /**
+     * Sets the listener notified with every alert of a message once the broker has acknowledged the message.
+     *
+     * @param deliveryListener The listener receiving delivered alerts, or {@code null} for none.
+     */
+    @Override
+    public void setDeliveryListener(Consumer<AlertMessage> deliveryListener) {
+        this.alertDeliveryListener = deliveryListener;
+    }
+
+    /**
+     * @return The number of alerts waiting to be sent.
+     */
+    public int getQueueDepth() {
+        return queue.size();
+    }
+
+    /**
+     * @return The number of sent messages not yet acknowledged by the broker.
+     */
+    public int getInflightMessages() {
+        return unacknowledgedMessages.get();
+    }
+
+    /**
+     * @return The number of alerts handed to the MQTT client.
+     */
+    public long getPublishedAlerts() {
+        return publishedAlerts.sum();
+    }
+
+    /**
+     * @return The number of MQTT messages sent; lower than the alert count when alerts are coalesced.
+     */
+    public long getPublishedMessages() {
+        return publishedMessages.sum();
+    }
+
+    /**
+     * @return The number of alerts dropped because the queue was full or the publisher was closing.
+     */
+    public long getDroppedAlerts() {
+        return droppedAlerts.sum();
+    }
+
+    /**
+     * @return The number of messages the MQTT client failed to send.
+     */
+    public long getFailedMessages() {
+        return failedMessages.sum();
+    }
+
+    /**
+     * @return The number of messages acknowledged by the broker.
+     */
+    public long getDeliveredMessages() {
+        return deliveredMessages.sum();
+    }
+
+    /**
+     * @return The mean time between sending a message and its acknowledgement, in milliseconds.
+     */
+    public double getAverageDeliveryLatencyMillis() {
+        long delivered = deliveredMessages.sum();
+        return delivered == 0 ? 0.0 : deliveryLatency.getSumNanos() / (delivered * 1_000_000.0);
+    }
+
+    /**
+     * @return The longest time between sending a message and its acknowledgement, in milliseconds.
+     */
+    public double getMaxDeliveryLatencyMillis() {
+        return deliveryLatency.getMaxNanos() / 1_000_000.0;
+    }
+
+    /**
+     * Registers the publisher's alert and message counters, its queue depth and inflight messages,
+     * and the delivery latency histogram.
+     *
+     * @param registry The registry to register with.
+     */
+    @Override
+    public void bindTo(MetricsRegistry registry) {
+        registry.counter("publisher_alerts_published", "Alerts handed to the MQTT client", publishedAlerts::sum);
+        registry.counter("publisher_alerts_dropped", "Alerts dropped because the publish queue was full or closing", droppedAlerts::sum);
+        registry.counter("publisher_messages_published", "MQTT messages sent, each holding one or more alerts", publishedMessages::sum);
+        registry.counter("publisher_messages_failed", "MQTT messages the client failed to send", failedMessages::sum);
+        registry.gauge("publisher_queue_depth", "Alerts waiting to be sent", this::getQueueDepth);
+        registry.gauge("publisher_inflight_messages", "Sent messages not yet acknowledged by the broker", this::getInflightMessages);
+        registry.histogram("publisher_delivery_latency_seconds", "Time between sending a message and its acknowledgement",
+                deliveryLatency);
+    }
+
+    /**
+     * Stops accepting alerts and waits up to {@value #CLOSE_TIMEOUT_MILLIS} ms for queued alerts to be sent.
+     */
+    @Override
+    public void close() {
+        stop(CLOSE_TIMEOUT_MILLIS);
+        logStopped();
+    }
+
+    /**
+     * Stops accepting alerts, sends the queued ones and waits for the broker to acknowledge every message
+     * in flight. Alerts still queued when the timeout has passed are dropped.
+     *
+     * @param timeoutMillis The maximum time to wait, in milliseconds.
+     * @return {@code true} if every queued alert was sent and acknowledged.
+     */
+    @Override
+    public boolean close(long timeoutMillis) {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+        boolean acknowledged = false;
+        if (stop(timeoutMillis)) {
+            try {
+                // Holding every inflight permit means every sent message was acknowledged or failed
+                if (inflight.tryAcquire(maxInflight, deadline - System.nanoTime(), TimeUnit.NANOSECONDS)) {
+                    inflight.release(maxInflight);
+                    acknowledged = true;
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        logStopped();
+        return acknowledged;
+    }
+
+    /**
+     * Stops accepting alerts and lets the dispatcher send the queued ones; alerts still queued after the
+     * timeout are dropped.
+     *
+     * @return {@code true} if every queued alert was sent.
+     */
+    private boolean stop(long timeoutMillis) {
+        closing = true;
+        try {
+            dispatcher.join(Math.max(1, timeoutMillis));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (dispatcher.isAlive()) {
+            dispatcher.interrupt();
+        }
+        int unsent = queue.size();
+        if (unsent > 0) {
+            queue.clear();
+            droppedAlerts.add(unsent);
+        }
+        return unsent == 0 && !dispatcher.isAlive();
+    }
+
+    private void logStopped() {
+        LOGGER.info("Alert publisher stopped. Alerts published: {}, dropped: {}, messages failed: {}, unacknowledged: {}, average delivery latency: {} ms",
+                getPublishedAlerts(), getDroppedAlerts(), getFailedMessages(), getInflightMessages(), getAverageDeliveryLatencyMillis());
+    }
+
+    /**
+     * Dispatcher loop: waits for an inflight slot, then takes the queued alerts, coalesces them into a batch
+     * and sends it. Taking alerts only once a slot is free means that while the broker is slow, every alert
+     * queued in the meantime goes into the next batch. Exits once the publisher is closing and the queue is empty.
+     */
+    private void dispatch() {
+        List<AlertMessage> batch = new ArrayList<>(maxBatchSize);
+        boolean holdingPermit = false;
+        try {
+            while (true) {
+                if (!holdingPermit) {
+                    holdingPermit = inflight.tryAcquire(POLL_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+                    if (!holdingPermit) {
+                        if (closing && queue.isEmpty()) return;
+                        continue;
+                    }
+                }
+                AlertMessage first = queue.poll(POLL_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    if (closing) return;
+                    continue;
+                }
+                batch.add(first);
+                queue.drainTo(batch, maxBatchSize - 1);
+
+                holdingPermit = false; // Handed to the message, released on delivery or failure
+                send(batch);
+                batch.clear();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            if (holdingPermit) {
+                inflight.release();
+            }
+        }
+    }
+
+    /**
+     * Sends a batch of alerts as one message: a JSON object for a single alert, a JSON array otherwise.
+     * The caller must hold an inflight permit, which is released on delivery or failure.
+     */
+    private void send(List<AlertMessage> batch) {
+        String json = batch.size() == 1 ? gson.toJson(batch.get(0)) : gson.toJson(batch);
+        unacknowledgedMessages.incrementAndGet();
+        try {
+            mqttClient.publish(topic, new MqttMessage(json.getBytes(StandardCharsets.UTF_8)),
+                    new SendContext(this, System.nanoTime(), alertDeliveryListener == null ? null : List.copyOf(batch)),
+                    failureListener);
+            publishedAlerts.add(batch.size());
+            publishedMessages.increment();
+            LOGGER.debug("Sent {} alert(s) to MQTT topic [{}]", batch.size(), topic);
+        } catch (MqttException e) {
+            onSendFailed(e);
+        }
+    }
+
+    private void onSendFailed(Throwable cause) {
+        failedMessages.increment();
+        unacknowledgedMessages.decrementAndGet();
+        inflight.release();
+        LOGGER.error("Failed to publish alert message to MQTT: {}", cause.getMessage(), cause);
+    }
+
+    /**
+     * Releases the inflight slot of messages the client could not deliver. Successful deliveries
+     * are handled by {@link #onDeliveryComplete(IMqttDeliveryToken)}.
+     */
+    private final IMqttActionListener failureListener = new IMqttActionListener() {
+        @Override
+        public void onSuccess(IMqttToken asyncActionToken) {
+            // Accounted for in onDeliveryComplete
+        }
+
+        @Override
+        public void onFailure(IMqttToken asyncActionToken, Throwable exception) {
+            onSendFailed(exception);
+        }
+    };
+
+    /**
+     * Attached to every sent message to recognise its token and measure delivery latency.
+     *
+     * @param alerts The alerts the message holds, kept only while a delivery listener is set.
+     */
+    private record SendContext(AsyncAlertPublisher publisher, long sentAtNanos, List<AlertMessage> alerts) {
+    }
+}
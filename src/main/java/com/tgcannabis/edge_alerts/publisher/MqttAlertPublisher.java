@@ -0,0 +1,69 @@
+package com.tgcannabis.edge_alerts.publisher;
+
+import com.google.gson.Gson;
+import com.tgcannabis.edge_alerts.logging.HotPathLogger;
+import com.tgcannabis.edge_alerts.model.AlertMessage;
+import org.eclipse.paho.client.mqttv3.MqttClient;
+import org.eclipse.paho.client.mqttv3.MqttException;
+import org.eclipse.paho.client.mqttv3.MqttMessage;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Objects;
+import java.util.function.Consumer;
+
+/**
+ * Publishes each alert as a JSON message through a blocking {@link MqttClient},
+ * waiting for the broker's acknowledgement before returning.
+ */
+public class MqttAlertPublisher implements AlertPublisher {
+
+    private static final HotPathLogger LOGGER = HotPathLogger.of(MqttAlertPublisher.class);
+    private static final Gson gson = new Gson();
+
+    private final MqttClient mqttClient;
+    private final String topic;
+    private volatile Consumer<AlertMessage> deliveryListener;
+
+    /**
+     * Creates a publisher sending alerts to the default alerts topic.
+     *
+     * @param mqttClient The connected MQTT client.
+     * @throws NullPointerException if {@code mqttClient} is {@code null}.
+     */
+    public MqttAlertPublisher(MqttClient mqttClient) {
+        this(mqttClient, ALERTS_TOPIC);
+    }
+
+    /**
+     * Creates a publisher sending alerts to the given topic.
+     *
+     * @param mqttClient The connected MQTT client.
+     * @param topic      The topic alerts are published to.
+     * @throws NullPointerException if any argument is {@code null}.
+     */
+    public MqttAlertPublisher(MqttClient mqttClient, String topic) {
+        this.mqttClient = Objects.requireNonNull(mqttClient, "MQTT client cannot be null");
+        this.topic = Objects.requireNonNull(topic, "Topic cannot be null");
+    }
+
+    @Override
+    public void publish(AlertMessage alert) {
+        String json = gson.toJson(alert);
+        try {
+            mqttClient.publish(topic, new MqttMessage(json.getBytes(StandardCharsets.UTF_8)));
+            LOGGER.info("Published alert to MQTT topic [{}]: {}", topic, json);
+        } catch (MqttException e) {
+            LOGGER.error("Failed to publish alert message to MQTT", e);
+            return;
+        }
+        Consumer<AlertMessage> listener = deliveryListener;
+        if (listener != null) {
+            listener.accept(alert); // The blocking publish returns once the broker has acknowledged the alert
+        }
+    }
+
+    @Override
+    public void setDeliveryListener(Consumer<AlertMessage> deliveryListener) {
+        this.deliveryListener = deliveryListener;
+    }
+}
@@ -0,0 +1,15 @@
+package com.tgcannabis.edge_alerts.publisher;
+
+/**
+ * How alerts are published to the broker.
+ */
+public enum PublishMode {
+    /**
+     * Publish on the subscriber connection and wait for each acknowledgement ({@link MqttAlertPublisher}).
+     */
+    SYNC,
+    /**
+     * Publish through a dedicated non-blocking connection ({@link AsyncAlertPublisher}).
+     */
+    ASYNC
+}
@@ -0,0 +1,251 @@
+package com.tgcannabis.edge_alerts.publisher;
+
+import com.tgcannabis.edge_alerts.logging.HotPathLogger;
+import com.tgcannabis.edge_alerts.metrics.MetricsBinder;
+import com.tgcannabis.edge_alerts.metrics.MetricsRegistry;
+import com.tgcannabis.edge_alerts.model.AlertMessage;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.BooleanSupplier;
+import java.util.function.Consumer;
+
+/**
+ * Holds alerts in a bounded local spool while the broker connection is down and sends them once it is back.
+ * <p>
+ * While the connection is up and nothing is spooled, alerts go straight to the wrapped publisher.
+ * Otherwise they are appended to the spool, so alerts keep their order; when the spool is full its
+ * oldest alert not already being sent is dropped and counted. A spooled alert stays at the head of the
+ * spool until the wrapped publisher has taken it, so a live alert cannot overtake it. A background thread flushes the spool after a reconnect at
+ * a bounded rate, so a large backlog never competes with live message ingestion for the connection.
+ */
+public class SpoolingAlertPublisher implements AlertPublisher, MetricsBinder {
+
+    private static final HotPathLogger LOGGER = HotPathLogger.of(SpoolingAlertPublisher.class);
+    private static final long POLL_INTERVAL_MILLIS = 100;
+    private static final long CLOSE_TIMEOUT_MILLIS = 5_000;
+
+    private final AlertPublisher delegate;
+    private final BooleanSupplier connected;
+    private final int capacity;
+    private final long flushIntervalNanos;
+    private final Deque<AlertMessage> spool = new ArrayDeque<>();
+    private final Thread flusher;
+
+    private final LongAdder spooledAlerts = new LongAdder();
+    private final LongAdder droppedAlerts = new LongAdder();
+    private final LongAdder flushedAlerts = new LongAdder();
+
+    private volatile boolean closing;
+    /**
+     * Whether the flusher is sending the alert at the head of the spool. Guarded by the spool's lock.
+     */
+    private boolean flushing;
+
+    /**
+     * Creates the publisher and starts its flusher thread.
+     *
+     * @param delegate  The publisher alerts are sent through.
+     * @param connected Tells whether the delegate's connection to the broker is up.
+     * @param capacity  Maximum number of alerts held while disconnected.
+     * @param flushRate Maximum number of spooled alerts sent per second after a reconnect.
+     * @throws IllegalArgumentException if the capacity or flush rate is not positive.
+     * @throws NullPointerException     if the delegate or connection check is {@code null}.
+     */
+    public SpoolingAlertPublisher(AlertPublisher delegate, BooleanSupplier connected, int capacity, int flushRate) {
+        if (capacity <= 0 || flushRate <= 0) {
+            throw new IllegalArgumentException("Spool capacity and flush rate must be positive");
+        }
+        this.delegate = Objects.requireNonNull(delegate, "Alert publisher cannot be null");
+        this.connected = Objects.requireNonNull(connected, "Connection check cannot be null");
+        this.capacity = capacity;
+        this.flushIntervalNanos = TimeUnit.SECONDS.toNanos(1) / flushRate;
+
+        this.flusher = new Thread(this::flush, "alert-spool");
+        this.flusher.setDaemon(true);
+        this.flusher.start();
+    }
+
+    /**
+     * Sends the alert right away if connected and nothing is spooled, otherwise appends it to the spool.
+     *
+     * @param alert The alert to publish.
+     */
+    @Override
+    public void publish(AlertMessage alert) {
+        synchronized (spool) {
+            if (!spool.isEmpty() || !connected.getAsBoolean()) {
+                if (spool.size() - (flushing ? 1 : 0) == capacity) {
+                    dropOldestWaiting();
+                }
+                spool.addLast(alert);
+                spooledAlerts.increment();
+                spool.notifyAll();
+                return;
+            }
+        }
+        delegate.publish(alert);
+    }
+
+    /**
+     * Drops the oldest spooled alert, skipping the one the flusher is sending. Must hold the spool's lock.
+     */
+    private void dropOldestWaiting() {
+        Iterator<AlertMessage> waiting = spool.iterator();
+        if (flushing) {
+            waiting.next();
+        }
+        AlertMessage dropped = waiting.next();
+        waiting.remove();
+        droppedAlerts.increment();
+        LOGGER.warn("Alert spool full, dropping oldest alert for sensor {}", dropped.getSensorId());
+    }
+
+    /**
+     * Forwards the listener to the wrapped publisher, which notifies it for live and spooled alerts alike.
+     *
+     * @param deliveryListener The listener receiving delivered alerts, or {@code null} for none.
+     */
+    @Override
+    public void setDeliveryListener(Consumer<AlertMessage> deliveryListener) {
+        delegate.setDeliveryListener(deliveryListener);
+    }
+
+    /**
+     * @return The number of alerts waiting in the spool.
+     */
+    public int getSpoolDepth() {
+        synchronized (spool) {
+            return spool.size();
+        }
+    }
+
+    /**
+     * @return The number of alerts that were spooled because the connection was down or the spool was not empty.
+     */
+    public long getSpooledAlerts() {
+        return spooledAlerts.sum();
+    }
+
+    /**
+     * @return The number of spooled alerts dropped because the spool was full.
+     */
+    public long getDroppedAlerts() {
+        return droppedAlerts.sum();
+    }
+
+    /**
+     * @return The number of spooled alerts sent after a reconnect.
+     */
+    public long getFlushedAlerts() {
+        return flushedAlerts.sum();
+    }
+
+    /**
+     * Registers the spool's depth and counters, and the metrics of the wrapped publisher if it has any.
+     *
+     * @param registry The registry to register with.
+     */
+    @Override
+    public void bindTo(MetricsRegistry registry) {
+        registry.gauge("spool_depth", "Alerts waiting in the spool", this::getSpoolDepth);
+        registry.counter("spool_alerts_spooled", "Alerts spooled because the connection was down or the spool was not empty",
+                spooledAlerts::sum);
+        registry.counter("spool_alerts_dropped", "Spooled alerts dropped because the spool was full", droppedAlerts::sum);
+        registry.counter("spool_alerts_flushed", "Spooled alerts sent after a reconnect", flushedAlerts::sum);
+        if (delegate instanceof MetricsBinder binder) {
+            binder.bindTo(registry);
+        }
+    }
+
+    /**
+     * Stops the flusher, sending what it can of the spool while still connected, and closes the wrapped publisher,
+     * waiting up to {@value #CLOSE_TIMEOUT_MILLIS} ms for each.
+     */
+    @Override
+    public void close() {
+        closing = true;
+        awaitFlusher(CLOSE_TIMEOUT_MILLIS);
+        delegate.close();
+    }
+
+    /**
+     * Stops the flusher, sending what it can of the spool while still connected, and closes the wrapped
+     * publisher, all within the given time.
+     *
+     * @param timeoutMillis The maximum time to wait, in milliseconds.
+     * @return {@code true} if the spool was emptied and the wrapped publisher delivered every pending alert.
+     */
+    @Override
+    public boolean close(long timeoutMillis) {
+        closing = true;
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+        boolean emptied = awaitFlusher(timeoutMillis);
+        return delegate.close(Math.max(0, TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime()))) && emptied;
+    }
+
+    /**
+     * Wakes the flusher so it sends the rest of the spool and stops, waiting at most the given time.
+     *
+     * @return {@code true} if nothing is left in the spool.
+     */
+    private boolean awaitFlusher(long timeoutMillis) {
+        synchronized (spool) {
+            spool.notifyAll();
+        }
+        try {
+            flusher.join(Math.max(1, timeoutMillis));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (flusher.isAlive()) {
+            flusher.interrupt();
+        }
+        int remaining = getSpoolDepth();
+        if (remaining > 0) {
+            LOGGER.warn("Alert spool closed with {} unsent alerts", remaining);
+        }
+        return remaining == 0;
+    }
+
+    /**
+     * Flusher loop: waits until alerts are spooled and the connection is up, then sends them one at a
+     * time at the configured rate. Each alert is removed from the spool only once the wrapped publisher
+     * has taken it, so {@link #publish} keeps spooling meanwhile. Exits once closing and the spool is
+     * empty or the connection is down.
+     */
+    private void flush() {
+        try {
+            while (true) {
+                AlertMessage next;
+                synchronized (spool) {
+                    while (spool.isEmpty() || !connected.getAsBoolean()) {
+                        if (closing) return;
+                        spool.wait(POLL_INTERVAL_MILLIS);
+                    }
+                    next = spool.peekFirst();
+                    flushing = true;
+                }
+                try {
+                    delegate.publish(next);
+                } finally {
+                    synchronized (spool) {
+                        spool.pollFirst();
+                        flushing = false;
+                    }
+                }
+                flushedAlerts.increment();
+                if (!closing) {
+                    LockSupport.parkNanos(flushIntervalNanos);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
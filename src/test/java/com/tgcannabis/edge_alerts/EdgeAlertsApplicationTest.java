@@ -2,10 +2,18 @@ package com.tgcannabis.edge_alerts;
 
 import com.tgcannabis.edge_alerts.alerts.AlertProcessor;
 import com.tgcannabis.edge_alerts.config.AlertConfigLoader;
+import com.tgcannabis.edge_alerts.mqtt.DeferredMessageHandler;
 import com.tgcannabis.edge_alerts.mqtt.MqttService;
+import com.tgcannabis.edge_alerts.mqtt.RawMessageHandler;
+import com.tgcannabis.edge_alerts.pipeline.IngestionPipeline;
+import com.tgcannabis.edge_alerts.pipeline.MessageDispatcher;
+import com.tgcannabis.edge_alerts.publisher.AlertPublisher;
+import org.eclipse.paho.client.mqttv3.MqttClient;
 import org.eclipse.paho.client.mqttv3.MqttException;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockedConstruction;
@@ -13,6 +21,8 @@ import org.mockito.MockitoAnnotations;
 
 import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.Mockito.*;
 
 class EdgeAlertsApplicationTest {
@@ -31,10 +41,12 @@ class EdgeAlertsApplicationTest {
     void start_successfulFlow_callsConnectAndSetsHandler() {
         try (MockedConstruction<AlertConfigLoader> ignored1 = mockConstruction(AlertConfigLoader.class);
              MockedConstruction<AlertProcessor> ignored2 = mockConstruction(AlertProcessor.class);
+             MockedConstruction<IngestionPipeline> ignored3 = mockConstruction(IngestionPipeline.class);
              MockedConstruction<MqttService> mockedMqtt = mockConstruction(MqttService.class,
                      (mock, context) -> {
-                         doNothing().when(mock).setMessageHandler(any());
+                         doNothing().when(mock).setRawMessageHandler(any(RawMessageHandler.class));
                          doNothing().when(mock).connect();
+                         when(mock.getMqttClient()).thenReturn(mock(MqttClient.class));
                      })) {
 
             // spy the app to override addShutdownHook (avoid actually adding it)
@@ -47,9 +59,17 @@ class EdgeAlertsApplicationTest {
             assertEquals(1, mockedMqtt.constructed().size());
 
             MqttService constructedMqtt = mockedMqtt.constructed().get(0);
-            verify(constructedMqtt).setMessageHandler(any(AlertProcessor.class));
+            ArgumentCaptor<RawMessageHandler> handler = ArgumentCaptor.forClass(RawMessageHandler.class);
+            verify(constructedMqtt).setRawMessageHandler(handler.capture());
             verify(constructedMqtt).connect();
 
+            // Messages held during startup are released to the pipeline once the application is ready
+            DeferredMessageHandler deferredHandler = assertInstanceOf(DeferredMessageHandler.class, handler.getValue());
+            assertTrue(deferredHandler.isReady());
+            byte[] payload = new byte[0];
+            deferredHandler.accept("sensors/temperature", payload, 1L);
+            verify(ignored3.constructed().get(0)).accept("sensors/temperature", payload, 1L);
+
             verify(spyApp, times(1)).addShutdownHook();
         } catch (MqttException e) {
             throw new RuntimeException(e);
@@ -60,6 +80,7 @@ class EdgeAlertsApplicationTest {
     void start_whenExceptionInMqttConnect_logsError() {
         try (MockedConstruction<AlertConfigLoader> ignored1 = mockConstruction(AlertConfigLoader.class);
              MockedConstruction<AlertProcessor> ignored2 = mockConstruction(AlertProcessor.class);
+             MockedConstruction<IngestionPipeline> ignored3 = mockConstruction(IngestionPipeline.class);
              MockedConstruction<MqttService> mockedMqtt = mockConstruction(MqttService.class,
                      (mock, context) -> {
                          doThrow(new RuntimeException("Connect failed")).when(mock).connect();
@@ -70,6 +91,7 @@ class EdgeAlertsApplicationTest {
 
             assertDoesNotThrow(spyApp::start);
 
+            verify(mockedMqtt.constructed().get(0)).close(); // No connection stays open after a failed start
             verify(spyApp, times(1)).addShutdownHook();
         }
     }
@@ -80,11 +102,11 @@ class EdgeAlertsApplicationTest {
         mqttServiceField.setAccessible(true);
         mqttServiceField.set(null, mockMqttService);
 
-        doNothing().when(mockMqttService).close();
+        doNothing().when(mockMqttService).close(anyLong());
 
         assertDoesNotThrow(() -> app.shutdown());
 
-        verify(mockMqttService, times(1)).close();
+        verify(mockMqttService, times(1)).close(anyLong());
 
         mqttServiceField.set(null, null);
     }
@@ -95,12 +117,43 @@ class EdgeAlertsApplicationTest {
         mqttServiceField.setAccessible(true);
         mqttServiceField.set(null, mockMqttService);
 
-        doThrow(new RuntimeException("close failure")).when(mockMqttService).close();
+        doThrow(new RuntimeException("close failure")).when(mockMqttService).close(anyLong());
 
         assertDoesNotThrow(() -> app.shutdown());
 
-        verify(mockMqttService, times(1)).close();
+        verify(mockMqttService, times(1)).close(anyLong());
 
         mqttServiceField.set(null, null);
     }
+
+    @Test
+    void shutdown_stopsSubscribingDrainsAndFlushesBeforeDisconnecting() throws Exception {
+        MessageDispatcher dispatcher = mock(MessageDispatcher.class);
+        AlertPublisher publisher = mock(AlertPublisher.class);
+        when(dispatcher.close(anyLong())).thenReturn(true);
+        when(publisher.close(anyLong())).thenReturn(true);
+        setStatic("mqttService", mockMqttService);
+        setStatic("messageDispatcher", dispatcher);
+        setStatic("alertPublisher", publisher);
+
+        try {
+            app.shutdown();
+
+            InOrder inOrder = inOrder(mockMqttService, dispatcher, publisher);
+            inOrder.verify(mockMqttService).stopSubscribing(anyLong());
+            inOrder.verify(dispatcher).close(anyLong());
+            inOrder.verify(publisher).close(anyLong());
+            inOrder.verify(mockMqttService).close(anyLong());
+        } finally {
+            setStatic("mqttService", null);
+            setStatic("messageDispatcher", null);
+            setStatic("alertPublisher", null);
+        }
+    }
+
+    private static void setStatic(String name, Object value) throws ReflectiveOperationException {
+        var field = EdgeAlertsApplication.class.getDeclaredField(name);
+        field.setAccessible(true);
+        field.set(null, value);
+    }
 }
@@ -1,7 +1,14 @@
 package com.tgcannabis.edge_alerts.alerts;
 
 import com.google.gson.Gson;
+import com.tgcannabis.edge_alerts.codec.BinaryPayloadCodec;
+import com.tgcannabis.edge_alerts.codec.PayloadCodecRegistry;
+import com.tgcannabis.edge_alerts.codec.StringInterner;
+import com.tgcannabis.edge_alerts.codec.TopicPattern;
 import com.tgcannabis.edge_alerts.config.AlertConfigLoader;
+import com.tgcannabis.edge_alerts.config.ThresholdTable;
+import com.tgcannabis.edge_alerts.metrics.MetricsRegistry;
+import com.tgcannabis.edge_alerts.model.AlertMessage;
 import com.tgcannabis.edge_alerts.model.SensorData;
 import com.tgcannabis.edge_alerts.model.SensorThreshold;
 import org.eclipse.paho.client.mqttv3.MqttClient;
@@ -11,8 +18,18 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.ArgumentCaptor;
 
+import java.nio.charset.StandardCharsets;
+import java.time.Clock;
 import java.time.Instant;
+import java.time.ZoneOffset;
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
@@ -22,6 +39,19 @@ class AlertProcessorTest {
     private AlertProcessor alertProcessor;
     private MqttClient mockedClient;
 
+    private ThresholdTable thresholdTable;
+
+    /**
+     * Makes the mocked loader serve a table holding only the given sensor type, keeping the ids
+     * of previously stubbed tables like a configuration reload does.
+     */
+    private void stubThreshold(String sensorType, SensorThreshold threshold) {
+        Map<String, SensorThreshold> thresholds = new HashMap<>();
+        if (threshold != null) thresholds.put(sensorType, threshold);
+        thresholdTable = ThresholdTable.compile(thresholds, thresholdTable);
+        when(configLoader.getThresholdTable()).thenReturn(thresholdTable);
+    }
+
     @BeforeEach
     void setup() {
         configLoader = mock(AlertConfigLoader.class);
@@ -67,11 +97,12 @@ class AlertProcessorTest {
 
         String json = new com.google.gson.Gson().toJson(data);
 
-        when(configLoader.getThreshold("temperature")).thenReturn(null);
+        stubThreshold("temperature", null);
 
         assertDoesNotThrow(() -> alertProcessor.accept("topic", json));
 
-        verify(configLoader, times(1)).getThreshold("temperature");
+        verify(configLoader, times(1)).getThresholdTable();
+        assertEquals(1, alertProcessor.getUnconfiguredReadings());
     }
 
     @Test
@@ -92,14 +123,16 @@ class AlertProcessorTest {
 
         String json = new com.google.gson.Gson().toJson(data);
 
-        when(configLoader.getThreshold("humidity")).thenReturn(threshold);
+        stubThreshold("humidity", threshold);
 
         assertDoesNotThrow(() -> alertProcessor.accept("topic", json));
 
         // Since time threshold is not met, firstEvaluationTime should be set but no alert triggered
-        assertTrue(alertProcessor.firstEvaluationTime.containsKey("humidity"));
-        assertTrue(alertProcessor.history.containsKey("humidity"));
-        assertEquals(1, alertProcessor.history.get("humidity").size());
+        AlertState state = alertProcessor.stateStore.get(new SensorKey("humidity", null, "123"));
+        assertNotNull(state);
+        assertTrue(state.hasStarted());
+        assertEquals(1, state.getWindow().size());
+        verifyNoInteractions(mockedClient);
     }
 
     @Test
@@ -119,7 +152,7 @@ class AlertProcessorTest {
         inRange.setValue(20.0); // in range
 
         SensorData outOfRange = new SensorData();
-        outOfRange.setSensorId("id2");
+        outOfRange.setSensorId("id1");
         outOfRange.setSensorType("pressure");
         outOfRange.setTimestamp(now - 1);
         outOfRange.setValue(50.0); // out of range (above max)
@@ -127,23 +160,86 @@ class AlertProcessorTest {
         String jsonOutOfRange = new com.google.gson.Gson().toJson(outOfRange);
         String jsonInRange = new com.google.gson.Gson().toJson(inRange);
 
-        when(configLoader.getThreshold("pressure")).thenReturn(threshold);
+        stubThreshold("pressure", threshold);
 
         assertDoesNotThrow(() -> alertProcessor.accept("topic", jsonInRange));
 
         // Manually set firstEvaluationTime in past to simulate elapsed time for alert evaluation
-        alertProcessor.firstEvaluationTime.put("pressure", now - 10);
+        AlertState state = alertProcessor.stateStore.get(new SensorKey("pressure", null, "id1"));
+        state.setFirstEvaluationTime(now - 10);
 
         assertDoesNotThrow(() -> alertProcessor.accept("topic", jsonOutOfRange));
 
-        assertFalse(alertProcessor.history.get("pressure").isEmpty());
+        assertFalse(state.getWindow().isEmpty());
 
         // After generating alert, firstEvaluationTime should be updated/reset
-        Long firstEvalTime = alertProcessor.firstEvaluationTime.get("pressure");
-        assertNotNull(firstEvalTime);
+        long firstEvalTime = state.getFirstEvaluationTime();
         assertTrue(firstEvalTime >= now - 1, "First evaluation time should be recent after alert generation");
     }
 
+    @Test
+    void accept_sameSensorTypeDifferentDevices_keepsIndependentState() {
+        long now = Instant.now().getEpochSecond();
+
+        SensorThreshold threshold = new SensorThreshold(10.0, 30.0, 60, 50);
+        stubThreshold("temperature", threshold);
+
+        Gson gson = new Gson();
+        alertProcessor.accept("topic", gson.toJson(new SensorData("temperature", "room-1", "a", 50.0, now)));
+        alertProcessor.accept("topic", gson.toJson(new SensorData("temperature", "room-1", "b", 20.0, now)));
+        alertProcessor.accept("topic", gson.toJson(new SensorData("temperature", "room-2", "a", 20.0, now)));
+
+        assertEquals(3, alertProcessor.stateStore.size());
+        assertEquals(1, alertProcessor.stateStore.get(new SensorKey("temperature", "room-1", "a")).getWindow().getOutOfRangeCount());
+        assertEquals(0, alertProcessor.stateStore.get(new SensorKey("temperature", "room-1", "b")).getWindow().getOutOfRangeCount());
+        assertEquals(0, alertProcessor.stateStore.get(new SensorKey("temperature", "room-2", "a")).getWindow().getOutOfRangeCount());
+    }
+
+    @Test
+    void accept_concurrentProducers_keepsPerDeviceCountsExact() throws Exception {
+        long now = Instant.now().getEpochSecond();
+        int producers = 16;
+        int sensors = 20;
+        int readingsPerProducer = 2_000;
+
+        SensorThreshold threshold = new SensorThreshold(10.0, 30.0, 3_600, 50);
+        stubThreshold("temperature", threshold);
+
+        // Pre-serialize payloads so producers spend their time inside accept()
+        Gson gson = new Gson();
+        String[] payloads = new String[sensors];
+        for (int s = 0; s < sensors; s++) {
+            double value = s % 2 == 0 ? 50.0 : 20.0;
+            payloads[s] = gson.toJson(new SensorData("temperature", "room-1", "s" + s, value, now));
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(producers);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int p = 0; p < producers; p++) {
+            futures.add(executor.submit(() -> {
+                start.await();
+                for (int i = 0; i < readingsPerProducer; i++) {
+                    alertProcessor.accept("topic", payloads[i % sensors]);
+                }
+                return null;
+            }));
+        }
+        start.countDown();
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        executor.shutdown();
+
+        int perSensor = producers * readingsPerProducer / sensors;
+        assertEquals(sensors, alertProcessor.stateStore.size());
+        for (int s = 0; s < sensors; s++) {
+            SlidingWindow window = alertProcessor.stateStore.get(new SensorKey("temperature", "room-1", "s" + s)).getWindow();
+            assertEquals(perSensor, window.size());
+            assertEquals(s % 2 == 0 ? perSensor : 0, window.getOutOfRangeCount());
+        }
+    }
+
     @Test
     void onAlertGenerated_validData_publishesToMqtt() throws MqttException {
         SensorThreshold threshold = new SensorThreshold();
@@ -152,22 +248,23 @@ class AlertProcessorTest {
         threshold.setTimeThreshold(60);
         threshold.setPercentageThreshold(50); // Assume alert triggers if >50% out of range
 
-        when(configLoader.getThreshold("temperature")).thenReturn(threshold);
+        stubThreshold("temperature", threshold);
 
         long now = Instant.now().getEpochSecond();
         String sensorType = "temperature";
 
         // Simulate 5 historical readings
+        AlertState state = alertProcessor.stateStore.getOrCreate(new SensorKey(sensorType, null, "sensor123"), now);
         for (int i = 0; i < 5; i++) {
             SensorData historyData = new SensorData();
             historyData.setSensorId("sensor123");
             historyData.setSensorType(sensorType);
             historyData.setValue(35.0); // out of range
             historyData.setTimestamp(now - 30 + i); // within threshold window
-            alertProcessor.history.computeIfAbsent(sensorType, k -> new ArrayList<>()).add(historyData);
+            state.getWindow().add(historyData, true);
         }
 
-        alertProcessor.firstEvaluationTime.put(sensorType, now - 120); // simulate threshold duration has passed
+        state.setFirstEvaluationTime(now - 120); // simulate threshold duration has passed
 
         SensorData newData = new SensorData();
         newData.setSensorId("sensor123");
@@ -180,6 +277,452 @@ class AlertProcessorTest {
         verify(mockedClient, atLeastOnce()).publish(eq("alerts"), any(MqttMessage.class));
     }
 
+    @Test
+    void onAlertGenerated_publishesOnConfiguredExecutor() throws MqttException {
+        SensorThreshold threshold = new SensorThreshold(10.0, 30.0, 60, 50);
+        stubThreshold("temperature", threshold);
+
+        long now = Instant.now().getEpochSecond();
+        AlertState state = alertProcessor.stateStore.getOrCreate(new SensorKey("temperature", null, "sensor123"), now);
+        state.setFirstEvaluationTime(now - 120);
+
+        List<Runnable> publishes = new ArrayList<>();
+        alertProcessor.setAlertExecutor(publishes::add);
+
+        alertProcessor.accept("topic", new Gson().toJson(new SensorData("temperature", null, "sensor123", 35.0, now)));
+
+        verify(mockedClient, never()).publish(anyString(), any(MqttMessage.class));
+        assertEquals(1, publishes.size());
+
+        publishes.get(0).run();
+        verify(mockedClient).publish(eq("alerts"), any(MqttMessage.class));
+    }
+
+    @Test
+    void accept_usesConfiguredClock() throws MqttException {
+        stubThreshold("temperature", new SensorThreshold(10.0, 30.0, 60, 50));
+        Instant start = Instant.ofEpochSecond(1_000_000);
+        String payload = new Gson().toJson(new SensorData("temperature", "room-1", "sensor123", 35.0, start.getEpochSecond()));
+
+        alertProcessor.setClock(Clock.fixed(start, ZoneOffset.UTC));
+        alertProcessor.accept("topic", payload);
+        verifyNoInteractions(mockedClient);
+
+        // Once the time threshold has passed on the configured clock, the reading is too old to count
+        alertProcessor.setClock(Clock.fixed(start.plusSeconds(61), ZoneOffset.UTC));
+        alertProcessor.accept("topic", payload);
+        verifyNoInteractions(mockedClient);
+        assertTrue(alertProcessor.stateStore.get(new SensorKey("temperature", "room-1", "sensor123")).getWindow().isEmpty());
+    }
+
+    @Test
+    void accept_thresholdRangeChanged_reevaluatesExistingWindow() throws MqttException {
+        long now = Instant.now().getEpochSecond();
+        SensorKey key = new SensorKey("temperature", "room-1", "sensor123");
+        stubThreshold("temperature", new SensorThreshold(10.0, 40.0, 60, 50));
+        for (int i = 0; i < 3; i++) {
+            alertProcessor.accept("topic", new Gson().toJson(new SensorData("temperature", "room-1", "sensor123", 35.0, now - 3 + i)));
+        }
+        AlertState state = alertProcessor.stateStore.get(key);
+        assertEquals(0, state.getWindow().getOutOfRangeCount());
+        state.setFirstEvaluationTime(now - 120);
+
+        // A reload lowers the maximum: the readings already in the window now count as out of range
+        stubThreshold("temperature", new SensorThreshold(10.0, 30.0, 60, 50));
+        alertProcessor.accept("topic", new Gson().toJson(new SensorData("temperature", "room-1", "sensor123", 20.0, now)));
+
+        assertSame(state, alertProcessor.stateStore.get(key));
+        assertEquals(4, state.getWindow().size());
+        assertEquals(3, state.getWindow().getOutOfRangeCount());
+        verify(mockedClient).publish(eq("alerts"), any(MqttMessage.class));
+    }
+
+    @Test
+    void accept_restoredWindow_isReevaluatedAgainstCurrentRange() throws MqttException {
+        long now = Instant.now().getEpochSecond();
+        stubThreshold("temperature", new SensorThreshold(10.0, 30.0, 60, 50));
+        // State as restored from a checkpoint written while the maximum was still higher
+        AlertState state = alertProcessor.stateStore.getOrCreate(new SensorKey("temperature", "room-1", "sensor123"), now);
+        for (int i = 0; i < 3; i++) {
+            state.getWindow().add(now - 3 + i, 35.0, false);
+        }
+        state.setFirstEvaluationTime(now - 120);
+
+        alertProcessor.accept("topic", new Gson().toJson(new SensorData("temperature", "room-1", "sensor123", 20.0, now)));
+
+        assertEquals(3, state.getWindow().getOutOfRangeCount());
+        verify(mockedClient).publish(eq("alerts"), any(MqttMessage.class));
+    }
+
+    @Test
+    void accept_bucketedThreshold_aggregatesReadingsAndAlerts() throws MqttException {
+        Instant start = Instant.ofEpochSecond(1_000_079); // The end of the bucket starting at 1_000_020
+        alertProcessor.setClock(Clock.fixed(start, ZoneOffset.UTC));
+        stubThreshold("temperature", new SensorThreshold(10.0, 30.0, 3600, 50, 60));
+        SensorKey key = new SensorKey("temperature", "room-1", "sensor123");
+        for (int i = 0; i < 20; i++) {
+            alertProcessor.accept("topic", new Gson().toJson(new SensorData("temperature", "room-1", "sensor123", i < 12 ? 35.0 : 20.0, start.getEpochSecond() - i)));
+        }
+
+        AlertState state = alertProcessor.stateStore.get(key);
+        assertTrue(state.getWindow().isEmpty());
+        assertEquals(1, state.getBuckets().size());
+        assertEquals(20, state.getBuckets().getReadingCount());
+        assertEquals(12, state.getBuckets().getOutOfRangeCount());
+        verifyNoInteractions(mockedClient);
+
+        state.setFirstEvaluationTime(start.getEpochSecond() - 3600);
+        alertProcessor.accept("topic", new Gson().toJson(new SensorData("temperature", "room-1", "sensor123", 20.0, start.getEpochSecond())));
+        verify(mockedClient).publish(eq("alerts"), any(MqttMessage.class));
+    }
+
+    @Test
+    void accept_bucketWidthConfigured_foldsExistingReadingsIntoBuckets() {
+        long now = Instant.now().getEpochSecond();
+        SensorKey key = new SensorKey("temperature", "room-1", "sensor123");
+        stubThreshold("temperature", new SensorThreshold(10.0, 30.0, 600, 50));
+        for (int i = 0; i < 5; i++) {
+            alertProcessor.accept("topic", new Gson().toJson(new SensorData("temperature", "room-1", "sensor123", 35.0, now - 4 + i)));
+        }
+        AlertState state = alertProcessor.stateStore.get(key);
+        assertEquals(5, state.getWindow().size());
+
+        // A reload turns on bucketing: the raw readings move into buckets
+        stubThreshold("temperature", new SensorThreshold(10.0, 30.0, 600, 50, 10));
+        alertProcessor.accept("topic", new Gson().toJson(new SensorData("temperature", "room-1", "sensor123", 20.0, now)));
+        assertTrue(state.getWindow().isEmpty());
+        assertEquals(6, state.getBuckets().getReadingCount());
+        assertEquals(5, state.getBuckets().getOutOfRangeCount());
+        assertSame(state.getBuckets(), state.getActiveWindow());
+
+        // And a coarser width merges the buckets
+        stubThreshold("temperature", new SensorThreshold(10.0, 30.0, 600, 50, 600));
+        alertProcessor.accept("topic", new Gson().toJson(new SensorData("temperature", "room-1", "sensor123", 20.0, now)));
+        assertEquals(600, state.getBuckets().getBucketSeconds());
+        assertEquals(7, state.getBuckets().getReadingCount());
+
+        // Turning bucketing off again starts a fresh raw window
+        stubThreshold("temperature", new SensorThreshold(10.0, 30.0, 600, 50));
+        alertProcessor.accept("topic", new Gson().toJson(new SensorData("temperature", "room-1", "sensor123", 20.0, now)));
+        assertNull(state.getBuckets());
+        assertEquals(1, state.getWindow().size());
+    }
+
+    private void sendReadings(int count, double value, long timestamp) {
+        for (int i = 0; i < count; i++) {
+            alertProcessor.accept("topic", new Gson().toJson(new SensorData("temperature", "room-1", "sensor123", value, timestamp)));
+        }
+    }
+
+    @Test
+    void accept_sustainedBreach_firesOnceAndResolvesBelowHysteresisBand() throws MqttException {
+        Instant start = Instant.ofEpochSecond(1_000_000);
+        alertProcessor.setClock(Clock.fixed(start, ZoneOffset.UTC));
+        stubThreshold("temperature", new SensorThreshold(10.0, 30.0, 60, 50, 0, 20, 0));
+        AlertState state = alertProcessor.stateStore.getOrCreate(new SensorKey("temperature", "room-1", "sensor123"), start.getEpochSecond());
+        state.setFirstEvaluationTime(start.getEpochSecond() - 120);
+
+        sendReadings(4, 35.0, start.getEpochSecond());
+        assertEquals(AlertStatus.FIRING, state.getStatus());
+        sendReadings(16, 20.0, start.getEpochSecond()); // 4 of 20 readings out of range: inside the band, still firing
+        assertEquals(AlertStatus.FIRING, state.getStatus());
+        verify(mockedClient, times(1)).publish(eq("alerts"), any(MqttMessage.class));
+
+        sendReadings(1, 20.0, start.getEpochSecond()); // 4 of 21: below the resolve threshold
+
+        ArgumentCaptor<MqttMessage> captor = ArgumentCaptor.forClass(MqttMessage.class);
+        verify(mockedClient, times(2)).publish(eq("alerts"), captor.capture());
+        String resolve = new String(captor.getValue().getPayload(), StandardCharsets.UTF_8);
+        assertTrue(resolve.contains("\"alertType\":\"RESOLVED\""));
+        assertTrue(resolve.contains("temperature is back in range after 0 seconds"));
+        assertEquals(AlertStatus.RESOLVED, state.getStatus());
+        assertEquals(1, alertProcessor.getFiredAlerts());
+        assertEquals(1, alertProcessor.getResolvedAlerts());
+    }
+
+    @Test
+    void accept_breachDuringCooldown_isHeldBackUntilCooldownEnds() throws MqttException {
+        Instant start = Instant.ofEpochSecond(1_000_000);
+        alertProcessor.setClock(Clock.fixed(start, ZoneOffset.UTC));
+        stubThreshold("temperature", new SensorThreshold(10.0, 30.0, 60, 50, 0, null, 300));
+        AlertState state = alertProcessor.stateStore.getOrCreate(new SensorKey("temperature", "room-1", "sensor123"), start.getEpochSecond());
+        state.setFirstEvaluationTime(start.getEpochSecond() - 120);
+
+        sendReadings(1, 35.0, start.getEpochSecond()); // Fires
+        sendReadings(2, 20.0, start.getEpochSecond()); // 1 of 3 out of range: resolves, cooldown until start + 300
+        assertEquals(AlertStatus.RESOLVED, state.getStatus());
+        assertEquals(start.getEpochSecond() + 300, state.getCooldownUntil());
+
+        // The sensor flaps back out of range after its time threshold but within the cooldown
+        alertProcessor.setClock(Clock.fixed(start.plusSeconds(100), ZoneOffset.UTC));
+        sendReadings(5, 35.0, start.getEpochSecond() + 100);
+        assertEquals(AlertStatus.PENDING, state.getStatus());
+        verify(mockedClient, times(2)).publish(eq("alerts"), any(MqttMessage.class));
+
+        alertProcessor.setClock(Clock.fixed(start.plusSeconds(300), ZoneOffset.UTC));
+        sendReadings(1, 35.0, start.getEpochSecond() + 300);
+        assertEquals(AlertStatus.FIRING, state.getStatus());
+        verify(mockedClient, times(3)).publish(eq("alerts"), any(MqttMessage.class));
+        assertEquals(2, alertProcessor.getFiredAlerts());
+    }
+
+    @Test
+    void bindTo_exportsCountersByAlertTypeAndRecordsLatencies() {
+        Instant start = Instant.ofEpochSecond(1_000_000);
+        alertProcessor.setClock(Clock.fixed(start, ZoneOffset.UTC));
+        stubThreshold("temperature", new SensorThreshold(10.0, 30.0, 60, 50));
+        AlertState state = alertProcessor.stateStore.getOrCreate(new SensorKey("temperature", "room-1", "sensor123"), start.getEpochSecond());
+        state.setFirstEvaluationTime(start.getEpochSecond() - 120);
+        MetricsRegistry registry = new MetricsRegistry();
+        alertProcessor.bindTo(registry);
+
+        sendReadings(2, 35.0, start.getEpochSecond());
+        alertProcessor.accept("topic", "not a json");
+        String metrics = registry.scrape();
+
+        assertEquals(3, alertProcessor.getReceivedMessages());
+        assertEquals(2, alertProcessor.getDecodedReadings());
+        assertTrue(metrics.contains("edge_alerts_messages_received_total 3\n"));
+        assertTrue(metrics.contains("edge_alerts_readings_dropped_total{reason=\"invalid\"} 1\n"));
+        assertTrue(metrics.contains("edge_alerts_alerts_total{alert_type=\"TOO_HIGH\"} 1\n"));
+        assertTrue(metrics.contains("edge_alerts_alerts_total{alert_type=\"TOO_LOW\"} 0\n"));
+        assertTrue(metrics.contains("edge_alerts_decode_latency_seconds_count{sensor_type=\"temperature\"} 2\n"));
+        assertTrue(metrics.contains("edge_alerts_evaluate_latency_seconds_count{sensor_type=\"temperature\"} 2\n"));
+        assertTrue(metrics.contains("edge_alerts_publish_latency_seconds_count{sensor_type=\"temperature\"} 1\n"));
+        assertTrue(metrics.contains("edge_alerts_tracked_sensors 1\n"));
+        assertTrue(metrics.contains("edge_alerts_window_readings_bucket{le=\"1\"} 0\n"));
+        assertTrue(metrics.contains("edge_alerts_window_readings_bucket{le=\"4\"} 1\n"));
+    }
+
+    @Test
+    void accept_tracedReading_recordsEveryStageUntilAcknowledgement() {
+        Instant start = Instant.ofEpochSecond(1_000_000);
+        alertProcessor.setClock(Clock.fixed(start, ZoneOffset.UTC));
+        stubThreshold("temperature", new SensorThreshold(10.0, 30.0, 60, 50));
+        AlertState state = alertProcessor.stateStore.getOrCreate(new SensorKey("temperature", "room-1", "sensor123"), start.getEpochSecond());
+        state.setFirstEvaluationTime(start.getEpochSecond() - 120);
+        alertProcessor.setLatencyRecording(true);
+        byte[] batch = ("[" + new Gson().toJson(new SensorData("temperature", "room-1", "sensor123", 35.0, start.getEpochSecond() - 3))
+                + "," + new Gson().toJson(new SensorData("temperature", "room-1", "sensor123", 20.0, start.getEpochSecond())) + "]")
+                .getBytes(StandardCharsets.UTF_8);
+
+        alertProcessor.accept("topic", batch, System.nanoTime() - 5_000_000);
+
+        SensorTypeLatencies latencies = alertProcessor.latenciesOf("temperature");
+        assertEquals(1, latencies.receive.getCount());
+        assertTrue(latencies.receive.getMaxNanos() >= 5_000_000);
+        assertEquals(2, latencies.decode.getCount());
+        assertEquals(2, latencies.evaluate.getCount());
+        assertEquals(1, latencies.publish.getCount());
+        assertEquals(1, latencies.endToEnd.getCount());
+        assertEquals(3_000_000_000L, latencies.endToEnd.getMaxNanos());
+    }
+
+    @Test
+    void accept_latencyFieldsEnabled_addsEventTimeAndProcessingDelayToAlert() throws MqttException {
+        Instant start = Instant.ofEpochSecond(1_000_000);
+        alertProcessor.setClock(Clock.fixed(start, ZoneOffset.UTC));
+        stubThreshold("temperature", new SensorThreshold(10.0, 30.0, 60, 50));
+        AlertState state = alertProcessor.stateStore.getOrCreate(new SensorKey("temperature", "room-1", "sensor123"), start.getEpochSecond());
+        state.setFirstEvaluationTime(start.getEpochSecond() - 120);
+        alertProcessor.setLatencyFields(true);
+        byte[] payload = new Gson().toJson(new SensorData("temperature", "room-1", "sensor123", 35.0, start.getEpochSecond() - 2))
+                .getBytes(StandardCharsets.UTF_8);
+
+        alertProcessor.accept("topic", payload, System.nanoTime() - 40_000_000);
+
+        ArgumentCaptor<MqttMessage> captor = ArgumentCaptor.forClass(MqttMessage.class);
+        verify(mockedClient).publish(eq("alerts"), captor.capture());
+        AlertMessage alert = new Gson().fromJson(new String(captor.getValue().getPayload(), StandardCharsets.UTF_8), AlertMessage.class);
+        assertEquals(start.getEpochSecond() - 2, alert.getEventTime());
+        assertTrue(alert.getProcessingDelayMillis() >= 40);
+        assertNull(alertProcessor.latenciesOf("temperature")); // Fields only, no histograms
+    }
+
+    @Test
+    void accept_latencyFieldsDisabled_keepsAlertPayloadUnchanged() throws MqttException {
+        stubThreshold("temperature", new SensorThreshold(10.0, 30.0, 0, 50));
+
+        alertProcessor.accept("topic", new Gson().toJson(new SensorData("temperature", "room-1", "sensor123", 35.0, Instant.now().getEpochSecond())));
+
+        ArgumentCaptor<MqttMessage> captor = ArgumentCaptor.forClass(MqttMessage.class);
+        verify(mockedClient).publish(eq("alerts"), captor.capture());
+        String json = new String(captor.getValue().getPayload(), StandardCharsets.UTF_8);
+        assertFalse(json.contains("eventTime"));
+        assertFalse(json.contains("processingDelayMillis"));
+        assertFalse(json.contains("readingTimestamp"));
+    }
+
+    @Test
+    void acceptRaw_outOfRangeReading_publishesAlert() throws MqttException {
+        SensorThreshold threshold = new SensorThreshold(10.0, 30.0, 60, 50);
+        stubThreshold("temperature", threshold);
+
+        long now = Instant.now().getEpochSecond();
+        AlertState state = alertProcessor.stateStore.getOrCreate(new SensorKey("temperature", "room-1", "sensor123"), now);
+        state.setFirstEvaluationTime(now - 120);
+
+        byte[] payload = new Gson().toJson(new SensorData("Temperature", "room-1", "sensor123", 35.0, now))
+                .getBytes(StandardCharsets.UTF_8);
+        alertProcessor.accept("topic", payload);
+
+        ArgumentCaptor<MqttMessage> captor = ArgumentCaptor.forClass(MqttMessage.class);
+        verify(mockedClient).publish(eq("alerts"), captor.capture());
+        String alert = new String(captor.getValue().getPayload(), StandardCharsets.UTF_8);
+        assertTrue(alert.contains("\"sensorId\":\"sensor123\""));
+        assertTrue(alert.contains("\"location\":\"room-1\""));
+        assertEquals(1, state.getWindow().getOutOfRangeCount());
+    }
+
+    @Test
+    void acceptRaw_invalidPayloads_doNotThrow() {
+        assertDoesNotThrow(() -> alertProcessor.accept("topic", "not a json".getBytes(StandardCharsets.UTF_8)));
+        assertDoesNotThrow(() -> alertProcessor.accept("topic", "{\"sensorId\":null}".getBytes(StandardCharsets.UTF_8)));
+
+        verifyNoInteractions(configLoader);
+    }
+
+    @Test
+    void accept_topicOfUnconfiguredSensorType_skipsWithoutDecoding() {
+        stubThreshold("temperature", new SensorThreshold(10.0, 30.0, 60, 50));
+        alertProcessor.setTopicPattern(TopicPattern.compile("sensors/{location}/{sensorType}/{sensorId}"));
+
+        alertProcessor.accept("sensors/room-1/co2/s-1", "not a json".getBytes(StandardCharsets.UTF_8));
+        alertProcessor.accept("sensors/room-1/co2/s-1", "not a json");
+
+        assertEquals(2, alertProcessor.getUnconfiguredReadings());
+        assertEquals(0, alertProcessor.getInvalidMessages());
+        assertEquals(0, alertProcessor.stateStore.size());
+    }
+
+    @Test
+    void accept_topicOfConfiguredSensorType_isEvaluated() {
+        stubThreshold("temperature", new SensorThreshold(10.0, 30.0, 60, 50));
+        alertProcessor.setTopicPattern(TopicPattern.compile("sensors/{location}/{sensorType}/{sensorId}"));
+        long now = Instant.now().getEpochSecond();
+        byte[] payload = new Gson().toJson(new SensorData("temperature", "room-1", "s-1", 35.0, now))
+                .getBytes(StandardCharsets.UTF_8);
+
+        alertProcessor.accept("sensors/room-1/Temperature/s-1", payload);
+        alertProcessor.accept("unrelated/topic", payload);
+        alertProcessor.accept("sensors/room-1/Temperature/s-1", "not a json".getBytes(StandardCharsets.UTF_8));
+
+        assertEquals(0, alertProcessor.getUnconfiguredReadings());
+        assertEquals(1, alertProcessor.getUnmatchedTopics());
+        assertEquals(1, alertProcessor.getInvalidMessages());
+        assertEquals(2, alertProcessor.stateStore.getOrCreate(new SensorKey("temperature", "room-1", "s-1"), now)
+                .getWindow().size());
+    }
+
+    @Test
+    void acceptRaw_topicMappedToBinaryCodec_decodesWithThatCodec() {
+        stubThreshold("temperature", new SensorThreshold(10.0, 30.0, 60, 50));
+        alertProcessor.setPayloadCodecs(PayloadCodecRegistry.parse("mcu/#=BINARY", new StringInterner()));
+        long now = Instant.now().getEpochSecond();
+        SensorData reading = new SensorData("temperature", "room-1", "s-1", 35.0, now);
+
+        alertProcessor.accept("mcu/s-1", BinaryPayloadCodec.encode(reading));
+        alertProcessor.accept("mcu/s-1", new Gson().toJson(reading).getBytes(StandardCharsets.UTF_8));
+
+        assertEquals(1, alertProcessor.getInvalidMessages());
+        assertEquals(1, alertProcessor.stateStore.getOrCreate(new SensorKey("temperature", "room-1", "s-1"), now)
+                .getWindow().getOutOfRangeCount());
+    }
+
+    @Test
+    void acceptRaw_batchedReadings_evaluateLikeSeparateMessages() throws MqttException {
+        stubThreshold("temperature", new SensorThreshold(10.0, 30.0, 60, 50));
+        Clock clock = Clock.fixed(Instant.ofEpochSecond(1_000), ZoneOffset.UTC);
+        MqttClient batchClient = mock(MqttClient.class);
+        AlertProcessor batched = new AlertProcessor(configLoader, batchClient);
+        SensorKey key = new SensorKey("temperature", "room-1", "s-1");
+        for (AlertProcessor processor : List.of(alertProcessor, batched)) {
+            processor.setClock(clock);
+            processor.stateStore.getOrCreate(key, 1_000).setFirstEvaluationTime(880);
+        }
+        long[] timestamps = {990, 995, 1_000};
+        double[] values = {35.0, 36.0, 20.0};
+
+        for (int i = 0; i < timestamps.length; i++) {
+            alertProcessor.accept("topic", new Gson().toJson(new SensorData("temperature", "room-1", "s-1", values[i], timestamps[i]))
+                    .getBytes(StandardCharsets.UTF_8));
+        }
+        batched.accept("topic", ("{\"sensorType\":\"temperature\",\"location\":\"room-1\",\"sensorId\":\"s-1\","
+                + "\"timestamps\":[990,995,1000],\"values\":[35.0,36.0,20.0]}").getBytes(StandardCharsets.UTF_8));
+
+        SlidingWindow single = alertProcessor.stateStore.getOrCreate(key, 1_000).getWindow();
+        SlidingWindow batch = batched.stateStore.getOrCreate(key, 1_000).getWindow();
+        assertEquals(3, batch.size());
+        assertEquals(single.size(), batch.size());
+        assertEquals(single.getOutOfRangeCount(), batch.getOutOfRangeCount());
+        verify(mockedClient, times(1)).publish(eq("alerts"), any(MqttMessage.class));
+        verify(batchClient, times(1)).publish(eq("alerts"), any(MqttMessage.class));
+    }
+
+    @Test
+    void accept_arrayPayload_skipsIncompleteReadingsOnly() {
+        stubThreshold("temperature", new SensorThreshold(10.0, 30.0, 60, 50));
+        long now = Instant.now().getEpochSecond();
+
+        alertProcessor.accept("topic", "[{\"sensorType\":\"temperature\",\"location\":\"room-1\",\"sensorId\":\"s-1\",\"timestamp\":"
+                + now + "},{\"sensorType\":\"temperature\"},{\"sensorType\":\"temperature\",\"location\":\"room-1\","
+                + "\"sensorId\":\"s-1\",\"timestamp\":" + now + "}]");
+
+        assertEquals(1, alertProcessor.getInvalidMessages());
+        assertEquals(2, alertProcessor.stateStore.getOrCreate(new SensorKey("temperature", "room-1", "s-1"), now)
+                .getWindow().size());
+    }
+
+    @Test
+    void accept_eventTime_evaluatesSkewedSensorOnItsOwnClock() throws MqttException {
+        stubThreshold("temperature", new SensorThreshold(10.0, 30.0, 60, 50));
+        alertProcessor.setTimeMode(TimeMode.EVENT);
+        long skewed = Instant.now().getEpochSecond() - 86_400; // Sensor clock a day behind
+
+        for (long t = 0; t <= 60; t += 10) {
+            alertProcessor.accept("topic", new Gson().toJson(new SensorData("temperature", "room-1", "s-1", 35.0, skewed + t)));
+        }
+
+        AlertState state = alertProcessor.stateStore.get(new SensorKey("temperature", "room-1", "s-1"));
+        assertEquals(skewed + 60, state.getEventTime());
+        assertEquals(skewed + 60, state.getFirstEvaluationTime()); // Reset by the alert
+        assertEquals(7, state.getWindow().size()); // Processing time would have evicted every reading
+        verify(mockedClient, times(1)).publish(eq("alerts"), any(MqttMessage.class));
+    }
+
+    @Test
+    void accept_fullWindow_countsTruncatedReadings() {
+        stubThreshold("temperature", new SensorThreshold(10.0, 30.0, 60, 50));
+        alertProcessor = new AlertProcessor(configLoader, new AlertStateStore(100, 3_600, 1, 3), mockedClient);
+        long now = Instant.now().getEpochSecond();
+
+        for (long t = 4; t >= 0; t--) {
+            alertProcessor.accept("topic", new Gson().toJson(new SensorData("temperature", "room-1", "s-1", 20.0, now - t)));
+        }
+
+        assertEquals(2, alertProcessor.getTruncatedReadings());
+        assertEquals(3, alertProcessor.stateStore.get(new SensorKey("temperature", "room-1", "s-1")).getWindow().size());
+    }
+
+    @Test
+    void accept_eventTime_discardsReadingsBehindWatermark() {
+        stubThreshold("temperature", new SensorThreshold(10.0, 30.0, 60, 50));
+        alertProcessor.setTimeMode(TimeMode.EVENT);
+        alertProcessor.setAllowedLatenessSeconds(10);
+        long now = Instant.now().getEpochSecond();
+
+        for (long timestamp : new long[]{now, now - 5, now - 10, now - 11, now + 20, now + 9}) {
+            alertProcessor.accept("topic", new Gson().toJson(new SensorData("temperature", "room-1", "s-1", 20.0, timestamp)));
+        }
+
+        assertEquals(2, alertProcessor.getLateReadings()); // now - 11, and now + 9 after the clock moved to now + 20
+        AlertState state = alertProcessor.stateStore.get(new SensorKey("temperature", "room-1", "s-1"));
+        assertEquals(now + 20, state.getEventTime());
+        assertEquals(4, state.getWindow().size());
+        assertEquals(now - 10, state.getWindow().timestampAt(0));
+        assertThrows(IllegalArgumentException.class, () -> alertProcessor.setAllowedLatenessSeconds(-1));
+    }
+
     @Test
     void onAlertGenerated_mqttMessageContainsCorrectJson() throws Exception {
         SensorThreshold threshold = new SensorThreshold();
@@ -188,22 +731,23 @@ class AlertProcessorTest {
         threshold.setTimeThreshold(30);
         threshold.setPercentageThreshold(50); // assume >50% triggers alert
 
-        when(configLoader.getThreshold("humidity")).thenReturn(threshold);
+        stubThreshold("humidity", threshold);
 
         String sensorType = "humidity";
         long now = Instant.now().getEpochSecond();
 
         // Simulate 5 previous out-of-range readings
+        AlertState state = alertProcessor.stateStore.getOrCreate(new SensorKey(sensorType, null, "sensorX"), now);
         for (int i = 0; i < 5; i++) {
             SensorData historicalData = new SensorData();
             historicalData.setSensorId("sensorX");
             historicalData.setSensorType(sensorType);
             historicalData.setValue(5.0); // too low
             historicalData.setTimestamp(now - 20 + i); // within 30-second window
-            alertProcessor.history.computeIfAbsent(sensorType, k -> new ArrayList<>()).add(historicalData);
+            state.getWindow().add(historicalData, true);
         }
 
-        alertProcessor.firstEvaluationTime.put(sensorType, now - 60); // simulate that enough time has passed
+        state.setFirstEvaluationTime(now - 60); // simulate that enough time has passed
 
         // Now send the current reading that will also be out of range
         SensorData newData = new SensorData();
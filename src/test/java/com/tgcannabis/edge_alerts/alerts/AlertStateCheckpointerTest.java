@@ -0,0 +1,183 @@
+package com.tgcannabis.edge_alerts.alerts;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AlertStateCheckpointerTest {
+
+    @TempDir
+    Path directory;
+
+    private static SensorKey key(String sensorId) {
+        return new SensorKey("temperature", "room-1", sensorId);
+    }
+
+    private static void addReadings(AlertStateStore store, SensorKey key, long firstEvaluationTime, long... timestamps) {
+        store.compute(key, timestamps[timestamps.length - 1], state -> {
+            state.setFirstEvaluationTime(firstEvaluationTime);
+            for (long timestamp : timestamps) {
+                state.getWindow().add(timestamp, timestamp % 2 == 0 ? 50.0 : 20.0, timestamp % 2 == 0);
+            }
+            return null;
+        });
+    }
+
+    @Test
+    void restore_withoutCheckpoint_restoresNothing() throws IOException {
+        AlertStateStore store = new AlertStateStore();
+        try (AlertStateCheckpointer checkpointer = new AlertStateCheckpointer(store, directory)) {
+            assertEquals(0, checkpointer.restore());
+            assertEquals(0, checkpointer.getGeneration());
+        }
+        assertEquals(0, store.size());
+    }
+
+    @Test
+    void restore_afterCheckpoint_resumesWindowsAndEvaluationPeriods() throws IOException {
+        AlertStateStore store = new AlertStateStore();
+        addReadings(store, key("a"), 100, 100, 101, 102);
+        addReadings(store, new SensorKey("humidity", null, "b"), AlertState.NOT_STARTED, 105);
+        store.compute(key("a"), 102, state -> {
+            state.setStatus(AlertStatus.RESOLVED);
+            state.setStatusSince(101);
+            state.setCooldownUntil(401);
+            return null;
+        });
+        try (AlertStateCheckpointer checkpointer = new AlertStateCheckpointer(store, directory)) {
+            assertTrue(checkpointer.checkpoint());
+        }
+
+        AlertStateStore restored = new AlertStateStore();
+        try (AlertStateCheckpointer checkpointer = new AlertStateCheckpointer(restored, directory)) {
+            assertEquals(2, checkpointer.restore());
+        }
+
+        AlertState a = restored.get(key("a"));
+        assertEquals(100, a.getFirstEvaluationTime());
+        assertEquals(AlertStatus.RESOLVED, a.getStatus());
+        assertEquals(101, a.getStatusSince());
+        assertEquals(401, a.getCooldownUntil());
+        assertEquals(102, a.getLastSeen());
+        assertEquals(3, a.getWindow().size());
+        assertEquals(2, a.getWindow().getOutOfRangeCount());
+        assertEquals(101, a.getWindow().timestampAt(1));
+        assertEquals(20.0, a.getWindow().valueAt(1));
+
+        AlertState b = restored.get(new SensorKey("humidity", null, "b"));
+        assertFalse(b.hasStarted());
+        assertEquals(AlertStatus.OK, b.getStatus());
+        assertEquals(1, b.getWindow().size());
+    }
+
+    @Test
+    void restore_afterCheckpoint_resumesBuckets() throws IOException {
+        AlertStateStore store = new AlertStateStore();
+        store.compute(key("a"), 130, state -> {
+            state.setBuckets(new BucketedWindow(60));
+            state.getBuckets().add(100, 10.0, false);
+            state.getBuckets().add(110, 50.0, true);
+            state.getBuckets().add(130, 30.0, false);
+            return null;
+        });
+        try (AlertStateCheckpointer checkpointer = new AlertStateCheckpointer(store, directory)) {
+            assertTrue(checkpointer.checkpoint());
+        }
+
+        AlertStateStore restored = new AlertStateStore();
+        try (AlertStateCheckpointer checkpointer = new AlertStateCheckpointer(restored, directory)) {
+            assertEquals(1, checkpointer.restore());
+        }
+
+        AlertState a = restored.get(key("a"));
+        assertTrue(a.getWindow().isEmpty());
+        BucketedWindow buckets = a.getBuckets();
+        assertEquals(60, buckets.getBucketSeconds());
+        assertEquals(2, buckets.size());
+        assertEquals(60, buckets.startAt(0));
+        assertEquals(2, buckets.countAt(0));
+        assertEquals(1, buckets.outOfRangeCountAt(0));
+        assertEquals(10.0, buckets.minAt(0));
+        assertEquals(50.0, buckets.maxAt(0));
+        assertEquals(60.0, buckets.sumAt(0));
+        assertEquals(120, buckets.startAt(1));
+        assertSame(buckets, a.getActiveWindow());
+    }
+
+    @Test
+    void checkpoint_alternatesSlotsAndContinuesGeneration() throws IOException {
+        AlertStateStore store = new AlertStateStore();
+        addReadings(store, key("a"), 100, 100);
+        try (AlertStateCheckpointer checkpointer = new AlertStateCheckpointer(store, directory)) {
+            assertTrue(checkpointer.checkpoint());
+            assertTrue(checkpointer.checkpoint());
+        } // close() writes generation 3
+
+        try (AlertStateCheckpointer checkpointer = new AlertStateCheckpointer(new AlertStateStore(), directory)) {
+            checkpointer.restore();
+            assertEquals(3, checkpointer.getGeneration());
+        }
+    }
+
+    @Test
+    void checkpoint_largerThanInitialSlot_growsFileAndRestoresEveryReading() throws IOException {
+        AlertStateStore store = new AlertStateStore();
+        long[] timestamps = new long[4_000];
+        for (int i = 0; i < timestamps.length; i++) {
+            timestamps[i] = 1_000 + i;
+        }
+        for (int device = 0; device < 30; device++) {
+            addReadings(store, key("s" + device), 1_000, timestamps);
+        }
+        try (AlertStateCheckpointer checkpointer = new AlertStateCheckpointer(store, directory)) {
+            assertTrue(checkpointer.checkpoint());
+            // The snapshot is taken before writing, so later updates are left for the next checkpoint
+            addReadings(store, key("late"), 1_000, 5_000);
+        }
+
+        AlertStateStore restored = new AlertStateStore();
+        try (AlertStateCheckpointer checkpointer = new AlertStateCheckpointer(restored, directory)) {
+            assertEquals(31, checkpointer.restore());
+        }
+        for (int device = 0; device < 30; device++) {
+            assertEquals(timestamps.length, restored.get(key("s" + device)).getWindow().size());
+        }
+    }
+
+    @Test
+    void restore_corruptNewestCheckpoint_fallsBackToPrevious() throws IOException {
+        AlertStateStore store = new AlertStateStore();
+        addReadings(store, key("a"), 100, 100);
+        AlertStateCheckpointer checkpointer = new AlertStateCheckpointer(store, directory);
+        assertTrue(checkpointer.checkpoint()); // generation 1, slot 1
+        addReadings(store, key("b"), 100, 101);
+        assertTrue(checkpointer.checkpoint()); // generation 2, slot 0
+
+        // Simulate a torn write of generation 2
+        try (FileChannel channel = FileChannel.open(directory.resolve("alert-state-0.bin"), StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.wrap(new byte[]{0x7f}), 60);
+        }
+
+        AlertStateStore restored = new AlertStateStore();
+        try (AlertStateCheckpointer recovering = new AlertStateCheckpointer(restored, directory)) {
+            assertEquals(1, recovering.restore());
+            assertEquals(1, recovering.getGeneration());
+        }
+        assertNotNull(restored.get(key("a")));
+        assertNull(restored.get(key("b")));
+    }
+
+    @Test
+    void start_invalidInterval_throwsException() throws IOException {
+        try (AlertStateCheckpointer checkpointer = new AlertStateCheckpointer(new AlertStateStore(), directory)) {
+            assertThrows(IllegalArgumentException.class, () -> checkpointer.start(0));
+        }
+    }
+}
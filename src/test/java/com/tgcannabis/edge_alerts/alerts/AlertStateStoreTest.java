@@ -0,0 +1,146 @@
+package com.tgcannabis.edge_alerts.alerts;
+
+import com.tgcannabis.edge_alerts.model.SensorData;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AlertStateStoreTest {
+
+    private static SensorKey key(String sensorId) {
+        return new SensorKey("temperature", "room-1", sensorId);
+    }
+
+    @Test
+    void constructor_invalidLimits_throwsException() {
+        assertThrows(IllegalArgumentException.class, () -> new AlertStateStore(0, 60));
+        assertThrows(IllegalArgumentException.class, () -> new AlertStateStore(10, 0));
+        assertThrows(IllegalArgumentException.class, () -> new AlertStateStore(10, 60, 0));
+        assertThrows(IllegalArgumentException.class, () -> new AlertStateStore(10, 60, 1, 0));
+    }
+
+    @Test
+    void getOrCreate_sameKey_returnsSameState() {
+        AlertStateStore store = new AlertStateStore();
+
+        AlertState first = store.getOrCreate(key("a"), 100);
+        AlertState second = store.getOrCreate(key("a"), 101);
+
+        assertSame(first, second);
+        assertEquals(101, second.getLastSeen());
+        assertEquals(1, store.size());
+    }
+
+    @Test
+    void getOrCreate_overCapacity_evictsLeastRecentlySeenKey() {
+        AlertStateStore store = new AlertStateStore(2, 3_600, 1);
+
+        store.getOrCreate(key("a"), 100);
+        store.getOrCreate(key("b"), 101);
+        store.getOrCreate(key("a"), 102); // "b" is now the least recently seen
+        store.getOrCreate(key("c"), 103);
+
+        assertEquals(2, store.size());
+        assertNotNull(store.get(key("a")));
+        assertNull(store.get(key("b")));
+        assertNotNull(store.get(key("c")));
+        assertEquals(1, store.getEvictedKeys());
+    }
+
+    @Test
+    void getOrCreate_expiresIdleKeys() {
+        AlertStateStore store = new AlertStateStore(100, 60, 1);
+
+        store.getOrCreate(key("a"), 100);
+        store.getOrCreate(key("b"), 150);
+        store.getOrCreate(key("c"), 200); // "a" idle for 100s, "b" for 50s
+
+        assertNull(store.get(key("a")));
+        assertNotNull(store.get(key("b")));
+        assertEquals(2, store.size());
+        assertEquals(1, store.getExpiredKeys());
+    }
+
+    @Test
+    void getOrCreate_appliesWindowCapacity_andReportsWindowTotals() {
+        AlertStateStore store = new AlertStateStore(100, 3_600, 4, 2);
+
+        AlertState a = store.getOrCreate(key("a"), 100);
+        AlertState b = store.getOrCreate(key("b"), 100);
+        for (int i = 0; i < 5; i++) {
+            a.getWindow().add(100 + i, 20.0, false);
+        }
+
+        assertEquals(2, a.getWindow().getMaxCapacity());
+        assertEquals(3, store.getDroppedReadings());
+        assertEquals(a.getWindow().getFootprintBytes() + b.getWindow().getFootprintBytes(),
+                store.getWindowFootprintBytes());
+    }
+
+    @Test
+    void get_unknownKey_returnsNull() {
+        assertNull(new AlertStateStore().get(key("missing")));
+    }
+
+    @Test
+    void get_doesNotMarkKeyAsSeen() {
+        AlertStateStore store = new AlertStateStore(2, 3_600, 1);
+
+        store.getOrCreate(key("a"), 100);
+        store.getOrCreate(key("b"), 101);
+        assertNotNull(store.get(key("a"))); // "a" stays the least recently seen
+        store.getOrCreate(key("c"), 102);
+
+        assertNull(store.get(key("a")));
+        assertNotNull(store.get(key("b")));
+        assertNotNull(store.get(key("c")));
+        assertEquals(1, store.getEvictedKeys());
+    }
+
+    @Test
+    void compute_concurrentProducers_keepCountsExact() throws Exception {
+        int producers = 32;
+        int sensors = 50;
+        int readingsPerProducer = 20_000;
+        AlertStateStore store = new AlertStateStore(10_000, 3_600, 8, producers * readingsPerProducer); // Windows never full
+
+        ExecutorService executor = Executors.newFixedThreadPool(producers);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int p = 0; p < producers; p++) {
+            futures.add(executor.submit(() -> {
+                start.await();
+                for (int i = 0; i < readingsPerProducer; i++) {
+                    SensorKey key = key("s" + (i % sensors));
+                    boolean outOfRange = i % 2 == 0;
+                    SensorData reading = new SensorData("temperature", "room-1", key.sensorId(), i, 1_000);
+                    store.compute(key, 1_000, state -> {
+                        state.getWindow().add(reading, outOfRange);
+                        return null;
+                    });
+                }
+                return null;
+            }));
+        }
+        start.countDown();
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        executor.shutdown();
+
+        int perSensor = producers * readingsPerProducer / sensors;
+        assertEquals(sensors, store.size());
+        for (int s = 0; s < sensors; s++) {
+            SlidingWindow window = store.get(key("s" + s)).getWindow();
+            assertEquals(perSensor, window.size());
+            assertEquals(s % 2 == 0 ? perSensor : 0, window.getOutOfRangeCount());
+        }
+    }
+}
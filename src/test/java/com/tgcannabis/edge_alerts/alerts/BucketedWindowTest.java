@@ -0,0 +1,136 @@
+package com.tgcannabis.edge_alerts.alerts;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BucketedWindowTest {
+
+    @Test
+    void constructor_invalidArguments_throwException() {
+        assertThrows(IllegalArgumentException.class, () -> new BucketedWindow(0));
+        assertThrows(IllegalArgumentException.class, () -> new BucketedWindow(10, 0));
+    }
+
+    @Test
+    void add_readingsOfOneBucket_areAggregated() {
+        BucketedWindow window = new BucketedWindow(10);
+        window.add(100, 20.0, false);
+        window.add(105, 35.0, true);
+        window.add(109, 5.0, true);
+
+        assertEquals(1, window.size());
+        assertEquals(100, window.startAt(0));
+        assertEquals(3, window.countAt(0));
+        assertEquals(2, window.outOfRangeCountAt(0));
+        assertEquals(5.0, window.minAt(0));
+        assertEquals(35.0, window.maxAt(0));
+        assertEquals(60.0, window.sumAt(0));
+        assertEquals(3, window.getReadingCount());
+        assertEquals(200.0 / 3, window.percentageOut(), 1e-9);
+        assertEquals(109, window.newestTimestamp());
+    }
+
+    @Test
+    void add_outOfOrderReadings_keepBucketsInTimeOrder() {
+        BucketedWindow window = new BucketedWindow(10);
+        for (long timestamp : new long[]{100, 130, 110, 135, 101, 90, 120, -5}) {
+            window.add(timestamp, 1.0, false);
+        }
+
+        long[] starts = {-10, 90, 100, 110, 120, 130};
+        int[] counts = {1, 1, 2, 1, 1, 2};
+        assertEquals(starts.length, window.size());
+        for (int i = 0; i < starts.length; i++) {
+            assertEquals(starts[i], window.startAt(i));
+            assertEquals(counts[i], window.countAt(i));
+        }
+        assertEquals(135, window.newestTimestamp());
+    }
+
+    @Test
+    void memory_isBoundedByBucketsNotSampleRate() {
+        BucketedWindow window = new BucketedWindow(60);
+        for (long timestamp = 0; timestamp < 3_600; timestamp++) {
+            for (int sample = 0; sample < 10; sample++) {
+                window.add(timestamp, sample, sample == 0);
+            }
+            window.evictOlderThan(timestamp - 3_600);
+        }
+        long footprint = window.getFootprintBytes();
+        for (long timestamp = 3_600; timestamp < 7_200; timestamp++) {
+            for (int sample = 0; sample < 100; sample++) {
+                window.add(timestamp, sample, sample == 0);
+            }
+            window.evictOlderThan(timestamp - 3_600);
+        }
+
+        assertEquals(61, window.size()); // One partially expired bucket beyond the hour
+        assertEquals(footprint, window.getFootprintBytes());
+        // 60 buckets with 1 in 100 readings out of range, and the oldest bucket with 1 in 10
+        assertEquals(100.0 * (60 * 60 + 60) / (60 * 6_000 + 600), window.percentageOut(), 1e-9);
+    }
+
+    @Test
+    void evictOlderThan_keepsBucketHoldingTheCutoff() {
+        BucketedWindow window = new BucketedWindow(10);
+        window.add(100, 1.0, true);
+        window.add(109, 1.0, true);
+        window.add(110, 1.0, false);
+
+        assertEquals(0, window.evictOlderThan(109));
+        assertEquals(2, window.evictOlderThan(110));
+        assertEquals(1, window.getReadingCount());
+        assertEquals(0, window.getOutOfRangeCount());
+        assertEquals(1, window.evictOlderThan(200));
+        assertTrue(window.isEmpty());
+        assertThrows(IllegalStateException.class, window::newestTimestamp);
+    }
+
+    @Test
+    void add_fullWindow_dropsOldestBucket() {
+        BucketedWindow window = new BucketedWindow(1, 4);
+        for (long timestamp = 0; timestamp < 6; timestamp++) {
+            window.add(timestamp, 1.0, false);
+            window.add(timestamp, 1.0, false);
+        }
+
+        assertEquals(4, window.size());
+        assertEquals(2, window.startAt(0));
+        assertEquals(8, window.getReadingCount());
+        assertEquals(4, window.getDroppedReadings());
+    }
+
+    @Test
+    void reclassify_usesMinAndMaxOfEachBucket() {
+        BucketedWindow window = new BucketedWindow(10);
+        window.add(0, 15.0, false); // Bucket 0: 15 to 25, within the new range
+        window.add(1, 25.0, false);
+        window.add(10, 40.0, false); // Bucket 10: 40 to 50, above the new range
+        window.add(11, 50.0, false);
+        window.add(20, 25.0, false); // Bucket 20: 25 to 35, straddles the new maximum
+        window.add(21, 35.0, true);
+
+        window.reclassify(10.0, 30.0);
+
+        assertEquals(0, window.outOfRangeCountAt(0));
+        assertEquals(2, window.outOfRangeCountAt(1));
+        assertEquals(1, window.outOfRangeCountAt(2));
+        assertEquals(3, window.getOutOfRangeCount());
+    }
+
+    @Test
+    void merge_aggregatedReadings_foldIntoCoveringBucket() {
+        BucketedWindow window = new BucketedWindow(60);
+        window.merge(10, 5, 1, 1.0, 9.0, 20.0);
+        window.merge(50, 3, 3, 40.0, 45.0, 130.0);
+
+        assertEquals(1, window.size());
+        assertEquals(0, window.startAt(0));
+        assertEquals(8, window.countAt(0));
+        assertEquals(4, window.outOfRangeCountAt(0));
+        assertEquals(1.0, window.minAt(0));
+        assertEquals(45.0, window.maxAt(0));
+        assertEquals(150.0, window.sumAt(0));
+    }
+}
@@ -0,0 +1,192 @@
+package com.tgcannabis.edge_alerts.alerts;
+
+import com.tgcannabis.edge_alerts.model.SensorData;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SlidingWindowTest {
+
+    private static SensorData reading(long timestamp, double value) {
+        return new SensorData("temperature", "room-1", "sensor-1", value, timestamp);
+    }
+
+    @Test
+    void emptyWindow_reportsZeroPercentage() {
+        SlidingWindow window = new SlidingWindow();
+
+        assertTrue(window.isEmpty());
+        assertEquals(0, window.size());
+        assertEquals(0.0, window.percentageOut());
+    }
+
+    @Test
+    void add_tracksOutOfRangeCount() {
+        SlidingWindow window = new SlidingWindow();
+        window.add(reading(100, 20.0), false);
+        window.add(reading(101, 50.0), true);
+        window.add(reading(102, 55.0), true);
+        window.add(reading(103, 21.0), false);
+
+        assertEquals(4, window.size());
+        assertEquals(2, window.getOutOfRangeCount());
+        assertEquals(50.0, window.percentageOut());
+    }
+
+    @Test
+    void evictOlderThan_removesOnlyExpiredReadingsFromHead() {
+        SlidingWindow window = new SlidingWindow();
+        window.add(reading(100, 50.0), true);
+        window.add(reading(101, 20.0), false);
+        window.add(reading(105, 50.0), true);
+
+        int evicted = window.evictOlderThan(102);
+
+        assertEquals(2, evicted);
+        assertEquals(1, window.size());
+        assertEquals(1, window.getOutOfRangeCount());
+        assertEquals(100.0, window.percentageOut());
+    }
+
+    @Test
+    void evictOlderThan_keepsReadingsExactlyAtCutoff() {
+        SlidingWindow window = new SlidingWindow();
+        window.add(reading(100, 20.0), false);
+
+        assertEquals(0, window.evictOlderThan(100));
+        assertEquals(1, window.size());
+    }
+
+    @Test
+    void add_outOfOrderReading_isEvictedInTimestampOrder() {
+        SlidingWindow window = new SlidingWindow();
+        window.add(reading(105, 20.0), false);
+        window.add(reading(110, 20.0), false);
+        window.add(reading(100, 50.0), true); // arrives late
+
+        assertEquals(1, window.evictOlderThan(101));
+        assertEquals(2, window.size());
+        assertEquals(0, window.getOutOfRangeCount());
+    }
+
+    @Test
+    void add_shuffledReadings_areKeptInTimestampOrder() {
+        SlidingWindow window = new SlidingWindow();
+        long[] arrival = {50, 10, 40, 30, 30, 70, 0, 60, 20, 45, 5, 65};
+        for (long timestamp : arrival) {
+            window.add(timestamp, timestamp, timestamp >= 60);
+        }
+        window.evictOlderThan(1); // Move the head so later inserts wrap around the ring
+        window.add(1, 1, false);
+        window.add(69, 69, true);
+
+        long previous = Long.MIN_VALUE;
+        for (int i = 0; i < window.size(); i++) {
+            assertTrue(window.timestampAt(i) >= previous);
+            assertEquals(window.timestampAt(i), window.valueAt(i));
+            previous = window.timestampAt(i);
+        }
+        assertEquals(13, window.size());
+        assertEquals(4, window.getOutOfRangeCount());
+        assertEquals(70, window.newestTimestamp());
+        assertEquals(1, window.timestampAt(0));
+    }
+
+    @Test
+    void newestTimestamp_emptyWindow_throwsException() {
+        assertThrows(IllegalStateException.class, () -> new SlidingWindow().newestTimestamp());
+    }
+
+    @Test
+    void add_beyondInitialCapacity_growsAndKeepsCounts() {
+        SlidingWindow window = new SlidingWindow();
+        for (int i = 0; i < 100; i++) {
+            window.add(reading(i, i), i % 4 == 0);
+        }
+        window.evictOlderThan(50);
+        for (int i = 100; i < 200; i++) {
+            window.add(reading(i, i), i % 4 == 0);
+        }
+
+        assertEquals(150, window.size());
+        assertEquals(37, window.getOutOfRangeCount()); // multiples of 4 in [50, 199]
+        assertEquals(50, window.evictOlderThan(100));
+        assertEquals(25, window.getOutOfRangeCount());
+    }
+
+    @Test
+    void add_retainsOnlyTimestamp_soReadingsCanBeReused() {
+        SlidingWindow window = new SlidingWindow();
+        SensorData reused = reading(100, 50.0);
+        window.add(reused, true);
+        reused.setTimestamp(200);
+        window.add(reused, false);
+
+        assertEquals(1, window.evictOlderThan(150));
+        assertEquals(1, window.size());
+        assertEquals(0, window.getOutOfRangeCount());
+    }
+
+    @Test
+    void reclassify_recountsOutOfRangeReadingsAndKeepsWindow() {
+        SlidingWindow window = new SlidingWindow();
+        window.add(reading(100, 20.0), false);
+        window.add(reading(101, 28.0), false);
+        window.add(reading(102, 35.0), true);
+
+        window.reclassify(value -> value > 25.0);
+
+        assertEquals(3, window.size());
+        assertEquals(2, window.getOutOfRangeCount());
+        assertEquals(1, window.evictOlderThan(101));
+        assertEquals(2, window.getOutOfRangeCount());
+    }
+
+    @Test
+    void constructor_nonPositiveCapacity_throwsException() {
+        assertThrows(IllegalArgumentException.class, () -> new SlidingWindow(0));
+    }
+
+    @Test
+    void add_atMaxCapacity_dropsOldestReading() {
+        SlidingWindow window = new SlidingWindow(3);
+        window.add(reading(100, 50.0), true);
+        window.add(reading(101, 20.0), false);
+        window.add(reading(102, 20.0), false);
+        window.add(reading(103, 50.0), true);
+
+        assertEquals(3, window.size());
+        assertEquals(1, window.getOutOfRangeCount());
+        assertEquals(1, window.getDroppedReadings());
+        assertEquals(0, window.evictOlderThan(101));
+    }
+
+    @Test
+    void add_beyondMaxCapacity_growsOnlyUpToMaxCapacity() {
+        SlidingWindow window = new SlidingWindow(40);
+        for (int i = 0; i < 100; i++) {
+            window.add(reading(i, i), i % 4 == 0);
+        }
+
+        assertEquals(40, window.size());
+        assertEquals(60, window.getDroppedReadings());
+        assertEquals(10, window.getOutOfRangeCount()); // multiples of 4 in [60, 99]
+        // 48-byte window, two 16 + 40 * 8 byte arrays and a 16 + 40 byte array
+        assertEquals(48 + 336 + 336 + 56, window.getFootprintBytes());
+    }
+
+    @Test
+    void getFootprintBytes_changesOnlyWhenArraysGrow() {
+        SlidingWindow window = new SlidingWindow();
+        long initial = window.getFootprintBytes();
+        for (int i = 0; i < 16; i++) {
+            window.add(reading(i, i), false);
+        }
+
+        assertEquals(48 + 144 + 144 + 32, initial);
+        assertEquals(initial, window.getFootprintBytes());
+
+        window.add(reading(16, 16), false);
+        assertEquals(48 + 272 + 272 + 48, window.getFootprintBytes());
+    }
+}
@@ -0,0 +1,92 @@
+package com.tgcannabis.edge_alerts.codec;
+
+import com.tgcannabis.edge_alerts.model.SensorData;
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BinaryPayloadCodecTest {
+    private final BinaryPayloadCodec codec = new BinaryPayloadCodec();
+
+    @Test
+    void decode_littleEndianRecord_fillsReading() {
+        ByteBuffer buffer = ByteBuffer.allocate(17 + 3 + 11 + 6 + 3).order(ByteOrder.LITTLE_ENDIAN);
+        buffer.put((byte) BinaryPayloadCodec.VERSION).putLong(1_700_000_000L).putDouble(-4.75);
+        buffer.put((byte) 11).put("temperature".getBytes());
+        buffer.put((byte) 6).put("room-1".getBytes());
+        buffer.put((byte) 3).put("s-1".getBytes());
+        SensorData reuse = new SensorData();
+
+        SensorData data = codec.decode(buffer.array(), reuse);
+
+        assertSame(reuse, data);
+        assertEquals("temperature", data.getSensorType());
+        assertEquals("room-1", data.getLocation());
+        assertEquals("s-1", data.getSensorId());
+        assertEquals(-4.75, data.getValue());
+        assertEquals(1_700_000_000L, data.getTimestamp());
+    }
+
+    @Test
+    void encode_roundTripsThroughDecode() {
+        SensorData reading = new SensorData("co2", null, "c-9", 812.0, 1_650_000_000L);
+
+        SensorData decoded = codec.decode(BinaryPayloadCodec.encode(reading), new SensorData());
+
+        assertEquals(reading, decoded);
+    }
+
+    @Test
+    void encode_overlongString_throwsException() {
+        SensorData reading = new SensorData("x".repeat(255), "room-1", "s-1", 1.0, 1L);
+
+        assertThrows(IllegalArgumentException.class, () -> BinaryPayloadCodec.encode(reading));
+    }
+
+    @Test
+    void decode_malformedPayloads_throwPayloadFormatException() {
+        byte[] complete = BinaryPayloadCodec.encode(new SensorData("co2", "room-1", "c-9", 812.0, 1L));
+        byte[] otherVersion = complete.clone();
+        otherVersion[0] = 2;
+
+        assertNull(codec.decode(new byte[0], new SensorData()));
+        assertThrows(PayloadFormatException.class, () -> codec.decode(otherVersion, new SensorData()));
+        assertThrows(PayloadFormatException.class,
+                () -> codec.decode(Arrays.copyOf(complete, complete.length - 1), new SensorData()));
+        assertThrows(PayloadFormatException.class,
+                () -> codec.decode(Arrays.copyOf(complete, complete.length + 1), new SensorData()));
+        assertThrows(PayloadFormatException.class, () -> codec.decode(Arrays.copyOf(complete, 10), new SensorData()));
+    }
+
+    @Test
+    void decodeEach_columnarBatch_yieldsEveryReading() {
+        SensorData device = new SensorData("humidity", "room-2", "h-1", 0, 0);
+        byte[] batch = BinaryPayloadCodec.encodeBatch(device, new long[]{10, 11, 12}, new double[]{40.0, 41.5, 90.0});
+        List<SensorData> readings = new ArrayList<>();
+
+        codec.decodeEach(batch, new SensorData(), data -> readings.add(
+                new SensorData(data.getSensorType(), data.getLocation(), data.getSensorId(), data.getValue(), data.getTimestamp())));
+
+        assertEquals(List.of(
+                new SensorData("humidity", "room-2", "h-1", 40.0, 10),
+                new SensorData("humidity", "room-2", "h-1", 41.5, 11),
+                new SensorData("humidity", "room-2", "h-1", 90.0, 12)), readings);
+    }
+
+    @Test
+    void decodeEach_malformedBatch_throwsPayloadFormatException() {
+        byte[] batch = BinaryPayloadCodec.encodeBatch(new SensorData("co2", null, "c-1", 0, 0), new long[]{1}, new double[]{2});
+
+        assertThrows(PayloadFormatException.class,
+                () -> codec.decodeEach(Arrays.copyOf(batch, batch.length - 1), new SensorData(), data -> { }));
+        assertThrows(PayloadFormatException.class, () -> codec.decode(batch, new SensorData()));
+        assertThrows(IllegalArgumentException.class,
+                () -> BinaryPayloadCodec.encodeBatch(new SensorData(), new long[]{1}, new double[0]));
+    }
+}
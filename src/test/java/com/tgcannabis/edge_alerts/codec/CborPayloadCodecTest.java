@@ -0,0 +1,178 @@
+package com.tgcannabis.edge_alerts.codec;
+
+import com.tgcannabis.edge_alerts.model.SensorData;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CborPayloadCodecTest {
+    private final CborPayloadCodec codec = new CborPayloadCodec();
+
+    /**
+     * Minimal CBOR writer for building test payloads.
+     */
+    private static final class Cbor {
+        private final ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        Cbor head(int major, long argument) {
+            if (argument < 24) {
+                out.write(major << 5 | (int) argument);
+            } else if (argument < 0x100) {
+                out.write(major << 5 | 24);
+                out.write((int) argument);
+            } else if (argument < 0x10000) {
+                out.write(major << 5 | 25);
+                bigEndian(argument, 2);
+            } else {
+                out.write(major << 5 | 27);
+                bigEndian(argument, 8);
+            }
+            return this;
+        }
+
+        Cbor text(String value) {
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            head(3, bytes.length);
+            out.writeBytes(bytes);
+            return this;
+        }
+
+        Cbor integer(long value) {
+            return value >= 0 ? head(0, value) : head(1, -1 - value);
+        }
+
+        Cbor float64(double value) {
+            out.write(0xFB);
+            bigEndian(Double.doubleToLongBits(value), 8);
+            return this;
+        }
+
+        Cbor raw(int... bytes) {
+            for (int b : bytes) out.write(b);
+            return this;
+        }
+
+        private void bigEndian(long value, int length) {
+            for (int i = length - 1; i >= 0; i--) out.write((int) (value >>> (8 * i)));
+        }
+
+        byte[] bytes() {
+            return out.toByteArray();
+        }
+    }
+
+    private static Cbor reading() {
+        return new Cbor().head(5, 5)
+                .text("sensorType").text("temperature")
+                .text("location").text("room-1")
+                .text("sensorId").text("s-1")
+                .text("value").float64(23.5)
+                .text("timestamp").integer(1_700_000_000L);
+    }
+
+    @Test
+    void decode_definiteMap_fillsReading() {
+        SensorData reuse = new SensorData();
+
+        SensorData data = codec.decode(reading().bytes(), reuse);
+
+        assertSame(reuse, data);
+        assertEquals("temperature", data.getSensorType());
+        assertEquals("room-1", data.getLocation());
+        assertEquals("s-1", data.getSensorId());
+        assertEquals(23.5, data.getValue());
+        assertEquals(1_700_000_000L, data.getTimestamp());
+    }
+
+    @Test
+    void decode_indefiniteMapWithUnknownAndTaggedFields_fillsReading() {
+        byte[] payload = new Cbor().raw(0xBF)
+                .text("extra").head(4, 2).integer(1).head(5, 1).text("k").text("v")
+                .text("sensorId").text("s-2")
+                .text("value").integer(-7)
+                .text("timestamp").raw(0xC1).integer(1_600_000_000L) // Tag 1: epoch time
+                .text("location").raw(0xF6)
+                .text("half").raw(0xF9, 0x3C, 0x00)
+                .raw(0xFF)
+                .bytes();
+
+        SensorData data = codec.decode(payload, new SensorData());
+
+        assertNull(data.getSensorType());
+        assertNull(data.getLocation());
+        assertEquals("s-2", data.getSensorId());
+        assertEquals(-7.0, data.getValue());
+        assertEquals(1_600_000_000L, data.getTimestamp());
+    }
+
+    @Test
+    void decode_halfAndSingleFloats_areConverted() {
+        byte[] half = new Cbor().head(5, 1).text("value").raw(0xF9, 0x3E, 0x00).bytes(); // 1.5
+        byte[] single = new Cbor().head(5, 1).text("value").raw(0xFA, 0x41, 0xC8, 0x00, 0x00).bytes(); // 25.0
+
+        assertEquals(1.5, codec.decode(half, new SensorData()).getValue());
+        assertEquals(25.0, codec.decode(single, new SensorData()).getValue());
+    }
+
+    @Test
+    void decode_reusedInstance_resetsMissingFields() {
+        SensorData reuse = codec.decode(reading().bytes(), new SensorData());
+
+        codec.decode(new Cbor().head(5, 1).text("sensorId").text("s-3").bytes(), reuse);
+
+        assertNull(reuse.getSensorType());
+        assertEquals(0, reuse.getTimestamp());
+        assertEquals("s-3", reuse.getSensorId());
+    }
+
+    @Test
+    void decode_emptyOrNull_returnsNull() {
+        assertNull(codec.decode(new byte[0], new SensorData()));
+        assertNull(codec.decode(new byte[]{(byte) 0xF6}, new SensorData()));
+    }
+
+    @Test
+    void decode_malformedPayloads_throwPayloadFormatException() {
+        byte[] complete = reading().bytes();
+        byte[] truncated = Arrays.copyOf(complete, complete.length - 3);
+        byte[] trailing = Arrays.copyOf(complete, complete.length + 1);
+
+        assertThrows(PayloadFormatException.class, () -> codec.decode(new Cbor().head(4, 0).bytes(), new SensorData()));
+        assertThrows(PayloadFormatException.class, () -> codec.decode(truncated, new SensorData()));
+        assertThrows(PayloadFormatException.class, () -> codec.decode(trailing, new SensorData()));
+        assertThrows(PayloadFormatException.class,
+                () -> codec.decode(new Cbor().head(5, 1).text("value").text("high").bytes(), new SensorData()));
+        assertThrows(PayloadFormatException.class,
+                () -> codec.decode(new Cbor().head(5, 1).text("timestamp").float64(1.5).bytes(), new SensorData()));
+    }
+
+    @Test
+    void decode_deeplyNestedUnknownField_throwsPayloadFormatException() {
+        Cbor cbor = new Cbor().head(5, 1).text("extra");
+        for (int i = 0; i < 100; i++) cbor.head(4, 1);
+        byte[] payload = cbor.integer(0).bytes();
+
+        assertThrows(PayloadFormatException.class, () -> codec.decode(payload, new SensorData()));
+    }
+
+    @Test
+    void decodeEach_arrayOfMaps_yieldsEveryReading() {
+        byte[] payload = new Cbor().raw(0x9F)
+                .head(5, 2).text("sensorId").text("a").text("timestamp").integer(1)
+                .raw(0xF6)
+                .head(5, 2).text("sensorId").text("b").text("timestamp").integer(2)
+                .raw(0xFF)
+                .bytes();
+        List<String> sensorIds = new ArrayList<>();
+
+        codec.decodeEach(payload, new SensorData(), data -> sensorIds.add(data == null ? null : data.getSensorId()));
+
+        assertEquals(Arrays.asList("a", null, "b"), sensorIds);
+    }
+}
@@ -0,0 +1,140 @@
+package com.tgcannabis.edge_alerts.codec;
+
+import com.tgcannabis.edge_alerts.model.SensorData;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MessagePackPayloadCodecTest {
+    private final MessagePackPayloadCodec codec = new MessagePackPayloadCodec();
+
+    /**
+     * Minimal MessagePack writer for building test payloads.
+     */
+    private static final class MsgPack {
+        private final ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        MsgPack map(int entries) {
+            out.write(0x80 | entries);
+            return this;
+        }
+
+        MsgPack str(String value) {
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            if (bytes.length < 32) {
+                out.write(0xA0 | bytes.length);
+            } else {
+                out.write(0xD9);
+                out.write(bytes.length);
+            }
+            out.writeBytes(bytes);
+            return this;
+        }
+
+        MsgPack float64(double value) {
+            out.write(0xCB);
+            bigEndian(Double.doubleToLongBits(value), 8);
+            return this;
+        }
+
+        MsgPack raw(int... bytes) {
+            for (int b : bytes) out.write(b);
+            return this;
+        }
+
+        MsgPack bigEndian(long value, int length) {
+            for (int i = length - 1; i >= 0; i--) out.write((int) (value >>> (8 * i)));
+            return this;
+        }
+
+        byte[] bytes() {
+            return out.toByteArray();
+        }
+    }
+
+    private static MsgPack reading() {
+        return new MsgPack().map(5)
+                .str("sensorType").str("humidity")
+                .str("location").str("greenhouse-b")
+                .str("sensorId").str("h-7")
+                .str("value").float64(55.25)
+                .str("timestamp").raw(0xCE).bigEndian(1_700_000_000L, 4);
+    }
+
+    @Test
+    void decode_map_fillsReading() {
+        SensorData reuse = new SensorData();
+
+        SensorData data = codec.decode(reading().bytes(), reuse);
+
+        assertSame(reuse, data);
+        assertEquals("humidity", data.getSensorType());
+        assertEquals("greenhouse-b", data.getLocation());
+        assertEquals("h-7", data.getSensorId());
+        assertEquals(55.25, data.getValue());
+        assertEquals(1_700_000_000L, data.getTimestamp());
+    }
+
+    @Test
+    void decode_integerEncodingsAndUnknownFields_fillsReading() {
+        byte[] payload = new MsgPack().raw(0xDE).bigEndian(5, 2)
+                .str("extra").raw(0x92, 0xC3, 0xC4, 0x02, 0x01, 0x02)
+                .str("ext").raw(0xD6, 0x01, 0, 0, 0, 0)
+                .str("sensorId").str("h-8")
+                .str("value").raw(0xD0, 0xF6) // int8 -10
+                .str("location").raw(0xC0)
+                .bytes();
+
+        SensorData data = codec.decode(payload, new SensorData());
+
+        assertEquals("h-8", data.getSensorId());
+        assertEquals(-10.0, data.getValue());
+        assertNull(data.getLocation());
+        assertEquals(-3.0, codec.decode(new MsgPack().map(1).str("value").raw(0xFD).bytes(), new SensorData()).getValue());
+        assertEquals(1.5, codec.decode(new MsgPack().map(1).str("value").raw(0xCA, 0x3F, 0xC0, 0, 0).bytes(),
+                new SensorData()).getValue());
+    }
+
+    @Test
+    void decode_emptyOrNil_returnsNull() {
+        assertNull(codec.decode(new byte[0], new SensorData()));
+        assertNull(codec.decode(new byte[]{(byte) 0xC0}, new SensorData()));
+    }
+
+    @Test
+    void decode_malformedPayloads_throwPayloadFormatException() {
+        byte[] complete = reading().bytes();
+        byte[] truncated = Arrays.copyOf(complete, complete.length - 2);
+        byte[] trailing = Arrays.copyOf(complete, complete.length + 1);
+
+        assertThrows(PayloadFormatException.class, () -> codec.decode(new byte[]{(byte) 0x90}, new SensorData()));
+        assertThrows(PayloadFormatException.class, () -> codec.decode(truncated, new SensorData()));
+        assertThrows(PayloadFormatException.class, () -> codec.decode(trailing, new SensorData()));
+        assertThrows(PayloadFormatException.class,
+                () -> codec.decode(new MsgPack().map(1).str("sensorId").raw(0x01).bytes(), new SensorData()));
+        assertThrows(PayloadFormatException.class,
+                () -> codec.decode(new MsgPack().map(1).str("extra").raw(0xC1).bytes(), new SensorData()));
+    }
+
+    @Test
+    void decodeEach_arrayOfMaps_yieldsEveryReading() {
+        byte[] payload = new MsgPack().raw(0x93)
+                .map(2).str("sensorId").str("a").str("timestamp").raw(0x01)
+                .raw(0xC0)
+                .map(2).str("sensorId").str("b").str("timestamp").raw(0x02)
+                .bytes();
+        List<String> sensorIds = new ArrayList<>();
+
+        codec.decodeEach(payload, new SensorData(), data -> sensorIds.add(data == null ? null : data.getSensorId()));
+
+        assertEquals(Arrays.asList("a", null, "b"), sensorIds);
+        assertThrows(PayloadFormatException.class,
+                () -> codec.decodeEach(new MsgPack().raw(0x92).map(0).bytes(), new SensorData(), data -> { }));
+    }
+}
@@ -0,0 +1,50 @@
+package com.tgcannabis.edge_alerts.codec;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PayloadCodecRegistryTest {
+
+    @Test
+    void parse_null_decodesEveryTopicAsJson() {
+        PayloadCodecRegistry registry = PayloadCodecRegistry.parse(null, new StringInterner());
+
+        assertEquals(0, registry.size());
+        assertInstanceOf(SensorDataDecoder.class, registry.forTopic("sensors/room-1/temperature"));
+    }
+
+    @Test
+    void parse_mappings_selectCodecByFirstMatchingPattern() {
+        PayloadCodecRegistry registry = PayloadCodecRegistry.parse(
+                "sensors/+/cbor=CBOR, sensors/#=msgpack,,mcu/{sensorType}=BINARY", new StringInterner());
+
+        assertEquals(3, registry.size());
+        assertInstanceOf(CborPayloadCodec.class, registry.forTopic("sensors/room-1/cbor"));
+        assertInstanceOf(MessagePackPayloadCodec.class, registry.forTopic("sensors/room-1/temperature"));
+        assertInstanceOf(BinaryPayloadCodec.class, registry.forTopic("mcu/co2"));
+        assertInstanceOf(SensorDataDecoder.class, registry.forTopic("other/topic"));
+    }
+
+    @Test
+    void parse_invalidMappings_throwException() {
+        StringInterner interner = new StringInterner();
+
+        assertThrows(IllegalArgumentException.class, () -> PayloadCodecRegistry.parse("sensors/#", interner));
+        assertThrows(IllegalArgumentException.class, () -> PayloadCodecRegistry.parse("sensors/#=XML", interner));
+        assertThrows(IllegalArgumentException.class, () -> PayloadCodecRegistry.parse("sensors/{x}=CBOR", interner));
+    }
+
+    @Test
+    void with_returnsNewRegistryLeavingOriginalUnchanged() {
+        PayloadCodec json = new SensorDataDecoder();
+        PayloadCodec custom = (payload, reuse) -> reuse;
+        PayloadCodecRegistry registry = new PayloadCodecRegistry(json);
+
+        PayloadCodecRegistry extended = registry.with(TopicPattern.compile("custom/#"), custom);
+
+        assertSame(custom, extended.forTopic("custom/a/b"));
+        assertSame(json, registry.forTopic("custom/a/b"));
+        assertThrows(NullPointerException.class, () -> new PayloadCodecRegistry(null));
+    }
+}
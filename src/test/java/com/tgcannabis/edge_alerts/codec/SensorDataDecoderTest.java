@@ -0,0 +1,192 @@
+package com.tgcannabis.edge_alerts.codec;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonSyntaxException;
+import com.tgcannabis.edge_alerts.model.SensorData;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SensorDataDecoderTest {
+    private final SensorDataDecoder decoder = new SensorDataDecoder();
+
+    private static byte[] bytes(String json) {
+        return json.getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Decodes every reading of a payload, copying each since the decoder reuses its instance.
+     */
+    private List<SensorData> decodeAll(String json) {
+        List<SensorData> readings = new ArrayList<>();
+        decoder.decodeEach(bytes(json), new SensorData(), data -> readings.add(data == null ? null
+                : new SensorData(data.getSensorType(), data.getLocation(), data.getSensorId(), data.getValue(), data.getTimestamp())));
+        return readings;
+    }
+
+    @Test
+    void decodeInto_flatPayload_readsAllFields() {
+        SensorData data = new SensorData();
+
+        assertTrue(decoder.decodeInto(bytes(
+                "{\"sensorType\":\"temperature\",\"location\":\"room-1\",\"sensorId\":\"t-1\",\"value\":23.75,\"timestamp\":1700000000}"),
+                data));
+
+        assertEquals(new SensorData("temperature", "room-1", "t-1", 23.75, 1700000000L), data);
+    }
+
+    @Test
+    void decodeInto_whitespaceReorderedAndUnknownFields_areHandled() {
+        SensorData data = new SensorData();
+
+        assertTrue(decoder.decodeInto(bytes(
+                " {\n \"timestamp\" : 42 , \"unit\": \"C\", \"meta\": {\"fw\": [1, 2, \"a,}\"]}, \"value\": -1.5e1,"
+                        + " \"sensorId\": \"x\", \"ok\": true }\n"),
+                data));
+
+        assertEquals(42, data.getTimestamp());
+        assertEquals(-15.0, data.getValue());
+        assertEquals("x", data.getSensorId());
+        assertNull(data.getSensorType());
+    }
+
+    @Test
+    void decodeInto_reusedInstance_resetsMissingFields() {
+        SensorData data = new SensorData("co2", "room-2", "c-1", 900.0, 10L);
+
+        assertTrue(decoder.decodeInto(bytes("{\"sensorId\":\"c-2\"}"), data));
+
+        assertEquals(new SensorData(null, null, "c-2", 0.0, 0L), data);
+    }
+
+    @Test
+    void decodeInto_internsSensorTypeAndLocation() {
+        SensorData first = new SensorData();
+        SensorData second = new SensorData();
+        byte[] payload = bytes("{\"sensorType\":\"humidity\",\"location\":\"room-3\",\"sensorId\":\"h-1\",\"value\":55,\"timestamp\":1}");
+
+        decoder.decodeInto(payload, first);
+        decoder.decodeInto(payload.clone(), second);
+
+        assertSame(first.getSensorType(), second.getSensorType());
+        assertSame(first.getLocation(), second.getLocation());
+    }
+
+    @Test
+    void decodeInto_numbersMatchJdkParsing() {
+        String[] values = {"0", "-0", "0.1", "35.0", "-273.15", "123456.789012", "1e3", "2.5E-4",
+                "0.30000000000000004", "12345678901234567890", "9007199254740993"};
+        SensorData data = new SensorData();
+        for (String value : values) {
+            assertTrue(decoder.decodeInto(bytes("{\"value\":" + value + "}"), data), value);
+            assertEquals(Double.parseDouble(value), data.getValue(), value);
+        }
+    }
+
+    @Test
+    void decodeInto_unsupportedInput_returnsFalse() {
+        String[] payloads = {
+                "", "null", "[]", "{", "{\"sensorId\":\"a\\\"b\"}", "{\"value\":\"35.0\"}", "{\"value\":null}",
+                "{\"timestamp\":1.5}", "{\"value\":35.0,}", "{\"value\":35.0} x", "{sensorId:\"a\"}",
+                "{\"value\":-}", "{\"unknown\":}"
+        };
+        for (String payload : payloads) {
+            assertFalse(decoder.decodeInto(bytes(payload), new SensorData()), payload);
+        }
+    }
+
+    @Test
+    void decode_fallsBackToGson() {
+        SensorData data = decoder.decode(bytes("{\"sensorId\":\"a\\u0041\",\"value\":\"35.5\",\"timestamp\":7}"));
+
+        assertEquals("aA", data.getSensorId());
+        assertEquals(35.5, data.getValue());
+        assertEquals(7, data.getTimestamp());
+    }
+
+    @Test
+    void decode_matchesGsonForFastPathPayloads() {
+        Gson gson = new Gson();
+        SensorData expected = new SensorData("pressure", "zone-é", "p-9", 1013.25, 1717171717L);
+        String json = gson.toJson(expected);
+
+        assertEquals(gson.fromJson(json, SensorData.class), decoder.decode(bytes(json)));
+        assertTrue(decoder.decodeInto(bytes(json), new SensorData()));
+    }
+
+    @Test
+    void decode_emptyOrNullPayload_returnsNull() {
+        assertNull(decoder.decode(bytes("")));
+        assertNull(decoder.decode(bytes("null")));
+    }
+
+    @Test
+    void decode_malformedPayload_throwsJsonSyntaxException() {
+        assertThrows(JsonSyntaxException.class, () -> decoder.decode(bytes("not a json")));
+    }
+
+    @Test
+    void decodeEach_singleObject_yieldsOneReading() {
+        assertEquals(List.of(new SensorData("co2", "room-1", "c-1", 400.0, 5)),
+                decodeAll("{\"sensorType\":\"co2\",\"location\":\"room-1\",\"sensorId\":\"c-1\",\"value\":400,\"timestamp\":5}"));
+        assertEquals(Collections.singletonList(null), decodeAll("null"));
+    }
+
+    @Test
+    void decodeEach_array_yieldsReadingsInOrder() {
+        List<SensorData> readings = decodeAll(" [ {\"sensorId\":\"a\",\"value\":1.5,\"timestamp\":1},"
+                + "{\"sensorId\":\"b\\u0042\",\"value\":\"2\",\"timestamp\":2} ,{\"sensorId\":\"c\",\"timestamp\":3}] ");
+
+        assertEquals(3, readings.size());
+        assertEquals(new SensorData(null, null, "a", 1.5, 1), readings.get(0));
+        assertEquals(new SensorData(null, null, "bB", 2.0, 2), readings.get(1)); // Decoded by Gson
+        assertEquals(new SensorData(null, null, "c", 0, 3), readings.get(2));
+        assertTrue(decodeAll("[]").isEmpty());
+    }
+
+    @Test
+    void decodeEach_newlineDelimited_yieldsEveryLine() {
+        List<SensorData> readings = decodeAll("{\"sensorId\":\"a\",\"timestamp\":1}\n{\"sensorId\":\"b\",\"timestamp\":2}\r\n"
+                + "{\"sensorId\":\"c\",\"timestamp\":3}\n");
+
+        assertEquals(List.of("a", "b", "c"), readings.stream().map(SensorData::getSensorId).toList());
+        assertEquals(List.of(1L, 2L, 3L), readings.stream().map(SensorData::getTimestamp).toList());
+    }
+
+    @Test
+    void decodeEach_columnarBatch_pairsTimestampsWithValues() {
+        String batch = "{\"values\":[20.5, 31,-4e1],\"sensorType\":\"temperature\",\"location\":\"room-1\","
+                + "\"sensorId\":\"t-1\",\"timestamps\":[100,101, 102]}";
+
+        assertEquals(List.of(
+                new SensorData("temperature", "room-1", "t-1", 20.5, 100),
+                new SensorData("temperature", "room-1", "t-1", 31.0, 101),
+                new SensorData("temperature", "room-1", "t-1", -40.0, 102)), decodeAll(batch));
+        // Outside the fast path the batch is decoded by Gson with the same result
+        assertEquals(decodeAll(batch), decodeAll(batch.replace("\"t-1\"", "\"t\\u002d1\"")));
+    }
+
+    @Test
+    void decodeEach_malformedBatches_throwJsonSyntaxException() {
+        assertThrows(JsonSyntaxException.class, () -> decodeAll("{\"sensorId\":\"a\",\"timestamps\":[1,2],\"values\":[1]}"));
+        assertThrows(JsonSyntaxException.class, () -> decodeAll("{\"sensorId\":\"a\",\"values\":[1]}"));
+        assertThrows(JsonSyntaxException.class, () -> decodeAll("{\"sensorId\":\"a\",\"timestamps\":[1.5],\"values\":[1]}"));
+        assertThrows(JsonSyntaxException.class, () -> decodeAll("[{\"sensorId\":\"a\"} {\"sensorId\":\"b\"}]"));
+        assertThrows(JsonSyntaxException.class, () -> decodeAll("[{\"sensorId\":\"a\"}"));
+        assertThrows(JsonSyntaxException.class, () -> decodeAll("{\"sensorId\":\"a\"}\nnot a json"));
+    }
+
+    @Test
+    void decodeEach_malformedReading_keepsEarlierReadings() {
+        List<SensorData> readings = new ArrayList<>();
+
+        assertThrows(JsonSyntaxException.class, () -> decoder.decodeEach(
+                bytes("{\"sensorId\":\"a\"}\n{\"sensorId\":}"), new SensorData(), readings::add));
+        assertEquals(1, readings.size());
+    }
+}
@@ -0,0 +1,58 @@
+package com.tgcannabis.edge_alerts.codec;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class StringInternerTest {
+
+    @Test
+    void constructor_invalidCapacity_throwsException() {
+        assertThrows(IllegalArgumentException.class, () -> new StringInterner(0));
+    }
+
+    @Test
+    void intern_sameBytes_returnsSameInstance() {
+        StringInterner interner = new StringInterner();
+        byte[] first = "xxtemperaturexx".getBytes(StandardCharsets.UTF_8);
+        byte[] second = "temperature".getBytes(StandardCharsets.UTF_8);
+
+        String a = interner.intern(first, 2, 11);
+        String b = interner.intern(second, 0, second.length);
+
+        assertEquals("temperature", a);
+        assertSame(a, b);
+    }
+
+    @Test
+    void intern_collidingValues_replaceEachOther() {
+        StringInterner interner = new StringInterner(1);
+        byte[] a = "a".getBytes(StandardCharsets.UTF_8);
+        byte[] b = "b".getBytes(StandardCharsets.UTF_8);
+
+        assertEquals("a", interner.intern(a, 0, 1));
+        assertEquals("b", interner.intern(b, 0, 1));
+        assertEquals("a", interner.intern(a, 0, 1));
+    }
+
+    @Test
+    void intern_multiByteCharacters_areDecodedAsUtf8() {
+        byte[] bytes = "salón".getBytes(StandardCharsets.UTF_8);
+
+        assertEquals("salón", new StringInterner().intern(bytes, 0, bytes.length));
+    }
+
+    @Test
+    void intern_longValues_areNotCached() {
+        StringInterner interner = new StringInterner();
+        byte[] bytes = "x".repeat(StringInterner.MAX_INTERNED_LENGTH + 1).getBytes(StandardCharsets.UTF_8);
+
+        String a = interner.intern(bytes, 0, bytes.length);
+        String b = interner.intern(bytes, 0, bytes.length);
+
+        assertEquals(a, b);
+        assertNotSame(a, b);
+    }
+}
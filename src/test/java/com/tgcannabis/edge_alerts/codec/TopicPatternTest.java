@@ -0,0 +1,64 @@
+package com.tgcannabis.edge_alerts.codec;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TopicPatternTest {
+
+    @Test
+    void compile_malformedPatterns_throwException() {
+        assertThrows(NullPointerException.class, () -> TopicPattern.compile(null));
+        assertThrows(IllegalArgumentException.class, () -> TopicPattern.compile("sensors/{unknown}"));
+        assertThrows(IllegalArgumentException.class, () -> TopicPattern.compile("sensors/{sensorType}/{sensorType}"));
+        assertThrows(IllegalArgumentException.class, () -> TopicPattern.compile("sensors/#/{sensorType}"));
+        assertThrows(IllegalArgumentException.class, () -> TopicPattern.compile("sensors/a+b"));
+        assertThrows(IllegalArgumentException.class, () -> TopicPattern.compile("sensors/x{sensorType}"));
+    }
+
+    @Test
+    void locate_matchingTopic_returnsFieldRanges() {
+        TopicPattern pattern = TopicPattern.compile("sensors/{location}/{sensorType}/{sensorId}");
+        String topic = "sensors/room-1/temperature/s-42";
+
+        long range = pattern.locate(topic, TopicPattern.Field.SENSOR_TYPE);
+        assertEquals(15, TopicPattern.offset(range));
+        assertEquals(11, TopicPattern.length(range));
+        assertEquals("room-1", pattern.extract(topic, TopicPattern.Field.LOCATION));
+        assertEquals("temperature", pattern.extract(topic, TopicPattern.Field.SENSOR_TYPE));
+        assertEquals("s-42", pattern.extract(topic, TopicPattern.Field.SENSOR_ID));
+    }
+
+    @Test
+    void locate_nonMatchingTopic_returnsNoMatch() {
+        TopicPattern pattern = TopicPattern.compile("sensors/{location}/{sensorType}/{sensorId}");
+
+        assertEquals(TopicPattern.NO_MATCH, pattern.locate("devices/room-1/temperature/s-42", TopicPattern.Field.SENSOR_TYPE));
+        assertEquals(TopicPattern.NO_MATCH, pattern.locate("sensors/room-1/temperature", TopicPattern.Field.SENSOR_TYPE));
+        assertEquals(TopicPattern.NO_MATCH, pattern.locate("sensors/room-1/temperature/s-42/extra", TopicPattern.Field.SENSOR_TYPE));
+        assertEquals(TopicPattern.NO_MATCH, pattern.locate("sensor/room-1/temperature/s-42", TopicPattern.Field.SENSOR_TYPE));
+        assertNull(pattern.extract("sensors", TopicPattern.Field.LOCATION));
+    }
+
+    @Test
+    void locate_wildcards_matchAnyLevels() {
+        TopicPattern pattern = TopicPattern.compile("+/{sensorType}/#");
+
+        assertTrue(pattern.captures(TopicPattern.Field.SENSOR_TYPE));
+        assertFalse(pattern.captures(TopicPattern.Field.LOCATION));
+        assertEquals("humidity", pattern.extract("site-a/humidity", TopicPattern.Field.SENSOR_TYPE));
+        assertEquals("humidity", pattern.extract("site-a/humidity/room-1/s-1", TopicPattern.Field.SENSOR_TYPE));
+        assertEquals(TopicPattern.NO_MATCH, pattern.locate("site-a/humidity", TopicPattern.Field.LOCATION));
+        assertEquals("", pattern.extract("site-a/", TopicPattern.Field.SENSOR_TYPE));
+    }
+
+    @Test
+    void matches_checksEveryLevel() {
+        TopicPattern pattern = TopicPattern.compile("sensors/+/cbor");
+
+        assertTrue(pattern.matches("sensors/room-1/cbor"));
+        assertFalse(pattern.matches("sensors/room-1/json"));
+        assertFalse(pattern.matches("sensors/room-1/cbor/extra"));
+        assertTrue(TopicPattern.compile("sensors/#").matches("sensors"));
+    }
+}
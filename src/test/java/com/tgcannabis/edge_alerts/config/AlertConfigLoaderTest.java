@@ -6,9 +6,13 @@ import com.google.gson.reflect.TypeToken;
 import com.tgcannabis.edge_alerts.model.SensorThreshold;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 
+import java.io.IOException;
 import java.io.InputStreamReader;
 import java.lang.reflect.Type;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.HashMap;
 import java.util.Map;
 
@@ -127,4 +131,109 @@ class AlertConfigLoaderTest {
         assertEquals("Failed to load alert configuration", ex.getMessage());
         assertInstanceOf(JsonSyntaxException.class, ex.getCause());
     }
+
+    private static void writeConfig(Path file, String temperatureMax) throws IOException {
+        Files.writeString(file, "{\"Temperature\": {\"min\": 10.0, \"max\": " + temperatureMax
+                + ", \"timeThreshold\": 60, \"percentageThreshold\": 95},"
+                + " \"humidity\": {\"min\": 40.0, \"max\": 70.0, \"timeThreshold\": 30}}");
+    }
+
+    @Test
+    void shouldLoadConfigFromExternalFile(@TempDir Path dir) throws IOException {
+        Path file = dir.resolve("alerts.json");
+        writeConfig(file, "30.0");
+
+        AlertConfigLoader loader = new AlertConfigLoader(new Gson(), file);
+
+        assertEquals(file, loader.getConfigFile());
+        assertEquals(new SensorThreshold(10.0, 30.0, 60, 95), loader.getThreshold("temperature"));
+        assertEquals(new SensorThreshold(40.0, 70.0, 30, 100), loader.getThreshold("humidity"));
+        assertThrows(UnsupportedOperationException.class, () -> loader.getThresholdsMap().clear());
+    }
+
+    @Test
+    void reload_validChange_publishesNewSnapshotAndKeepsUnchangedThresholds(@TempDir Path dir) throws IOException {
+        Path file = dir.resolve("alerts.json");
+        writeConfig(file, "30.0");
+        AlertConfigLoader loader = new AlertConfigLoader(new Gson(), file);
+        SensorThreshold humidity = loader.getThreshold("humidity");
+
+        writeConfig(file, "35.0");
+
+        assertTrue(loader.reload());
+        assertEquals(35.0, loader.getThreshold("temperature").getMax());
+        assertSame(humidity, loader.getThreshold("humidity"));
+    }
+
+    @Test
+    void reload_unchangedContent_keepsCurrentSnapshot(@TempDir Path dir) throws IOException {
+        Path file = dir.resolve("alerts.json");
+        writeConfig(file, "30.0");
+        AlertConfigLoader loader = new AlertConfigLoader(new Gson(), file);
+        Map<String, SensorThreshold> snapshot = loader.getThresholdsMap();
+
+        assertFalse(loader.reload());
+        assertSame(snapshot, loader.getThresholdsMap());
+    }
+
+    @Test
+    void reload_invalidChange_keepsCurrentThresholds(@TempDir Path dir) throws IOException {
+        Path file = dir.resolve("alerts.json");
+        writeConfig(file, "30.0");
+        AlertConfigLoader loader = new AlertConfigLoader(new Gson(), file);
+
+        writeConfig(file, "5.0"); // max below min
+        assertFalse(loader.reload());
+        Files.writeString(file, "{ not json");
+        assertFalse(loader.reload());
+        Files.delete(file);
+        assertFalse(loader.reload());
+
+        assertEquals(30.0, loader.getThreshold("temperature").getMax());
+    }
+
+    @Test
+    void shouldRejectInvalidInitialConfig(@TempDir Path dir) throws IOException {
+        Path file = dir.resolve("alerts.json");
+        Files.writeString(file, "{\"co2\": {\"min\": 300.0, \"max\": 800.0, \"timeThreshold\": 0}}");
+
+        RuntimeException ex = assertThrows(RuntimeException.class, () -> new AlertConfigLoader(new Gson(), file));
+
+        assertEquals("Failed to load alert configuration", ex.getMessage());
+        assertInstanceOf(IllegalArgumentException.class, ex.getCause());
+    }
+
+    @Test
+    void shouldLoadBucketWidthAndRejectOneWiderThanTheWindow(@TempDir Path dir) throws IOException {
+        Path file = dir.resolve("alerts.json");
+        Files.writeString(file, "{\"co2\": {\"min\": 300.0, \"max\": 800.0, \"timeThreshold\": 3600, \"bucketSeconds\": 60}}");
+        AlertConfigLoader loader = new AlertConfigLoader(new Gson(), file);
+
+        assertEquals(new SensorThreshold(300.0, 800.0, 3600, 100, 60), loader.getThreshold("co2"));
+
+        Files.writeString(file, "{\"co2\": {\"min\": 300.0, \"max\": 800.0, \"timeThreshold\": 3600, \"bucketSeconds\": 7200}}");
+        assertFalse(loader.reload());
+        Files.writeString(file, "{\"co2\": {\"min\": 300.0, \"max\": 800.0, \"timeThreshold\": 3600, \"bucketSeconds\": -1}}");
+        assertFalse(loader.reload());
+        assertEquals(60, loader.getThreshold("co2").getBucketSeconds());
+    }
+
+    @Test
+    void shouldLoadHysteresisAndCooldownAndRejectResolveAboveFiringThreshold(@TempDir Path dir) throws IOException {
+        Path file = dir.resolve("alerts.json");
+        Files.writeString(file, "{\"co2\": {\"min\": 300.0, \"max\": 800.0, \"timeThreshold\": 120,"
+                + " \"percentageThreshold\": 80, \"resolvePercentageThreshold\": 40, \"cooldownSeconds\": 600}}");
+        AlertConfigLoader loader = new AlertConfigLoader(new Gson(), file);
+
+        assertEquals(40, loader.getThreshold("co2").getEffectiveResolvePercentage());
+        assertEquals(600, loader.getThreshold("co2").getCooldownSeconds());
+
+        Files.writeString(file, "{\"co2\": {\"min\": 300.0, \"max\": 800.0, \"timeThreshold\": 120,"
+                + " \"percentageThreshold\": 80, \"resolvePercentageThreshold\": 90}}");
+        assertFalse(loader.reload());
+        Files.writeString(file, "{\"co2\": {\"min\": 300.0, \"max\": 800.0, \"timeThreshold\": 120, \"cooldownSeconds\": -1}}");
+        assertFalse(loader.reload());
+        assertEquals(new SensorThreshold(300.0, 800.0, 120, 80, 0, 40, 600), loader.getThreshold("co2"));
+        assertEquals(100, new SensorThreshold(300.0, 800.0, 120, 100).getEffectiveResolvePercentage());
+    }
 }
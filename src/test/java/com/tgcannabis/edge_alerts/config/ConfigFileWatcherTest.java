@@ -0,0 +1,60 @@
+package com.tgcannabis.edge_alerts.config;
+
+import com.google.gson.Gson;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.concurrent.TimeUnit;
+
+import static org.awaitility.Awaitility.await;
+import static org.junit.jupiter.api.Assertions.*;
+
+class ConfigFileWatcherTest {
+
+    private static String config(double max) {
+        return "{\"temperature\": {\"min\": 10.0, \"max\": " + max + ", \"timeThreshold\": 60}}";
+    }
+
+    @Test
+    void constructor_classpathConfig_throwsException() {
+        AlertConfigLoader loader = new AlertConfigLoader(new Gson());
+
+        assertThrows(IllegalArgumentException.class, () -> new ConfigFileWatcher(loader));
+    }
+
+    @Test
+    void fileChange_reloadsThresholds(@TempDir Path dir) throws IOException {
+        Path file = dir.resolve("alerts.json");
+        Files.writeString(file, config(30.0));
+        AlertConfigLoader loader = new AlertConfigLoader(new Gson(), file);
+
+        try (ConfigFileWatcher ignored = new ConfigFileWatcher(loader)) {
+            Files.writeString(file, config(35.0));
+            await().atMost(10, TimeUnit.SECONDS).until(() -> loader.getThreshold("temperature").getMax() == 35.0);
+
+            // Atomic replacement, as done by editors and mounted config maps
+            Path replacement = dir.resolve("alerts.json.tmp");
+            Files.writeString(replacement, config(40.0));
+            Files.move(replacement, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            await().atMost(10, TimeUnit.SECONDS).until(() -> loader.getThreshold("temperature").getMax() == 40.0);
+        }
+    }
+
+    @Test
+    void invalidChange_keepsPreviousThresholds(@TempDir Path dir) throws IOException {
+        Path file = dir.resolve("alerts.json");
+        Files.writeString(file, config(30.0));
+        AlertConfigLoader loader = new AlertConfigLoader(new Gson(), file);
+
+        try (ConfigFileWatcher ignored = new ConfigFileWatcher(loader)) {
+            Files.writeString(file, config(5.0));
+            Files.writeString(dir.resolve("marker"), "");
+            await().during(500, TimeUnit.MILLISECONDS).atMost(2, TimeUnit.SECONDS)
+                    .until(() -> loader.getThreshold("temperature").getMax() == 30.0);
+        }
+    }
+}
@@ -0,0 +1,24 @@
+package com.tgcannabis.edge_alerts.config;
+
+import com.tgcannabis.edge_alerts.pipeline.ExecutionMode;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class EdgeAlertConfigTest {
+
+    @Test
+    void validateExecutionMode_callbackWithSeveralConnections_throwsException() {
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class,
+                () -> EdgeAlertConfig.validateExecutionMode(ExecutionMode.CALLBACK, 2));
+
+        assertTrue(e.getMessage().contains("MQTT_CONNECTIONS=1"));
+    }
+
+    @Test
+    void validateExecutionMode_dispatchingModesOrSingleConnection_areAccepted() {
+        assertDoesNotThrow(() -> EdgeAlertConfig.validateExecutionMode(ExecutionMode.CALLBACK, 1));
+        assertDoesNotThrow(() -> EdgeAlertConfig.validateExecutionMode(ExecutionMode.PIPELINE, 4));
+        assertDoesNotThrow(() -> EdgeAlertConfig.validateExecutionMode(ExecutionMode.VIRTUAL, 4));
+    }
+}
@@ -0,0 +1,100 @@
+package com.tgcannabis.edge_alerts.config;
+
+import com.tgcannabis.edge_alerts.model.SensorThreshold;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ThresholdTableTest {
+    private static final SensorThreshold TEMPERATURE = new SensorThreshold(10.0, 30.0, 60, 95);
+    private static final SensorThreshold HUMIDITY = new SensorThreshold(40.0, 70.0, 30, 100);
+
+    private static ThresholdTable table() {
+        Map<String, SensorThreshold> thresholds = new HashMap<>();
+        thresholds.put("Temperature", TEMPERATURE);
+        thresholds.put("humidity", HUMIDITY);
+        return ThresholdTable.compile(thresholds, null);
+    }
+
+    @Test
+    void idOf_resolvesNamesIgnoringCase() {
+        ThresholdTable table = table();
+
+        int id = table.idOf("temperature");
+        assertNotEquals(ThresholdTable.UNKNOWN, id);
+        assertEquals(id, table.idOf("TEMPERATURE"));
+        assertEquals(id, table.idOf("TemPerature"));
+        assertSame(TEMPERATURE, table.get(id));
+        assertEquals("temperature", table.sensorType(id));
+        assertSame(table.sensorType(id), table.sensorType(table.idOf("Temperature")));
+    }
+
+    @Test
+    void idOf_unknownOrNullName_returnsUnknown() {
+        ThresholdTable table = table();
+
+        assertEquals(ThresholdTable.UNKNOWN, table.idOf("co2"));
+        assertEquals(ThresholdTable.UNKNOWN, table.idOf("temperatur"));
+        assertEquals(ThresholdTable.UNKNOWN, table.idOf((String) null));
+        assertNull(table.get(ThresholdTable.UNKNOWN));
+    }
+
+    @Test
+    void idOf_bytes_matchesStringResolution() {
+        ThresholdTable table = table();
+        byte[] payload = "{\"sensorType\":\"HUMIDITY\"}".getBytes(StandardCharsets.UTF_8);
+
+        assertEquals(table.idOf("humidity"), table.idOf(payload, 15, 8));
+        assertEquals(ThresholdTable.UNKNOWN, table.idOf(payload, 15, 7));
+        byte[] accented = "humidité".getBytes(StandardCharsets.UTF_8);
+        assertEquals(ThresholdTable.UNKNOWN, table.idOf(accented, 0, accented.length));
+    }
+
+    @Test
+    void idOf_region_matchesStringResolution() {
+        ThresholdTable table = table();
+        String topic = "sensors/room-1/Humidity/s-1";
+
+        assertEquals(table.idOf("humidity"), table.idOf(topic, 15, 8));
+        assertEquals(ThresholdTable.UNKNOWN, table.idOf(topic, 15, 7));
+        assertEquals(ThresholdTable.UNKNOWN, table.idOf(topic, 8, 6));
+    }
+
+    @Test
+    void compile_keepsIdsOfPreviousTable() {
+        ThresholdTable first = table();
+        int temperatureId = first.idOf("temperature");
+        int humidityId = first.idOf("humidity");
+
+        Map<String, SensorThreshold> reloaded = new HashMap<>();
+        reloaded.put("co2", new SensorThreshold(300.0, 800.0, 120, 80));
+        reloaded.put("temperature", new SensorThreshold(10.0, 35.0, 60, 95));
+        ThresholdTable second = ThresholdTable.compile(reloaded, first);
+
+        assertEquals(temperatureId, second.idOf("temperature"));
+        assertEquals(humidityId, second.idOf("humidity"));
+        assertNull(second.get(humidityId)); // Removed from the configuration
+        assertEquals(2, second.idOf("co2"));
+        assertEquals(3, second.size());
+        assertEquals(35.0, second.get(temperatureId).getMax());
+        assertEquals(2, second.asMap().size());
+        assertFalse(second.asMap().containsKey("humidity"));
+    }
+
+    @Test
+    void idOf_manySensorTypes_resolvesEveryName() {
+        Map<String, SensorThreshold> thresholds = new HashMap<>();
+        for (int i = 0; i < 200; i++) {
+            thresholds.put("type-" + i, new SensorThreshold(0, i, 60, 100));
+        }
+        ThresholdTable table = ThresholdTable.compile(thresholds, null);
+
+        for (int i = 0; i < 200; i++) {
+            assertEquals(i, table.get(table.idOf("TYPE-" + i)).getMax());
+        }
+    }
+}
@@ -0,0 +1,115 @@
+package com.tgcannabis.edge_alerts.logging;
+
+import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
+import org.slf4j.Logger;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.awaitility.Awaitility.await;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class AsyncLogWriterTest {
+
+    @Test
+    void write_writesLinesInOrderOnWriterThread() {
+        Logger logger = mock(Logger.class);
+        when(logger.isInfoEnabled()).thenReturn(true);
+        when(logger.isWarnEnabled()).thenReturn(true);
+
+        try (AsyncLogWriter writer = new AsyncLogWriter(16)) {
+            HotPathLogger log = new HotPathLogger(logger, writer);
+            log.info("first {}", 1);
+            log.warn("second {}", 2);
+
+            InOrder inOrder = inOrder(logger);
+            await().atMost(1, TimeUnit.SECONDS).untilAsserted(() -> {
+                inOrder.verify(logger).info("first {}", new Object[]{1});
+                inOrder.verify(logger).warn("second {}", new Object[]{2});
+            });
+            assertEquals(2, writer.getQueuedLines());
+        }
+    }
+
+    @Test
+    void write_disabledLevel_queuesNothing() {
+        Logger logger = mock(Logger.class);
+
+        try (AsyncLogWriter writer = new AsyncLogWriter(16)) {
+            new HotPathLogger(logger, writer).debug("payload {}", "ignored");
+
+            assertEquals(0, writer.getQueuedLines());
+            verify(logger, never()).debug(any(String.class), any(Object[].class));
+        }
+    }
+
+    @Test
+    void write_mutableArgument_isRenderedWhenQueued() {
+        Logger logger = mock(Logger.class);
+        when(logger.isInfoEnabled()).thenReturn(true);
+        AtomicLong counter = new AtomicLong(1);
+
+        try (AsyncLogWriter writer = new AsyncLogWriter(16)) {
+            new HotPathLogger(logger, writer).info("count {}", counter);
+            counter.set(2);
+
+            await().atMost(1, TimeUnit.SECONDS).untilAsserted(() ->
+                    verify(logger).info("count {}", new Object[]{"1"}));
+        }
+    }
+
+    @Test
+    void write_queueFull_dropsLinesWithoutBlocking() throws InterruptedException {
+        Logger logger = mock(Logger.class);
+        when(logger.isInfoEnabled()).thenReturn(true);
+        CountDownLatch writing = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        doAnswer(invocation -> {
+            writing.countDown();
+            release.await();
+            return null;
+        }).when(logger).info(eq("blocking"), any(Object[].class));
+
+        try (AsyncLogWriter writer = new AsyncLogWriter(1)) {
+            HotPathLogger log = new HotPathLogger(logger, writer);
+            log.info("blocking");
+            assertTrue(writing.await(1, TimeUnit.SECONDS)); // The writer thread is stuck on the first line
+
+            log.info("queued");
+            log.info("dropped");
+            log.info("dropped");
+
+            assertEquals(2, writer.getDroppedLines());
+            assertEquals(1, writer.getQueueDepth());
+            release.countDown();
+            await().atMost(1, TimeUnit.SECONDS).untilAsserted(() ->
+                    verify(logger).info("queued", new Object[0]));
+        }
+    }
+
+    @Test
+    void close_writesQueuedLinesThenWritesOnCallingThread() {
+        Logger logger = mock(Logger.class);
+        when(logger.isInfoEnabled()).thenReturn(true);
+        AsyncLogWriter writer = new AsyncLogWriter(16);
+        HotPathLogger log = new HotPathLogger(logger, writer);
+
+        log.info("before close");
+        writer.close();
+        verify(logger).info("before close", new Object[0]);
+
+        log.info("after close");
+        verify(logger).info("after close", new Object[0]);
+        assertEquals(1, writer.getQueuedLines());
+    }
+
+    @Test
+    void constructor_invalidCapacity_throwsException() {
+        assertThrows(IllegalArgumentException.class, () -> new AsyncLogWriter(0));
+    }
+}
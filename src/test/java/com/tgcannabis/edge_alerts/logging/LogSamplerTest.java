@@ -0,0 +1,36 @@
+package com.tgcannabis.edge_alerts.logging;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LogSamplerTest {
+
+    @Test
+    void sample_logsFirstEventThenOneInN() {
+        LogSampler sampler = new LogSampler(3);
+
+        int logged = 0;
+        for (int i = 0; i < 9; i++) {
+            if (sampler.sample()) {
+                logged++;
+            }
+        }
+
+        assertEquals(3, logged);
+        assertEquals(9, sampler.getEvents());
+    }
+
+    @Test
+    void sample_oneInOne_logsEveryEvent() {
+        LogSampler sampler = new LogSampler(1);
+
+        assertTrue(sampler.sample());
+        assertTrue(sampler.sample());
+    }
+
+    @Test
+    void constructor_invalidRate_throwsException() {
+        assertThrows(IllegalArgumentException.class, () -> new LogSampler(0));
+    }
+}
@@ -0,0 +1,30 @@
+package com.tgcannabis.edge_alerts.logging;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.awaitility.Awaitility.await;
+import static org.junit.jupiter.api.Assertions.*;
+
+class RateLimitedCounterTest {
+
+    @Test
+    void increment_logsFirstEventOncePerInterval() {
+        RateLimitedCounter counter = new RateLimitedCounter();
+
+        assertTrue(counter.increment());
+        assertFalse(counter.increment());
+        assertFalse(counter.increment());
+        assertEquals(3, counter.sum());
+    }
+
+    @Test
+    void increment_afterInterval_logsAgain() {
+        RateLimitedCounter counter = new RateLimitedCounter(TimeUnit.MILLISECONDS.toNanos(50));
+
+        assertTrue(counter.increment());
+        await().atMost(1, TimeUnit.SECONDS).until(counter::increment);
+        assertTrue(counter.sum() >= 2);
+    }
+}
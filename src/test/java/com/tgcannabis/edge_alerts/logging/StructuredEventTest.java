@@ -0,0 +1,28 @@
+package com.tgcannabis.edge_alerts.logging;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class StructuredEventTest {
+
+    @Test
+    void toString_rendersFieldsAsKeyValuePairs() {
+        StructuredEvent event = StructuredEvent.of("alert")
+                .with("sensor_type", "temperature")
+                .with("value", 35.5)
+                .with("window_seconds", 60L);
+
+        assertEquals("event=alert sensor_type=temperature value=35.5 window_seconds=60", event.toString());
+    }
+
+    @Test
+    void toString_quotesValuesWithSpacesQuotesOrEquals() {
+        StructuredEvent event = StructuredEvent.of("resolve")
+                .with("location", "green house")
+                .with("note", "a=\"b\"")
+                .with("sensor_id", null);
+
+        assertEquals("event=resolve location=\"green house\" note=\"a=\\\"b\\\"\" sensor_id=\"\"", event.toString());
+    }
+}
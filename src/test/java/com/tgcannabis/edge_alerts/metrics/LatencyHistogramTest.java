@@ -0,0 +1,84 @@
+package com.tgcannabis.edge_alerts.metrics;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LatencyHistogramTest {
+
+    @Test
+    void indexOf_bucketsCoverEveryValueOnce() {
+        for (int index = 0; index < LatencyHistogram.indexOf(LatencyHistogram.MAX_TRACKABLE_NANOS); index++) {
+            long highest = LatencyHistogram.highestOf(index);
+            assertEquals(index, LatencyHistogram.indexOf(highest));
+            assertEquals(index + 1, LatencyHistogram.indexOf(highest + 1));
+        }
+    }
+
+    @Test
+    void valueAtPercentile_isWithinBucketPrecision() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (long value = 1; value <= 10_000; value++) {
+            histogram.record(value * 1_000);
+        }
+
+        assertEquals(10_000, histogram.getCount());
+        assertEquals(10_000_000, histogram.getMaxNanos());
+        assertEquals(50_005_000_000L, histogram.getSumNanos());
+        assertEquals(5_000_000, histogram.valueAtPercentile(50), 5_000_000 * 0.125);
+        assertEquals(9_900_000, histogram.valueAtPercentile(99), 9_900_000 * 0.125);
+        assertEquals(10_000_000, histogram.valueAtPercentile(100));
+        assertThrows(IllegalArgumentException.class, () -> histogram.valueAtPercentile(101));
+    }
+
+    @Test
+    void record_negativeAndHugeValues_areClamped() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        histogram.record(-5);
+        histogram.record(Long.MAX_VALUE / 2);
+
+        assertEquals(2, histogram.getCount());
+        assertEquals(1, histogram.countBelowPowerOfTwo(10));
+        assertEquals(2, histogram.countBelowPowerOfTwo(63));
+        assertEquals(0, new LatencyHistogram().valueAtPercentile(50));
+    }
+
+    @Test
+    void countBelowPowerOfTwo_isExactAtPowerOfTwoBounds() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        histogram.record(1_023);
+        histogram.record(1_024);
+        histogram.record(2_047);
+
+        assertEquals(1, histogram.countBelowPowerOfTwo(10));
+        assertEquals(3, histogram.countBelowPowerOfTwo(11));
+    }
+
+    @Test
+    void record_concurrentThreads_countsEveryValue() throws Exception {
+        LatencyHistogram histogram = new LatencyHistogram();
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int thread = 0; thread < 4; thread++) {
+            futures.add(executor.submit(() -> {
+                for (int i = 1; i <= 25_000; i++) {
+                    histogram.record(i);
+                }
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        executor.shutdown();
+
+        assertEquals(100_000, histogram.getCount());
+        assertEquals(25_000, histogram.getMaxNanos());
+        assertEquals(4L * 25_000 * 25_001 / 2, histogram.getSumNanos());
+    }
+}
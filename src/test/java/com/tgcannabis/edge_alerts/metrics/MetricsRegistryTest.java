@@ -0,0 +1,89 @@
+package com.tgcannabis.edge_alerts.metrics;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MetricsRegistryTest {
+
+    @Test
+    void scrape_groupsLabelledSeriesUnderOneHeader() {
+        MetricsRegistry registry = new MetricsRegistry();
+        AtomicLong high = new AtomicLong(3);
+        registry.counter("alerts", "Alerts by type", high::get, "alert_type", "TOO_HIGH");
+        registry.counter("alerts", "Alerts by type", () -> 1, "alert_type", "TOO_LOW");
+        registry.gauge("queue_depth", "Queued messages", () -> 2.5);
+        high.incrementAndGet();
+
+        assertEquals("""
+                # HELP edge_alerts_alerts_total Alerts by type
+                # TYPE edge_alerts_alerts_total counter
+                edge_alerts_alerts_total{alert_type="TOO_HIGH"} 4
+                edge_alerts_alerts_total{alert_type="TOO_LOW"} 1
+                # HELP edge_alerts_queue_depth Queued messages
+                # TYPE edge_alerts_queue_depth gauge
+                edge_alerts_queue_depth 2.5
+                """, registry.scrape());
+    }
+
+    @Test
+    void scrape_histogram_exportsCumulativeBucketsInSeconds() {
+        MetricsRegistry registry = new MetricsRegistry();
+        LatencyHistogram histogram = new LatencyHistogram();
+        histogram.record(500);
+        histogram.record(1_500);
+        histogram.record(3_000_000_000L);
+        registry.histogram("evaluate_latency_seconds", "Evaluation time", histogram, "stage", "evaluate");
+
+        String text = registry.scrape();
+
+        assertTrue(text.contains("# TYPE edge_alerts_evaluate_latency_seconds histogram\n"));
+        assertTrue(text.contains("edge_alerts_evaluate_latency_seconds_bucket{stage=\"evaluate\",le=\"1.024E-6\"} 1\n"));
+        assertTrue(text.contains("edge_alerts_evaluate_latency_seconds_bucket{stage=\"evaluate\",le=\"2.048E-6\"} 2\n"));
+        assertTrue(text.contains("edge_alerts_evaluate_latency_seconds_bucket{stage=\"evaluate\",le=\"2.147483648\"} 2\n"));
+        assertTrue(text.contains("edge_alerts_evaluate_latency_seconds_bucket{stage=\"evaluate\",le=\"4.294967296\"} 3\n"));
+        assertTrue(text.contains("edge_alerts_evaluate_latency_seconds_bucket{stage=\"evaluate\",le=\"+Inf\"} 3\n"));
+        assertTrue(text.contains("edge_alerts_evaluate_latency_seconds_sum{stage=\"evaluate\"} 3.000002\n"));
+        assertTrue(text.contains("edge_alerts_evaluate_latency_seconds_count{stage=\"evaluate\"} 3\n"));
+    }
+
+    @Test
+    void scrape_distribution_isComputedWhenScraped() {
+        MetricsRegistry registry = new MetricsRegistry();
+        registry.distribution("window_readings", "Readings per window", new long[]{1, 10}, counts -> {
+            counts[0] = 2;
+            counts[2] = 1;
+            return 50;
+        });
+
+        assertTrue(registry.scrape().endsWith("""
+                edge_alerts_window_readings_bucket{le="1"} 2
+                edge_alerts_window_readings_bucket{le="10"} 2
+                edge_alerts_window_readings_bucket{le="+Inf"} 3
+                edge_alerts_window_readings_sum 50
+                edge_alerts_window_readings_count 3
+                """));
+    }
+
+    @Test
+    void register_escapesLabelValues() {
+        MetricsRegistry registry = new MetricsRegistry();
+        registry.gauge("mqtt_connected", "Connection state", () -> 1, "client", "edge \"1\"\\a");
+
+        assertTrue(registry.scrape().contains("edge_alerts_mqtt_connected{client=\"edge \\\"1\\\"\\\\a\"} 1\n"));
+    }
+
+    @Test
+    void register_invalidArguments_throwException() {
+        MetricsRegistry registry = new MetricsRegistry();
+        registry.gauge("depth", "Depth", () -> 0);
+
+        assertThrows(IllegalArgumentException.class, () -> registry.gauge("bad-name", "Help", () -> 0));
+        assertThrows(IllegalArgumentException.class, () -> registry.gauge("other", "Help", () -> 0, "label"));
+        assertThrows(IllegalArgumentException.class, () -> registry.gauge("other", "Help", () -> 0, "1label", "value"));
+        assertThrows(IllegalArgumentException.class, () -> registry.histogram("depth", "Help", new LatencyHistogram()));
+        assertThrows(NullPointerException.class, () -> registry.counter("count", "Help", null));
+    }
+}
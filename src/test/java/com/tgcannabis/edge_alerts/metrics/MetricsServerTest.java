@@ -0,0 +1,47 @@
+package com.tgcannabis.edge_alerts.metrics;
+
+import org.junit.jupiter.api.Test;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MetricsServerTest {
+
+    @Test
+    void get_metricsPath_servesPrometheusText() throws Exception {
+        MetricsRegistry registry = new MetricsRegistry();
+        registry.counter("messages_received", "Messages received", () -> 42);
+
+        try (MetricsServer server = MetricsServer.start(registry, 0)) {
+            HttpResponse<String> response = HttpClient.newHttpClient().send(
+                    HttpRequest.newBuilder(URI.create("http://localhost:" + server.getPort() + MetricsServer.PATH)).build(),
+                    HttpResponse.BodyHandlers.ofString());
+
+            assertEquals(200, response.statusCode());
+            assertTrue(response.headers().firstValue("Content-Type").orElseThrow().startsWith("text/plain; version=0.0.4"));
+            assertTrue(response.body().contains("edge_alerts_messages_received_total 42\n"));
+        }
+    }
+
+    @Test
+    void post_isRefused() throws Exception {
+        try (MetricsServer server = MetricsServer.start(new MetricsRegistry(), 0)) {
+            HttpResponse<String> response = HttpClient.newHttpClient().send(
+                    HttpRequest.newBuilder(URI.create("http://localhost:" + server.getPort() + MetricsServer.PATH))
+                            .POST(HttpRequest.BodyPublishers.noBody()).build(),
+                    HttpResponse.BodyHandlers.ofString());
+
+            assertEquals(405, response.statusCode());
+        }
+    }
+
+    @Test
+    void constructor_invalidPort_throwsException() {
+        assertThrows(IllegalArgumentException.class, () -> MetricsServer.start(new MetricsRegistry(), 70_000));
+        assertThrows(NullPointerException.class, () -> MetricsServer.start(null, 0));
+    }
+}
@@ -0,0 +1,63 @@
+package com.tgcannabis.edge_alerts.mqtt;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.awaitility.Awaitility.await;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class DeferredMessageHandlerTest {
+
+    @Test
+    void accept_beforeComplete_holdsMessageUntilHandlerIsSet() {
+        DeferredMessageHandler deferred = new DeferredMessageHandler();
+        RawMessageHandler handler = mock(RawMessageHandler.class);
+        byte[] payload = {1};
+
+        CompletableFuture<Void> arriving = CompletableFuture.runAsync(() -> deferred.accept("sensors/a", payload, 42L));
+        await().atMost(1, TimeUnit.SECONDS).until(() -> deferred.getHeldMessages() == 1);
+        assertFalse(arriving.isDone());
+
+        deferred.complete(handler);
+
+        arriving.join();
+        verify(handler).accept("sensors/a", payload, 42L);
+        assertTrue(deferred.isReady());
+    }
+
+    @Test
+    void accept_afterComplete_handsMessageOverDirectly() {
+        DeferredMessageHandler deferred = new DeferredMessageHandler();
+        RawMessageHandler handler = mock(RawMessageHandler.class);
+        byte[] payload = {1};
+        deferred.complete(handler);
+
+        deferred.accept("sensors/a", payload, 42L);
+
+        verify(handler).accept("sensors/a", payload, 42L);
+        assertEquals(0, deferred.getHeldMessages());
+    }
+
+    @Test
+    void accept_afterFail_dropsMessages() {
+        DeferredMessageHandler deferred = new DeferredMessageHandler();
+        deferred.fail(new IllegalStateException("startup failed"));
+
+        deferred.accept("sensors/a", new byte[0]);
+
+        assertEquals(1, deferred.getDroppedMessages());
+        assertFalse(deferred.isReady());
+    }
+
+    @Test
+    void complete_twice_throwsException() {
+        DeferredMessageHandler deferred = new DeferredMessageHandler();
+        deferred.complete(mock(RawMessageHandler.class));
+
+        assertThrows(IllegalStateException.class, () -> deferred.complete(mock(RawMessageHandler.class)));
+        assertThrows(NullPointerException.class, () -> new DeferredMessageHandler().complete(null));
+    }
+}
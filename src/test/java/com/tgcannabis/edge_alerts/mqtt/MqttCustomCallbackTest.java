@@ -8,8 +8,10 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
 import java.util.function.BiConsumer;
+import java.util.function.Consumer;
 
 import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.mockito.Mockito.*;
 
 class MqttCustomCallbackTest {
@@ -54,7 +56,7 @@ class MqttCustomCallbackTest {
 
     @Test
     void testMessageArrived_shouldNotFailIfHandlerNull() {
-        callback = new MqttCustomCallback(mockClient, "test/topic", null);
+        callback = new MqttCustomCallback(mockClient, "test/topic", (BiConsumer<String, String>) null);
         MqttMessage message = new MqttMessage("payload".getBytes());
 
         assertDoesNotThrow(() -> callback.messageArrived("test/topic", message));
@@ -73,8 +75,78 @@ class MqttCustomCallbackTest {
     }
 
     @Test
-    void testDeliveryComplete_shouldDoNothing() {
+    void testMessageArrived_shouldPassRawPayloadToRawHandler() {
+        RawMessageHandler rawHandler = mock(RawMessageHandler.class);
+        callback = new MqttCustomCallback(mockClient, "test/topic", rawHandler);
+        byte[] payload = "raw".getBytes();
+
+        assertDoesNotThrow(() -> callback.messageArrived("test/topic", new MqttMessage(payload)));
+
+        verify(rawHandler, times(1)).accept(eq("test/topic"), eq(payload), anyLong());
+    }
+
+    @Test
+    void testMessageArrived_withManualAcks_shouldAcknowledgeAfterHandling() throws MqttException {
+        callback.useManualAcks();
+        MqttMessage message = new MqttMessage("hello".getBytes());
+        message.setId(7);
+        message.setQos(1);
+
+        callback.messageArrived("test/topic", message);
+
+        verify(mockClient).setManualAcks(true);
+        var inOrder = inOrder(mockHandler, mockClient);
+        inOrder.verify(mockHandler).accept("test/topic", "hello");
+        inOrder.verify(mockClient).messageArrivedComplete(7, 1);
+    }
+
+    @Test
+    void testMessageArrived_afterStopConsuming_shouldNeitherHandleNorAcknowledge() throws MqttException {
+        callback.useManualAcks();
+        callback.stopConsuming();
+        MqttMessage message = new MqttMessage("late".getBytes());
+        message.setId(8);
+        message.setQos(1);
+
+        callback.messageArrived("test/topic", message);
+
+        verify(mockHandler, never()).accept(anyString(), anyString());
+        verify(mockClient, never()).messageArrivedComplete(anyInt(), anyInt());
+        assertEquals(1, callback.getUnacknowledgedMessages());
+    }
+
+    @Test
+    void testDeliveryComplete_shouldDoNothingWithoutListener() {
         IMqttDeliveryToken token = mock(IMqttDeliveryToken.class);
         assertDoesNotThrow(() -> callback.deliveryComplete(token));
     }
+
+    @Test
+    void testDeliveryComplete_shouldForwardTokenToListener() {
+        Consumer<IMqttDeliveryToken> listener = mock(Consumer.class);
+        callback.setDeliveryListener(listener);
+        IMqttDeliveryToken token = mock(IMqttDeliveryToken.class);
+
+        callback.deliveryComplete(token);
+
+        verify(listener).accept(token);
+    }
+
+    @Test
+    void testConnectComplete_publishOnlyConnection_shouldNotSubscribe() throws MqttException {
+        callback = new MqttCustomCallback(mockClient, (String) null, (RawMessageHandler) null);
+        when(mockClient.isConnected()).thenReturn(true);
+
+        callback.connectComplete(false, "tcp://broker");
+
+        verify(mockClient, never()).subscribe(anyString(), anyInt());
+    }
+
+    @Test
+    void testConnectionLost_shouldCountLosses() {
+        callback.connectionLost(new RuntimeException("broker gone"));
+        callback.connectionLost(null);
+
+        assertEquals(2, callback.getConnectionLosses());
+    }
 }
@@ -1,15 +1,34 @@
 package com.tgcannabis.edge_alerts.mqtt;
 
 import com.tgcannabis.edge_alerts.config.EdgeAlertConfig;
+import com.tgcannabis.edge_alerts.pipeline.IngestionPipeline;
+import com.tgcannabis.edge_alerts.pipeline.OverflowPolicy;
+import org.eclipse.paho.client.mqttv3.IMqttToken;
+import org.eclipse.paho.client.mqttv3.MqttAsyncClient;
 import org.eclipse.paho.client.mqttv3.MqttCallback;
+import org.eclipse.paho.client.mqttv3.MqttCallbackExtended;
 import org.eclipse.paho.client.mqttv3.MqttClient;
+import org.eclipse.paho.client.mqttv3.MqttConnectOptions;
 import org.eclipse.paho.client.mqttv3.MqttException;
+import org.eclipse.paho.client.mqttv3.MqttMessage;
+import org.eclipse.paho.client.mqttv3.persist.MqttDefaultFilePersistence;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
 import org.mockito.MockedConstruction;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
 import java.util.function.BiConsumer;
 
+import static org.awaitility.Awaitility.await;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.Mockito.*;
 
@@ -41,7 +60,29 @@ class MqttServiceTest {
 
             MqttClient mockMqttClient = mockedClient.constructed().get(0);
             verify(mockMqttClient).setCallback(any(MqttCallback.class));
-            verify(mockMqttClient).connect();
+            verify(mockMqttClient).connect(argThat((MqttConnectOptions options) ->
+                    options.isCleanSession() && options.isAutomaticReconnect()));
+        }
+    }
+
+    @Test
+    void connect_persistentSession_resumesSessionWithFilePersistence() throws Exception {
+        when(mockConfig.getMqttBroker()).thenReturn("tcp://localhost:1883");
+        when(mockConfig.getMqttClientId()).thenReturn("test-client");
+        when(mockConfig.getMqttTopic()).thenReturn("test/topic");
+        when(mockConfig.getMqttSessionMode()).thenReturn(SessionMode.PERSISTENT);
+        when(mockConfig.getMqttPersistenceDir()).thenReturn("target/mqtt-persistence");
+        when(mockConfig.getMqttMaxReconnectDelaySeconds()).thenReturn(30L);
+
+        try (MockedConstruction<MqttClient> mockedClient = mockConstruction(MqttClient.class,
+                (mock, context) -> assertInstanceOf(MqttDefaultFilePersistence.class, context.arguments().get(2)))) {
+
+            mqttService = new MqttService(mockConfig);
+            mqttService.setMessageHandler(mockHandler);
+            mqttService.connect();
+
+            verify(mockedClient.constructed().get(0)).connect(argThat((MqttConnectOptions options) ->
+                    !options.isCleanSession() && options.isAutomaticReconnect() && options.getMaxReconnectDelay() == 30_000));
         }
     }
 
@@ -59,7 +100,7 @@ class MqttServiceTest {
 
         try (MockedConstruction<MqttClient> mockedClient = mockConstruction(MqttClient.class,
                 (mock, context) -> {
-                    doThrow(new MqttException(1)).when(mock).connect();
+                    doThrow(new MqttException(1)).when(mock).connect(any(MqttConnectOptions.class));
                 })) {
 
             mqttService = new MqttService(mockConfig);
@@ -87,7 +128,7 @@ class MqttServiceTest {
             MqttClient mockClient = mockedClient.constructed().get(0);
             mqttService.close();
 
-            verify(mockClient).disconnect();
+            verify(mockClient).disconnect(anyLong());
             verify(mockClient).close();
         }
     }
@@ -110,8 +151,206 @@ class MqttServiceTest {
             MqttClient mockClient = mockedClient.constructed().get(0);
             mqttService.close();
 
-            verify(mockClient, never()).disconnect();
+            verify(mockClient, never()).disconnect(anyLong());
             verify(mockClient).close();
         }
     }
+
+    @Test
+    void connectPublisher_shouldConnectAsyncClientAndCloseItOnClose() throws Exception {
+        when(mockConfig.getMqttBroker()).thenReturn("tcp://localhost:1883");
+        when(mockConfig.getMqttClientId()).thenReturn("test-client");
+
+        try (MockedConstruction<MqttAsyncClient> mockedClient = mockConstruction(MqttAsyncClient.class,
+                (mock, context) -> {
+                    assertEquals("test-client-publisher", context.arguments().get(1));
+                    when(mock.connect(any(MqttConnectOptions.class))).thenReturn(mock(IMqttToken.class));
+                    when(mock.disconnect(anyLong())).thenReturn(mock(IMqttToken.class));
+                    when(mock.isConnected()).thenReturn(true);
+                })) {
+
+            mqttService = new MqttService(mockConfig);
+            MqttAsyncClient client = mqttService.connectPublisher(5);
+
+            assertSame(mockedClient.constructed().get(0), client);
+            verify(client).setCallback(any(MqttCallback.class));
+            verify(client).connect(argThat((MqttConnectOptions options) -> options.getMaxInflight() == 5));
+
+            mqttService.close();
+
+            verify(client).disconnect(anyLong());
+            verify(client).close();
+        }
+    }
+
+    /**
+     * Connects the service and returns the callback installed on each subscriber connection, simulating
+     * a broker that has accepted every connection.
+     */
+    private List<MqttCallbackExtended> connectAll(MockedConstruction<MqttClient> mockedClient) throws MqttException {
+        mqttService.connect();
+        List<MqttCallbackExtended> callbacks = new ArrayList<>();
+        for (MqttClient client : mockedClient.constructed()) {
+            ArgumentCaptor<MqttCallbackExtended> captor = ArgumentCaptor.forClass(MqttCallbackExtended.class);
+            verify(client).setCallback(captor.capture());
+            captor.getValue().connectComplete(false, "tcp://localhost:1883");
+            callbacks.add(captor.getValue());
+        }
+        return callbacks;
+    }
+
+    @Test
+    void connect_shareGroup_opensConnectionsWithSharedSubscriptions() throws Exception {
+        when(mockConfig.getMqttBroker()).thenReturn("tcp://localhost:1883");
+        when(mockConfig.getMqttClientId()).thenReturn("test-client");
+        when(mockConfig.getMqttTopic()).thenReturn("sensors/#");
+        when(mockConfig.getMqttConnections()).thenReturn(3);
+        when(mockConfig.getMqttShareGroup()).thenReturn("edge");
+        List<Object> clientIds = new ArrayList<>();
+
+        try (MockedConstruction<MqttClient> mockedClient = mockConstruction(MqttClient.class, (mock, context) -> {
+            clientIds.add(context.arguments().get(1));
+            when(mock.isConnected()).thenReturn(true);
+        })) {
+            mqttService = new MqttService(mockConfig);
+            mqttService.setMessageHandler(mockHandler);
+            connectAll(mockedClient);
+
+            assertEquals(List.of("test-client-1", "test-client-2", "test-client-3"), clientIds);
+            assertEquals(mockedClient.constructed(), mqttService.getSubscriberClients());
+            assertSame(mockedClient.constructed().get(0), mqttService.getMqttClient());
+            for (MqttClient client : mockedClient.constructed()) {
+                verify(client).subscribe("$share/edge/sensors/#", 1);
+            }
+
+            mqttService.close();
+            for (MqttClient client : mockedClient.constructed()) {
+                verify(client).disconnect(anyLong());
+                verify(client).close();
+            }
+        }
+    }
+
+    @Test
+    void stopSubscribing_cleanSession_unsubscribesAlertConnectionAndDisconnectsOthers() throws Exception {
+        when(mockConfig.getMqttBroker()).thenReturn("tcp://localhost:1883");
+        when(mockConfig.getMqttClientId()).thenReturn("test-client");
+        when(mockConfig.getMqttTopic()).thenReturn("sensors/#");
+        when(mockConfig.getMqttConnections()).thenReturn(2);
+        when(mockConfig.getMqttShareGroup()).thenReturn("edge");
+
+        try (MockedConstruction<MqttClient> mockedClient = mockConstruction(MqttClient.class,
+                (mock, context) -> when(mock.isConnected()).thenReturn(true))) {
+            mqttService = new MqttService(mockConfig);
+            mqttService.setMessageHandler(mockHandler);
+            List<MqttCallbackExtended> callbacks = connectAll(mockedClient);
+
+            mqttService.stopSubscribing(1_000);
+
+            MqttClient first = mockedClient.constructed().get(0);
+            MqttClient second = mockedClient.constructed().get(1);
+            verify(first).unsubscribe(new String[]{"$share/edge/sensors/#"});
+            verify(first, never()).disconnect(anyLong());
+            verify(second).disconnect(anyLong());
+
+            // A reconnect after stopping does not subscribe again
+            callbacks.get(0).connectComplete(true, "tcp://localhost:1883");
+            verify(first, times(1)).subscribe("$share/edge/sensors/#", 1);
+        }
+    }
+
+    @Test
+    void stopSubscribing_persistentSession_keepsSubscriptionsOfAlertConnection() throws Exception {
+        when(mockConfig.getMqttBroker()).thenReturn("tcp://localhost:1883");
+        when(mockConfig.getMqttClientId()).thenReturn("test-client");
+        when(mockConfig.getMqttTopic()).thenReturn("sensors/#");
+        when(mockConfig.getMqttSessionMode()).thenReturn(SessionMode.PERSISTENT);
+        when(mockConfig.getMqttPersistenceDir()).thenReturn("target/mqtt-persistence");
+
+        try (MockedConstruction<MqttClient> mockedClient = mockConstruction(MqttClient.class,
+                (mock, context) -> when(mock.isConnected()).thenReturn(true))) {
+            mqttService = new MqttService(mockConfig);
+            mqttService.setMessageHandler(mockHandler);
+            List<MqttCallbackExtended> callbacks = connectAll(mockedClient);
+
+            mqttService.stopSubscribing(1_000);
+
+            MqttClient client = mockedClient.constructed().get(0);
+            verify(client, never()).unsubscribe(any(String[].class));
+            verify(client, never()).disconnect(anyLong());
+
+            // Messages still delivered after stopping are neither handled nor acknowledged, so the broker redelivers them
+            MqttMessage late = new MqttMessage("{}".getBytes());
+            late.setId(5);
+            late.setQos(1);
+            callbacks.get(0).messageArrived("sensors/a", late);
+            verify(client).setManualAcks(true);
+            verify(client, never()).messageArrivedComplete(anyInt(), anyInt());
+            verifyNoInteractions(mockHandler);
+        }
+    }
+
+    @Test
+    void connect_withoutShareGroup_dividesTopicFiltersBetweenConnections() throws Exception {
+        when(mockConfig.getMqttBroker()).thenReturn("tcp://localhost:1883");
+        when(mockConfig.getMqttClientId()).thenReturn("test-client");
+        when(mockConfig.getMqttTopic()).thenReturn("sensors/a/#, sensors/b/#,sensors/c/#");
+        when(mockConfig.getMqttConnections()).thenReturn(2);
+
+        try (MockedConstruction<MqttClient> mockedClient = mockConstruction(MqttClient.class,
+                (mock, context) -> when(mock.isConnected()).thenReturn(true))) {
+            mqttService = new MqttService(mockConfig);
+            mqttService.setMessageHandler(mockHandler);
+            connectAll(mockedClient);
+
+            MqttClient first = mockedClient.constructed().get(0);
+            MqttClient second = mockedClient.constructed().get(1);
+            verify(first).subscribe("sensors/a/#", 1);
+            verify(first).subscribe("sensors/c/#", 1);
+            verify(second).subscribe("sensors/b/#", 1);
+            verify(second, never()).subscribe(eq("sensors/a/#"), anyInt());
+        }
+    }
+
+    @Test
+    void connect_moreConnectionsThanFiltersWithoutShareGroup_throwsException() {
+        when(mockConfig.getMqttTopic()).thenReturn("sensors/#");
+        when(mockConfig.getMqttConnections()).thenReturn(2);
+
+        mqttService = new MqttService(mockConfig);
+        mqttService.setMessageHandler(mockHandler);
+
+        assertThrows(IllegalArgumentException.class, () -> mqttService.connect());
+    }
+
+    @Test
+    void connect_sharedConnections_routeEachSensorToOneWorker() throws Exception {
+        when(mockConfig.getMqttBroker()).thenReturn("tcp://localhost:1883");
+        when(mockConfig.getMqttClientId()).thenReturn("test-client");
+        when(mockConfig.getMqttTopic()).thenReturn("sensors/#");
+        when(mockConfig.getMqttConnections()).thenReturn(2);
+        when(mockConfig.getMqttShareGroup()).thenReturn("edge");
+
+        Map<String, Set<String>> workersByTopic = new ConcurrentHashMap<>();
+        BiConsumer<String, String> recorder = (topic, payload) ->
+                workersByTopic.computeIfAbsent(topic, t -> ConcurrentHashMap.newKeySet()).add(Thread.currentThread().getName());
+
+        try (MockedConstruction<MqttClient> mockedClient = mockConstruction(MqttClient.class,
+                (mock, context) -> when(mock.isConnected()).thenReturn(true));
+             IngestionPipeline pipeline = new IngestionPipeline(4, 1_000, OverflowPolicy.BLOCK, recorder)) {
+            mqttService = new MqttService(mockConfig);
+            mqttService.setRawMessageHandler(pipeline);
+            List<MqttCallbackExtended> connections = connectAll(mockedClient);
+
+            // The broker spreads each sensor's readings over both connections of the group
+            for (int i = 0; i < 200; i++) {
+                String topic = "sensors/device-" + (i % 10);
+                connections.get(i % 2).messageArrived(topic, new MqttMessage(("{\"value\":" + i + "}").getBytes()));
+            }
+
+            await().atMost(2, TimeUnit.SECONDS).until(() -> pipeline.getProcessedMessages() == 200);
+            assertEquals(10, workersByTopic.size());
+            workersByTopic.values().forEach(workers -> assertEquals(1, workers.size()));
+        }
+    }
 }
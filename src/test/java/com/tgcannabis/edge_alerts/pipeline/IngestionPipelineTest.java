@@ -0,0 +1,209 @@
+package com.tgcannabis.edge_alerts.pipeline;
+
+import com.tgcannabis.edge_alerts.mqtt.RawMessageHandler;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiConsumer;
+
+import static org.awaitility.Awaitility.await;
+import static org.junit.jupiter.api.Assertions.*;
+
+class IngestionPipelineTest {
+    private IngestionPipeline pipeline;
+
+    @AfterEach
+    void tearDown() {
+        if (pipeline != null) {
+            pipeline.close();
+        }
+    }
+
+    @Test
+    void constructor_invalidArguments_throwsException() {
+        BiConsumer<String, String> handler = (topic, payload) -> {
+        };
+        assertThrows(IllegalArgumentException.class, () -> new IngestionPipeline(0, 10, OverflowPolicy.BLOCK, handler));
+        assertThrows(IllegalArgumentException.class, () -> new IngestionPipeline(4, 2, OverflowPolicy.BLOCK, handler));
+        assertThrows(NullPointerException.class, () -> new IngestionPipeline(1, 10, null, handler));
+        assertThrows(NullPointerException.class, () -> new IngestionPipeline(1, 10, OverflowPolicy.BLOCK, null));
+    }
+
+    @Test
+    void accept_decodesPayloadAndKeepsPerTopicOrder() {
+        Map<String, List<String>> received = new ConcurrentHashMap<>();
+        pipeline = new IngestionPipeline(4, 1_000, OverflowPolicy.BLOCK,
+                (topic, payload) -> received.computeIfAbsent(topic, t -> new CopyOnWriteArrayList<>()).add(payload));
+
+        for (int i = 0; i < 100; i++) {
+            for (int t = 0; t < 8; t++) {
+                pipeline.accept("sensors/" + t, String.valueOf(i).getBytes());
+            }
+        }
+
+        await().atMost(5, TimeUnit.SECONDS).until(() -> pipeline.getProcessedMessages() == 800);
+        for (int t = 0; t < 8; t++) {
+            List<String> payloads = received.get("sensors/" + t);
+            assertEquals(100, payloads.size());
+            for (int i = 0; i < 100; i++) {
+                assertEquals(String.valueOf(i), payloads.get(i));
+            }
+        }
+        assertEquals(800, pipeline.getReceivedMessages());
+        assertEquals(0, pipeline.getDroppedMessages());
+        assertEquals(0, pipeline.getQueueDepth());
+    }
+
+    @Test
+    void accept_dropNewest_discardsIncomingMessagesWhenFull() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch busy = new CountDownLatch(1);
+        List<String> received = new CopyOnWriteArrayList<>();
+        pipeline = new IngestionPipeline(1, 2, OverflowPolicy.DROP_NEWEST, (topic, payload) -> {
+            busy.countDown();
+            awaitQuietly(release);
+            received.add(payload);
+        });
+
+        pipeline.accept("t", "0".getBytes());
+        assertTrue(busy.await(5, TimeUnit.SECONDS)); // worker holds message 0
+        pipeline.accept("t", "1".getBytes());
+        pipeline.accept("t", "2".getBytes());
+        pipeline.accept("t", "3".getBytes());
+
+        assertEquals(2, pipeline.getQueueDepth());
+        assertEquals(1, pipeline.getDroppedMessages());
+
+        release.countDown();
+        await().atMost(5, TimeUnit.SECONDS).until(() -> received.size() == 3);
+        assertEquals(List.of("0", "1", "2"), received);
+    }
+
+    @Test
+    void accept_dropOldest_discardsQueuedMessagesWhenFull() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch busy = new CountDownLatch(1);
+        List<String> received = new CopyOnWriteArrayList<>();
+        pipeline = new IngestionPipeline(1, 2, OverflowPolicy.DROP_OLDEST, (topic, payload) -> {
+            busy.countDown();
+            awaitQuietly(release);
+            received.add(payload);
+        });
+
+        pipeline.accept("t", "0".getBytes());
+        assertTrue(busy.await(5, TimeUnit.SECONDS));
+        pipeline.accept("t", "1".getBytes());
+        pipeline.accept("t", "2".getBytes());
+        pipeline.accept("t", "3".getBytes());
+
+        assertEquals(2, pipeline.getQueueDepth());
+        assertEquals(1, pipeline.getDroppedMessages());
+
+        release.countDown();
+        await().atMost(5, TimeUnit.SECONDS).until(() -> received.size() == 3);
+        assertEquals(List.of("0", "2", "3"), received);
+    }
+
+    @Test
+    void accept_handlerThrows_workerKeepsRunning() {
+        List<String> received = new CopyOnWriteArrayList<>();
+        pipeline = new IngestionPipeline(1, 10, OverflowPolicy.BLOCK, (topic, payload) -> {
+            if (payload.equals("bad")) throw new RuntimeException("boom");
+            received.add(payload);
+        });
+
+        pipeline.accept("t", "bad".getBytes());
+        pipeline.accept("t", "good".getBytes());
+
+        await().atMost(5, TimeUnit.SECONDS).until(() -> received.contains("good"));
+    }
+
+    @Test
+    void accept_afterClose_countsMessageAsDropped() {
+        pipeline = new IngestionPipeline(1, 10, OverflowPolicy.BLOCK, (topic, payload) -> {
+        });
+        pipeline.close();
+
+        pipeline.accept("t", "late".getBytes());
+
+        assertEquals(1, pipeline.getDroppedMessages());
+    }
+
+    @Test
+    void close_evaluatesQueuedMessagesBeforeStopping() {
+        CountDownLatch release = new CountDownLatch(1);
+        List<String> received = new CopyOnWriteArrayList<>();
+        pipeline = new IngestionPipeline(1, 10, OverflowPolicy.BLOCK, (topic, payload) -> {
+            awaitQuietly(release);
+            received.add(payload);
+        });
+        for (int i = 0; i < 3; i++) {
+            pipeline.accept("t", String.valueOf(i).getBytes());
+        }
+
+        release.countDown();
+        assertTrue(pipeline.close(5_000));
+
+        assertEquals(List.of("0", "1", "2"), received);
+        assertEquals(0, pipeline.getDroppedMessages());
+    }
+
+    @Test
+    void close_timeoutPassed_discardsMessagesStillQueued() {
+        CountDownLatch release = new CountDownLatch(1);
+        pipeline = new IngestionPipeline(1, 10, OverflowPolicy.BLOCK, (topic, payload) -> awaitQuietly(release));
+        for (int i = 0; i < 3; i++) {
+            pipeline.accept("t", String.valueOf(i).getBytes());
+        }
+
+        assertFalse(pipeline.close(50));
+        release.countDown();
+
+        assertEquals(2, pipeline.getDroppedMessages());
+    }
+
+    private static void awaitQuietly(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Test
+    void accept_passesArrivalTimeToRawHandler() {
+        List<Long> arrivals = new CopyOnWriteArrayList<>();
+        pipeline = new IngestionPipeline(1, 10, OverflowPolicy.BLOCK, new RecordingHandler(arrivals));
+
+        pipeline.accept("sensors/1", new byte[0], 42L);
+
+        await().atMost(5, TimeUnit.SECONDS).until(() -> arrivals.size() == 1);
+        assertEquals(42L, arrivals.get(0));
+    }
+
+    /**
+     * Raw handler recording the arrival time of each message.
+     */
+    private record RecordingHandler(List<Long> arrivals) implements BiConsumer<String, String>, RawMessageHandler {
+        @Override
+        public void accept(String topic, String payload) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void accept(String topic, byte[] payload) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void accept(String topic, byte[] payload, long receivedNanos) {
+            arrivals.add(receivedNanos);
+        }
+    }
+}
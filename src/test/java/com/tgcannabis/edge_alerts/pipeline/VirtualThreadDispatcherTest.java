@@ -0,0 +1,228 @@
+package com.tgcannabis.edge_alerts.pipeline;
+
+import com.google.gson.Gson;
+import com.tgcannabis.edge_alerts.alerts.AlertProcessor;
+import com.tgcannabis.edge_alerts.alerts.AlertStateStore;
+import com.tgcannabis.edge_alerts.alerts.SensorKey;
+import com.tgcannabis.edge_alerts.config.AlertConfigLoader;
+import com.tgcannabis.edge_alerts.config.ThresholdTable;
+import com.tgcannabis.edge_alerts.model.SensorData;
+import com.tgcannabis.edge_alerts.model.SensorThreshold;
+import org.eclipse.paho.client.mqttv3.MqttClient;
+import org.eclipse.paho.client.mqttv3.MqttMessage;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiConsumer;
+
+import static org.awaitility.Awaitility.await;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class VirtualThreadDispatcherTest {
+    private VirtualThreadDispatcher dispatcher;
+
+    @AfterEach
+    void tearDown() {
+        if (dispatcher != null) {
+            dispatcher.close();
+        }
+    }
+
+    @Test
+    void constructor_invalidArguments_throwsException() {
+        BiConsumer<String, String> handler = (topic, payload) -> {
+        };
+        assertThrows(IllegalArgumentException.class, () -> new VirtualThreadDispatcher(0, 10, OverflowPolicy.BLOCK, handler));
+        assertThrows(IllegalArgumentException.class, () -> new VirtualThreadDispatcher(0, OverflowPolicy.BLOCK, handler));
+        assertThrows(NullPointerException.class, () -> new VirtualThreadDispatcher(10, null, handler));
+        assertThrows(NullPointerException.class, () -> new VirtualThreadDispatcher(10, OverflowPolicy.BLOCK, null));
+    }
+
+    @Test
+    void accept_runsOnVirtualThreadsAndKeepsPerTopicOrder() {
+        Map<String, List<String>> received = new ConcurrentHashMap<>();
+        AtomicInteger platformThreadCalls = new AtomicInteger();
+        dispatcher = new VirtualThreadDispatcher(16, 10_000, OverflowPolicy.BLOCK, (topic, payload) -> {
+            if (!Thread.currentThread().isVirtual()) platformThreadCalls.incrementAndGet();
+            received.computeIfAbsent(topic, t -> new CopyOnWriteArrayList<>()).add(payload);
+        });
+
+        for (int i = 0; i < 200; i++) {
+            for (int t = 0; t < 32; t++) {
+                dispatcher.accept("sensors/" + t, String.valueOf(i).getBytes());
+            }
+        }
+
+        await().atMost(5, TimeUnit.SECONDS).until(() -> dispatcher.getProcessedMessages() == 6_400);
+        for (int t = 0; t < 32; t++) {
+            List<String> payloads = received.get("sensors/" + t);
+            assertEquals(200, payloads.size());
+            for (int i = 0; i < 200; i++) {
+                assertEquals(String.valueOf(i), payloads.get(i));
+            }
+        }
+        assertEquals(0, platformThreadCalls.get());
+        assertEquals(0, dispatcher.getQueueDepth());
+        assertEquals(0, dispatcher.getDroppedMessages());
+    }
+
+    @Test
+    void accept_alertThenResolve_publishesInOrder() throws Exception {
+        Instant start = Instant.ofEpochSecond(1_000_000);
+        AlertConfigLoader configLoader = mock(AlertConfigLoader.class);
+        when(configLoader.getThresholdTable()).thenReturn(ThresholdTable.compile(
+                Map.of("temperature", new SensorThreshold(10.0, 30.0, 60, 50, 0, 20, 0)), null));
+        List<String> published = new CopyOnWriteArrayList<>();
+        MqttClient client = mock(MqttClient.class);
+        doAnswer(invocation -> {
+            String alert = new String(invocation.<MqttMessage>getArgument(1).getPayload(), StandardCharsets.UTF_8);
+            if (!alert.contains("RESOLVED")) {
+                Thread.sleep(100); // A slow broker round trip for the alert
+            }
+            published.add(alert);
+            return null;
+        }).when(client).publish(eq("alerts"), any(MqttMessage.class));
+        AlertStateStore stateStore = new AlertStateStore();
+        stateStore.getOrCreate(new SensorKey("temperature", "room-1", "s-1"), start.getEpochSecond())
+                .setFirstEvaluationTime(start.getEpochSecond() - 120);
+        AlertProcessor processor = new AlertProcessor(configLoader, stateStore, client);
+        processor.setClock(Clock.fixed(start, ZoneOffset.UTC));
+        dispatcher = new VirtualThreadDispatcher(100, OverflowPolicy.BLOCK, processor);
+
+        for (int i = 0; i < 21; i++) {
+            double value = i < 4 ? 35.0 : 20.0; // Fires on the first reading, resolves on the last
+            dispatcher.accept("sensors/temperature", new Gson().toJson(
+                    new SensorData("temperature", "room-1", "s-1", value, start.getEpochSecond())).getBytes(StandardCharsets.UTF_8));
+        }
+
+        await().atMost(5, TimeUnit.SECONDS).until(() -> published.size() == 2);
+        assertTrue(published.get(0).contains("\"alertType\":\"TOO_HIGH\""));
+        assertTrue(published.get(1).contains("\"alertType\":\"RESOLVED\""));
+    }
+
+    @Test
+    void accept_sameLane_neverEvaluatesConcurrently() {
+        AtomicInteger active = new AtomicInteger();
+        AtomicInteger maxActive = new AtomicInteger();
+        dispatcher = new VirtualThreadDispatcher(1, 1_000, OverflowPolicy.BLOCK, (topic, payload) -> {
+            maxActive.accumulateAndGet(active.incrementAndGet(), Math::max);
+            Thread.yield();
+            active.decrementAndGet();
+        });
+
+        for (int i = 0; i < 500; i++) {
+            dispatcher.accept("sensors/" + i, new byte[0]);
+        }
+
+        await().atMost(5, TimeUnit.SECONDS).until(() -> dispatcher.getProcessedMessages() == 500);
+        assertEquals(1, maxActive.get());
+    }
+
+    @Test
+    void accept_dropNewest_discardsMessagesOverCapacity() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        dispatcher = new VirtualThreadDispatcher(4, 2, OverflowPolicy.DROP_NEWEST, (topic, payload) -> awaitQuietly(release));
+
+        dispatcher.accept("t", "0".getBytes());
+        dispatcher.accept("t", "1".getBytes());
+        dispatcher.accept("t", "2".getBytes());
+
+        assertEquals(2, dispatcher.getQueueDepth());
+        assertEquals(1, dispatcher.getDroppedMessages());
+
+        release.countDown();
+        await().atMost(5, TimeUnit.SECONDS).until(() -> dispatcher.getProcessedMessages() == 2);
+    }
+
+    @Test
+    void accept_dropOldest_replacesOldestWaitingMessageOfLane() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch busy = new CountDownLatch(1);
+        List<String> received = new CopyOnWriteArrayList<>();
+        dispatcher = new VirtualThreadDispatcher(1, 2, OverflowPolicy.DROP_OLDEST, (topic, payload) -> {
+            busy.countDown();
+            awaitQuietly(release);
+            received.add(payload);
+        });
+
+        dispatcher.accept("t", "0".getBytes());
+        assertTrue(busy.await(5, TimeUnit.SECONDS));
+        dispatcher.accept("t", "1".getBytes());
+        dispatcher.accept("t", "2".getBytes());
+
+        assertEquals(1, dispatcher.getDroppedMessages());
+        release.countDown();
+        await().atMost(5, TimeUnit.SECONDS).until(() -> received.size() == 2);
+        assertEquals(List.of("0", "2"), received);
+    }
+
+    @Test
+    void accept_afterClose_countsMessageAsDropped() {
+        dispatcher = new VirtualThreadDispatcher(10, OverflowPolicy.BLOCK, (topic, payload) -> {
+        });
+        dispatcher.close();
+
+        dispatcher.accept("t", "late".getBytes());
+
+        assertEquals(1, dispatcher.getDroppedMessages());
+    }
+
+    @Test
+    void close_messageQueuedDuringShutdown_isDroppedAndFreesCapacity() throws Exception {
+        CountDownLatch busy = new CountDownLatch(1);
+        dispatcher = new VirtualThreadDispatcher(2, 1, OverflowPolicy.BLOCK, (topic, payload) -> {
+            busy.countDown();
+            awaitQuietly(new CountDownLatch(1)); // Until interrupted by the shutdown
+        });
+        dispatcher.accept("a", new byte[0]);
+        assertTrue(busy.await(5, TimeUnit.SECONDS));
+        // Waits for capacity and reaches its lane, on another lane than "a", once the executor is shut down
+        Thread waiting = Thread.ofPlatform().start(() -> dispatcher.accept("b", new byte[0]));
+        await().atMost(5, TimeUnit.SECONDS).until(() -> waiting.getState() == Thread.State.WAITING);
+
+        assertFalse(dispatcher.close(100));
+
+        waiting.join(5_000);
+        assertEquals(1, dispatcher.getDroppedMessages());
+        assertEquals(0, dispatcher.getQueueDepth());
+    }
+
+    @Test
+    void close_evaluatesWaitingMessagesBeforeStopping() {
+        CountDownLatch release = new CountDownLatch(1);
+        List<String> received = new CopyOnWriteArrayList<>();
+        dispatcher = new VirtualThreadDispatcher(1, 10, OverflowPolicy.BLOCK, (topic, payload) -> {
+            awaitQuietly(release);
+            received.add(payload);
+        });
+        for (int i = 0; i < 3; i++) {
+            dispatcher.accept("t", String.valueOf(i).getBytes());
+        }
+
+        release.countDown();
+        assertTrue(dispatcher.close(5_000));
+
+        assertEquals(List.of("0", "1", "2"), received);
+        assertEquals(0, dispatcher.getDroppedMessages());
+    }
+
+    private static void awaitQuietly(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,236 @@
+package com.tgcannabis.edge_alerts.publisher;
+
+import com.tgcannabis.edge_alerts.model.AlertMessage;
+import org.eclipse.paho.client.mqttv3.IMqttActionListener;
+import org.eclipse.paho.client.mqttv3.IMqttAsyncClient;
+import org.eclipse.paho.client.mqttv3.IMqttDeliveryToken;
+import org.eclipse.paho.client.mqttv3.MqttException;
+import org.eclipse.paho.client.mqttv3.MqttMessage;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+import static org.awaitility.Awaitility.await;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class AsyncAlertPublisherTest {
+    private IMqttAsyncClient mockClient;
+    private AsyncAlertPublisher publisher;
+
+    /**
+     * Messages sent through the mock client, with the user context attached to each.
+     */
+    private final List<MqttMessage> sentMessages = new CopyOnWriteArrayList<>();
+    private final List<Object> sentContexts = new CopyOnWriteArrayList<>();
+    /**
+     * Released once per message sent, so tests wait for sends instead of polling.
+     */
+    private final Semaphore sends = new Semaphore(0);
+    private int awaitedSends;
+
+    @BeforeEach
+    void setUp() throws MqttException {
+        mockClient = mock(IMqttAsyncClient.class);
+        when(mockClient.publish(eq("alerts"), any(MqttMessage.class), any(), any(IMqttActionListener.class)))
+                .thenAnswer(invocation -> {
+                    sentMessages.add(invocation.getArgument(1));
+                    sentContexts.add(invocation.getArgument(2));
+                    sends.release();
+                    return mock(IMqttDeliveryToken.class);
+                });
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (publisher != null) {
+            publisher.close();
+        }
+    }
+
+    private static AlertMessage alert(String sensorId) {
+        return new AlertMessage("temperature", "room-1", sensorId, 35.0, "TOO_HIGH", 60, "temperature has been TOO_HIGH");
+    }
+
+    /**
+     * Waits until the given number of messages have been sent in total. Messages are only acknowledged by
+     * {@link #acknowledge(int)}, which holds back the dispatcher deterministically while the inflight limit is reached.
+     */
+    private void awaitSent(int total) throws InterruptedException {
+        assertTrue(sends.tryAcquire(total - awaitedSends, 5, TimeUnit.SECONDS),
+                "Expected " + total + " sent messages, got " + sentMessages.size());
+        awaitedSends = total;
+    }
+
+    private void acknowledge(int index) {
+        IMqttDeliveryToken token = mock(IMqttDeliveryToken.class);
+        when(token.getUserContext()).thenReturn(sentContexts.get(index));
+        publisher.onDeliveryComplete(token);
+    }
+
+    @Test
+    void constructor_invalidArguments_throwsException() {
+        assertThrows(IllegalArgumentException.class, () -> new AsyncAlertPublisher(mockClient, "alerts", 0, 1, 1));
+        assertThrows(IllegalArgumentException.class, () -> new AsyncAlertPublisher(mockClient, "alerts", 1, 0, 1));
+        assertThrows(IllegalArgumentException.class, () -> new AsyncAlertPublisher(mockClient, "alerts", 1, 1, 0));
+        assertThrows(NullPointerException.class, () -> new AsyncAlertPublisher(null, "alerts", 1, 1, 1));
+    }
+
+    @Test
+    void publish_sendsAlertAsJsonObject() throws InterruptedException {
+        publisher = new AsyncAlertPublisher(mockClient, "alerts", 10, 10, 1);
+
+        publisher.publish(alert("s1"));
+
+        awaitSent(1);
+        String payload = new String(sentMessages.get(0).getPayload());
+        assertTrue(payload.startsWith("{"));
+        assertTrue(payload.contains("\"sensorId\":\"s1\""));
+        // Counted once the client has taken the message, just after the fake client signals the send
+        await().atMost(5, TimeUnit.SECONDS).until(() -> publisher.getPublishedAlerts() == 1);
+    }
+
+    @Test
+    void publish_respectsMaxInflightUntilDeliveryComplete() throws InterruptedException {
+        publisher = new AsyncAlertPublisher(mockClient, "alerts", 10, 1, 1);
+
+        publisher.publish(alert("s1"));
+        publisher.publish(alert("s2"));
+
+        awaitSent(1);
+        await().during(200, TimeUnit.MILLISECONDS).atMost(1, TimeUnit.SECONDS).until(() -> sentMessages.size() == 1);
+        assertEquals(1, publisher.getInflightMessages());
+
+        acknowledge(0);
+
+        awaitSent(2);
+        assertEquals(1, publisher.getDeliveredMessages());
+        assertTrue(publisher.getMaxDeliveryLatencyMillis() >= 0);
+    }
+
+    @Test
+    void publish_coalescesQueuedAlertsIntoJsonArray() throws InterruptedException {
+        publisher = new AsyncAlertPublisher(mockClient, "alerts", 10, 1, 5);
+
+        publisher.publish(alert("first"));
+        awaitSent(1);
+        // The only inflight slot is taken, so these alerts queue up and are sent together
+        publisher.publish(alert("a"));
+        publisher.publish(alert("b"));
+        publisher.publish(alert("c"));
+        acknowledge(0);
+
+        awaitSent(2);
+        String payload = new String(sentMessages.get(1).getPayload());
+        assertTrue(payload.startsWith("["));
+        assertTrue(payload.contains("\"sensorId\":\"a\"") && payload.contains("\"sensorId\":\"b\"") && payload.contains("\"sensorId\":\"c\""));
+        await().atMost(5, TimeUnit.SECONDS).until(() -> publisher.getPublishedMessages() == 2);
+        assertEquals(4, publisher.getPublishedAlerts());
+    }
+
+    @Test
+    void publish_queueFull_dropsAlert() throws InterruptedException {
+        publisher = new AsyncAlertPublisher(mockClient, "alerts", 1, 1, 1);
+
+        publisher.publish(alert("inflight"));
+        awaitSent(1);
+        // The dispatcher waits for the inflight slot before taking anything from the queue
+        publisher.publish(alert("queued"));
+        publisher.publish(alert("dropped"));
+
+        assertEquals(1, publisher.getDroppedAlerts());
+        assertEquals(1, publisher.getQueueDepth());
+    }
+
+    @Test
+    void publish_clientThrows_releasesInflightSlot() throws MqttException {
+        when(mockClient.publish(eq("alerts"), any(MqttMessage.class), any(), any(IMqttActionListener.class)))
+                .thenThrow(new MqttException(MqttException.REASON_CODE_CLIENT_NOT_CONNECTED));
+        publisher = new AsyncAlertPublisher(mockClient, "alerts", 10, 1, 1);
+
+        publisher.publish(alert("s1"));
+        publisher.publish(alert("s2"));
+
+        await().atMost(5, TimeUnit.SECONDS).until(() -> publisher.getFailedMessages() == 2);
+        assertEquals(0, publisher.getInflightMessages());
+    }
+
+    @Test
+    void onDeliveryComplete_foreignToken_isIgnored() {
+        publisher = new AsyncAlertPublisher(mockClient, "alerts", 10, 1, 1);
+        IMqttDeliveryToken token = mock(IMqttDeliveryToken.class);
+        when(token.getUserContext()).thenReturn(null);
+
+        publisher.onDeliveryComplete(token);
+
+        assertEquals(0, publisher.getDeliveredMessages());
+        assertEquals(0, publisher.getInflightMessages());
+    }
+
+    @Test
+    void close_sendsQueuedAlertsAndRejectsNewOnes() {
+        publisher = new AsyncAlertPublisher(mockClient, "alerts", 10, 10, 1);
+        publisher.publish(alert("s1"));
+        publisher.publish(alert("s2"));
+
+        publisher.close();
+        publisher.publish(alert("late"));
+
+        assertEquals(2, sentMessages.size());
+        assertEquals(1, publisher.getDroppedAlerts());
+        publisher = null;
+    }
+
+    @Test
+    void closeWithTimeout_waitsForAcknowledgementOfSentMessages() throws Exception {
+        publisher = new AsyncAlertPublisher(mockClient, "alerts", 10, 10, 1);
+        publisher.publish(alert("s1"));
+        awaitSent(1);
+
+        AsyncAlertPublisher closing = publisher;
+        CompletableFuture<Boolean> closed = CompletableFuture.supplyAsync(() -> closing.close(5_000));
+        Thread.sleep(100);
+        assertFalse(closed.isDone());
+
+        acknowledge(0);
+        assertTrue(closed.get(5, TimeUnit.SECONDS));
+        publisher = null;
+    }
+
+    @Test
+    void closeWithTimeout_unacknowledgedMessage_returnsFalseAfterTimeout() throws InterruptedException {
+        publisher = new AsyncAlertPublisher(mockClient, "alerts", 10, 10, 1);
+        publisher.publish(alert("s1"));
+        awaitSent(1);
+
+        assertFalse(publisher.close(100));
+        assertEquals(1, publisher.getInflightMessages());
+        publisher = null;
+    }
+
+    @Test
+    void onDeliveryComplete_notifiesDeliveryListenerOfEveryCoalescedAlert() throws InterruptedException {
+        publisher = new AsyncAlertPublisher(mockClient, "alerts", 10, 1, 10);
+        List<String> delivered = new CopyOnWriteArrayList<>();
+        publisher.setDeliveryListener(alert -> delivered.add(alert.getSensorId()));
+
+        publisher.publish(alert("s1"));
+        awaitSent(1);
+        publisher.publish(alert("s2"));
+        publisher.publish(alert("s3"));
+        acknowledge(0);
+        awaitSent(2);
+        assertEquals(List.of("s1"), delivered);
+
+        acknowledge(1);
+        assertEquals(List.of("s1", "s2", "s3"), delivered);
+    }
+}
@@ -0,0 +1,64 @@
+package com.tgcannabis.edge_alerts.publisher;
+
+import com.tgcannabis.edge_alerts.model.AlertMessage;
+import org.eclipse.paho.client.mqttv3.MqttClient;
+import org.eclipse.paho.client.mqttv3.MqttException;
+import org.eclipse.paho.client.mqttv3.MqttMessage;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class MqttAlertPublisherTest {
+
+    @Test
+    void constructor_nullClient_throwsException() {
+        NullPointerException ex = assertThrows(NullPointerException.class, () -> new MqttAlertPublisher(null));
+        assertEquals("MQTT client cannot be null", ex.getMessage());
+    }
+
+    @Test
+    void publish_sendsJsonToAlertsTopic() throws MqttException {
+        MqttClient client = mock(MqttClient.class);
+        MqttAlertPublisher publisher = new MqttAlertPublisher(client);
+
+        publisher.publish(new AlertMessage("co2", "room-2", "c1", 900.0, "TOO_HIGH", 120, "co2 has been TOO_HIGH"));
+
+        ArgumentCaptor<MqttMessage> captor = ArgumentCaptor.forClass(MqttMessage.class);
+        verify(client).publish(eq("alerts"), captor.capture());
+        String payload = new String(captor.getValue().getPayload());
+        assertTrue(payload.contains("\"sensorType\":\"co2\""));
+        assertTrue(payload.contains("\"location\":\"room-2\""));
+    }
+
+    @Test
+    void publish_clientThrows_doesNotPropagate() throws MqttException {
+        MqttClient client = mock(MqttClient.class);
+        doThrow(new MqttException(MqttException.REASON_CODE_CLIENT_NOT_CONNECTED))
+                .when(client).publish(anyString(), any(MqttMessage.class));
+
+        assertDoesNotThrow(() -> new MqttAlertPublisher(client).publish(new AlertMessage()));
+    }
+
+    @Test
+    void publish_notifiesDeliveryListenerOnlyWhenAcknowledged() throws MqttException {
+        MqttClient client = mock(MqttClient.class);
+        MqttAlertPublisher publisher = new MqttAlertPublisher(client);
+        List<AlertMessage> delivered = new ArrayList<>();
+        publisher.setDeliveryListener(delivered::add);
+        AlertMessage alert = new AlertMessage("co2", "room-2", "c1", 900.0, "TOO_HIGH", 120, "co2 has been TOO_HIGH");
+
+        publisher.publish(alert);
+        doThrow(new MqttException(MqttException.REASON_CODE_CLIENT_NOT_CONNECTED))
+                .when(client).publish(anyString(), any(MqttMessage.class));
+        publisher.publish(new AlertMessage());
+
+        assertEquals(List.of(alert), delivered);
+    }
+}
@@ -0,0 +1,155 @@
+package com.tgcannabis.edge_alerts.publisher;
+
+import com.tgcannabis.edge_alerts.model.AlertMessage;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.awaitility.Awaitility.await;
+import static org.junit.jupiter.api.Assertions.*;
+
+class SpoolingAlertPublisherTest {
+    private final List<String> published = new CopyOnWriteArrayList<>();
+    private final AlertPublisher delegate = alert -> published.add(alert.getSensorId());
+    private final AtomicBoolean connected = new AtomicBoolean(true);
+    private SpoolingAlertPublisher publisher;
+
+    @AfterEach
+    void tearDown() {
+        if (publisher != null) {
+            publisher.close();
+        }
+    }
+
+    private static AlertMessage alert(String sensorId) {
+        return new AlertMessage("temperature", "room-1", sensorId, 35.0, "TOO_HIGH", 60, "temperature has been TOO_HIGH");
+    }
+
+    @Test
+    void constructor_invalidLimits_throwsException() {
+        assertThrows(IllegalArgumentException.class, () -> new SpoolingAlertPublisher(delegate, connected::get, 0, 10));
+        assertThrows(IllegalArgumentException.class, () -> new SpoolingAlertPublisher(delegate, connected::get, 10, 0));
+    }
+
+    @Test
+    void publish_whileConnected_sendsDirectly() {
+        publisher = new SpoolingAlertPublisher(delegate, connected::get, 10, 1_000);
+
+        publisher.publish(alert("a"));
+
+        assertEquals(List.of("a"), published);
+        assertEquals(0, publisher.getSpooledAlerts());
+    }
+
+    @Test
+    void publish_whileDisconnected_spoolsAndFlushesInOrderAfterReconnect() {
+        publisher = new SpoolingAlertPublisher(delegate, connected::get, 10, 1_000);
+        connected.set(false);
+
+        publisher.publish(alert("a"));
+        publisher.publish(alert("b"));
+        assertTrue(published.isEmpty());
+        assertEquals(2, publisher.getSpoolDepth());
+
+        connected.set(true);
+        publisher.publish(alert("c")); // Queued behind the backlog to keep the order
+
+        await().atMost(2, TimeUnit.SECONDS).until(() -> published.size() == 3);
+        assertEquals(List.of("a", "b", "c"), published);
+        assertEquals(3, publisher.getFlushedAlerts());
+        assertEquals(0, publisher.getSpoolDepth());
+    }
+
+    @Test
+    void publish_whileFlushingLastSpooledAlert_spoolsBehindIt() throws InterruptedException {
+        CountDownLatch sending = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        publisher = new SpoolingAlertPublisher(alert -> {
+            if (alert.getSensorId().equals("a")) {
+                sending.countDown();
+                awaitQuietly(release);
+            }
+            published.add(alert.getSensorId());
+        }, connected::get, 10, 1_000);
+        connected.set(false);
+        publisher.publish(alert("a"));
+
+        connected.set(true);
+        assertTrue(sending.await(2, TimeUnit.SECONDS));
+        publisher.publish(alert("b")); // The spooled alert is still being sent
+
+        assertTrue(published.isEmpty());
+        assertEquals(2, publisher.getSpoolDepth());
+        release.countDown();
+        await().atMost(2, TimeUnit.SECONDS).until(() -> published.size() == 2);
+        assertEquals(List.of("a", "b"), published);
+    }
+
+    @Test
+    void publish_spoolFullWhileFlushing_dropsOldestWaitingAlert() throws InterruptedException {
+        CountDownLatch sending = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        publisher = new SpoolingAlertPublisher(alert -> {
+            if (alert.getSensorId().equals("a")) {
+                sending.countDown();
+                awaitQuietly(release);
+            }
+            published.add(alert.getSensorId());
+        }, connected::get, 1, 1_000);
+        connected.set(false);
+        publisher.publish(alert("a"));
+        connected.set(true);
+        assertTrue(sending.await(2, TimeUnit.SECONDS));
+
+        publisher.publish(alert("b"));
+        publisher.publish(alert("c")); // Drops b, not a, which is being sent
+
+        assertEquals(1, publisher.getDroppedAlerts());
+        release.countDown();
+        await().atMost(2, TimeUnit.SECONDS).until(() -> published.size() == 2);
+        assertEquals(List.of("a", "c"), published);
+    }
+
+    @Test
+    void publish_spoolFull_dropsOldestAlert() {
+        publisher = new SpoolingAlertPublisher(delegate, connected::get, 2, 1_000);
+        connected.set(false);
+
+        publisher.publish(alert("a"));
+        publisher.publish(alert("b"));
+        publisher.publish(alert("c"));
+
+        assertEquals(1, publisher.getDroppedAlerts());
+        connected.set(true);
+        await().atMost(2, TimeUnit.SECONDS).until(() -> published.size() == 2);
+        assertEquals(List.of("b", "c"), published);
+    }
+
+    @Test
+    void flush_isRateLimited() {
+        publisher = new SpoolingAlertPublisher(delegate, connected::get, 10, 5); // One alert every 200 ms
+        connected.set(false);
+        for (int i = 0; i < 3; i++) {
+            publisher.publish(alert("s" + i));
+        }
+
+        long start = System.nanoTime();
+        connected.set(true);
+        await().atMost(3, TimeUnit.SECONDS).until(() -> published.size() == 3);
+
+        assertTrue(System.nanoTime() - start >= TimeUnit.MILLISECONDS.toNanos(400));
+    }
+
+    private static void awaitQuietly(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}